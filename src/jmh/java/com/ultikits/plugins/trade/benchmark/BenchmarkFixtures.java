@@ -0,0 +1,135 @@
+package com.ultikits.plugins.trade.benchmark;
+
+import com.ultikits.plugins.trade.BukkitFakes;
+import com.ultikits.plugins.trade.entity.TradeLogData;
+
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.*;
+
+/**
+ * Shared fixtures for the JMH suites.
+ * <p>
+ * Bukkit interfaces are the {@link BukkitFakes} proxies the allocation
+ * budget tests use, not Mockito mocks, so the per-op numbers describe the
+ * plugin rather than Mockito's dispatch and stubbing.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+final class BenchmarkFixtures {
+
+    static final int ITEMS_PER_SIDE = 16;
+    static final int BLACKLIST_SIZE = 500;
+    static final int LOG_ROWS = 100_000;
+    static final int LOG_PLAYERS = 1_000;
+
+    private static final Enchantment[] ENCHANTMENTS = {
+        Enchantment.DAMAGE_ALL, Enchantment.DURABILITY, Enchantment.MENDING,
+        Enchantment.FIRE_ASPECT, Enchantment.LOOT_BONUS_MOBS
+    };
+    private static final Material[] ITEM_TYPES = {
+        Material.DIAMOND_SWORD, Material.NETHERITE_PICKAXE, Material.DIAMOND_CHESTPLATE, Material.BOW
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Install a fake server whose item factory and inventories behave like
+     * the real ones closely enough for item and GUI code.
+     *
+     * @param players Players returned by {@code getPlayer(UUID)}
+     */
+    static void installServer(Player... players) throws Exception {
+        BukkitFakes.installServer(players);
+    }
+
+    static void uninstallServer() throws Exception {
+        BukkitFakes.uninstallServer();
+    }
+
+    static Player player(String name, UUID uuid) {
+        return BukkitFakes.player(name, uuid);
+    }
+
+    /**
+     * Named, lored, damaged item with three enchantments, the heavy end of
+     * what players put into a trade. Needs {@link #installServer(Player...)}.
+     */
+    static ItemStack enchantedItem(int index) {
+        Material type = ITEM_TYPES[index % ITEM_TYPES.length];
+        Map<Enchantment, Integer> enchants = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            enchants.put(ENCHANTMENTS[(index + i) % ENCHANTMENTS.length], 1 + (index + i) % 5);
+        }
+
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("hasDisplayName", Boolean.TRUE);
+        answers.put("getDisplayName", "§6传说之刃 #" + index);
+        answers.put("hasLore", Boolean.TRUE);
+        answers.put("getLore", Arrays.asList("§7锻造于下界", "§7拥有者: Steve", "§8#" + index));
+        answers.put("getDamage", 100 + index);
+        answers.put("hasEnchants", Boolean.TRUE);
+        answers.put("getEnchants", enchants);
+        ItemMeta meta = BukkitFakes.fake(ItemMeta.class, answers, Damageable.class);
+
+        ItemStack item = new ItemStack(type, 1);
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    static List<ItemStack> enchantedItems() {
+        List<ItemStack> items = new ArrayList<>(ITEMS_PER_SIDE);
+        for (int i = 0; i < ITEMS_PER_SIDE; i++) {
+            items.add(enchantedItem(i));
+        }
+        return items;
+    }
+
+    /**
+     * Player UUIDs for a blacklist of {@link #BLACKLIST_SIZE} entries.
+     */
+    static List<String> blacklist() {
+        List<String> uuids = new ArrayList<>(BLACKLIST_SIZE);
+        for (int i = 0; i < BLACKLIST_SIZE; i++) {
+            uuids.add(UUID.randomUUID().toString());
+        }
+        return uuids;
+    }
+
+    /**
+     * {@link #LOG_ROWS} completed trades between {@link #LOG_PLAYERS} players
+     * over the last 30 days, from a fixed seed.
+     */
+    static List<TradeLogData> tradeLogs(List<UUID> players) {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        List<TradeLogData> logs = new ArrayList<>(LOG_ROWS);
+        for (int i = 0; i < LOG_ROWS; i++) {
+            UUID first = players.get(random.nextInt(players.size()));
+            UUID second = players.get(random.nextInt(players.size()));
+            TradeLogData log = new TradeLogData(UUID.randomUUID(), first, "P" + i, second, "Q" + i);
+            log.setId(log.getTradeId());
+            log.setTradeTime(now - (long) (random.nextDouble() * 30L * 24L * 60L * 60L * 1000L));
+            log.setPlayer1Money(random.nextInt(10_000));
+            log.setPlayer1ItemsJson("[{\"type\":\"DIAMOND\",\"amount\":" + (1 + random.nextInt(64)) + "}]");
+            log.markCompleted();
+            logs.add(log);
+        }
+        return logs;
+    }
+
+    static List<UUID> players() {
+        List<UUID> players = new ArrayList<>(LOG_PLAYERS);
+        for (int i = 0; i < LOG_PLAYERS; i++) {
+            players.add(new UUID(0L, i));
+        }
+        return players;
+    }
+}
@@ -0,0 +1,48 @@
+package com.ultikits.plugins.trade.benchmark;
+
+import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blacklist checks made on every trade request, against a
+ * {@value BenchmarkFixtures#BLACKLIST_SIZE}-entry list.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerTradeSettingsBenchmark {
+
+    private PlayerTradeSettings settings;
+    private String blocked;
+    private String stranger;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> blacklist = BenchmarkFixtures.blacklist();
+        settings = new PlayerTradeSettings(UUID.randomUUID(), "Steve");
+        settings.setBlockedPlayers(blacklist);
+        blocked = blacklist.get(blacklist.size() / 2);
+        stranger = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public boolean isBlockedHit() {
+        return settings.isBlocked(blocked);
+    }
+
+    @Benchmark
+    public boolean isBlockedMiss() {
+        return settings.isBlocked(stranger);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ultikits.plugins.trade.benchmark;
+
+import com.ultikits.plugins.trade.entity.SerializedItemStack;
+
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing one side of a full trade for the trade log.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializedItemStackBenchmark {
+
+    private List<ItemStack> items;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkFixtures.installServer();
+        items = BenchmarkFixtures.enchantedItems();
+        json = SerializedItemStack.itemsToJson(items);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkFixtures.uninstallServer();
+    }
+
+    @Benchmark
+    public String itemsToJson() {
+        return SerializedItemStack.itemsToJson(items);
+    }
+
+    @Benchmark
+    public List<SerializedItemStack> listFromJson() {
+        return SerializedItemStack.listFromJson(json);
+    }
+}
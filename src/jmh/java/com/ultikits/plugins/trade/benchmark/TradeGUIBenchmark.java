@@ -0,0 +1,77 @@
+package com.ultikits.plugins.trade.benchmark;
+
+import com.ultikits.plugins.trade.BukkitFakes;
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.gui.TradeGUI;
+import com.ultikits.plugins.trade.gui.TradeLayout;
+import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.plugins.trade.service.TradeService;
+
+import net.milkbowl.vault.economy.Economy;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redrawing the trade window, which happens for both players on every
+ * offer change. Both sides hold {@value BenchmarkFixtures#ITEMS_PER_SIDE}
+ * enchanted items so every "their item" slot gets a detail lore. The
+ * window reads a real {@link TradeService}, as on a server.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeGUIBenchmark {
+
+    private TradeGUI gui;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        UUID uuid1 = UUID.randomUUID();
+        UUID uuid2 = UUID.randomUUID();
+        Player player1 = BenchmarkFixtures.player("Steve", uuid1);
+        Player player2 = BenchmarkFixtures.player("Alex", uuid2);
+        BenchmarkFixtures.installServer(player1, player2);
+
+        TradeConfig config = new TradeConfig();
+        config.setOfferPages(1);
+        config.setGuiTitle("&6与 {PLAYER} 交易");
+        config.setEnableMoneyTrade(true);
+        config.setEnableExpTrade(true);
+        config.setTradeTax(0.05);
+        TradeService tradeService = new TradeService();
+        UltiTradeTestHelper.setField(tradeService, "config", config);
+        UltiTradeTestHelper.setField(tradeService, "economy", BukkitFakes.fake(Economy.class, new HashMap<>()));
+        UltiTradeTestHelper.setField(tradeService, "logService", new TradeLogService());
+
+        TradeSession session = new TradeSession(player1, player2, tradeService.getSettings());
+        session.offerItems(uuid1, BenchmarkFixtures.enchantedItems(), TradeLayout.DEFAULT_TRADE.getItemCapacity());
+        session.offerItems(uuid2, BenchmarkFixtures.enchantedItems(), TradeLayout.DEFAULT_TRADE.getItemCapacity());
+        session.setMoney(uuid1, 1500.0);
+        session.setExp(uuid2, 120);
+
+        gui = new TradeGUI(tradeService, session, player1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkFixtures.uninstallServer();
+    }
+
+    @Benchmark
+    public TradeGUI update() {
+        gui.update();
+        return gui;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ultikits.plugins.trade.benchmark;
+
+import com.ultikits.plugins.trade.BukkitFakes;
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.entity.TradeLogData;
+import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.ultitools.interfaces.DataOperator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a player's recent trades from a
+ * {@value BenchmarkFixtures#LOG_ROWS}-row trade_logs table held in memory.
+ * Each read gets a fresh row list, as a database read would.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TradeLogServiceBenchmark {
+
+    @Param({"10", "50"})
+    public int limit;
+
+    private TradeLogService service;
+    private UUID player;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        UltiTradeTestHelper.setUp();
+        List<UUID> players = BenchmarkFixtures.players();
+        List<TradeLogData> rows = BenchmarkFixtures.tradeLogs(players);
+        player = players.get(0);
+
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getAll", (BukkitFakes.Answer) args -> new ArrayList<>(rows));
+        DataOperator<TradeLogData> logOperator = BukkitFakes.fake(DataOperator.class, answers);
+
+        service = new TradeLogService();
+        UltiTradeTestHelper.setField(service, "plugin", UltiTradeTestHelper.getMockPlugin());
+        UltiTradeTestHelper.setField(service, "logOperator", logOperator);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        UltiTradeTestHelper.tearDown();
+    }
+
+    @Benchmark
+    public List<TradeLogData> getPlayerLogs() {
+        return service.getPlayerLogs(player, limit);
+    }
+}
@@ -61,6 +61,11 @@ public class UltiTrade extends UltiToolsPlugin {
 
     @Override
     public void reloadSelf() {
+        TradeService tradeService = getContext().getBean(TradeService.class);
+        if (tradeService != null && !tradeService.reload().isEmpty()) {
+            getLogger().warn(i18n("UltiTrade 配置有误，已保留原配置！"));
+            return;
+        }
         getLogger().info(i18n("UltiTrade 配置已重载！"));
     }
 
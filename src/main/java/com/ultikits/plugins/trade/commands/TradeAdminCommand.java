@@ -0,0 +1,496 @@
+package com.ultikits.plugins.trade.commands;
+
+import com.ultikits.plugins.trade.entity.TradeLogData;
+import com.ultikits.plugins.trade.entity.TradeLogItem;
+import com.ultikits.plugins.trade.service.TradeLogExporter;
+import com.ultikits.plugins.trade.service.TradeLogFilter;
+import com.ultikits.plugins.trade.service.TradeLogPage;
+import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.plugins.trade.service.TradeMetrics;
+import com.ultikits.ultitools.abstracts.command.BaseCommandExecutor;
+import com.ultikits.ultitools.annotations.command.*;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Admin command executor for trade audits.
+ * Database work runs off the main thread; results are sent back on it.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@CmdTarget(CmdTarget.CmdTargetType.BOTH)
+@CmdExecutor(
+    alias = {"tradeadmin", "ta"},
+    permission = "ultitrade.admin",
+    description = "交易管理"
+)
+public class TradeAdminCommand extends BaseCommandExecutor {
+
+    private static final int SEARCH_LIMIT = 10;
+    private static final int DEFAULT_SEARCH_DAYS = 7;
+    private static final long DAY_MILLIS = 24L * 60L * 60L * 1000L;
+    private static final int LOGS_PAGE_SIZE = 10;
+    private static final long EXPORT_PROGRESS_INTERVAL = 2000L;
+    private static final int ARCHIVE_LIMIT = 10;
+
+    private final TradeLogService logService;
+
+    // Open log queries by sender name, for "logs next"
+    private final Map<String, LogQuery> logQueries = new ConcurrentHashMap<>();
+
+    // Only one export runs at a time
+    private final AtomicBoolean exporting = new AtomicBoolean(false);
+
+    private static final class LogQuery {
+        final TradeLogFilter filter;
+        final TradeLogPage.Cursor cursor;
+        final int page;
+
+        LogQuery(TradeLogFilter filter, TradeLogPage.Cursor cursor, int page) {
+            this.filter = filter;
+            this.cursor = cursor;
+            this.page = page;
+        }
+    }
+
+    public TradeAdminCommand(TradeLogService logService) {
+        this.logService = logService;
+    }
+
+    @CmdMapping(format = "search <material>")
+    public void search(@CmdSender CommandSender sender, @CmdParam("material") String materialName) {
+        search(sender, materialName, "1", String.valueOf(DEFAULT_SEARCH_DAYS));
+    }
+
+    @CmdMapping(format = "search <material> <min>")
+    public void search(@CmdSender CommandSender sender, @CmdParam("material") String materialName,
+                       @CmdParam("min") String min) {
+        search(sender, materialName, min, String.valueOf(DEFAULT_SEARCH_DAYS));
+    }
+
+    @CmdMapping(format = "search <material> <min> <days>")
+    public void search(@CmdSender CommandSender sender, @CmdParam("material") String materialName,
+                       @CmdParam("min") String min, @CmdParam("days") String days) {
+        Material material = Material.matchMaterial(materialName);
+        if (material == null) {
+            sender.sendMessage(ChatColor.RED + "未知的物品类型: " + materialName);
+            return;
+        }
+        int minAmount;
+        int dayCount;
+        try {
+            minAmount = Integer.parseInt(min);
+            dayCount = Integer.parseInt(days);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(ChatColor.RED + "数量和天数必须是整数！");
+            return;
+        }
+        if (minAmount < 1 || dayCount < 1) {
+            sender.sendMessage(ChatColor.RED + "数量和天数必须大于 0！");
+            return;
+        }
+
+        long to = System.currentTimeMillis();
+        long from = to - dayCount * DAY_MILLIS;
+        sender.sendMessage(ChatColor.GRAY + "正在搜索...");
+        runAsync(() -> {
+            List<TradeLogItem> hits = logService.searchItemTrades(material, minAmount, from, to, SEARCH_LIMIT);
+            List<String> lines = new ArrayList<>();
+            lines.add(ChatColor.GOLD + "=== " + material.name() + " ≥" + minAmount
+                + " (近 " + dayCount + " 天) ===");
+            if (hits.isEmpty()) {
+                lines.add(ChatColor.GRAY + "没有找到匹配的交易");
+            }
+            for (TradeLogItem hit : hits) {
+                lines.add(formatHit(hit, logService.getLog(hit.getTradeId())));
+            }
+            runSync(() -> lines.forEach(sender::sendMessage));
+        });
+    }
+
+    @CmdMapping(format = "logs")
+    public void logs(@CmdSender CommandSender sender) {
+        runLogQuery(sender, new LogQuery(new TradeLogFilter(), null, 1), null, null);
+    }
+
+    private void logsNext(CommandSender sender) {
+        LogQuery query = logQueries.get(sender.getName());
+        if (query == null) {
+            sender.sendMessage(ChatColor.RED + "没有可以翻页的查询！");
+            return;
+        }
+        runLogQuery(sender, query, null, null);
+    }
+
+    @CmdMapping(format = "logs <filter>")
+    public void logs(@CmdSender CommandSender sender, @CmdParam("filter") String spec) {
+        if (spec.equalsIgnoreCase("next")) {
+            logsNext(sender);
+            return;
+        }
+        TradeLogFilter filter = new TradeLogFilter();
+        String playerName = null;
+        String partnerName = null;
+        try {
+            for (String part : spec.split(",")) {
+                int colon = part.indexOf(':');
+                if (colon <= 0 || colon == part.length() - 1) {
+                    throw new IllegalArgumentException("条件格式应为 键:值 — " + part);
+                }
+                String key = part.substring(0, colon).toLowerCase();
+                String value = part.substring(colon + 1);
+                switch (key) {
+                    case "player":
+                        playerName = value;
+                        break;
+                    case "with":
+                        partnerName = value;
+                        break;
+                    case "status":
+                        if (!value.equalsIgnoreCase("completed") && !value.equalsIgnoreCase("cancelled")) {
+                            throw new IllegalArgumentException("状态只能是 completed 或 cancelled");
+                        }
+                        filter.setStatus(value.toUpperCase());
+                        break;
+                    case "days":
+                        filter.setFrom(System.currentTimeMillis() - positive(value) * DAY_MILLIS);
+                        break;
+                    case "minmoney":
+                        filter.setMinMoney((double) positive(value));
+                        break;
+                    case "minexp":
+                        filter.setMinExp(positive(value));
+                        break;
+                    case "reason":
+                        filter.setCancelReason(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("未知的条件: " + key);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(ChatColor.RED + e.getMessage());
+            return;
+        }
+        runLogQuery(sender, new LogQuery(filter, null, 1), playerName, partnerName);
+    }
+
+    private static int positive(String value) {
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("数值必须是整数: " + value);
+        }
+        if (number < 1) {
+            throw new IllegalArgumentException("数值必须大于 0: " + value);
+        }
+        return number;
+    }
+
+    private void runLogQuery(CommandSender sender, LogQuery query, String playerName, String partnerName) {
+        sender.sendMessage(ChatColor.GRAY + "正在查询...");
+        runAsync(() -> {
+            TradeLogFilter filter = query.filter;
+            if (playerName != null || partnerName != null) {
+                String player = playerName == null ? null : logService.findPlayerUuid(playerName);
+                String partner = partnerName == null ? null : logService.findPlayerUuid(partnerName);
+                if ((playerName != null && player == null) || (partnerName != null && partner == null)) {
+                    String unknown = playerName != null && player == null ? playerName : partnerName;
+                    runSync(() -> sender.sendMessage(ChatColor.RED + "未找到玩家: " + unknown));
+                    return;
+                }
+                filter.setPlayer(player);
+                filter.setPartner(partner);
+            }
+
+            TradeLogPage page = logService.queryLogs(filter, query.cursor, LOGS_PAGE_SIZE);
+            List<String> lines = new ArrayList<>();
+            lines.add(ChatColor.GOLD + "=== 交易记录 第 " + query.page + " 页 ===");
+            if (page.getLogs().isEmpty()) {
+                lines.add(ChatColor.GRAY + "没有找到匹配的交易");
+            }
+            for (TradeLogData log : page.getLogs()) {
+                lines.add(formatLog(log));
+            }
+            if (page.hasNext()) {
+                logQueries.put(sender.getName(), new LogQuery(filter, page.getNext(), query.page + 1));
+                lines.add(ChatColor.GRAY + "已扫描 " + page.getScanned() + " 条，输入 "
+                    + ChatColor.YELLOW + "/tradeadmin logs next" + ChatColor.GRAY + " 查看下一页");
+            } else {
+                logQueries.remove(sender.getName());
+                lines.add(ChatColor.GRAY + "没有更多记录了");
+            }
+            runSync(() -> lines.forEach(sender::sendMessage));
+        });
+    }
+
+    private static String formatLog(TradeLogData log) {
+        boolean cancelled = "CANCELLED".equals(log.getStatus());
+        StringBuilder line = new StringBuilder()
+            .append(ChatColor.YELLOW).append(new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(log.getTradeTime())))
+            .append(' ').append(ChatColor.WHITE).append(log.getPlayer1Name())
+            .append(ChatColor.GRAY).append(" ⇄ ").append(ChatColor.WHITE).append(log.getPlayer2Name())
+            .append(cancelled ? ChatColor.RED + " 已取消" : ChatColor.GREEN + " 已完成");
+        if (log.getPlayer1Money() > 0 || log.getPlayer2Money() > 0) {
+            line.append(ChatColor.GOLD).append(String.format(" 金币 %.2f/%.2f", log.getPlayer1Money(), log.getPlayer2Money()));
+        }
+        if (log.getPlayer1Exp() > 0 || log.getPlayer2Exp() > 0) {
+            line.append(ChatColor.AQUA).append(" 经验 ").append(log.getPlayer1Exp()).append('/').append(log.getPlayer2Exp());
+        }
+        if (cancelled && log.getCancelReason() != null) {
+            line.append(ChatColor.GRAY).append(" (").append(log.getCancelReason()).append(')');
+        }
+        String id = log.getTradeId() == null ? "" : log.getTradeId().substring(0, Math.min(8, log.getTradeId().length()));
+        return line.append(ChatColor.DARK_GRAY).append(" #").append(id).toString();
+    }
+
+    @CmdMapping(format = "export <from> <to>")
+    public void export(@CmdSender CommandSender sender, @CmdParam("from") String from, @CmdParam("to") String to) {
+        export(sender, from, to, "csv");
+    }
+
+    @CmdMapping(format = "export <from> <to> <format>")
+    public void export(@CmdSender CommandSender sender, @CmdParam("from") String from, @CmdParam("to") String to,
+                       @CmdParam("format") String formatName) {
+        TradeLogExporter.Format format = TradeLogExporter.Format.parse(formatName);
+        if (format == null) {
+            sender.sendMessage(ChatColor.RED + "未知的导出格式！可选: csv, ndjson");
+            return;
+        }
+        LocalDate first;
+        LocalDate last;
+        try {
+            first = LocalDate.parse(from);
+            last = LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            sender.sendMessage(ChatColor.RED + "日期格式应为 yyyy-MM-dd！");
+            return;
+        }
+        if (last.isBefore(first)) {
+            sender.sendMessage(ChatColor.RED + "结束日期不能早于开始日期！");
+            return;
+        }
+        if (!exporting.compareAndSet(false, true)) {
+            sender.sendMessage(ChatColor.RED + "已有导出任务正在进行！");
+            return;
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        TradeLogFilter filter = TradeLogFilter.builder()
+            .from(first.atStartOfDay(zone).toInstant().toEpochMilli())
+            .to(last.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1)
+            .build();
+        boolean gzip = logService.getConfig().isExportGzip();
+        String name = "trades-" + first + "-" + last + "-"
+            + new SimpleDateFormat("yyyyMMddHHmmss").format(new Date())
+            + "." + format.getExtension() + (gzip ? ".gz" : "");
+        File target = new File(new File(getBukkitPlugin().getDataFolder(), "UltiTrade/exports"), name);
+
+        sender.sendMessage(ChatColor.GRAY + "开始导出 " + first + " 至 " + last + " 的交易记录...");
+        runAsync(() -> {
+            long[] lastReport = {System.currentTimeMillis()};
+            try {
+                long rows = new TradeLogExporter(logService).export(filter, format, gzip, target, written -> {
+                    long now = System.currentTimeMillis();
+                    if (now - lastReport[0] >= EXPORT_PROGRESS_INTERVAL) {
+                        lastReport[0] = now;
+                        runSync(() -> sender.sendMessage(ChatColor.GRAY + "已导出 " + written + " 条..."));
+                    }
+                });
+                runSync(() -> sender.sendMessage(ChatColor.GREEN + "导出完成，共 " + rows + " 条: "
+                    + ChatColor.WHITE + target.getPath()));
+            } catch (IOException e) {
+                runSync(() -> sender.sendMessage(ChatColor.RED + "导出失败: " + e.getMessage()));
+            } finally {
+                exporting.set(false);
+            }
+        });
+    }
+
+    @CmdMapping(format = "archive")
+    public void archive(@CmdSender CommandSender sender) {
+        runAsync(() -> {
+            List<YearMonth> months = logService.getArchivedMonths();
+            List<String> lines = new ArrayList<>();
+            lines.add(ChatColor.GOLD + "=== 已归档月份 ===");
+            if (months.isEmpty()) {
+                lines.add(ChatColor.GRAY + "暂无归档");
+            } else {
+                lines.add(ChatColor.WHITE + months.stream().map(YearMonth::toString).collect(Collectors.joining(", ")));
+            }
+            runSync(() -> lines.forEach(sender::sendMessage));
+        });
+    }
+
+    @CmdMapping(format = "archive <month>")
+    public void archive(@CmdSender CommandSender sender, @CmdParam("month") String month) {
+        archive(sender, month, null);
+    }
+
+    @CmdMapping(format = "archive <month> <player>")
+    public void archive(@CmdSender CommandSender sender, @CmdParam("month") String monthName,
+                        @CmdParam("player") String playerName) {
+        YearMonth month;
+        try {
+            month = YearMonth.parse(monthName);
+        } catch (DateTimeParseException e) {
+            sender.sendMessage(ChatColor.RED + "月份格式应为 yyyy-MM！");
+            return;
+        }
+
+        sender.sendMessage(ChatColor.GRAY + "正在搜索归档...");
+        runAsync(() -> {
+            String player = null;
+            if (playerName != null) {
+                player = logService.findPlayerUuid(playerName);
+                if (player == null) {
+                    runSync(() -> sender.sendMessage(ChatColor.RED + "未找到玩家: " + playerName));
+                    return;
+                }
+            }
+            List<TradeLogData> logs;
+            try {
+                logs = logService.searchArchive(month, player, ARCHIVE_LIMIT + 1);
+            } catch (IOException e) {
+                runSync(() -> sender.sendMessage(ChatColor.RED + "读取归档失败: " + e.getMessage()));
+                return;
+            }
+            List<String> lines = new ArrayList<>();
+            lines.add(ChatColor.GOLD + "=== " + month + " 归档"
+                + (playerName == null ? "" : " (" + playerName + ")") + " ===");
+            if (logs.isEmpty()) {
+                lines.add(ChatColor.GRAY + "没有找到匹配的交易");
+            }
+            for (TradeLogData log : logs.subList(0, Math.min(ARCHIVE_LIMIT, logs.size()))) {
+                lines.add(formatLog(log));
+            }
+            if (logs.size() > ARCHIVE_LIMIT) {
+                lines.add(ChatColor.GRAY + "仅显示最近 " + ARCHIVE_LIMIT + " 条"
+                    + (playerName == null ? "，可加上玩家名缩小范围" : ""));
+            }
+            runSync(() -> lines.forEach(sender::sendMessage));
+        });
+    }
+
+    @CmdMapping(format = "stats")
+    public void stats(@CmdSender CommandSender sender) {
+        TradeMetrics metrics = logService.getMetrics();
+        sender.sendMessage(ChatColor.GOLD + "=== UltiTrade 运行指标 ===");
+        sender.sendMessage(ChatColor.GRAY + "统计自 "
+            + new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(metrics.getSince())));
+
+        StringBuilder gauges = new StringBuilder();
+        for (TradeMetrics.Gauge gauge : TradeMetrics.Gauge.values()) {
+            gauges.append(ChatColor.GRAY).append(gauge.getDisplayName()).append(": ")
+                .append(ChatColor.WHITE).append(metrics.getGauge(gauge)).append("  ");
+        }
+        sender.sendMessage(gauges.toString().trim());
+
+        StringBuilder counters = new StringBuilder();
+        for (TradeMetrics.Counter counter : TradeMetrics.Counter.values()) {
+            counters.append(ChatColor.GRAY).append(counter.getDisplayName()).append(": ")
+                .append(ChatColor.WHITE).append(metrics.getCount(counter)).append("  ");
+        }
+        sender.sendMessage(counters.toString().trim());
+        long hits = metrics.getCount(TradeMetrics.Counter.SETTINGS_CACHE_HIT);
+        long lookups = hits + metrics.getCount(TradeMetrics.Counter.SETTINGS_CACHE_MISS);
+        if (lookups > 0) {
+            sender.sendMessage(ChatColor.GRAY + "设置缓存命中率: " + ChatColor.WHITE
+                + String.format("%.1f%%", hits * 100.0 / lookups));
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + "操作 (毫秒): 次数 / 平均 / p50 / p95 / p99 / 最大");
+        for (TradeMetrics.Timer timer : TradeMetrics.Timer.values()) {
+            TradeMetrics.Snapshot snapshot = metrics.getSnapshot(timer);
+            if (snapshot.getCount() == 0) {
+                continue;
+            }
+            sender.sendMessage(ChatColor.WHITE + timer.getDisplayName() + ChatColor.GRAY + ": "
+                + snapshot.getCount() + " / " + millis(snapshot.getMeanNanos())
+                + " / " + millis(snapshot.getP50Nanos()) + " / " + millis(snapshot.getP95Nanos())
+                + " / " + millis(snapshot.getP99Nanos()) + " / " + millis(snapshot.getMaxNanos()));
+        }
+    }
+
+    @CmdMapping(format = "stats reset")
+    public void statsReset(@CmdSender CommandSender sender) {
+        logService.getMetrics().reset();
+        sender.sendMessage(ChatColor.GREEN + "运行指标已清零！");
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    private String formatHit(TradeLogItem hit, TradeLogData log) {
+        String giver = "?";
+        String receiver = "?";
+        if (log != null) {
+            giver = hit.getSide() == 1 ? log.getPlayer1Name() : log.getPlayer2Name();
+            receiver = hit.getSide() == 1 ? log.getPlayer2Name() : log.getPlayer1Name();
+        }
+        String id = hit.getTradeId() == null ? "" : hit.getTradeId().substring(0, Math.min(8, hit.getTradeId().length()));
+        return ChatColor.YELLOW + new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(hit.getTradeTime()))
+            + " " + ChatColor.WHITE + giver + ChatColor.GRAY + " → " + ChatColor.WHITE + receiver
+            + " " + ChatColor.GREEN + hit.getMaterial() + " x" + hit.getAmount()
+            + (hit.isEnchanted() ? ChatColor.LIGHT_PURPLE + " [附魔]" : "")
+            + ChatColor.DARK_GRAY + " #" + id;
+    }
+
+    private static void runAsync(Runnable task) {
+        Bukkit.getScheduler().runTaskAsynchronously(getBukkitPlugin(), task);
+    }
+
+    private static void runSync(Runnable task) {
+        Bukkit.getScheduler().runTask(getBukkitPlugin(), task);
+    }
+
+    private static Plugin getBukkitPlugin() {
+        return Bukkit.getPluginManager().getPlugin("UltiTools");
+    }
+
+    @CmdMapping(format = "")
+    public void help(@CmdSender CommandSender sender) {
+        sender.sendMessage(ChatColor.GOLD + "=== UltiTrade 管理 ===");
+        sender.sendMessage(ChatColor.YELLOW + "/tradeadmin search <物品> [最少数量] [天数]" + ChatColor.WHITE
+            + " - 搜索转移过指定物品的交易");
+        sender.sendMessage(ChatColor.YELLOW + "/tradeadmin logs [条件]" + ChatColor.WHITE
+            + " - 按条件分页查询交易记录");
+        sender.sendMessage(ChatColor.GRAY + "  条件用逗号分隔: player:名字,with:名字,status:completed|cancelled,"
+            + "days:天数,minmoney:金币,minexp:经验,reason:原因");
+        sender.sendMessage(ChatColor.YELLOW + "/tradeadmin logs next" + ChatColor.WHITE
+            + " - 查看上次查询的下一页");
+        sender.sendMessage(ChatColor.YELLOW + "/tradeadmin export <开始日期> <结束日期> [csv|ndjson]" + ChatColor.WHITE
+            + " - 导出交易记录到文件");
+        sender.sendMessage(ChatColor.YELLOW + "/tradeadmin archive [月份] [玩家]" + ChatColor.WHITE
+            + " - 查看归档月份或搜索已归档的交易");
+        sender.sendMessage(ChatColor.YELLOW + "/tradeadmin stats [reset]" + ChatColor.WHITE
+            + " - 查看或清零运行指标");
+    }
+
+    @Override
+    protected void handleHelp(CommandSender sender) {
+        help(sender);
+    }
+}
@@ -1,15 +1,24 @@
 package com.ultikits.plugins.trade.commands;
 
+import com.ultikits.plugins.trade.gui.TradeHistoryPage;
+import com.ultikits.plugins.trade.service.PriceIndex;
+import com.ultikits.plugins.trade.service.TradeLeaderboard;
 import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.plugins.trade.service.TradeMailbox;
 import com.ultikits.plugins.trade.service.TradeService;
 import com.ultikits.ultitools.abstracts.command.BaseCommandExecutor;
 import com.ultikits.ultitools.annotations.command.*;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Material;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
 /**
  * Trade command executor with blacklist and toggle support.
  *
@@ -24,6 +33,8 @@ import org.bukkit.entity.Player;
 )
 public class TradeCommand extends BaseCommandExecutor {
     
+    private static final int LEADERBOARD_SIZE = 10;
+    
     private final TradeService tradeService;
     private final TradeLogService logService;
     
@@ -77,6 +88,16 @@ public class TradeCommand extends BaseCommandExecutor {
         }
     }
     
+    @CmdMapping(format = "effects")
+    public void effects(@CmdSender Player player) {
+        boolean reduced = logService.toggleReducedEffects(player);
+        if (reduced) {
+            player.sendMessage(ChatColor.YELLOW + "已关闭交易音效和粒子效果。");
+        } else {
+            player.sendMessage(ChatColor.GREEN + "已开启交易音效和粒子效果。");
+        }
+    }
+    
     @CmdMapping(format = "block <player>")
     public void blockPlayer(@CmdSender Player player, @CmdParam("player") String targetName) {
         Player target = Bukkit.getPlayerExact(targetName);
@@ -118,6 +139,69 @@ public class TradeCommand extends BaseCommandExecutor {
         player.sendMessage(ChatColor.GREEN + "已将 " + target.getName() + " 从交易黑名单中移除！");
     }
     
+    @CmdMapping(format = "top")
+    public void top(@CmdSender Player player) {
+        showLeaderboard(player, TradeLeaderboard.Metric.TRADES);
+    }
+    
+    @CmdMapping(format = "top <type>")
+    public void top(@CmdSender Player player, @CmdParam("type") String type) {
+        TradeLeaderboard.Metric metric = TradeLeaderboard.Metric.parse(type);
+        if (metric == null) {
+            player.sendMessage(ChatColor.RED + "未知的排行类型！可选: trades, money, exp");
+            return;
+        }
+        showLeaderboard(player, metric);
+    }
+    
+    private void showLeaderboard(Player player, TradeLeaderboard.Metric metric) {
+        List<TradeLeaderboard.Entry> top = logService.getLeaderboard().getTop(metric, LEADERBOARD_SIZE);
+        player.sendMessage(ChatColor.GOLD + "=== " + metric.getDisplayName() + "排行榜 ===");
+        if (top.isEmpty()) {
+            player.sendMessage(ChatColor.GRAY + "暂无数据");
+            return;
+        }
+        int rank = 1;
+        for (TradeLeaderboard.Entry entry : top) {
+            player.sendMessage(ChatColor.YELLOW + "#" + rank++ + " " + ChatColor.WHITE + entry.getPlayerName()
+                + ChatColor.GRAY + " - " + ChatColor.GREEN + metric.format(entry.getValue()));
+        }
+    }
+    
+    @CmdMapping(format = "price <material>")
+    public void price(@CmdSender Player player, @CmdParam("material") String materialName) {
+        Material material = Material.matchMaterial(materialName);
+        if (material == null) {
+            player.sendMessage(ChatColor.RED + "未知的物品类型: " + materialName);
+            return;
+        }
+        
+        PriceIndex.Quote quote = logService.getPriceIndex().getQuote(material, System.currentTimeMillis());
+        if (quote == null) {
+            player.sendMessage(ChatColor.GRAY + "暂无 " + material.name() + " 的金币成交记录");
+            return;
+        }
+        player.sendMessage(ChatColor.GOLD + "=== " + material.name() + " 参考价格 ===");
+        player.sendMessage(ChatColor.YELLOW + "均价: " + ChatColor.WHITE + String.format("%.2f", quote.getMean()));
+        player.sendMessage(ChatColor.YELLOW + "中位价: " + ChatColor.WHITE + String.format("%.2f", quote.getMedian()));
+        player.sendMessage(ChatColor.YELLOW + "成交次数: " + ChatColor.WHITE + quote.getTrades());
+        player.sendMessage(ChatColor.GRAY + "最近成交: "
+            + new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(quote.getLastTradeTime())));
+    }
+    
+    @CmdMapping(format = "history")
+    public void history(@CmdSender Player player) {
+        new TradeHistoryPage(logService, player).open();
+    }
+    
+    @CmdMapping(format = "claim")
+    public void claim(@CmdSender Player player) {
+        TradeMailbox.Claim claim = tradeService.claimMail(player);
+        if (claim.getDelivered() == 0 && claim.getRemaining() == 0) {
+            player.sendMessage(ChatColor.GRAY + "你的交易邮箱是空的");
+        }
+    }
+    
     @CmdMapping(format = "")
     public void help(@CmdSender Player player) {
         player.sendMessage(ChatColor.GOLD + "=== UltiTrade 帮助 ===");
@@ -126,8 +210,13 @@ public class TradeCommand extends BaseCommandExecutor {
         player.sendMessage(ChatColor.YELLOW + "/trade deny" + ChatColor.WHITE + " - 拒绝交易请求");
         player.sendMessage(ChatColor.YELLOW + "/trade cancel" + ChatColor.WHITE + " - 取消当前交易");
         player.sendMessage(ChatColor.YELLOW + "/trade toggle" + ChatColor.WHITE + " - 开启/关闭交易功能");
+        player.sendMessage(ChatColor.YELLOW + "/trade effects" + ChatColor.WHITE + " - 开启/关闭交易音效和粒子");
         player.sendMessage(ChatColor.YELLOW + "/trade block <玩家>" + ChatColor.WHITE + " - 屏蔽指定玩家");
         player.sendMessage(ChatColor.YELLOW + "/trade unblock <玩家>" + ChatColor.WHITE + " - 取消屏蔽玩家");
+        player.sendMessage(ChatColor.YELLOW + "/trade top [trades|money|exp]" + ChatColor.WHITE + " - 查看交易排行榜");
+        player.sendMessage(ChatColor.YELLOW + "/trade price <物品>" + ChatColor.WHITE + " - 查看物品参考价格");
+        player.sendMessage(ChatColor.YELLOW + "/trade history" + ChatColor.WHITE + " - 查看我的交易记录");
+        player.sendMessage(ChatColor.YELLOW + "/trade claim" + ChatColor.WHITE + " - 领取交易邮箱中的物品");
         player.sendMessage("");
         
         // Show current status
@@ -36,6 +36,10 @@ public class TradeConfig extends AbstractConfigEntity {
     
     @ConfigEntry(path = "allow-cross-world", comment = "允许跨世界交易")
     private boolean allowCrossWorld = false;
+
+    @Range(min = 5, max = 120)
+    @ConfigEntry(path = "input-timeout", comment = "聊天输入金币/经验的超时时间（秒）")
+    private int inputTimeout = 10;
     
     // ==================== Trade Features ====================
     
@@ -47,6 +51,10 @@ public class TradeConfig extends AbstractConfigEntity {
     
     @ConfigEntry(path = "enable-shift-click", comment = "启用Shift+右键玩家发起交易")
     private boolean enableShiftClick = true;
+
+    @NotEmpty
+    @ConfigEntry(path = "amount-input-mode", comment = "金币/经验输入方式：CHAT（聊天输入）或 KEYPAD（界面按键）")
+    private String amountInputMode = "CHAT";
     
     // ==================== Tax Settings ====================
 
@@ -76,6 +84,22 @@ public class TradeConfig extends AbstractConfigEntity {
     @Range(min = 1, max = 168)
     @ConfigEntry(path = "cleanup-interval-hours", comment = "日志清理间隔（小时）")
     private int cleanupIntervalHours = 24;
+
+    @ConfigEntry(path = "export-gzip", comment = "导出交易日志时使用 gzip 压缩")
+    private boolean exportGzip = true;
+
+    @ConfigEntry(path = "archive-expired-logs", comment = "过期日志移入压缩归档而不是直接删除")
+    private boolean archiveExpiredLogs = true;
+
+    // ==================== Monitoring ====================
+
+    @ConfigEntry(path = "metrics-file",
+        comment = "Prometheus 指标文件（供 node-exporter textfile 采集），留空不导出；相对路径基于插件数据目录")
+    private String metricsFile = "";
+
+    @Range(min = 5, max = 3600)
+    @ConfigEntry(path = "metrics-interval", comment = "指标文件写入间隔（秒）")
+    private int metricsInterval = 15;
     
     // ==================== Effect Settings ====================
     
@@ -91,11 +115,29 @@ public class TradeConfig extends AbstractConfigEntity {
     @ConfigEntry(path = "enable-clickable-buttons", comment = "启用可点击的聊天按钮")
     private boolean enableClickableButtons = true;
     
+    @Range(min = 0, max = 50000)
+    @ConfigEntry(path = "tick-budget-micros",
+        comment = "每 tick 执行音效、粒子、消息和界面刷新的时间预算（微秒），超出的顺延到下一 tick；0 为立即执行")
+    private int tickBudgetMicros = 2000;
+
+    @Range(min = 0, max = 1000)
+    @ConfigEntry(path = "max-particles-per-chunk",
+        comment = "每个区块每 tick 最多生成的交易粒子数，同一区块的相同粒子合并生成；0 为不合并也不限制")
+    private int maxParticlesPerChunk = 60;
+
+    @Range(min = 1, max = 3600)
+    @ConfigEntry(path = "placeholder-cache-seconds", comment = "变量统计数据缓存时间（秒），过期后异步刷新")
+    private int placeholderCacheSeconds = 30;
+    
     // ==================== GUI Settings ====================
 
     @NotEmpty
     @ConfigEntry(path = "gui-title", comment = "交易界面标题")
     private String guiTitle = "&6与 {PLAYER} 交易";
+
+    @Range(min = 1, max = 20)
+    @ConfigEntry(path = "offer-pages", comment = "每方物品页数（每页格数由布局决定）")
+    private int offerPages = 1;
     
     // ==================== Messages ====================
 
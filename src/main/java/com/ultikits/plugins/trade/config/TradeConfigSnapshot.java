@@ -0,0 +1,158 @@
+package com.ultikits.plugins.trade.config;
+
+import com.ultikits.plugins.trade.gui.TradeLayout;
+import com.ultikits.ultitools.annotations.config.NotEmpty;
+import com.ultikits.ultitools.annotations.config.Range;
+
+import lombok.Getter;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable copy of the trade settings, taken once per load or reload.
+ * <p>
+ * {@link TradeConfig} is mutable and rewritten in place on reload, so reading
+ * it field by field during a trade can mix old and new values. Code on the
+ * trade path reads a snapshot instead: the service swaps in a new one as a
+ * whole, and every session keeps the one it started with. The compiled
+ * inventory layouts travel with the snapshot, so a window never changes
+ * shape under an open trade. A trade layout without page controls limits
+ * the offer to one page, whatever {@code offerPages} says.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Getter
+public final class TradeConfigSnapshot {
+
+    // Basic settings
+    private final int requestTimeout;
+    private final int tradeTimeout;
+    private final int maxDistance;
+    private final boolean allowCrossWorld;
+    private final int inputTimeout;
+
+    // Trade features
+    private final boolean enableMoneyTrade;
+    private final boolean enableExpTrade;
+    private final String amountInputMode;
+
+    // Taxes and confirmation
+    private final double tradeTax;
+    private final double expTaxRate;
+    private final double confirmThreshold;
+
+    // Effects
+    private final boolean enableSounds;
+    private final boolean enableParticles;
+    private final boolean enableBossbar;
+    private final boolean enableClickableButtons;
+    private final int tickBudgetMicros;
+    private final int maxParticlesPerChunk;
+
+    // GUI
+    private final String guiTitle;
+    private final int offerPages;
+    private final TradeLayout tradeLayout;
+    private final TradeLayout confirmLayout;
+
+    // Messages
+    private final String requestSentMessage;
+    private final String requestReceivedMessage;
+    private final String requestTimeoutMessage;
+    private final String tradeCompleteMessage;
+    private final String tradeCancelledMessage;
+    private final String tradeDisabledMessage;
+    private final String playerBlockedMessage;
+
+    private TradeConfigSnapshot(TradeConfig config, TradeLayout tradeLayout, TradeLayout confirmLayout) {
+        this.requestTimeout = config.getRequestTimeout();
+        this.tradeTimeout = config.getTradeTimeout();
+        this.maxDistance = config.getMaxDistance();
+        this.allowCrossWorld = config.isAllowCrossWorld();
+        this.inputTimeout = config.getInputTimeout();
+        this.enableMoneyTrade = config.isEnableMoneyTrade();
+        this.enableExpTrade = config.isEnableExpTrade();
+        this.amountInputMode = config.getAmountInputMode();
+        this.tradeTax = config.getTradeTax();
+        this.expTaxRate = config.getExpTaxRate();
+        this.confirmThreshold = config.getConfirmThreshold();
+        this.enableSounds = config.isEnableSounds();
+        this.enableParticles = config.isEnableParticles();
+        this.enableBossbar = config.isEnableBossbar();
+        this.enableClickableButtons = config.isEnableClickableButtons();
+        this.tickBudgetMicros = config.getTickBudgetMicros();
+        this.maxParticlesPerChunk = config.getMaxParticlesPerChunk();
+        this.guiTitle = config.getGuiTitle();
+        // Pages past the first cannot be reached without page controls
+        this.offerPages = tradeLayout != null && !tradeLayout.hasPageControls() ? 1 : config.getOfferPages();
+        this.tradeLayout = tradeLayout;
+        this.confirmLayout = confirmLayout;
+        this.requestSentMessage = config.getRequestSentMessage();
+        this.requestReceivedMessage = config.getRequestReceivedMessage();
+        this.requestTimeoutMessage = config.getRequestTimeoutMessage();
+        this.tradeCompleteMessage = config.getTradeCompleteMessage();
+        this.tradeCancelledMessage = config.getTradeCancelledMessage();
+        this.tradeDisabledMessage = config.getTradeDisabledMessage();
+        this.playerBlockedMessage = config.getPlayerBlockedMessage();
+    }
+
+    /**
+     * Copy the current values of a config.
+     *
+     * @param config        Loaded config
+     * @param tradeLayout   Compiled trade window layout
+     * @param confirmLayout Compiled confirmation page layout
+     * @return Snapshot; call {@link #validate()} before using a reloaded one
+     */
+    public static TradeConfigSnapshot of(TradeConfig config, TradeLayout tradeLayout, TradeLayout confirmLayout) {
+        return new TradeConfigSnapshot(config, tradeLayout, confirmLayout);
+    }
+
+    /**
+     * Check every value against the {@link Range} and {@link NotEmpty}
+     * constraints declared on the matching {@link TradeConfig} field.
+     *
+     * @return One line per invalid entry; empty if the snapshot is usable
+     */
+    public List<String> validate() {
+        List<String> problems = new ArrayList<>();
+        for (Field field : TradeConfigSnapshot.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            Field declared;
+            try {
+                declared = TradeConfig.class.getDeclaredField(field.getName());
+            } catch (NoSuchFieldException e) {
+                // Layouts are compiled, not read from trade.yml
+                continue;
+            }
+            Object value;
+            try {
+                value = field.get(this);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            Range range = declared.getAnnotation(Range.class);
+            if (range != null && value instanceof Number) {
+                double number = ((Number) value).doubleValue();
+                if (!(number >= range.min() && number <= range.max())) {
+                    problems.add(field.getName() + " = " + value
+                        + " (" + range.min() + " ~ " + range.max() + ")");
+                }
+            }
+            if (declared.isAnnotationPresent(NotEmpty.class)
+                && (value == null || value.toString().trim().isEmpty())) {
+                problems.add(field.getName() + " is empty");
+            }
+        }
+        if (tradeLayout == null || confirmLayout == null) {
+            problems.add("layouts are missing");
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,39 @@
+package com.ultikits.plugins.trade.config;
+
+import com.ultikits.plugins.trade.gui.TradeLayout;
+import com.ultikits.ultitools.abstracts.AbstractConfigEntity;
+import com.ultikits.ultitools.annotations.ConfigEntity;
+import com.ultikits.ultitools.annotations.ConfigEntry;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inventory layout configuration for the trade window and confirmation page.
+ * <p>
+ * Each row is nine symbols, one per slot:
+ * Y 你的物品, T 对方物品, | 分隔线, M/m 你的/对方金币, E/e 你的/对方经验,
+ * S/s 你的/对方状态, C 确认, X 取消, I 信息, &lt;/&gt; 上/下一页, P 页码, # 填充, _ 空位
+ * </p>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Getter
+@Setter
+@ConfigEntity("config/layout.yml")
+public class TradeLayoutConfig extends AbstractConfigEntity {
+
+    @ConfigEntry(path = "trade-window.rows", comment = "交易界面布局（1-6行，每行9个符号，Y与T数量须相同）")
+    private List<String> tradeWindowRows = new ArrayList<>(TradeLayout.DEFAULT_TRADE_ROWS);
+
+    @ConfigEntry(path = "confirm-page.rows", comment = "大额交易确认界面布局")
+    private List<String> confirmPageRows = new ArrayList<>(TradeLayout.DEFAULT_CONFIRM_ROWS);
+
+    public TradeLayoutConfig() {
+        super("config/layout.yml");
+    }
+}
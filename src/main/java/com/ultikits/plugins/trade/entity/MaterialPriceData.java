@@ -0,0 +1,57 @@
+package com.ultikits.plugins.trade.entity;
+
+import com.ultikits.ultitools.abstracts.data.BaseDataEntity;
+import com.ultikits.ultitools.annotations.Column;
+import com.ultikits.ultitools.annotations.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Persisted state of the price index for one material.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Table("trade_material_prices")
+public class MaterialPriceData extends BaseDataEntity<String> {
+
+    /**
+     * Material name
+     */
+    @Column("material")
+    private String material;
+
+    /**
+     * Decayed mean unit price
+     */
+    @Column("mean_price")
+    private double mean;
+
+    /**
+     * Decayed sample weight behind the mean
+     */
+    @Column("weight")
+    private double weight;
+
+    /**
+     * Number of priced trades
+     */
+    @Column("trades")
+    private long trades;
+
+    /**
+     * Last priced trade timestamp
+     */
+    @Column("last_trade_time")
+    private long lastTradeTime;
+
+    /**
+     * Recent samples as "time:price" pairs separated by ';', oldest first
+     */
+    @Column(value = "samples", type = "TEXT")
+    private String samples = "";
+}
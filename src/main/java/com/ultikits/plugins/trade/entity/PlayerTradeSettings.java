@@ -2,7 +2,9 @@ package com.ultikits.plugins.trade.entity;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import com.google.gson.Gson;
@@ -11,13 +13,17 @@ import com.ultikits.ultitools.abstracts.data.BaseDataEntity;
 import com.ultikits.ultitools.annotations.Column;
 import com.ultikits.ultitools.annotations.Table;
 
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * Player trade settings entity for persistence.
- * Stores trade toggle state and blocked players list.
+ * Stores trade toggle state, effect preference and blocked players list.
  *
  * @author wisdomme
  * @version 1.0.0
@@ -48,6 +54,12 @@ public class PlayerTradeSettings extends BaseDataEntity<String> {
     @Column("trade_enabled")
     private boolean tradeEnabled = true;
     
+    /**
+     * Whether this player's trade sounds and particles are skipped
+     */
+    @Column("reduced_effects")
+    private boolean reducedEffects = false;
+    
     /**
      * JSON array of blocked player UUIDs
      */
@@ -78,6 +90,15 @@ public class PlayerTradeSettings extends BaseDataEntity<String> {
     @Column("last_trade_time")
     private long lastTradeTime = 0;
     
+    /**
+     * Parsed blocked list, rebuilt when the JSON column is replaced
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile BlockedSet blockedSet;
+    
     public PlayerTradeSettings(UUID playerUuid, String playerName) {
         this.playerUuid = playerUuid.toString();
         this.playerName = playerName;
@@ -89,11 +110,15 @@ public class PlayerTradeSettings extends BaseDataEntity<String> {
      * @return List of blocked player UUIDs
      */
     public List<String> getBlockedPlayers() {
-        if (blockedPlayersJson == null || blockedPlayersJson.isEmpty()) {
+        return parseBlocked(blockedPlayersJson);
+    }
+    
+    private static List<String> parseBlocked(String json) {
+        if (json == null || json.isEmpty()) {
             return new ArrayList<>();
         }
         Type listType = new TypeToken<List<String>>(){}.getType();
-        return GSON.fromJson(blockedPlayersJson, listType);
+        return GSON.fromJson(json, listType);
     }
     
     /**
@@ -137,13 +162,21 @@ public class PlayerTradeSettings extends BaseDataEntity<String> {
     }
     
     /**
-     * Check if a player is blocked.
+     * Check if a player is blocked. The list is parsed once per change of
+     * the JSON column, not on every check.
      *
      * @param playerUuid UUID of player to check
      * @return true if blocked
      */
     public boolean isBlocked(String playerUuid) {
-        return getBlockedPlayers().contains(playerUuid);
+        String json = blockedPlayersJson;
+        BlockedSet blocked = blockedSet;
+        // Identity check: every write replaces the JSON string
+        if (blocked == null || blocked.json != json) {
+            blocked = new BlockedSet(json, new HashSet<>(parseBlocked(json)));
+            blockedSet = blocked;
+        }
+        return blocked.uuids.contains(playerUuid);
     }
     
     /**
@@ -158,4 +191,17 @@ public class PlayerTradeSettings extends BaseDataEntity<String> {
         this.totalExpTraded += expTraded;
         this.lastTradeTime = System.currentTimeMillis();
     }
+    
+    /**
+     * Blocked UUIDs together with the JSON they were parsed from.
+     */
+    private static final class BlockedSet {
+        private final String json;
+        private final Set<String> uuids;
+        
+        BlockedSet(String json, Set<String> uuids) {
+            this.json = json;
+            this.uuids = uuids;
+        }
+    }
 }
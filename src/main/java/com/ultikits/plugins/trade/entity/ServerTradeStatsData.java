@@ -0,0 +1,52 @@
+package com.ultikits.plugins.trade.entity;
+
+import com.ultikits.ultitools.abstracts.data.BaseDataEntity;
+import com.ultikits.ultitools.annotations.Column;
+import com.ultikits.ultitools.annotations.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Periodic snapshot of the server-wide trade aggregates.
+ * A single row is kept and overwritten on every save.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Table("trade_server_stats")
+public class ServerTradeStatsData extends BaseDataEntity<String> {
+
+    /**
+     * Local epoch day the trades-today counter belongs to
+     */
+    @Column("day")
+    private long day;
+
+    /**
+     * Completed trades on that day
+     */
+    @Column("trades_today")
+    private long tradesToday;
+
+    /**
+     * Money tax collected in total
+     */
+    @Column("tax_collected")
+    private double taxCollected;
+
+    /**
+     * Hourly volume buckets as "hour:volume" pairs separated by ';'
+     */
+    @Column(value = "hourly_buckets", type = "TEXT")
+    private String hourlyBuckets = "";
+
+    /**
+     * Snapshot timestamp
+     */
+    @Column("updated_at")
+    private long updatedAt;
+}
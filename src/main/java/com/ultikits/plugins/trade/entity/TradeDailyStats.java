@@ -0,0 +1,88 @@
+package com.ultikits.plugins.trade.entity;
+
+import com.ultikits.ultitools.abstracts.data.BaseDataEntity;
+import com.ultikits.ultitools.annotations.Column;
+import com.ultikits.ultitools.annotations.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Daily rollup of trade activity.
+ * One row per server-local day, kept when the raw trade logs are purged.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Table("trade_daily_stats")
+public class TradeDailyStats extends BaseDataEntity<String> {
+
+    /**
+     * Day in ISO format (yyyy-MM-dd)
+     */
+    @Column("stat_date")
+    private String statDate;
+
+    /**
+     * Number of completed trades
+     */
+    @Column("completed_trades")
+    private int completedTrades;
+
+    /**
+     * Number of cancelled trades
+     */
+    @Column("cancelled_trades")
+    private int cancelledTrades;
+
+    /**
+     * Money moved by completed trades (both sides)
+     */
+    @Column("money_volume")
+    private double moneyVolume;
+
+    /**
+     * Experience moved by completed trades (both sides)
+     */
+    @Column("exp_volume")
+    private long expVolume;
+
+    /**
+     * Money tax collected
+     */
+    @Column("money_tax_collected")
+    private double moneyTaxCollected;
+
+    /**
+     * Experience tax collected
+     */
+    @Column("exp_tax_collected")
+    private long expTaxCollected;
+
+    public TradeDailyStats(String statDate) {
+        this.statDate = statDate;
+    }
+
+    /**
+     * Add a completed trade to this day.
+     *
+     * @param log Completed trade log
+     */
+    public void addCompleted(TradeLogData log) {
+        completedTrades++;
+        moneyVolume += log.getPlayer1Money() + log.getPlayer2Money();
+        expVolume += (long) log.getPlayer1Exp() + log.getPlayer2Exp();
+        moneyTaxCollected += log.getMoneyTaxCollected();
+        expTaxCollected += log.getExpTaxCollected();
+    }
+
+    /**
+     * Add a cancelled trade to this day.
+     */
+    public void addCancelled() {
+        cancelledTrades++;
+    }
+}
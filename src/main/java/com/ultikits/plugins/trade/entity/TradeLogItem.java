@@ -0,0 +1,92 @@
+package com.ultikits.plugins.trade.entity;
+
+import com.ultikits.ultitools.abstracts.data.BaseDataEntity;
+import com.ultikits.ultitools.annotations.Column;
+import com.ultikits.ultitools.annotations.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Side index of materials moved by a logged trade.
+ * One row per trade, side and material, so audits can search by material
+ * without deserializing the item JSON of every log.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Table("trade_log_items")
+public class TradeLogItem extends BaseDataEntity<String> {
+
+    /**
+     * Trade ID of the owning log row
+     */
+    @Column("trade_id")
+    private String tradeId;
+
+    /**
+     * Side that gave the items: 1 for player 1, 2 for player 2
+     */
+    @Column("side")
+    private int side;
+
+    /**
+     * Material type name
+     */
+    @Column("material")
+    private String material;
+
+    /**
+     * Total amount of this material on this side
+     */
+    @Column("amount")
+    private int amount;
+
+    /**
+     * Whether any of the stacks was enchanted
+     */
+    @Column("enchanted")
+    private boolean enchanted;
+
+    /**
+     * Trade timestamp, copied from the log for range filtering
+     */
+    @Column("trade_time")
+    private long tradeTime;
+
+    public TradeLogItem(String tradeId, int side, String material, long tradeTime) {
+        this.tradeId = tradeId;
+        this.side = side;
+        this.material = material;
+        this.tradeTime = tradeTime;
+    }
+
+    /**
+     * Build index rows for one side of a trade, merging stacks of the same material.
+     *
+     * @param log Owning trade log
+     * @param side 1 or 2
+     * @param items Items given by that side
+     * @return Index rows, one per material
+     */
+    public static List<TradeLogItem> fromItems(TradeLogData log, int side, Collection<ItemStack> items) {
+        Map<String, TradeLogItem> byMaterial = new LinkedHashMap<>();
+        for (ItemStack item : items) {
+            if (item == null || item.getType().isAir()) {
+                continue;
+            }
+            TradeLogItem row = byMaterial.computeIfAbsent(item.getType().name(),
+                material -> new TradeLogItem(log.getTradeId(), side, material, log.getTradeTime()));
+            row.amount += item.getAmount();
+            row.enchanted |= !item.getEnchantments().isEmpty();
+        }
+        return new ArrayList<>(byMaterial.values());
+    }
+}
@@ -0,0 +1,61 @@
+package com.ultikits.plugins.trade.entity;
+
+import com.ultikits.ultitools.abstracts.data.BaseDataEntity;
+import com.ultikits.ultitools.annotations.Column;
+import com.ultikits.ultitools.annotations.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Item stack waiting in a player's trade mailbox.
+ * One row per stack that could not be handed over directly, because the
+ * owner's inventory was full or the owner was offline.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Table("trade_mailbox")
+public class TradeMailItem extends BaseDataEntity<String> {
+
+    /**
+     * Stable key of the stack, assigned when it is deposited
+     */
+    @Column("mail_id")
+    private String mailId;
+
+    /**
+     * UUID of the player the stack belongs to
+     */
+    @Column("owner_uuid")
+    private String ownerUuid;
+
+    /**
+     * Base64 of the Bukkit-serialized stack, with all of its meta
+     */
+    @Column("item_data")
+    private String itemData;
+
+    /**
+     * Why the stack was deposited: TRADE, CANCEL or RECOVERY
+     */
+    @Column("source")
+    private String source;
+
+    /**
+     * Deposit timestamp
+     */
+    @Column("created_at")
+    private long createdAt;
+
+    public TradeMailItem(String mailId, String ownerUuid, String itemData, String source, long createdAt) {
+        this.mailId = mailId;
+        this.ownerUuid = ownerUuid;
+        this.itemData = itemData;
+        this.source = source;
+        this.createdAt = createdAt;
+    }
+}
@@ -1,9 +1,12 @@
 package com.ultikits.plugins.trade.entity;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
+
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
@@ -19,6 +22,7 @@ public class TradeSession {
     private final UUID player1;
     private final UUID player2;
     private final long startTime;
+    private final TradeConfigSnapshot settings;
     
     // Items offered by each player
     private final Map<Integer, ItemStack> player1Items = new HashMap<>();
@@ -39,11 +43,23 @@ public class TradeSession {
     // Trade state
     private TradeState state = TradeState.TRADING;
     
+    // Crash-recovery journal, if the session is journaled
+    private volatile Journal journal;
+    
     public TradeSession(Player p1, Player p2) {
+        this(p1, p2, null);
+    }
+    
+    /**
+     * @param settings Settings the trade runs under until it ends, whatever
+     *                 is reloaded meanwhile; null to follow the current ones
+     */
+    public TradeSession(Player p1, Player p2, TradeConfigSnapshot settings) {
         this.sessionId = UUID.randomUUID();
         this.player1 = p1.getUniqueId();
         this.player2 = p2.getUniqueId();
         this.startTime = System.currentTimeMillis();
+        this.settings = settings;
     }
     
     public UUID getSessionId() {
@@ -62,6 +78,24 @@ public class TradeSession {
         return startTime;
     }
     
+    /**
+     * Get the settings captured when the trade started.
+     *
+     * @return Snapshot, or null if the session follows the current settings
+     */
+    public TradeConfigSnapshot getSettings() {
+        return settings;
+    }
+    
+    /**
+     * Record every later change of the offers and state in a journal.
+     *
+     * @param journal Journal, or null to stop recording
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+    
     public UUID getOtherPlayer(UUID player) {
         return player.equals(player1) ? player2 : player1;
     }
@@ -86,6 +120,45 @@ public class TradeSession {
                 player2Items.put(slot, item);
             }
         }
+        Journal j = journal;
+        if (j != null) {
+            j.item(this, player, slot, item);
+        }
+    }
+    
+    /**
+     * Offer several stacks in one mutation.
+     * Stacks fill the lowest free item indices below {@code capacity} in list
+     * order, and confirmations are reset once if anything was placed.
+     *
+     * @param player   Offering player
+     * @param items    Stacks to offer
+     * @param capacity Total number of item indices available to the player
+     * @return Number of stacks placed, always taken from the head of the list
+     */
+    public int offerItems(UUID player, List<ItemStack> items, int capacity) {
+        Map<Integer, ItemStack> offered = player.equals(player1) ? player1Items : player2Items;
+        int placed = 0;
+        int index = 0;
+        for (ItemStack item : items) {
+            while (index < capacity && offered.containsKey(index)) {
+                index++;
+            }
+            if (index >= capacity) {
+                break;
+            }
+            offered.put(index, item);
+            Journal j = journal;
+            if (j != null) {
+                j.item(this, player, index, item);
+            }
+            index++;
+            placed++;
+        }
+        if (placed > 0) {
+            resetConfirmation();
+        }
+        return placed;
     }
     
     public Map<Integer, ItemStack> getPlayerItems(UUID player) {
@@ -104,6 +177,10 @@ public class TradeSession {
         } else {
             player2Money = amount;
         }
+        Journal j = journal;
+        if (j != null) {
+            j.money(this, player, amount);
+        }
     }
     
     public double getPlayerMoney(UUID player) {
@@ -122,6 +199,10 @@ public class TradeSession {
         } else {
             player2Exp = amount;
         }
+        Journal j = journal;
+        if (j != null) {
+            j.exp(this, player, amount);
+        }
     }
     
     public int getPlayerExp(UUID player) {
@@ -161,6 +242,28 @@ public class TradeSession {
     
     public void setState(TradeState state) {
         this.state = state;
+        Journal j = journal;
+        if (j != null) {
+            j.state(this, state);
+        }
+    }
+    
+    /**
+     * Receives every change of a session's offers and state, on the thread
+     * that made it.
+     */
+    public interface Journal {
+        
+        /**
+         * @param item Stack now in the slot, or null if the slot was emptied
+         */
+        void item(TradeSession session, UUID player, int slot, ItemStack item);
+        
+        void money(TradeSession session, UUID player, double amount);
+        
+        void exp(TradeSession session, UUID player, int amount);
+        
+        void state(TradeSession session, TradeState state);
     }
     
     public enum TradeState {
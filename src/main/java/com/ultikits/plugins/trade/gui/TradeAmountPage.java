@@ -0,0 +1,245 @@
+package com.ultikits.plugins.trade.gui;
+
+import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.service.TradeInputService.InputType;
+import com.ultikits.plugins.trade.service.TradeService;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.Sound;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Arrays;
+
+/**
+ * Keypad page for entering a money or experience amount without leaving the
+ * inventory view. Buttons adjust the amount in place; only the amount display
+ * is redrawn on each click.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TradeAmountPage implements InventoryHolder {
+    
+    public static final int SIZE = 27;
+    
+    // Step buttons, largest step first: -1000 -100 -10 -1 [amount] +1 +10 +100 +1000
+    public static final int[] STEPS = {1000, 100, 10, 1};
+    public static final int[] DECREASE_SLOTS = {0, 1, 2, 3};
+    public static final int[] INCREASE_SLOTS = {8, 7, 6, 5};
+    public static final int DISPLAY_SLOT = 4;
+    
+    public static final int CLEAR_SLOT = 11;
+    public static final int MAX_SLOT = 15;
+    public static final int BACK_SLOT = 18;
+    public static final int CONFIRM_SLOT = 26;
+    
+    private final TradeService tradeService;
+    private final TradeSession session;
+    private final Player viewer;
+    private final InputType type;
+    private final double max;
+    private final Inventory inventory;
+    
+    private double amount;
+    private boolean finished = false;
+    
+    public TradeAmountPage(TradeService tradeService, TradeSession session, Player viewer, InputType type) {
+        this.tradeService = tradeService;
+        this.session = session;
+        this.viewer = viewer;
+        this.type = type;
+        
+        if (type == InputType.MONEY) {
+            this.amount = session.getPlayerMoney(viewer.getUniqueId());
+            this.max = tradeService.hasEconomy(session)
+                ? tradeService.getEconomy().getBalance(viewer) : Double.MAX_VALUE;
+        } else {
+            this.amount = session.getPlayerExp(viewer.getUniqueId());
+            this.max = tradeService.getTotalExperience(viewer);
+        }
+        this.amount = clamp(amount);
+        
+        String title = type == InputType.MONEY
+            ? ChatColor.GOLD + "设置交易金币" : ChatColor.GREEN + "设置交易经验";
+        this.inventory = Bukkit.createInventory(this, SIZE, title);
+        initializeGUI();
+    }
+    
+    /**
+     * Initialize the GUI.
+     */
+    private void initializeGUI() {
+        ItemStack background = createItem(Material.GRAY_STAINED_GLASS_PANE, " ");
+        for (int i = 0; i < SIZE; i++) {
+            inventory.setItem(i, background);
+        }
+        
+        for (int i = 0; i < STEPS.length; i++) {
+            inventory.setItem(DECREASE_SLOTS[i], createItem(Material.RED_STAINED_GLASS_PANE,
+                ChatColor.RED + "-" + STEPS[i]));
+            inventory.setItem(INCREASE_SLOTS[i], createItem(Material.LIME_STAINED_GLASS_PANE,
+                ChatColor.GREEN + "+" + STEPS[i]));
+        }
+        
+        inventory.setItem(CLEAR_SLOT, createItem(Material.BUCKET, ChatColor.YELLOW + "清零"));
+        inventory.setItem(MAX_SLOT, createItem(Material.HOPPER, ChatColor.YELLOW + "全部",
+            ChatColor.GRAY + "最多 " + format(max)));
+        inventory.setItem(BACK_SLOT, createItem(Material.BARRIER, ChatColor.RED + "返回",
+            ChatColor.GRAY + "不修改数量"));
+        inventory.setItem(CONFIRM_SLOT, createItem(Material.LIME_CONCRETE, ChatColor.GREEN + "✔ 确定"));
+        
+        updateDisplay();
+    }
+    
+    /**
+     * Redraw the amount display.
+     */
+    private void updateDisplay() {
+        Material material = type == InputType.MONEY ? Material.GOLD_INGOT : Material.EXPERIENCE_BOTTLE;
+        String label = type == InputType.MONEY ? ChatColor.GOLD + "金币: " : ChatColor.GREEN + "经验: ";
+        inventory.setItem(DISPLAY_SLOT, createItem(material, label + ChatColor.WHITE + format(amount),
+            ChatColor.GRAY + "点击两侧按钮调整数量"));
+    }
+    
+    /**
+     * Handle click event.
+     */
+    public void handleClick(InventoryClickEvent event) {
+        event.setCancelled(true);
+        int slot = event.getRawSlot();
+        
+        for (int i = 0; i < STEPS.length; i++) {
+            if (slot == DECREASE_SLOTS[i]) {
+                setAmount(amount - STEPS[i]);
+                return;
+            }
+            if (slot == INCREASE_SLOTS[i]) {
+                setAmount(amount + STEPS[i]);
+                return;
+            }
+        }
+        
+        if (slot == CLEAR_SLOT) {
+            setAmount(0);
+        } else if (slot == MAX_SLOT) {
+            setAmount(max);
+        } else if (slot == CONFIRM_SLOT) {
+            apply();
+            returnToTrade();
+        } else if (slot == BACK_SLOT) {
+            returnToTrade();
+        }
+    }
+    
+    /**
+     * Handle the page being closed. Closing without confirming returns to the
+     * trade window unchanged.
+     */
+    public void handleClose() {
+        if (!finished) {
+            returnToTrade();
+        }
+    }
+    
+    /**
+     * Write the amount into the trade session.
+     */
+    private void apply() {
+        if (tradeService.getSession(viewer.getUniqueId()) != session) {
+            viewer.sendMessage(ChatColor.RED + "交易已结束！");
+            return;
+        }
+        if (type == InputType.MONEY) {
+            if (tradeService.hasEconomy(session) && tradeService.getEconomy().getBalance(viewer) < amount) {
+                viewer.sendMessage(ChatColor.RED + "余额不足！");
+                return;
+            }
+            session.setMoney(viewer.getUniqueId(), amount);
+            viewer.sendMessage(ChatColor.GREEN + "已设置交易金币: " + amount);
+        } else {
+            int expValue = (int) amount;
+            if (tradeService.getTotalExperience(viewer) < expValue) {
+                viewer.sendMessage(ChatColor.RED + "经验不足！");
+                return;
+            }
+            session.setExp(viewer.getUniqueId(), expValue);
+            viewer.sendMessage(ChatColor.GREEN + "已设置交易经验: " + expValue);
+        }
+    }
+    
+    /**
+     * Go back to the trade window on the next tick.
+     */
+    private void returnToTrade() {
+        finished = true;
+        Bukkit.getScheduler().runTask(Bukkit.getPluginManager().getPlugin("UltiTools"),
+            () -> tradeService.reopenTradeGUI(viewer));
+    }
+    
+    private void setAmount(double value) {
+        double clamped = clamp(value);
+        if (clamped != amount) {
+            amount = clamped;
+            updateDisplay();
+            tradeService.playSound(session, viewer, Sound.UI_BUTTON_CLICK);
+        }
+    }
+    
+    private double clamp(double value) {
+        return Math.max(0, Math.min(max, value));
+    }
+    
+    private String format(double value) {
+        if (type == InputType.EXPERIENCE) {
+            return String.valueOf((long) value);
+        }
+        return value >= Double.MAX_VALUE ? "∞" : String.format("%.2f", value);
+    }
+    
+    /**
+     * Create an item with name and lore.
+     */
+    private ItemStack createItem(Material material, String name, String... lore) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(name);
+            if (lore.length > 0) {
+                meta.setLore(Arrays.asList(lore));
+            }
+            item.setItemMeta(meta);
+        }
+        return item;
+    }
+    
+    /**
+     * Open the amount page for the viewer.
+     */
+    public void open() {
+        viewer.openInventory(inventory);
+    }
+    
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+    
+    public Player getViewer() {
+        return viewer;
+    }
+    
+    public InputType getType() {
+        return type;
+    }
+    
+    public double getAmount() {
+        return amount;
+    }
+}
@@ -1,6 +1,8 @@
 package com.ultikits.plugins.trade.gui;
 
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
 import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.gui.TradeLayout.SlotRole;
 import com.ultikits.plugins.trade.service.TradeService;
 
 import org.bukkit.Bukkit;
@@ -30,26 +32,28 @@ public class TradeConfirmPage implements InventoryHolder {
     private final TradeService tradeService;
     private final TradeSession session;
     private final Player viewer;
+    private final TradeConfigSnapshot settings;
+    private final TradeLayout layout;
     private final Inventory inventory;
     private final Runnable onConfirm;
     private final Runnable onCancel;
     
-    // GUI layout
-    public static final int ROWS = 5;
+    // Slots of the default layout (see TradeLayout.DEFAULT_CONFIRM_ROWS)
+    public static final int ROWS = TradeLayout.DEFAULT_CONFIRM_ROWS.size();
     public static final int SIZE = ROWS * 9;
     
     // Button positions
-    public static final int CONFIRM_SLOT = 38;
-    public static final int CANCEL_SLOT = 42;
-    public static final int INFO_SLOT = 13;
+    public static final int CONFIRM_SLOT = TradeLayout.DEFAULT_CONFIRM.getSlot(SlotRole.CONFIRM);
+    public static final int CANCEL_SLOT = TradeLayout.DEFAULT_CONFIRM.getSlot(SlotRole.CANCEL);
+    public static final int INFO_SLOT = TradeLayout.DEFAULT_CONFIRM.getSlot(SlotRole.INFO);
     
     // Display positions
-    public static final int YOUR_ITEMS_START = 10;
-    public static final int THEIR_ITEMS_START = 14;
-    public static final int YOUR_MONEY_SLOT = 28;
-    public static final int YOUR_EXP_SLOT = 29;
-    public static final int THEIR_MONEY_SLOT = 32;
-    public static final int THEIR_EXP_SLOT = 33;
+    public static final int YOUR_ITEMS_START = TradeLayout.DEFAULT_CONFIRM.getSlot(SlotRole.YOUR_ITEM);
+    public static final int THEIR_ITEMS_START = TradeLayout.DEFAULT_CONFIRM.getSlot(SlotRole.THEIR_ITEM);
+    public static final int YOUR_MONEY_SLOT = TradeLayout.DEFAULT_CONFIRM.getSlot(SlotRole.YOUR_MONEY);
+    public static final int YOUR_EXP_SLOT = TradeLayout.DEFAULT_CONFIRM.getSlot(SlotRole.YOUR_EXP);
+    public static final int THEIR_MONEY_SLOT = TradeLayout.DEFAULT_CONFIRM.getSlot(SlotRole.THEIR_MONEY);
+    public static final int THEIR_EXP_SLOT = TradeLayout.DEFAULT_CONFIRM.getSlot(SlotRole.THEIR_EXP);
     
     public TradeConfirmPage(TradeService tradeService, TradeSession session, Player viewer,
                             Runnable onConfirm, Runnable onCancel) {
@@ -58,11 +62,13 @@ public class TradeConfirmPage implements InventoryHolder {
         this.viewer = viewer;
         this.onConfirm = onConfirm;
         this.onCancel = onCancel;
+        this.settings = tradeService.getSettings(session);
+        this.layout = settings.getConfirmLayout();
         
         Player other = Bukkit.getPlayer(session.getOtherPlayer(viewer.getUniqueId()));
         String title = ChatColor.GOLD + "确认与 " + (other != null ? other.getName() : "???") + " 的交易";
         
-        this.inventory = Bukkit.createInventory(this, SIZE, title);
+        this.inventory = Bukkit.createInventory(this, layout.getSize(), title);
         initializeGUI();
     }
     
@@ -75,7 +81,7 @@ public class TradeConfirmPage implements InventoryHolder {
         
         // Fill background
         ItemStack background = createItem(Material.GRAY_STAINED_GLASS_PANE, " ");
-        for (int i = 0; i < SIZE; i++) {
+        for (int i = 0; i < layout.getSize(); i++) {
             inventory.setItem(i, background);
         }
         
@@ -84,10 +90,10 @@ public class TradeConfirmPage implements InventoryHolder {
         double theirMoney = session.getOtherPlayerMoney(viewerUuid);
         int yourExp = session.getPlayerExp(viewerUuid);
         int theirExp = session.getOtherPlayerExp(viewerUuid);
-        double taxRate = tradeService.getConfig().getTradeTax();
-        double expTaxRate = tradeService.getConfig().getExpTaxRate();
+        double taxRate = settings.getTradeTax();
+        double expTaxRate = settings.getExpTaxRate();
         
-        double threshold = tradeService.getConfig().getConfirmThreshold();
+        double threshold = settings.getConfirmThreshold();
         
         List<String> infoLore = new ArrayList<>();
         infoLore.add("");
@@ -113,13 +119,13 @@ public class TradeConfirmPage implements InventoryHolder {
         infoLore.add(ChatColor.YELLOW + "请仔细确认交易内容！");
         
         ItemStack infoItem = createItem(Material.PAPER, ChatColor.GOLD + "⚠ 交易确认", infoLore);
-        inventory.setItem(INFO_SLOT, infoItem);
+        setRoleItem(SlotRole.INFO, infoItem);
         
-        // Display your items (3 slots)
-        displayItems(session.getPlayerItems(viewerUuid), YOUR_ITEMS_START, ChatColor.GREEN + "你的物品");
+        // Display your items
+        displayItems(session.getPlayerItems(viewerUuid), layout.slots(SlotRole.YOUR_ITEM), ChatColor.GREEN + "你的物品");
         
-        // Display their items (3 slots)
-        displayItems(session.getOtherPlayerItems(viewerUuid), THEIR_ITEMS_START, ChatColor.AQUA + "对方物品");
+        // Display their items
+        displayItems(session.getOtherPlayerItems(viewerUuid), layout.slots(SlotRole.THEIR_ITEM), ChatColor.AQUA + "对方物品");
         
         // Money display
         ItemStack yourMoneyItem = createItem(Material.GOLD_INGOT, 
@@ -128,7 +134,7 @@ public class TradeConfirmPage implements InventoryHolder {
                 ChatColor.WHITE + "金额: " + ChatColor.YELLOW + String.format("%.2f", yourMoney),
                 taxRate > 0 ? ChatColor.RED + "税后对方收到: " + String.format("%.2f", yourMoney * (1 - taxRate)) : ""
             ));
-        inventory.setItem(YOUR_MONEY_SLOT, yourMoneyItem);
+        setRoleItem(SlotRole.YOUR_MONEY, yourMoneyItem);
         
         ItemStack theirMoneyItem = createItem(Material.GOLD_INGOT,
             ChatColor.GOLD + "对方给出的金币",
@@ -136,7 +142,7 @@ public class TradeConfirmPage implements InventoryHolder {
                 ChatColor.WHITE + "金额: " + ChatColor.YELLOW + String.format("%.2f", theirMoney),
                 taxRate > 0 ? ChatColor.GREEN + "你将收到: " + String.format("%.2f", theirMoney * (1 - taxRate)) : ""
             ));
-        inventory.setItem(THEIR_MONEY_SLOT, theirMoneyItem);
+        setRoleItem(SlotRole.THEIR_MONEY, theirMoneyItem);
         
         // Exp display
         ItemStack yourExpItem = createItem(Material.EXPERIENCE_BOTTLE,
@@ -145,7 +151,7 @@ public class TradeConfirmPage implements InventoryHolder {
                 ChatColor.WHITE + "经验: " + ChatColor.GREEN + yourExp,
                 expTaxRate > 0 ? ChatColor.RED + "税后对方收到: " + (int)(yourExp * (1 - expTaxRate)) : ""
             ));
-        inventory.setItem(YOUR_EXP_SLOT, yourExpItem);
+        setRoleItem(SlotRole.YOUR_EXP, yourExpItem);
         
         ItemStack theirExpItem = createItem(Material.EXPERIENCE_BOTTLE,
             ChatColor.GREEN + "对方给出的经验",
@@ -153,7 +159,7 @@ public class TradeConfirmPage implements InventoryHolder {
                 ChatColor.WHITE + "经验: " + ChatColor.GREEN + theirExp,
                 expTaxRate > 0 ? ChatColor.GREEN + "你将收到: " + (int)(theirExp * (1 - expTaxRate)) : ""
             ));
-        inventory.setItem(THEIR_EXP_SLOT, theirExpItem);
+        setRoleItem(SlotRole.THEIR_EXP, theirExpItem);
         
         // Confirm button
         ItemStack confirmBtn = createItem(Material.LIME_CONCRETE,
@@ -163,7 +169,7 @@ public class TradeConfirmPage implements InventoryHolder {
                 "",
                 ChatColor.YELLOW + "确认后交易将立即完成！"
             ));
-        inventory.setItem(CONFIRM_SLOT, confirmBtn);
+        setRoleItem(SlotRole.CONFIRM, confirmBtn);
         
         // Cancel button
         ItemStack cancelBtn = createItem(Material.RED_CONCRETE,
@@ -173,14 +179,17 @@ public class TradeConfirmPage implements InventoryHolder {
                 "",
                 ChatColor.YELLOW + "不会取消交易"
             ));
-        inventory.setItem(CANCEL_SLOT, cancelBtn);
+        setRoleItem(SlotRole.CANCEL, cancelBtn);
     }
     
     /**
      * Display items in the GUI.
      */
-    private void displayItems(Map<Integer, ItemStack> items, int startSlot, String emptyName) {
-        int displaySlots = 3;
+    private void displayItems(Map<Integer, ItemStack> items, int[] slots, String emptyName) {
+        int displaySlots = slots.length;
+        if (displaySlots == 0) {
+            return;
+        }
         List<ItemStack> itemList = new ArrayList<>(items.values());
         
         for (int i = 0; i < displaySlots; i++) {
@@ -194,19 +203,29 @@ public class TradeConfirmPage implements InventoryHolder {
                     lore.add(ChatColor.DARK_GRAY + "---交易物品---");
                     item.setItemMeta(meta);
                 }
-                inventory.setItem(startSlot + i, item);
+                inventory.setItem(slots[i], item);
             } else {
                 ItemStack empty = createItem(Material.LIGHT_GRAY_STAINED_GLASS_PANE, emptyName);
-                inventory.setItem(startSlot + i, empty);
+                inventory.setItem(slots[i], empty);
             }
         }
         
-        // If more than 3 items, show count
+        // If more items than display slots, show count
         if (itemList.size() > displaySlots) {
             ItemStack moreItem = createItem(Material.CHEST,
                 ChatColor.YELLOW + "还有 " + (itemList.size() - displaySlots) + " 个物品...",
                 Arrays.asList(ChatColor.GRAY + "打开交易窗口查看所有物品"));
-            inventory.setItem(startSlot + displaySlots - 1, moreItem);
+            inventory.setItem(slots[displaySlots - 1], moreItem);
+        }
+    }
+    
+    /**
+     * Place an item in the slot assigned to a role, if the layout has one.
+     */
+    private void setRoleItem(SlotRole role, ItemStack item) {
+        int slot = layout.getSlot(role);
+        if (slot >= 0) {
+            inventory.setItem(slot, item);
         }
     }
     
@@ -216,14 +235,14 @@ public class TradeConfirmPage implements InventoryHolder {
     public void handleClick(InventoryClickEvent event) {
         event.setCancelled(true);
         
-        int slot = event.getRawSlot();
+        SlotRole role = layout.getRole(event.getRawSlot());
         
-        if (slot == CONFIRM_SLOT) {
+        if (role == SlotRole.CONFIRM) {
             viewer.closeInventory();
             if (onConfirm != null) {
                 onConfirm.run();
             }
-        } else if (slot == CANCEL_SLOT) {
+        } else if (role == SlotRole.CANCEL) {
             viewer.closeInventory();
             if (onCancel != null) {
                 onCancel.run();
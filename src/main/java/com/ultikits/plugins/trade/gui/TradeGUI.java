@@ -1,6 +1,8 @@
 package com.ultikits.plugins.trade.gui;
 
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
 import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.gui.TradeLayout.SlotRole;
 import com.ultikits.plugins.trade.service.TradeService;
 
 import org.bukkit.Bukkit;
@@ -29,36 +31,52 @@ public class TradeGUI implements InventoryHolder {
     private final TradeService tradeService;
     private final TradeSession session;
     private final Player viewer;
+    private final TradeConfigSnapshot settings;
+    private final TradeLayout layout;
     private final Inventory inventory;
     
-    // GUI layout constants
+    // Offer pages; only the current page is rendered
+    private final int pageCount;
+    private int page = 0;
+    
+    // Placeholders for empty offer slots; the inventory copies items, so one instance per GUI is enough
+    private final ItemStack yourGlass;
+    private final ItemStack theirGlass;
+    
+    // Slots of the default layout (see TradeLayout.DEFAULT_TRADE_ROWS)
     // Left side (0-3 columns): Your items (slots 0-3, 9-12, 18-21, 27-30)
     // Middle (column 4): Separator and buttons
     // Right side (5-8 columns): Their items (slots 5-8, 14-17, 23-26, 32-35)
     // Bottom row: Status and confirm button
     
-    public static final int[] YOUR_SLOTS = {0, 1, 2, 3, 9, 10, 11, 12, 18, 19, 20, 21, 27, 28, 29, 30};
-    public static final int[] THEIR_SLOTS = {5, 6, 7, 8, 14, 15, 16, 17, 23, 24, 25, 26, 32, 33, 34, 35};
-    public static final int[] SEPARATOR_SLOTS = {4, 13, 22, 31, 40};
-    public static final int CONFIRM_SLOT = 49;
-    public static final int CANCEL_SLOT = 45;
-    public static final int YOUR_MONEY_SLOT = 36;
-    public static final int THEIR_MONEY_SLOT = 44;
-    public static final int YOUR_EXP_SLOT = 38;
-    public static final int THEIR_EXP_SLOT = 42;
-    public static final int YOUR_STATUS_SLOT = 37;
-    public static final int THEIR_STATUS_SLOT = 43;
+    public static final int[] YOUR_SLOTS = TradeLayout.DEFAULT_TRADE.getSlots(SlotRole.YOUR_ITEM);
+    public static final int[] THEIR_SLOTS = TradeLayout.DEFAULT_TRADE.getSlots(SlotRole.THEIR_ITEM);
+    public static final int[] SEPARATOR_SLOTS = TradeLayout.DEFAULT_TRADE.getSlots(SlotRole.SEPARATOR);
+    public static final int CONFIRM_SLOT = TradeLayout.DEFAULT_TRADE.getSlot(SlotRole.CONFIRM);
+    public static final int CANCEL_SLOT = TradeLayout.DEFAULT_TRADE.getSlot(SlotRole.CANCEL);
+    public static final int YOUR_MONEY_SLOT = TradeLayout.DEFAULT_TRADE.getSlot(SlotRole.YOUR_MONEY);
+    public static final int THEIR_MONEY_SLOT = TradeLayout.DEFAULT_TRADE.getSlot(SlotRole.THEIR_MONEY);
+    public static final int YOUR_EXP_SLOT = TradeLayout.DEFAULT_TRADE.getSlot(SlotRole.YOUR_EXP);
+    public static final int THEIR_EXP_SLOT = TradeLayout.DEFAULT_TRADE.getSlot(SlotRole.THEIR_EXP);
+    public static final int YOUR_STATUS_SLOT = TradeLayout.DEFAULT_TRADE.getSlot(SlotRole.YOUR_STATUS);
+    public static final int THEIR_STATUS_SLOT = TradeLayout.DEFAULT_TRADE.getSlot(SlotRole.THEIR_STATUS);
     
     public TradeGUI(TradeService tradeService, TradeSession session, Player viewer) {
         this.tradeService = tradeService;
         this.session = session;
         this.viewer = viewer;
+        this.settings = tradeService.getSettings(session);
+        this.layout = settings.getTradeLayout();
+        this.pageCount = Math.max(1, settings.getOfferPages());
+        
+        this.yourGlass = createItem(Material.LIME_STAINED_GLASS_PANE, ChatColor.GREEN + "你的物品");
+        this.theirGlass = createItem(Material.CYAN_STAINED_GLASS_PANE, ChatColor.AQUA + "对方物品");
         
         Player other = Bukkit.getPlayer(session.getOtherPlayer(viewer.getUniqueId()));
-        String title = tradeService.getConfig().getGuiTitle()
+        String title = settings.getGuiTitle()
             .replace("{PLAYER}", other != null ? other.getName() : "???");
         
-        this.inventory = Bukkit.createInventory(this, 54, 
+        this.inventory = Bukkit.createInventory(this, layout.getSize(), 
             ChatColor.translateAlternateColorCodes('&', title));
         
         initializeGUI();
@@ -70,33 +88,33 @@ public class TradeGUI implements InventoryHolder {
     private void initializeGUI() {
         // Fill separators
         ItemStack separator = createItem(Material.BLACK_STAINED_GLASS_PANE, " ");
-        for (int slot : SEPARATOR_SLOTS) {
+        for (int slot : layout.slots(SlotRole.SEPARATOR)) {
             inventory.setItem(slot, separator);
         }
         
         // Fill empty slots with glass
-        ItemStack yourGlass = createItem(Material.LIME_STAINED_GLASS_PANE, ChatColor.GREEN + "你的物品");
-        ItemStack theirGlass = createItem(Material.CYAN_STAINED_GLASS_PANE, ChatColor.AQUA + "对方物品");
-        
-        for (int slot : YOUR_SLOTS) {
+        for (int slot : layout.slots(SlotRole.YOUR_ITEM)) {
             inventory.setItem(slot, yourGlass);
         }
-        for (int slot : THEIR_SLOTS) {
+        for (int slot : layout.slots(SlotRole.THEIR_ITEM)) {
             inventory.setItem(slot, theirGlass);
         }
         
-        // Bottom row
-        ItemStack bottomFiller = createItem(Material.GRAY_STAINED_GLASS_PANE, " ");
-        for (int i = 45; i < 54; i++) {
-            inventory.setItem(i, bottomFiller);
+        // Filler slots
+        ItemStack filler = createItem(Material.GRAY_STAINED_GLASS_PANE, " ");
+        for (int slot : layout.slots(SlotRole.FILLER)) {
+            inventory.setItem(slot, filler);
         }
         
         // Confirm button
         updateConfirmButton();
         
+        // Page controls
+        updatePageControls();
+        
         // Cancel button
         ItemStack cancelBtn = createItem(Material.BARRIER, ChatColor.RED + "取消交易");
-        inventory.setItem(CANCEL_SLOT, cancelBtn);
+        setRoleItem(SlotRole.CANCEL, cancelBtn);
         
         // Money display
         updateMoneyDisplay();
@@ -113,26 +131,29 @@ public class TradeGUI implements InventoryHolder {
      */
     public void update() {
         UUID viewerUuid = viewer.getUniqueId();
+        int offset = page * layout.getItemCapacity();
         
-        // Update your items
+        // Update your items on the current page
+        int[] yourSlots = layout.slots(SlotRole.YOUR_ITEM);
         Map<Integer, ItemStack> yourItems = session.getPlayerItems(viewerUuid);
-        for (int i = 0; i < YOUR_SLOTS.length; i++) {
-            ItemStack item = yourItems.get(i);
+        for (int i = 0; i < yourSlots.length; i++) {
+            ItemStack item = yourItems.get(offset + i);
             if (item != null) {
-                inventory.setItem(YOUR_SLOTS[i], item);
+                inventory.setItem(yourSlots[i], item);
             } else {
-                inventory.setItem(YOUR_SLOTS[i], createItem(Material.LIME_STAINED_GLASS_PANE, ChatColor.GREEN + "你的物品"));
+                inventory.setItem(yourSlots[i], yourGlass);
             }
         }
         
-        // Update their items (display only) with detail lore
+        // Update their items on the current page (display only) with detail lore
+        int[] theirSlots = layout.slots(SlotRole.THEIR_ITEM);
         Map<Integer, ItemStack> theirItems = session.getOtherPlayerItems(viewerUuid);
-        for (int i = 0; i < THEIR_SLOTS.length; i++) {
-            ItemStack item = theirItems.get(i);
+        for (int i = 0; i < theirSlots.length; i++) {
+            ItemStack item = theirItems.get(offset + i);
             if (item != null) {
-                inventory.setItem(THEIR_SLOTS[i], createItemWithDetails(item));
+                inventory.setItem(theirSlots[i], createItemWithDetails(item));
             } else {
-                inventory.setItem(THEIR_SLOTS[i], createItem(Material.CYAN_STAINED_GLASS_PANE, ChatColor.AQUA + "对方物品"));
+                inventory.setItem(theirSlots[i], theirGlass);
             }
         }
         
@@ -140,6 +161,76 @@ public class TradeGUI implements InventoryHolder {
         updateExpDisplay();
         updateStatusDisplay();
         updateConfirmButton();
+        updatePageControls();
+    }
+    
+    /**
+     * Update page buttons and the page indicator.
+     * The indicator summarizes what both sides offer on pages that are not shown.
+     */
+    private void updatePageControls() {
+        if (pageCount <= 1) {
+            ItemStack filler = createItem(Material.GRAY_STAINED_GLASS_PANE, " ");
+            setRoleItem(SlotRole.PREV_PAGE, filler);
+            setRoleItem(SlotRole.NEXT_PAGE, filler);
+            setRoleItem(SlotRole.PAGE_INFO, filler);
+            return;
+        }
+        
+        setRoleItem(SlotRole.PREV_PAGE, page > 0
+            ? createItem(Material.ARROW, ChatColor.YELLOW + "上一页")
+            : createItem(Material.GRAY_STAINED_GLASS_PANE, ChatColor.GRAY + "已是第一页"));
+        setRoleItem(SlotRole.NEXT_PAGE, page < pageCount - 1
+            ? createItem(Material.ARROW, ChatColor.YELLOW + "下一页")
+            : createItem(Material.GRAY_STAINED_GLASS_PANE, ChatColor.GRAY + "已是最后一页"));
+        
+        UUID viewerUuid = viewer.getUniqueId();
+        int[] yourCounts = countPerPage(session.getPlayerItems(viewerUuid));
+        int[] theirCounts = countPerPage(session.getOtherPlayerItems(viewerUuid));
+        
+        List<String> lore = new ArrayList<>();
+        lore.add(ChatColor.GRAY + "每页 " + layout.getItemCapacity() + " 格");
+        lore.add("");
+        lore.add(ChatColor.GREEN + "你的物品: " + ChatColor.WHITE + session.getPlayerItems(viewerUuid).size() + " 组");
+        lore.add(ChatColor.AQUA + "对方物品: " + ChatColor.WHITE + session.getOtherPlayerItems(viewerUuid).size() + " 组");
+        for (int p = 0; p < pageCount; p++) {
+            if (p != page && (yourCounts[p] > 0 || theirCounts[p] > 0)) {
+                lore.add(ChatColor.GRAY + "  第 " + (p + 1) + " 页: " +
+                         ChatColor.GREEN + yourCounts[p] + ChatColor.GRAY + " / " +
+                         ChatColor.AQUA + theirCounts[p]);
+            }
+        }
+        setRoleItem(SlotRole.PAGE_INFO, createItem(Material.BOOK,
+            ChatColor.GOLD + "第 " + (page + 1) + "/" + pageCount + " 页",
+            lore.toArray(new String[0])));
+    }
+    
+    /**
+     * Count offered stacks on each page.
+     */
+    private int[] countPerPage(Map<Integer, ItemStack> items) {
+        int[] counts = new int[pageCount];
+        int capacity = layout.getItemCapacity();
+        if (capacity == 0) {
+            return counts;
+        }
+        for (Integer index : items.keySet()) {
+            int p = index / capacity;
+            if (p >= 0 && p < pageCount) {
+                counts[p]++;
+            }
+        }
+        return counts;
+    }
+    
+    /**
+     * Place an item in the slot assigned to a role, if the layout has one.
+     */
+    private void setRoleItem(SlotRole role, ItemStack item) {
+        int slot = layout.getSlot(role);
+        if (slot >= 0) {
+            inventory.setItem(slot, item);
+        }
     }
     
     /**
@@ -232,12 +323,12 @@ public class TradeGUI implements InventoryHolder {
     private void updateMoneyDisplay() {
         UUID viewerUuid = viewer.getUniqueId();
         
-        if (tradeService.hasEconomy()) {
+        if (tradeService.hasEconomy(session)) {
             double yourMoney = session.getPlayerMoney(viewerUuid);
             double theirMoney = session.getOtherPlayerMoney(viewerUuid);
             
             // Calculate tax
-            double taxRate = tradeService.getConfig().getTradeTax();
+            double taxRate = settings.getTradeTax();
             double yourTax = yourMoney * taxRate;
             double theirReceive = yourMoney - yourTax;
             
@@ -252,15 +343,15 @@ public class TradeGUI implements InventoryHolder {
             ItemStack yourMoneyItem = createItem(Material.GOLD_NUGGET, 
                 ChatColor.GOLD + "你的金币: " + ChatColor.WHITE + String.format("%.2f", yourMoney),
                 yourLore.toArray(new String[0]));
-            inventory.setItem(YOUR_MONEY_SLOT, yourMoneyItem);
+            setRoleItem(SlotRole.YOUR_MONEY, yourMoneyItem);
             
             ItemStack theirMoneyItem = createItem(Material.GOLD_NUGGET,
                 ChatColor.GOLD + "对方金币: " + ChatColor.WHITE + String.format("%.2f", theirMoney));
-            inventory.setItem(THEIR_MONEY_SLOT, theirMoneyItem);
+            setRoleItem(SlotRole.THEIR_MONEY, theirMoneyItem);
         } else {
             ItemStack disabled = createItem(Material.BARRIER, ChatColor.RED + "金币交易未启用");
-            inventory.setItem(YOUR_MONEY_SLOT, disabled);
-            inventory.setItem(THEIR_MONEY_SLOT, disabled);
+            setRoleItem(SlotRole.YOUR_MONEY, disabled);
+            setRoleItem(SlotRole.THEIR_MONEY, disabled);
         }
     }
     
@@ -270,13 +361,13 @@ public class TradeGUI implements InventoryHolder {
     private void updateExpDisplay() {
         UUID viewerUuid = viewer.getUniqueId();
         
-        if (tradeService.getConfig().isEnableExpTrade()) {
+        if (settings.isEnableExpTrade()) {
             int yourExp = session.getPlayerExp(viewerUuid);
             int theirExp = session.getOtherPlayerExp(viewerUuid);
             int totalExp = tradeService.getTotalExperience(viewer);
             
             // Calculate tax
-            double taxRate = tradeService.getConfig().getExpTaxRate();
+            double taxRate = settings.getExpTaxRate();
             int yourTax = (int)(yourExp * taxRate);
             int theirReceive = yourExp - yourTax;
             
@@ -292,15 +383,15 @@ public class TradeGUI implements InventoryHolder {
             ItemStack yourExpItem = createItem(Material.EXPERIENCE_BOTTLE, 
                 ChatColor.GREEN + "你的经验: " + ChatColor.WHITE + yourExp,
                 yourLore.toArray(new String[0]));
-            inventory.setItem(YOUR_EXP_SLOT, yourExpItem);
+            setRoleItem(SlotRole.YOUR_EXP, yourExpItem);
             
             ItemStack theirExpItem = createItem(Material.EXPERIENCE_BOTTLE,
                 ChatColor.GREEN + "对方经验: " + ChatColor.WHITE + theirExp);
-            inventory.setItem(THEIR_EXP_SLOT, theirExpItem);
+            setRoleItem(SlotRole.THEIR_EXP, theirExpItem);
         } else {
             ItemStack disabled = createItem(Material.BARRIER, ChatColor.RED + "经验交易未启用");
-            inventory.setItem(YOUR_EXP_SLOT, disabled);
-            inventory.setItem(THEIR_EXP_SLOT, disabled);
+            setRoleItem(SlotRole.YOUR_EXP, disabled);
+            setRoleItem(SlotRole.THEIR_EXP, disabled);
         }
     }
     
@@ -317,13 +408,13 @@ public class TradeGUI implements InventoryHolder {
             yourConfirmed ? Material.LIME_WOOL : Material.RED_WOOL,
             yourConfirmed ? ChatColor.GREEN + "你已确认" : ChatColor.RED + "你未确认"
         );
-        inventory.setItem(YOUR_STATUS_SLOT, yourStatus);
+        setRoleItem(SlotRole.YOUR_STATUS, yourStatus);
         
         ItemStack theirStatus = createItem(
             theirConfirmed ? Material.LIME_WOOL : Material.RED_WOOL,
             theirConfirmed ? ChatColor.GREEN + "对方已确认" : ChatColor.RED + "对方未确认"
         );
-        inventory.setItem(THEIR_STATUS_SLOT, theirStatus);
+        setRoleItem(SlotRole.THEIR_STATUS, theirStatus);
     }
     
     /**
@@ -337,7 +428,7 @@ public class TradeGUI implements InventoryHolder {
             confirmed ? ChatColor.YELLOW + "点击取消确认" : ChatColor.GREEN + "确认交易",
             confirmed ? ChatColor.GRAY + "已锁定，等待对方确认" : ChatColor.GRAY + "确认后交易将进行"
         );
-        inventory.setItem(CONFIRM_SLOT, confirmBtn);
+        setRoleItem(SlotRole.CONFIRM, confirmBtn);
     }
     
     /**
@@ -360,41 +451,70 @@ public class TradeGUI implements InventoryHolder {
      * Check if slot is a "your items" slot.
      */
     public boolean isYourSlot(int slot) {
-        for (int s : YOUR_SLOTS) {
-            if (s == slot) return true;
-        }
-        return false;
+        return layout.getRole(slot) == SlotRole.YOUR_ITEM;
     }
     
     /**
      * Check if slot is the experience slot.
      */
     public boolean isExpSlot(int slot) {
-        return slot == YOUR_EXP_SLOT;
+        return layout.getRole(slot) == SlotRole.YOUR_EXP;
     }
     
     /**
      * Check if slot is the money slot.
      */
     public boolean isMoneySlot(int slot) {
-        return slot == YOUR_MONEY_SLOT;
+        return layout.getRole(slot) == SlotRole.YOUR_MONEY;
     }
     
     /**
-     * Get item index from slot.
+     * Get item index from slot, taking the current page into account.
      */
     public int getItemIndex(int slot) {
-        for (int i = 0; i < YOUR_SLOTS.length; i++) {
-            if (YOUR_SLOTS[i] == slot) return i;
+        int index = layout.getItemIndex(slot);
+        return index < 0 ? -1 : page * layout.getItemCapacity() + index;
+    }
+    
+    /**
+     * Get the current offer page (0-based).
+     */
+    public int getPage() {
+        return page;
+    }
+    
+    /**
+     * Get the number of offer pages per side.
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+    
+    /**
+     * Get the total number of item stacks each side may offer across all pages.
+     */
+    public int getOfferCapacity() {
+        return pageCount * layout.getItemCapacity();
+    }
+    
+    /**
+     * Switch to another offer page and re-render it.
+     *
+     * @param newPage Target page (0-based), clamped to the valid range
+     */
+    public void setPage(int newPage) {
+        int clamped = Math.max(0, Math.min(pageCount - 1, newPage));
+        if (clamped != page) {
+            page = clamped;
+            update();
         }
-        return -1;
     }
     
     /**
      * Play item place sound.
      */
     public void playItemSound() {
-        tradeService.playSound(viewer, Sound.BLOCK_NOTE_BLOCK_PLING);
+        tradeService.playSound(session, viewer, Sound.BLOCK_NOTE_BLOCK_PLING);
     }
     
     public TradeSession getSession() {
@@ -409,6 +529,10 @@ public class TradeGUI implements InventoryHolder {
         return tradeService;
     }
     
+    public TradeLayout getLayout() {
+        return layout;
+    }
+    
     @Override
     public Inventory getInventory() {
         return inventory;
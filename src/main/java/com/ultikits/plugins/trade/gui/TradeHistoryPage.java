@@ -0,0 +1,229 @@
+package com.ultikits.plugins.trade.gui;
+
+import com.ultikits.plugins.trade.entity.SerializedItemStack;
+import com.ultikits.plugins.trade.entity.TradeLogData;
+import com.ultikits.plugins.trade.service.TradeLogFilter;
+import com.ultikits.plugins.trade.service.TradeLogPage;
+import com.ultikits.plugins.trade.service.TradeLogService;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.Plugin;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Paged view of a player's own trade history.
+ * <p>
+ * Each page is fetched off the main thread with a keyset cursor, so paging
+ * never re-reads earlier rows. Only the logs on the current page have their
+ * item JSON parsed, when the page is drawn.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TradeHistoryPage implements InventoryHolder {
+
+    public static final int SIZE = 54;
+    public static final int PAGE_SIZE = 45;
+
+    public static final int PREV_SLOT = 45;
+    public static final int INFO_SLOT = 49;
+    public static final int NEXT_SLOT = 53;
+
+    // Item summaries shown per side before collapsing the rest
+    static final int MAX_ITEM_LINES = 6;
+
+    private final TradeLogService logService;
+    private final Player viewer;
+    private final TradeLogFilter filter;
+    private final Inventory inventory;
+
+    // Start cursor of every page reached so far; page 0 starts at null
+    private final List<TradeLogPage.Cursor> pageStarts = new ArrayList<>();
+    private int pageIndex = 0;
+    private TradeLogPage current;
+    private boolean loading = false;
+
+    public TradeHistoryPage(TradeLogService logService, Player viewer) {
+        this.logService = logService;
+        this.viewer = viewer;
+        this.filter = TradeLogFilter.builder().player(viewer.getUniqueId().toString()).build();
+        this.inventory = Bukkit.createInventory(this, SIZE, ChatColor.GOLD + "我的交易记录");
+        pageStarts.add(null);
+    }
+
+    /**
+     * Open the page for the viewer and start loading the first page.
+     */
+    public void open() {
+        viewer.openInventory(inventory);
+        load(0);
+    }
+
+    /**
+     * Fetch a page asynchronously and draw it back on the main thread.
+     */
+    private void load(int index) {
+        loading = true;
+        drawLoading();
+        TradeLogPage.Cursor start = pageStarts.get(index);
+        Plugin plugin = Bukkit.getPluginManager().getPlugin("UltiTools");
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            TradeLogPage page = logService.queryLogs(filter, start, PAGE_SIZE);
+            Bukkit.getScheduler().runTask(plugin, () -> show(index, page));
+        });
+    }
+
+    private void show(int index, TradeLogPage page) {
+        pageIndex = index;
+        current = page;
+        loading = false;
+        if (page.hasNext() && pageStarts.size() == index + 1) {
+            pageStarts.add(page.getNext());
+        }
+
+        inventory.clear();
+        List<TradeLogData> logs = page.getLogs();
+        for (int i = 0; i < logs.size() && i < PAGE_SIZE; i++) {
+            inventory.setItem(i, createEntry(logs.get(i)));
+        }
+        drawControls();
+    }
+
+    private void drawLoading() {
+        inventory.setItem(INFO_SLOT, createItem(Material.CLOCK, ChatColor.YELLOW + "加载中...",
+            Collections.emptyList()));
+    }
+
+    private void drawControls() {
+        ItemStack background = createItem(Material.GRAY_STAINED_GLASS_PANE, " ", Collections.emptyList());
+        for (int slot = PAGE_SIZE; slot < SIZE; slot++) {
+            inventory.setItem(slot, background);
+        }
+        if (pageIndex > 0) {
+            inventory.setItem(PREV_SLOT, createItem(Material.ARROW, ChatColor.YELLOW + "上一页",
+                Collections.emptyList()));
+        }
+        if (current.hasNext()) {
+            inventory.setItem(NEXT_SLOT, createItem(Material.ARROW, ChatColor.YELLOW + "下一页",
+                Collections.emptyList()));
+        }
+        String info = current.getLogs().isEmpty() && pageIndex == 0
+            ? ChatColor.GRAY + "暂无交易记录"
+            : ChatColor.GRAY + "本页 " + current.getLogs().size() + " 条";
+        inventory.setItem(INFO_SLOT, createItem(Material.BOOK, ChatColor.GOLD + "第 " + (pageIndex + 1) + " 页",
+            Collections.singletonList(info)));
+    }
+
+    /**
+     * Build the icon for one trade, seen from the viewer's side.
+     */
+    private ItemStack createEntry(TradeLogData log) {
+        boolean isPlayer1 = viewer.getUniqueId().toString().equals(log.getPlayer1Uuid());
+        String other = isPlayer1 ? log.getPlayer2Name() : log.getPlayer1Name();
+        boolean cancelled = "CANCELLED".equals(log.getStatus());
+
+        List<String> lore = new ArrayList<>();
+        lore.add(ChatColor.GRAY + new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(log.getTradeTime())));
+        lore.add(cancelled ? ChatColor.RED + "已取消" : ChatColor.GREEN + "已完成");
+        if (cancelled && log.getCancelReason() != null) {
+            lore.add(ChatColor.GRAY + "原因: " + log.getCancelReason());
+        }
+        lore.add("");
+        lore.add(ChatColor.GREEN + "你给出:");
+        addSide(lore,
+            isPlayer1 ? log.getPlayer1ItemsJson() : log.getPlayer2ItemsJson(),
+            isPlayer1 ? log.getPlayer1Money() : log.getPlayer2Money(),
+            isPlayer1 ? log.getPlayer1Exp() : log.getPlayer2Exp());
+        lore.add(ChatColor.AQUA + "你收到:");
+        addSide(lore,
+            isPlayer1 ? log.getPlayer2ItemsJson() : log.getPlayer1ItemsJson(),
+            isPlayer1 ? log.getPlayer2Money() : log.getPlayer1Money(),
+            isPlayer1 ? log.getPlayer2Exp() : log.getPlayer1Exp());
+
+        return createItem(cancelled ? Material.BARRIER : Material.PAPER,
+            ChatColor.GOLD + "与 " + other + " 的交易", lore);
+    }
+
+    private static void addSide(List<String> lore, String itemsJson, double money, int exp) {
+        int before = lore.size();
+        List<SerializedItemStack> items;
+        try {
+            items = SerializedItemStack.listFromJson(itemsJson);
+        } catch (RuntimeException e) {
+            items = Collections.emptyList();
+        }
+        for (int i = 0; i < items.size() && i < MAX_ITEM_LINES; i++) {
+            lore.add(ChatColor.WHITE + "  " + items.get(i).getSummary());
+        }
+        if (items.size() > MAX_ITEM_LINES) {
+            lore.add(ChatColor.GRAY + "  ...还有 " + (items.size() - MAX_ITEM_LINES) + " 件");
+        }
+        if (money > 0) {
+            lore.add(ChatColor.WHITE + "  金币: " + ChatColor.GOLD + String.format("%.2f", money));
+        }
+        if (exp > 0) {
+            lore.add(ChatColor.WHITE + "  经验: " + ChatColor.GREEN + exp);
+        }
+        if (lore.size() == before) {
+            lore.add(ChatColor.GRAY + "  无");
+        }
+    }
+
+    /**
+     * Handle click event.
+     */
+    public void handleClick(InventoryClickEvent event) {
+        event.setCancelled(true);
+        if (loading || current == null) {
+            return;
+        }
+        int slot = event.getRawSlot();
+        if (slot == PREV_SLOT && pageIndex > 0) {
+            load(pageIndex - 1);
+        } else if (slot == NEXT_SLOT && current.hasNext()) {
+            load(pageIndex + 1);
+        }
+    }
+
+    /**
+     * Create an item with name and lore.
+     */
+    private static ItemStack createItem(Material material, String name, List<String> lore) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(name);
+            if (!lore.isEmpty()) {
+                meta.setLore(lore);
+            }
+            item.setItemMeta(meta);
+        }
+        return item;
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    public Player getViewer() {
+        return viewer;
+    }
+
+    /**
+     * @return Zero-based index of the page on screen
+     */
+    public int getPageIndex() {
+        return pageIndex;
+    }
+}
@@ -0,0 +1,274 @@
+package com.ultikits.plugins.trade.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled chest inventory layout.
+ * <p>
+ * A layout is declared as up to six rows of nine symbols, one symbol per slot
+ * (see {@link SlotRole} for the legend). It is compiled once into flat
+ * per-slot tables so that resolving the role and item index of a clicked slot
+ * is a single array read.
+ * </p>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public final class TradeLayout {
+
+    /**
+     * Role of a single inventory slot.
+     */
+    public enum SlotRole {
+        YOUR_ITEM('Y'),
+        THEIR_ITEM('T'),
+        SEPARATOR('|'),
+        YOUR_MONEY('M'),
+        THEIR_MONEY('m'),
+        YOUR_EXP('E'),
+        THEIR_EXP('e'),
+        YOUR_STATUS('S'),
+        THEIR_STATUS('s'),
+        CONFIRM('C'),
+        CANCEL('X'),
+        INFO('I'),
+        PREV_PAGE('<'),
+        NEXT_PAGE('>'),
+        PAGE_INFO('P'),
+        FILLER('#'),
+        EMPTY('_');
+
+        private final char symbol;
+
+        SlotRole(char symbol) {
+            this.symbol = symbol;
+        }
+
+        public char getSymbol() {
+            return symbol;
+        }
+
+        /**
+         * Whether several slots may carry this role.
+         */
+        public boolean isRepeatable() {
+            return this == YOUR_ITEM || this == THEIR_ITEM || this == SEPARATOR
+                || this == FILLER || this == EMPTY;
+        }
+
+        static SlotRole fromSymbol(char symbol) {
+            for (SlotRole role : values()) {
+                if (role.symbol == symbol) {
+                    return role;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final int ROW_WIDTH = 9;
+    public static final int MAX_ROWS = 6;
+
+    /**
+     * Default trade window: two 4x4 item grids, money/status/exp row, buttons
+     * and offer page controls.
+     */
+    public static final List<String> DEFAULT_TRADE_ROWS = Collections.unmodifiableList(Arrays.asList(
+        "YYYY|TTTT",
+        "YYYY|TTTT",
+        "YYYY|TTTT",
+        "YYYY|TTTT",
+        "MSE_|_esm",
+        "X<P>C####"
+    ));
+
+    /**
+     * Default large trade confirmation page.
+     */
+    public static final List<String> DEFAULT_CONFIRM_ROWS = Collections.unmodifiableList(Arrays.asList(
+        "#########",
+        "#YYYITTT#",
+        "#########",
+        "#ME##me##",
+        "##C###X##"
+    ));
+
+    public static final TradeLayout DEFAULT_TRADE =
+        compile(DEFAULT_TRADE_ROWS, SlotRole.CONFIRM, SlotRole.CANCEL);
+    public static final TradeLayout DEFAULT_CONFIRM =
+        compile(DEFAULT_CONFIRM_ROWS, SlotRole.CONFIRM, SlotRole.CANCEL);
+
+    private final int size;
+    private final SlotRole[] roles;
+    private final int[] indices;
+    private final int[][] slotsByRole;
+
+    private TradeLayout(SlotRole[] roles, int[] indices, int[][] slotsByRole) {
+        this.size = roles.length;
+        this.roles = roles;
+        this.indices = indices;
+        this.slotsByRole = slotsByRole;
+    }
+
+    /**
+     * Compile a layout from its row declaration.
+     *
+     * @param rows          Rows of exactly nine symbols each
+     * @param requiredRoles Roles that must appear in the layout
+     * @return Compiled layout
+     * @throws IllegalArgumentException if the declaration is malformed
+     */
+    public static TradeLayout compile(List<String> rows, SlotRole... requiredRoles) {
+        if (rows == null || rows.isEmpty() || rows.size() > MAX_ROWS) {
+            throw new IllegalArgumentException("layout must have 1-" + MAX_ROWS + " rows");
+        }
+
+        int size = rows.size() * ROW_WIDTH;
+        SlotRole[] roles = new SlotRole[size];
+        int[] indices = new int[size];
+        List<List<Integer>> grouped = new ArrayList<>();
+        for (int i = 0; i < SlotRole.values().length; i++) {
+            grouped.add(new ArrayList<>());
+        }
+
+        for (int row = 0; row < rows.size(); row++) {
+            String line = rows.get(row);
+            if (line == null || line.length() != ROW_WIDTH) {
+                throw new IllegalArgumentException("row " + (row + 1) + " must have exactly "
+                    + ROW_WIDTH + " symbols");
+            }
+            for (int col = 0; col < ROW_WIDTH; col++) {
+                SlotRole role = SlotRole.fromSymbol(line.charAt(col));
+                if (role == null) {
+                    throw new IllegalArgumentException("unknown symbol '" + line.charAt(col)
+                        + "' in row " + (row + 1));
+                }
+                int slot = row * ROW_WIDTH + col;
+                List<Integer> group = grouped.get(role.ordinal());
+                if (!role.isRepeatable() && !group.isEmpty()) {
+                    throw new IllegalArgumentException("symbol '" + role.getSymbol()
+                        + "' may only appear once");
+                }
+                roles[slot] = role;
+                indices[slot] = group.size();
+                group.add(slot);
+            }
+        }
+
+        for (SlotRole required : requiredRoles) {
+            if (grouped.get(required.ordinal()).isEmpty()) {
+                throw new IllegalArgumentException("missing required symbol '" + required.getSymbol() + "'");
+            }
+        }
+        if (grouped.get(SlotRole.YOUR_ITEM.ordinal()).size() != grouped.get(SlotRole.THEIR_ITEM.ordinal()).size()) {
+            throw new IllegalArgumentException("'Y' and 'T' must appear the same number of times");
+        }
+
+        int[][] slotsByRole = new int[grouped.size()][];
+        for (int i = 0; i < grouped.size(); i++) {
+            List<Integer> group = grouped.get(i);
+            int[] slots = new int[group.size()];
+            for (int j = 0; j < slots.length; j++) {
+                slots[j] = group.get(j);
+            }
+            slotsByRole[i] = slots;
+        }
+
+        return new TradeLayout(roles, indices, slotsByRole);
+    }
+
+    /**
+     * Get the inventory size of this layout.
+     *
+     * @return Number of slots (a multiple of nine)
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the role of a raw slot.
+     *
+     * @param slot Raw slot
+     * @return Slot role, {@link SlotRole#EMPTY} for slots outside the layout
+     */
+    public SlotRole getRole(int slot) {
+        if (slot < 0 || slot >= size) {
+            return SlotRole.EMPTY;
+        }
+        return roles[slot];
+    }
+
+    /**
+     * Get the position of a slot among the slots sharing its role.
+     * For item grids this is the trade session item index.
+     *
+     * @param slot Raw slot
+     * @return Index within the role group, or -1 for slots outside the layout
+     */
+    public int getIndex(int slot) {
+        if (slot < 0 || slot >= size) {
+            return -1;
+        }
+        return indices[slot];
+    }
+
+    /**
+     * Get the item index of a "your items" slot.
+     *
+     * @param slot Raw slot
+     * @return Item index, or -1 if the slot is not a "your items" slot
+     */
+    public int getItemIndex(int slot) {
+        return getRole(slot) == SlotRole.YOUR_ITEM ? indices[slot] : -1;
+    }
+
+    /**
+     * Get the single slot assigned to a role.
+     *
+     * @param role Slot role
+     * @return First slot with this role, or -1 if absent
+     */
+    public int getSlot(SlotRole role) {
+        int[] slots = slotsByRole[role.ordinal()];
+        return slots.length > 0 ? slots[0] : -1;
+    }
+
+    /**
+     * Get all slots with a role, ordered by index.
+     *
+     * @param role Slot role
+     * @return Copy of the slot array
+     */
+    public int[] getSlots(SlotRole role) {
+        return slotsByRole[role.ordinal()].clone();
+    }
+
+    /**
+     * Get the number of item slots per side.
+     *
+     * @return Item slots per side
+     */
+    public int getItemCapacity() {
+        return slotsByRole[SlotRole.YOUR_ITEM.ordinal()].length;
+    }
+
+    /**
+     * Whether players can flip offer pages in this layout.
+     *
+     * @return true if both '&lt;' and '&gt;' are declared
+     */
+    public boolean hasPageControls() {
+        return getSlot(SlotRole.PREV_PAGE) >= 0 && getSlot(SlotRole.NEXT_PAGE) >= 0;
+    }
+
+    /**
+     * Shared slot array for renderers in this package; must not be modified.
+     */
+    int[] slots(SlotRole role) {
+        return slotsByRole[role.ordinal()];
+    }
+}
@@ -2,8 +2,12 @@ package com.ultikits.plugins.trade.listener;
 
 import com.ultikits.plugins.trade.config.TradeConfig;
 import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.gui.TradeAmountPage;
 import com.ultikits.plugins.trade.gui.TradeConfirmPage;
 import com.ultikits.plugins.trade.gui.TradeGUI;
+import com.ultikits.plugins.trade.gui.TradeHistoryPage;
+import com.ultikits.plugins.trade.gui.TradeLayout;
+import com.ultikits.plugins.trade.service.TradeInputService;
 import com.ultikits.plugins.trade.service.TradeService;
 import com.ultikits.ultitools.annotations.Autowired;
 import com.ultikits.ultitools.annotations.EventListener;
@@ -18,17 +22,21 @@ import org.bukkit.plugin.Plugin;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Listener for trade GUI interactions and shift+right-click trading.
@@ -45,12 +53,8 @@ public class TradeListener implements Listener {
     @Autowired
     private TradeConfig config;
     
-    // Track players waiting for input (money/exp)
-    private final Map<UUID, InputType> waitingForInput = new HashMap<>();
-    
-    private enum InputType {
-        MONEY, EXPERIENCE
-    }
+    @Autowired
+    private TradeInputService inputService;
 
     /**
      * Get Bukkit plugin instance for scheduler tasks.
@@ -108,243 +112,280 @@ public class TradeListener implements Listener {
             return;
         }
         
+        // Handle TradeAmountPage clicks
+        if (event.getInventory().getHolder() instanceof TradeAmountPage) {
+            event.setCancelled(true);
+            ((TradeAmountPage) event.getInventory().getHolder()).handleClick(event);
+            return;
+        }
+        
+        // Handle TradeHistoryPage clicks
+        if (event.getInventory().getHolder() instanceof TradeHistoryPage) {
+            event.setCancelled(true);
+            ((TradeHistoryPage) event.getInventory().getHolder()).handleClick(event);
+            return;
+        }
+        
         // Handle TradeGUI clicks
         if (!(event.getInventory().getHolder() instanceof TradeGUI)) {
             return;
         }
         
         TradeGUI gui = (TradeGUI) event.getInventory().getHolder();
+        TradeLayout layout = gui.getLayout();
         Player player = (Player) event.getWhoClicked();
         TradeSession session = gui.getSession();
         int slot = event.getRawSlot();
         
-        // Click outside the trade GUI
-        if (slot >= 54) {
+        // Click in the player's own inventory
+        if (slot >= layout.getSize()) {
             event.setCancelled(true);
+            handleOwnInventoryClick(event, gui, player, session);
             return;
         }
         
-        // Handle confirm button
-        if (slot == TradeGUI.CONFIRM_SLOT) {
-            event.setCancelled(true);
-            if (session.isConfirmed(player.getUniqueId())) {
-                tradeService.cancelConfirmation(player);
-            } else {
-                tradeService.confirmTrade(player);
-            }
-            updateBothGUIs(session);
+        switch (layout.getRole(slot)) {
+            case CONFIRM:
+                event.setCancelled(true);
+                if (session.isConfirmed(player.getUniqueId())) {
+                    tradeService.cancelConfirmation(player);
+                } else {
+                    tradeService.confirmTrade(player);
+                }
+                updateBothGUIs(session);
+                return;
+            case CANCEL:
+                event.setCancelled(true);
+                tradeService.cancelTrade(player);
+                return;
+            case YOUR_MONEY:
+                event.setCancelled(true);
+                if (tradeService.hasEconomy(session)) {
+                    promptMoneyInput(player, session);
+                }
+                return;
+            case YOUR_EXP:
+                event.setCancelled(true);
+                if (tradeService.getSettings(session).isEnableExpTrade()) {
+                    promptExpInput(player, session);
+                }
+                return;
+            case YOUR_ITEM:
+                handleYourItemClick(event, gui, player, session, gui.getItemIndex(slot));
+                return;
+            case PREV_PAGE:
+                event.setCancelled(true);
+                gui.setPage(gui.getPage() - 1);
+                return;
+            case NEXT_PAGE:
+                event.setCancelled(true);
+                gui.setPage(gui.getPage() + 1);
+                return;
+            default:
+                // Their items, separators, status and filler slots are display only
+                event.setCancelled(true);
+        }
+    }
+    
+    /**
+     * Start money input conversation.
+     */
+    private void promptMoneyInput(Player player, TradeSession session) {
+        if (isKeypadInput(session)) {
+            openAmountPage(player, session, TradeInputService.InputType.MONEY);
             return;
         }
         
-        // Handle cancel button
-        if (slot == TradeGUI.CANCEL_SLOT) {
-            event.setCancelled(true);
-            tradeService.cancelTrade(player);
+        // Reset confirmation when changing money
+        session.setConfirmed(player.getUniqueId(), false);
+        session.setConfirmed(session.getOtherPlayer(player.getUniqueId()), false);
+        
+        // Register first so closing the window does not cancel the trade
+        inputService.prompt(player, TradeInputService.InputType.MONEY);
+        player.closeInventory();
+        player.sendMessage(ChatColor.GOLD + "请在聊天框中输入要交易的金币数量：");
+        player.sendMessage(ChatColor.GRAY + "(输入 'cancel' 取消)");
+    }
+    
+    /**
+     * Start experience input conversation.
+     */
+    private void promptExpInput(Player player, TradeSession session) {
+        if (isKeypadInput(session)) {
+            openAmountPage(player, session, TradeInputService.InputType.EXPERIENCE);
             return;
         }
         
-        // Handle money slot click
-        if (gui.isMoneySlot(slot) && tradeService.hasEconomy()) {
-            event.setCancelled(true);
-            // Reset confirmation when changing money
-            session.setConfirmed(player.getUniqueId(), false);
-            session.setConfirmed(session.getOtherPlayer(player.getUniqueId()), false);
-            
-            // Start money input conversation
-            player.closeInventory();
-            player.sendMessage(ChatColor.GOLD + "请在聊天框中输入要交易的金币数量：");
-            player.sendMessage(ChatColor.GRAY + "(输入 'cancel' 取消)");
-            waitingForInput.put(player.getUniqueId(), InputType.MONEY);
-            
-            // Reopen GUI after a delay if no input
-            Bukkit.getScheduler().runTaskLater(getBukkitPlugin(), () -> {
-                if (waitingForInput.remove(player.getUniqueId()) != null) {
-                    if (tradeService.isTrading(player.getUniqueId())) {
-                        TradeGUI newGui = new TradeGUI(tradeService, session, player);
-                        player.openInventory(newGui.getInventory());
-                    }
-                }
-            }, 200L); // 10 seconds timeout
+        // Reset confirmation when changing exp
+        session.setConfirmed(player.getUniqueId(), false);
+        session.setConfirmed(session.getOtherPlayer(player.getUniqueId()), false);
+        
+        // Register first so closing the window does not cancel the trade
+        inputService.prompt(player, TradeInputService.InputType.EXPERIENCE);
+        player.closeInventory();
+        player.sendMessage(ChatColor.GREEN + "请在聊天框中输入要交易的经验值：");
+        player.sendMessage(ChatColor.AQUA + "你当前有 " + tradeService.getTotalExperience(player) + " 经验");
+        player.sendMessage(ChatColor.GRAY + "(输入 'cancel' 取消)");
+    }
+    
+    /**
+     * Check whether amounts are entered on the keypad page instead of in chat.
+     */
+    private boolean isKeypadInput(TradeSession session) {
+        return "KEYPAD".equalsIgnoreCase(tradeService.getSettings(session).getAmountInputMode());
+    }
+    
+    /**
+     * Open the keypad page on the next tick; inventories must not be switched
+     * from inside a click event.
+     */
+    private void openAmountPage(Player player, TradeSession session, TradeInputService.InputType type) {
+        TradeAmountPage page = new TradeAmountPage(tradeService, session, player, type);
+        Bukkit.getScheduler().runTask(getBukkitPlugin(), page::open);
+    }
+    
+    /**
+     * Place or take back an item in one of the player's own item slots.
+     */
+    private void handleYourItemClick(InventoryClickEvent event, TradeGUI gui, Player player,
+                                     TradeSession session, int index) {
+        // Slot contents are managed by the session, never by the click itself
+        event.setCancelled(true);
+        
+        if (event.getClick() == ClickType.NUMBER_KEY) {
+            swapWithHotbar(event.getHotbarButton(), player, session, index);
             return;
         }
         
-        // Handle experience slot click
-        if (gui.isExpSlot(slot) && config.isEnableExpTrade()) {
-            event.setCancelled(true);
-            // Reset confirmation when changing exp
-            session.setConfirmed(player.getUniqueId(), false);
-            session.setConfirmed(session.getOtherPlayer(player.getUniqueId()), false);
-            
-            // Start exp input conversation
-            player.closeInventory();
-            player.sendMessage(ChatColor.GREEN + "请在聊天框中输入要交易的经验值：");
-            player.sendMessage(ChatColor.AQUA + "你当前有 " + tradeService.getTotalExperience(player) + " 经验");
-            player.sendMessage(ChatColor.GRAY + "(输入 'cancel' 取消)");
-            waitingForInput.put(player.getUniqueId(), InputType.EXPERIENCE);
+        // Decide from the session, not the rendered slot: the window is redrawn
+        // later in the tick, so a second click may still see the old contents
+        ItemStack cursor = event.getCursor();
+        ItemStack offered = session.getPlayerItems(player.getUniqueId()).get(index);
+        
+        if (offered == null) {
+            if (cursor != null && !cursor.getType().isAir()) {
+                // Place item
+                session.setItem(player.getUniqueId(), index, cursor.clone());
+                event.getView().setCursor(null);
+                gui.playItemSound();
+                updateBothGUIs(session);
+            }
+        } else {
+            // Remove item
+            session.setItem(player.getUniqueId(), index, null);
             
-            // Reopen GUI after a delay if no input
-            Bukkit.getScheduler().runTaskLater(getBukkitPlugin(), () -> {
-                if (waitingForInput.remove(player.getUniqueId()) != null) {
-                    if (tradeService.isTrading(player.getUniqueId())) {
-                        TradeGUI newGui = new TradeGUI(tradeService, session, player);
-                        player.openInventory(newGui.getInventory());
-                    }
-                }
-            }, 200L); // 10 seconds timeout
+            // Give the offered stack back, never the clicked copy; a full
+            // inventory sends it to the mailbox instead of dropping it
+            tradeService.giveBack(player, Collections.singletonList(offered));
+            tradeService.playSound(session, player, Sound.ENTITY_ITEM_PICKUP);
+            updateBothGUIs(session);
+        }
+    }
+    
+    /**
+     * Swap an offered slot with a hotbar slot (number key over an item slot).
+     */
+    private void swapWithHotbar(int hotbarButton, Player player, TradeSession session, int index) {
+        if (hotbarButton < 0) {
             return;
         }
-        
-        // Block other player's side
-        for (int s : TradeGUI.THEIR_SLOTS) {
-            if (s == slot) {
-                event.setCancelled(true);
-                return;
-            }
+        PlayerInventory inventory = player.getInventory();
+        ItemStack hotbarItem = inventory.getItem(hotbarButton);
+        boolean hasHotbarItem = hotbarItem != null && !hotbarItem.getType().isAir();
+        ItemStack offered = session.getPlayerItems(player.getUniqueId()).get(index);
+        if (!hasHotbarItem && offered == null) {
+            return;
         }
         
-        // Block separator slots
-        for (int s : TradeGUI.SEPARATOR_SLOTS) {
-            if (s == slot) {
-                event.setCancelled(true);
-                return;
-            }
+        session.setItem(player.getUniqueId(), index, hasHotbarItem ? hotbarItem.clone() : null);
+        inventory.setItem(hotbarButton, offered);
+        tradeService.playSound(session, player, Sound.ENTITY_ITEM_PICKUP);
+        updateBothGUIs(session);
+    }
+    
+    /**
+     * Offer stacks straight from the player's inventory.
+     * Shift+left-click offers the clicked stack, shift+right-click offers every
+     * stack of the same material.
+     */
+    private void handleOwnInventoryClick(InventoryClickEvent event, TradeGUI gui, Player player,
+                                         TradeSession session) {
+        ClickType click = event.getClick();
+        if (click != ClickType.SHIFT_LEFT && click != ClickType.SHIFT_RIGHT) {
+            return;
         }
-        
-        // Block status and other reserved slots
-        if (slot == TradeGUI.YOUR_STATUS_SLOT || slot == TradeGUI.THEIR_STATUS_SLOT ||
-            slot == TradeGUI.THEIR_MONEY_SLOT || slot == TradeGUI.THEIR_EXP_SLOT ||
-            (slot >= 45 && slot < 54 && slot != TradeGUI.CONFIRM_SLOT && slot != TradeGUI.CANCEL_SLOT &&
-             slot != TradeGUI.YOUR_MONEY_SLOT && slot != TradeGUI.YOUR_EXP_SLOT)) {
-            event.setCancelled(true);
+        ItemStack current = event.getCurrentItem();
+        if (current == null || current.getType().isAir()) {
             return;
         }
         
-        // Handle your item slots
-        if (gui.isYourSlot(slot)) {
-            // Reset confirmation when changing items
-            session.setConfirmed(player.getUniqueId(), false);
-            session.setConfirmed(session.getOtherPlayer(player.getUniqueId()), false);
-            
-            ItemStack cursor = event.getCursor();
-            ItemStack current = event.getCurrentItem();
-            
-            int index = gui.getItemIndex(slot);
-            
-            // If clicking on glass pane, it's empty - allow placing
-            if (current != null && current.getType().name().contains("STAINED_GLASS_PANE")) {
-                if (cursor != null && !cursor.getType().isAir()) {
-                    // Place item
-                    session.setItem(player.getUniqueId(), index, cursor.clone());
-                    event.setCancelled(true);
-                    event.getView().setCursor(null);
-                    gui.playItemSound();
-                    updateBothGUIs(session);
+        List<Integer> inventorySlots = new ArrayList<>();
+        if (click == ClickType.SHIFT_LEFT) {
+            inventorySlots.add(event.getSlot());
+        } else {
+            ItemStack[] contents = player.getInventory().getStorageContents();
+            for (int i = 0; i < contents.length; i++) {
+                if (contents[i] != null && contents[i].getType() == current.getType()) {
+                    inventorySlots.add(i);
                 }
-            } else if (current != null && !current.getType().isAir()) {
-                // Remove item
-                session.setItem(player.getUniqueId(), index, null);
-                event.setCancelled(true);
-                
-                // Give item back to player
-                player.getInventory().addItem(current);
-                tradeService.playSound(player, Sound.ENTITY_ITEM_PICKUP);
-                updateBothGUIs(session);
             }
-            return;
         }
+        offerFromInventory(gui, player, session, inventorySlots);
     }
     
     /**
-     * Handle chat input for money/exp.
+     * Move stacks from the given player inventory slots into the trade as a
+     * single session mutation, followed by one refresh of both windows.
      */
-    @EventHandler
-    public void onPlayerChat(org.bukkit.event.player.AsyncPlayerChatEvent event) {
-        Player player = event.getPlayer();
-        InputType inputType = waitingForInput.remove(player.getUniqueId());
-        
-        if (inputType == null) {
+    private void offerFromInventory(TradeGUI gui, Player player, TradeSession session,
+                                    List<Integer> inventorySlots) {
+        PlayerInventory inventory = player.getInventory();
+        List<Integer> sourceSlots = new ArrayList<>(inventorySlots.size());
+        List<ItemStack> stacks = new ArrayList<>(inventorySlots.size());
+        for (int inventorySlot : inventorySlots) {
+            ItemStack item = inventory.getItem(inventorySlot);
+            if (item != null && !item.getType().isAir()) {
+                sourceSlots.add(inventorySlot);
+                stacks.add(item.clone());
+            }
+        }
+        if (stacks.isEmpty()) {
             return;
         }
         
-        event.setCancelled(true);
-        String message = event.getMessage().trim();
-        
-        // Check for cancel
-        if (message.equalsIgnoreCase("cancel")) {
-            player.sendMessage(ChatColor.YELLOW + "已取消输入");
-            Bukkit.getScheduler().runTask(getBukkitPlugin(), () -> {
-                TradeSession session = tradeService.getSession(player.getUniqueId());
-                if (session != null && tradeService.isTrading(player.getUniqueId())) {
-                    TradeGUI gui = new TradeGUI(tradeService, session, player);
-                    player.openInventory(gui.getInventory());
-                }
-            });
+        int placed = session.offerItems(player.getUniqueId(), stacks, gui.getOfferCapacity());
+        if (placed == 0) {
+            player.sendMessage(ChatColor.RED + "交易栏已满！");
             return;
         }
-        
-        // Parse number
-        try {
-            double value = Double.parseDouble(message);
-            if (value < 0) {
-                player.sendMessage(ChatColor.RED + "数值不能为负数！");
-                reopenGUI(player);
-                return;
-            }
-            
-            TradeSession session = tradeService.getSession(player.getUniqueId());
-            if (session == null) {
-                player.sendMessage(ChatColor.RED + "交易已结束！");
-                return;
-            }
-            
-            if (inputType == InputType.MONEY) {
-                // Check balance
-                if (tradeService.hasEconomy() && 
-                    tradeService.getEconomy().getBalance(player) < value) {
-                    player.sendMessage(ChatColor.RED + "余额不足！");
-                    reopenGUI(player);
-                    return;
-                }
-                session.setMoney(player.getUniqueId(), value);
-                player.sendMessage(ChatColor.GREEN + "已设置交易金币: " + value);
-            } else {
-                // Check experience
-                int expValue = (int) value;
-                if (tradeService.getTotalExperience(player) < expValue) {
-                    player.sendMessage(ChatColor.RED + "经验不足！");
-                    reopenGUI(player);
-                    return;
-                }
-                session.setExp(player.getUniqueId(), expValue);
-                player.sendMessage(ChatColor.GREEN + "已设置交易经验: " + expValue);
-            }
-            
-            reopenGUI(player);
-            
-        } catch (NumberFormatException e) {
-            player.sendMessage(ChatColor.RED + "无效的数值！");
-            reopenGUI(player);
+        for (int i = 0; i < placed; i++) {
+            inventory.setItem(sourceSlots.get(i), null);
         }
+        if (placed < stacks.size()) {
+            player.sendMessage(ChatColor.YELLOW + "交易栏已满，还有 " + (stacks.size() - placed) + " 组物品未放入");
+        }
+        
+        gui.playItemSound();
+        updateBothGUIs(session);
     }
     
     /**
-     * Reopen trade GUI for player.
+     * Handle chat input for money/exp.
+     * Parsing happens here on the chat thread; amounts are applied on the next tick.
      */
-    private void reopenGUI(Player player) {
-        Bukkit.getScheduler().runTask(getBukkitPlugin(), () -> {
-            TradeSession session = tradeService.getSession(player.getUniqueId());
-            if (session != null && tradeService.isTrading(player.getUniqueId())) {
-                TradeGUI gui = new TradeGUI(tradeService, session, player);
-                player.openInventory(gui.getInventory());
-                updateBothGUIs(session);
-            }
-        });
+    @EventHandler
+    public void onPlayerChat(org.bukkit.event.player.AsyncPlayerChatEvent event) {
+        if (inputService.handleChat(event.getPlayer(), event.getMessage())) {
+            event.setCancelled(true);
+        }
     }
     
     @EventHandler
     public void onInventoryDrag(InventoryDragEvent event) {
         if (event.getInventory().getHolder() instanceof TradeGUI ||
-            event.getInventory().getHolder() instanceof TradeConfirmPage) {
+            event.getInventory().getHolder() instanceof TradeConfirmPage ||
+            event.getInventory().getHolder() instanceof TradeAmountPage ||
+            event.getInventory().getHolder() instanceof TradeHistoryPage) {
             event.setCancelled(true);
         }
     }
@@ -356,6 +397,11 @@ public class TradeListener implements Listener {
             return;
         }
         
+        if (event.getInventory().getHolder() instanceof TradeAmountPage) {
+            ((TradeAmountPage) event.getInventory().getHolder()).handleClose();
+            return;
+        }
+        
         if (!(event.getInventory().getHolder() instanceof TradeGUI)) {
             return;
         }
@@ -363,7 +409,7 @@ public class TradeListener implements Listener {
         Player player = (Player) event.getPlayer();
         
         // Don't cancel if waiting for input
-        if (waitingForInput.containsKey(player.getUniqueId())) {
+        if (inputService.isWaiting(player.getUniqueId())) {
             return;
         }
         
@@ -375,7 +421,8 @@ public class TradeListener implements Listener {
                 getBukkitPlugin(),
                 () -> {
                     if (tradeService.isTrading(player.getUniqueId()) && 
-                        !waitingForInput.containsKey(player.getUniqueId())) {
+                        !inputService.isWaiting(player.getUniqueId()) &&
+                        !isViewingTradePage(player)) {
                         tradeService.cancelTrade(player);
                     }
                 },
@@ -384,10 +431,26 @@ public class TradeListener implements Listener {
         }
     }
     
+    /**
+     * Check whether the player has moved on to another trade window or sub-page.
+     */
+    private boolean isViewingTradePage(Player player) {
+        InventoryHolder holder = player.getOpenInventory().getTopInventory().getHolder();
+        return holder instanceof TradeGUI || holder instanceof TradeAmountPage
+            || holder instanceof TradeConfirmPage;
+    }
+    
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        tradeService.deliverRecovered(player);
+        tradeService.claimMail(player);
+    }
+    
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
-        waitingForInput.remove(player.getUniqueId());
+        inputService.cancel(player.getUniqueId());
         if (tradeService.isTrading(player.getUniqueId())) {
             tradeService.cancelTrade(player);
         }
@@ -397,14 +460,7 @@ public class TradeListener implements Listener {
      * Update both players' GUIs.
      */
     private void updateBothGUIs(TradeSession session) {
-        Player player1 = Bukkit.getPlayer(session.getPlayer1());
-        Player player2 = Bukkit.getPlayer(session.getPlayer2());
-        
-        if (player1 != null && player1.getOpenInventory().getTopInventory().getHolder() instanceof TradeGUI) {
-            ((TradeGUI) player1.getOpenInventory().getTopInventory().getHolder()).update();
-        }
-        if (player2 != null && player2.getOpenInventory().getTopInventory().getHolder() instanceof TradeGUI) {
-            ((TradeGUI) player2.getOpenInventory().getTopInventory().getHolder()).update();
-        }
+        // Goes through the service so renders are timed in one place
+        tradeService.refreshGUIs(session);
     }
 }
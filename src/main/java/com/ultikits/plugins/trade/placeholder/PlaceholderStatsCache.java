@@ -0,0 +1,130 @@
+package com.ultikits.plugins.trade.placeholder;
+
+import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+import com.ultikits.plugins.trade.service.TradeLogService;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking TTL cache of player statistics for placeholder rendering.
+ * <p>
+ * Lookups return the last known value immediately. Missing or stale entries are
+ * reloaded on the refresh executor, at most one load per player at a time, so
+ * the render path never waits on the database. Players whose settings are
+ * already loaded in {@link TradeLogService} are served from there directly;
+ * everyone else is loaded without entering that cache, so this cache alone
+ * decides how long their values live.
+ * </p>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class PlaceholderStatsCache {
+    
+    // Sweep idle entries once the cache grows past this size
+    private static final int SWEEP_THRESHOLD = 4096;
+    
+    private final TradeLogService logService;
+    private final long ttlMillis;
+    private final Executor refreshExecutor;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    
+    public PlaceholderStatsCache(TradeLogService logService, long ttlMillis, Executor refreshExecutor) {
+        this.logService = logService;
+        this.ttlMillis = ttlMillis;
+        this.refreshExecutor = refreshExecutor;
+    }
+    
+    /**
+     * Get the statistics of a player without blocking.
+     *
+     * @param playerUuid Player UUID
+     * @return Last known statistics, or empty statistics until the first load completes
+     */
+    public PlayerTradeSettings get(UUID playerUuid) {
+        PlayerTradeSettings live = logService.getCachedSettings(playerUuid);
+        if (live != null) {
+            return live;
+        }
+        
+        long now = System.currentTimeMillis();
+        Entry entry = entries.computeIfAbsent(playerUuid, Entry::new);
+        entry.lastAccess = now;
+        if (now - entry.loadedAt >= ttlMillis && entry.refreshing.compareAndSet(false, true)) {
+            refresh(playerUuid, entry);
+            if (entries.size() > SWEEP_THRESHOLD) {
+                sweep(now);
+            }
+        }
+        return entry.value;
+    }
+    
+    /**
+     * Drop the cached statistics of a player.
+     *
+     * @param playerUuid Player UUID
+     */
+    public void invalidate(UUID playerUuid) {
+        entries.remove(playerUuid);
+    }
+    
+    /**
+     * Get the number of cached players.
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    private void refresh(UUID playerUuid, Entry entry) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    entry.value = logService.getPlayerStats(playerUuid);
+                } catch (Exception ignored) {
+                    // Keep the last known value and retry after the TTL
+                } finally {
+                    entry.loadedAt = System.currentTimeMillis();
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor unavailable (e.g. during shutdown)
+            entry.refreshing.set(false);
+        }
+    }
+    
+    /**
+     * Remove entries that have not been requested for ten TTL periods.
+     */
+    private void sweep(long now) {
+        long idleLimit = ttlMillis * 10;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (!entry.refreshing.get() && now - entry.lastAccess > idleLimit) {
+                it.remove();
+            }
+        }
+    }
+    
+    /**
+     * Cached statistics of one player.
+     */
+    private static final class Entry {
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+        private volatile PlayerTradeSettings value;
+        private volatile long loadedAt = Long.MIN_VALUE / 2;
+        private volatile long lastAccess;
+        
+        Entry(UUID playerUuid) {
+            PlayerTradeSettings empty = new PlayerTradeSettings();
+            empty.setPlayerUuid(playerUuid.toString());
+            this.value = empty;
+        }
+    }
+}
@@ -1,29 +1,65 @@
 package com.ultikits.plugins.trade.placeholder;
 
 import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+import com.ultikits.plugins.trade.service.PriceIndex;
+import com.ultikits.plugins.trade.service.ServerTradeStats;
+import com.ultikits.plugins.trade.service.TradeLeaderboard;
 import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.plugins.trade.service.TradeMetrics;
 import com.ultikits.plugins.trade.service.TradeService;
 
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
 /**
  * PlaceholderAPI expansion for UltiTrade.
- * Provides trade-related placeholders.
+ * Provides trade-related placeholders. Player statistics are served from a
+ * {@link PlaceholderStatsCache}, so rendering never queries the database;
+ * server-wide placeholders read the incremental {@link ServerTradeStats},
+ * {@link TradeLeaderboard}, {@link PriceIndex} and {@link TradeMetrics}.
  *
  * @author wisdomme
  * @version 1.0.0
  */
 public class TradePlaceholderExpansion extends PlaceholderExpansion {
     
+    // Immutable and thread-safe, unlike SimpleDateFormat, so one instance serves every render
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+    
     private final TradeService tradeService;
-    private final TradeLogService logService;
+    private final PlaceholderStatsCache statsCache;
+    private final ServerTradeStats serverStats;
+    private final TradeLeaderboard leaderboard;
+    private final PriceIndex priceIndex;
+    private final TradeMetrics metrics;
     
     public TradePlaceholderExpansion(TradeService tradeService, TradeLogService logService) {
+        this(tradeService, new PlaceholderStatsCache(logService,
+            tradeService.getConfig().getPlaceholderCacheSeconds() * 1000L,
+            task -> Bukkit.getScheduler().runTaskAsynchronously(
+                Bukkit.getPluginManager().getPlugin("UltiTools"), task)),
+            logService.getServerStats(), logService.getLeaderboard(), logService.getPriceIndex(),
+            logService.getMetrics());
+    }
+    
+    TradePlaceholderExpansion(TradeService tradeService, PlaceholderStatsCache statsCache,
+                              ServerTradeStats serverStats, TradeLeaderboard leaderboard,
+                              PriceIndex priceIndex, TradeMetrics metrics) {
         this.tradeService = tradeService;
-        this.logService = logService;
+        this.statsCache = statsCache;
+        this.serverStats = serverStats;
+        this.leaderboard = leaderboard;
+        this.priceIndex = priceIndex;
+        this.metrics = metrics;
     }
     
     @Override
@@ -48,12 +84,18 @@ public class TradePlaceholderExpansion extends PlaceholderExpansion {
     
     @Override
     public @Nullable String onRequest(OfflinePlayer player, @NotNull String params) {
+        // Server-wide placeholders do not need a player
+        String server = onServerRequest(params.toLowerCase());
+        if (server != null) {
+            return server;
+        }
+        
         if (player == null) {
             return "";
         }
         
-        // Get player stats
-        PlayerTradeSettings stats = logService.getPlayerStats(player.getUniqueId());
+        // Get player stats (cached, never blocks on the database)
+        PlayerTradeSettings stats = statsCache.get(player.getUniqueId());
         
         switch (params.toLowerCase()) {
             // Total number of completed trades
@@ -110,12 +152,158 @@ public class TradePlaceholderExpansion extends PlaceholderExpansion {
         }
     }
     
+    /**
+     * Resolve server-wide placeholders from the live aggregates.
+     *
+     * @return The value, or null if params is not a server placeholder
+     */
+    private String onServerRequest(String params) {
+        switch (params) {
+            // Completed trades since midnight
+            case "server_trades_today":
+                return String.valueOf(serverStats.getTradesToday(System.currentTimeMillis()));
+            
+            // Money traded in the last 24 hours
+            case "server_volume_24h":
+                return String.format("%.2f", serverStats.getVolume24h(System.currentTimeMillis()));
+            
+            // Money tax collected in total
+            case "server_tax_collected":
+                return String.format("%.2f", serverStats.getTaxCollected());
+            
+            // Trades currently in progress
+            case "active_sessions":
+                return String.valueOf(tradeService.getActiveSessionCount());
+            
+            default:
+                if (params.startsWith("top_")) {
+                    return onTopRequest(params);
+                }
+                if (params.startsWith("metric_")) {
+                    return onMetricRequest(params.substring("metric_".length()));
+                }
+                return params.startsWith("price_") ? onPriceRequest(params) : null;
+        }
+    }
+    
+    /**
+     * Resolve leaderboard placeholders: {@code top_<rank>_<name|value>} ranks by
+     * trade count, {@code top_<trades|money|exp>_<rank>_<name|value>} picks the metric.
+     *
+     * @return The value, or null if params is malformed
+     */
+    private String onTopRequest(String params) {
+        String[] parts = params.split("_");
+        if (parts.length != 3 && parts.length != 4) {
+            return null;
+        }
+        TradeLeaderboard.Metric metric = parts.length == 4
+            ? TradeLeaderboard.Metric.parse(parts[1])
+            : TradeLeaderboard.Metric.TRADES;
+        if (metric == null) {
+            return null;
+        }
+        
+        int rank;
+        try {
+            rank = Integer.parseInt(parts[parts.length - 2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        
+        String field = parts[parts.length - 1];
+        boolean name = "name".equals(field);
+        if (!name && !"value".equals(field)) {
+            return null;
+        }
+        
+        TradeLeaderboard.Entry entry = leaderboard.getEntry(metric, rank);
+        if (entry == null) {
+            return name ? "无" : "0";
+        }
+        return name ? entry.getPlayerName() : metric.format(entry.getValue());
+    }
+    
+    /**
+     * Resolve price placeholders: {@code price_<material>_<mean|median|trades>}.
+     *
+     * @return The value, or null if params is malformed
+     */
+    private String onPriceRequest(String params) {
+        int split = params.lastIndexOf('_');
+        if (split <= "price_".length()) {
+            return null;
+        }
+        Material material = Material.matchMaterial(params.substring("price_".length(), split));
+        String field = params.substring(split + 1);
+        if (material == null
+            || !("mean".equals(field) || "median".equals(field) || "trades".equals(field))) {
+            return null;
+        }
+        
+        PriceIndex.Quote quote = priceIndex.getQuote(material, System.currentTimeMillis());
+        if (quote == null) {
+            return "trades".equals(field) ? "0" : "无";
+        }
+        switch (field) {
+            case "mean":
+                return String.format("%.2f", quote.getMean());
+            case "median":
+                return String.format("%.2f", quote.getMedian());
+            default:
+                return String.valueOf(quote.getTrades());
+        }
+    }
+    
+    /**
+     * Resolve metric placeholders: {@code metric_<counter|gauge>} for counts and
+     * {@code metric_<timer>_<count|mean|p50|p95|p99|max>}, times in milliseconds.
+     *
+     * @return The value, or null if params is malformed
+     */
+    private String onMetricRequest(String params) {
+        TradeMetrics.Counter counter = TradeMetrics.Counter.parse(params);
+        if (counter != null) {
+            return String.valueOf(metrics.getCount(counter));
+        }
+        TradeMetrics.Gauge gauge = TradeMetrics.Gauge.parse(params);
+        if (gauge != null) {
+            return String.valueOf(metrics.getGauge(gauge));
+        }
+        
+        int split = params.lastIndexOf('_');
+        TradeMetrics.Timer timer = split > 0 ? TradeMetrics.Timer.parse(params.substring(0, split)) : null;
+        if (timer == null) {
+            return null;
+        }
+        TradeMetrics.Snapshot snapshot = metrics.getSnapshot(timer);
+        switch (params.substring(split + 1)) {
+            case "count":
+                return String.valueOf(snapshot.getCount());
+            case "mean":
+                return formatMillis(snapshot.getMeanNanos());
+            case "p50":
+                return formatMillis(snapshot.getP50Nanos());
+            case "p95":
+                return formatMillis(snapshot.getP95Nanos());
+            case "p99":
+                return formatMillis(snapshot.getP99Nanos());
+            case "max":
+                return formatMillis(snapshot.getMaxNanos());
+            default:
+                return null;
+        }
+    }
+    
+    private static String formatMillis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+    
     /**
      * Format timestamp to readable date.
      */
     private String formatTimestamp(long timestamp) {
-        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm");
-        return sdf.format(new java.util.Date(timestamp));
+        return TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(timestamp));
     }
     
     /**
@@ -0,0 +1,290 @@
+package com.ultikits.plugins.trade.service;
+
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Throttles trade sounds and particles.
+ * <p>
+ * Effects requested during a tick are collected and played together by
+ * {@link #flush()}, which the owner queues once per tick as a low-priority
+ * task on the {@link TickScheduler}. Within one chunk, bursts of the
+ * same particle are merged into a single spawn centred on the players that
+ * requested them, and no more than the per-chunk cap is spawned, in request
+ * order; the rest is dropped. A sound repeated to the same player in one
+ * tick plays once.
+ * Players who asked for reduced effects get neither their sounds nor their
+ * particles. With a cap of zero nothing is merged or capped and every effect
+ * is handed to the scheduler on its own, as if there were no dispatcher.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class EffectDispatcher {
+
+    private final TickScheduler scheduler;
+    private final Predicate<Player> reducedEffects;
+    private final Supplier<TradeMetrics> metrics;
+    private final Queue<SoundRequest> sounds = new ConcurrentLinkedQueue<>();
+    private final Queue<ParticleRequest> particles = new ConcurrentLinkedQueue<>();
+    private volatile int maxParticlesPerChunk;
+
+    /**
+     * @param scheduler      Queue for effects when the cap is zero
+     * @param reducedEffects Whether a player has asked for reduced effects
+     * @param metrics        Where dropped effects are counted
+     */
+    public EffectDispatcher(TickScheduler scheduler, Predicate<Player> reducedEffects,
+                            Supplier<TradeMetrics> metrics) {
+        this.scheduler = scheduler;
+        this.reducedEffects = reducedEffects;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param max Particles spawned per chunk per tick; 0 disables merging and capping
+     */
+    public void setMaxParticlesPerChunk(int max) {
+        this.maxParticlesPerChunk = Math.max(0, max);
+    }
+
+    /**
+     * Play a sound to a player only.
+     */
+    public void sound(Player player, Sound sound) {
+        if (skip(player)) {
+            return;
+        }
+        if (maxParticlesPerChunk <= 0) {
+            scheduler.defer(TickScheduler.Priority.LOW,
+                () -> player.playSound(player.getLocation(), sound, 1.0f, 1.0f));
+            return;
+        }
+        sounds.add(new SoundRequest(player, sound));
+    }
+
+    /**
+     * Spawn a particle burst at the player's chest, visible to everyone nearby.
+     */
+    public void particles(Player player, Particle particle, int count,
+                          double offsetX, double offsetY, double offsetZ, double speed) {
+        if (skip(player)) {
+            return;
+        }
+        if (maxParticlesPerChunk <= 0) {
+            scheduler.defer(TickScheduler.Priority.LOW, () -> {
+                Location loc = player.getLocation().add(0, 1, 0);
+                player.getWorld().spawnParticle(particle, loc, count, offsetX, offsetY, offsetZ, speed);
+            });
+            return;
+        }
+        particles.add(new ParticleRequest(player, particle, count, offsetX, offsetY, offsetZ, speed));
+    }
+
+    private boolean skip(Player player) {
+        if (reducedEffects.test(player)) {
+            metrics.get().increment(TradeMetrics.Counter.EFFECTS_DROPPED);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Play everything collected since the last flush. Main thread only.
+     */
+    public void flush() {
+        int cap = maxParticlesPerChunk;
+        long droppedEffects = 0;
+        long droppedParticles = 0;
+
+        Set<SoundRequest> played = new HashSet<>();
+        SoundRequest sound;
+        while ((sound = sounds.poll()) != null) {
+            if (!sound.player.isOnline() || !played.add(sound)) {
+                droppedEffects++;
+                continue;
+            }
+            sound.player.playSound(sound.player.getLocation(), sound.sound, 1.0f, 1.0f);
+        }
+
+        Map<Area, Map<Particle, Burst>> areas = new LinkedHashMap<>();
+        ParticleRequest next;
+        while ((next = particles.poll()) != null) {
+            ParticleRequest request = next;
+            if (!request.player.isOnline()) {
+                droppedEffects++;
+                continue;
+            }
+            Location loc = request.player.getLocation().add(0, 1, 0);
+            Area area = new Area(request.player.getWorld(), loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+            areas.computeIfAbsent(area, a -> new LinkedHashMap<>())
+                .computeIfAbsent(request.particle, p -> new Burst(request))
+                .add(request, loc);
+        }
+
+        for (Map.Entry<Area, Map<Particle, Burst>> entry : areas.entrySet()) {
+            World world = entry.getKey().world;
+            int left = cap;
+            for (Burst burst : entry.getValue().values()) {
+                int spawned = Math.min(burst.count, left);
+                droppedParticles += burst.count - spawned;
+                if (spawned <= 0) {
+                    droppedEffects += burst.requests;
+                    continue;
+                }
+                left -= spawned;
+                burst.spawn(world, spawned);
+            }
+        }
+
+        if (droppedEffects > 0) {
+            metrics.get().add(TradeMetrics.Counter.EFFECTS_DROPPED, droppedEffects);
+        }
+        if (droppedParticles > 0) {
+            metrics.get().add(TradeMetrics.Counter.PARTICLES_DROPPED, droppedParticles);
+        }
+    }
+
+    /**
+     * @return true if no effect is waiting for the next flush
+     */
+    public boolean isEmpty() {
+        return sounds.isEmpty() && particles.isEmpty();
+    }
+
+    /**
+     * Sound for one player; equal requests in a tick play once.
+     */
+    private static final class SoundRequest {
+        private final Player player;
+        private final Sound sound;
+
+        SoundRequest(Player player, Sound sound) {
+            this.player = player;
+            this.sound = sound;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SoundRequest)) {
+                return false;
+            }
+            SoundRequest other = (SoundRequest) o;
+            return player.getUniqueId().equals(other.player.getUniqueId()) && sound == other.sound;
+        }
+
+        @Override
+        public int hashCode() {
+            return player.getUniqueId().hashCode() * 31 + sound.hashCode();
+        }
+    }
+
+    /**
+     * Particle burst requested for one player.
+     */
+    private static final class ParticleRequest {
+        private final Player player;
+        private final Particle particle;
+        private final int count;
+        private final double offsetX;
+        private final double offsetY;
+        private final double offsetZ;
+        private final double speed;
+
+        ParticleRequest(Player player, Particle particle, int count,
+                        double offsetX, double offsetY, double offsetZ, double speed) {
+            this.player = player;
+            this.particle = particle;
+            this.count = count;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.offsetZ = offsetZ;
+            this.speed = speed;
+        }
+    }
+
+    /**
+     * Chunk of a world.
+     */
+    private static final class Area {
+        private final World world;
+        private final int chunkX;
+        private final int chunkZ;
+
+        Area(World world, int chunkX, int chunkZ) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Area)) {
+                return false;
+            }
+            Area other = (Area) o;
+            return chunkX == other.chunkX && chunkZ == other.chunkZ && Objects.equals(world, other.world);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(world, chunkX, chunkZ);
+        }
+    }
+
+    /**
+     * Merged bursts of one particle in one chunk. Spawned at the centre of
+     * the requesting players, spread wide enough to reach each of them.
+     */
+    private static final class Burst {
+        private final Particle particle;
+        private final double speed;
+        private int requests;
+        private int count;
+        private double offsetX;
+        private double offsetY;
+        private double offsetZ;
+        private double minX = Double.MAX_VALUE;
+        private double minY = Double.MAX_VALUE;
+        private double minZ = Double.MAX_VALUE;
+        private double maxX = -Double.MAX_VALUE;
+        private double maxY = -Double.MAX_VALUE;
+        private double maxZ = -Double.MAX_VALUE;
+
+        Burst(ParticleRequest first) {
+            this.particle = first.particle;
+            this.speed = first.speed;
+        }
+
+        void add(ParticleRequest request, Location loc) {
+            requests++;
+            count += request.count;
+            offsetX = Math.max(offsetX, request.offsetX);
+            offsetY = Math.max(offsetY, request.offsetY);
+            offsetZ = Math.max(offsetZ, request.offsetZ);
+            minX = Math.min(minX, loc.getX());
+            minY = Math.min(minY, loc.getY());
+            minZ = Math.min(minZ, loc.getZ());
+            maxX = Math.max(maxX, loc.getX());
+            maxY = Math.max(maxY, loc.getY());
+            maxZ = Math.max(maxZ, loc.getZ());
+        }
+
+        void spawn(World world, int amount) {
+            Location centre = new Location(world, (minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+            world.spawnParticle(particle, centre, amount,
+                Math.max(offsetX, (maxX - minX) / 2),
+                Math.max(offsetY, (maxY - minY) / 2),
+                Math.max(offsetZ, (maxZ - minZ) / 2),
+                speed);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.MaterialPriceData;
+
+import lombok.Getter;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Per-material unit prices discovered from one-sided trades (items for money).
+ * <p>
+ * Each material keeps an exponentially decayed mean, updated in O(1), and a
+ * small ring of recent samples from which a decay-weighted median is taken on
+ * read. Older trades fade out with {@link #HALF_LIFE_MILLIS}.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class PriceIndex {
+
+    static final int SAMPLES = 32;
+    static final long HALF_LIFE_MILLIS = 3L * 24L * 60L * 60L * 1000L;
+
+    /**
+     * Price summary for one material.
+     */
+    @Getter
+    public static final class Quote {
+        private final Material material;
+        private final double mean;
+        private final double median;
+        private final long trades;
+        private final long lastTradeTime;
+
+        Quote(Material material, double mean, double median, long trades, long lastTradeTime) {
+            this.material = material;
+            this.mean = mean;
+            this.median = median;
+            this.trades = trades;
+            this.lastTradeTime = lastTradeTime;
+        }
+    }
+
+    private static final class Series {
+        double mean;
+        double weight;
+        long trades;
+        long lastTime;
+        final double[] prices = new double[SAMPLES];
+        final long[] times = new long[SAMPLES];
+        int size;
+        int next;
+        MaterialPriceData row;
+        boolean stored;
+    }
+
+    private final Map<Material, Series> series = new EnumMap<>(Material.class);
+    private final Set<Material> dirty = EnumSet.noneOf(Material.class);
+
+    /**
+     * Record a trade where one side gave only items and the other only money.
+     * Ignored unless every stack is the same plain (unenchanted) material.
+     *
+     * @param items Items given by the selling side
+     * @param money Money paid by the buying side
+     * @param time  Trade time in millis
+     * @return true if the trade was recorded as a price
+     */
+    public boolean observe(Collection<ItemStack> items, double money, long time) {
+        if (money <= 0 || items == null || items.isEmpty()) {
+            return false;
+        }
+        Material material = null;
+        int amount = 0;
+        for (ItemStack item : items) {
+            if (item == null) {
+                continue;
+            }
+            if ((material != null && item.getType() != material) || !item.getEnchantments().isEmpty()) {
+                return false;
+            }
+            material = item.getType();
+            amount += item.getAmount();
+        }
+        if (material == null || amount <= 0) {
+            return false;
+        }
+        record(material, money / amount, time);
+        return true;
+    }
+
+    /**
+     * Record a unit price for a material.
+     */
+    public synchronized void record(Material material, double unitPrice, long time) {
+        Series s = series.computeIfAbsent(material, m -> new Series());
+        s.weight = s.weight * decay(time - s.lastTime) + 1.0;
+        s.mean += (unitPrice - s.mean) / s.weight;
+        s.trades++;
+        s.lastTime = Math.max(s.lastTime, time);
+
+        s.prices[s.next] = unitPrice;
+        s.times[s.next] = time;
+        s.next = (s.next + 1) % SAMPLES;
+        s.size = Math.min(s.size + 1, SAMPLES);
+        dirty.add(material);
+    }
+
+    /**
+     * Get the current price summary for a material.
+     *
+     * @return The quote, or null if the material was never traded for money
+     */
+    public synchronized Quote getQuote(Material material, long now) {
+        Series s = series.get(material);
+        if (s == null) {
+            return null;
+        }
+        return new Quote(material, s.mean, weightedMedian(s, now), s.trades, s.lastTime);
+    }
+
+    /**
+     * Copy every changed material into its persistence row and clear the dirty set.
+     *
+     * @param inserts Receives rows that were never stored
+     * @param updates Receives rows that already exist
+     */
+    public synchronized void drainDirty(List<MaterialPriceData> inserts, List<MaterialPriceData> updates) {
+        for (Material material : dirty) {
+            Series s = series.get(material);
+            if (s.row == null) {
+                s.row = new MaterialPriceData();
+                s.row.setMaterial(material.name());
+            }
+            writeRow(s);
+            (s.stored ? updates : inserts).add(s.row);
+        }
+        dirty.clear();
+    }
+
+    /**
+     * Remember that a row was inserted, so later saves update it.
+     */
+    synchronized void markStored(MaterialPriceData row) {
+        Series s = seriesOf(row);
+        if (s != null) {
+            s.stored = true;
+        }
+    }
+
+    /**
+     * Mark a row for saving again, e.g. after a failed write.
+     */
+    synchronized void markDirty(MaterialPriceData row) {
+        if (seriesOf(row) != null) {
+            dirty.add(Material.getMaterial(row.getMaterial()));
+        }
+    }
+
+    /**
+     * Restore materials from persisted rows. Unknown materials are skipped.
+     *
+     * @param rows Persisted rows
+     */
+    public synchronized void load(Iterable<MaterialPriceData> rows) {
+        for (MaterialPriceData row : rows) {
+            Material material = row.getMaterial() == null ? null : Material.getMaterial(row.getMaterial());
+            if (material == null || series.containsKey(material)) {
+                continue;
+            }
+            Series s = new Series();
+            s.mean = row.getMean();
+            s.weight = row.getWeight();
+            s.trades = row.getTrades();
+            s.lastTime = row.getLastTradeTime();
+            readSamples(s, row.getSamples());
+            s.row = row;
+            s.stored = true;
+            series.put(material, s);
+        }
+    }
+
+    /**
+     * @return Number of materials with a price
+     */
+    public synchronized int size() {
+        return series.size();
+    }
+
+    private Series seriesOf(MaterialPriceData row) {
+        Material material = row.getMaterial() == null ? null : Material.getMaterial(row.getMaterial());
+        return material == null ? null : series.get(material);
+    }
+
+    private static double decay(long elapsed) {
+        return elapsed <= 0 ? 1.0 : Math.pow(0.5, (double) elapsed / HALF_LIFE_MILLIS);
+    }
+
+    private static double weightedMedian(Series s, long now) {
+        Integer[] order = new Integer[s.size];
+        double total = 0;
+        double[] weights = new double[s.size];
+        for (int i = 0; i < s.size; i++) {
+            order[i] = i;
+            weights[i] = decay(now - s.times[i]);
+            total += weights[i];
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> s.prices[i]));
+        if (total <= 0) {
+            // Every sample decayed away; fall back to the plain median
+            return s.prices[order[order.length / 2]];
+        }
+
+        double half = total / 2;
+        double running = 0;
+        for (Integer i : order) {
+            running += weights[i];
+            if (running >= half) {
+                return s.prices[i];
+            }
+        }
+        return s.mean;
+    }
+
+    private static void writeRow(Series s) {
+        MaterialPriceData row = s.row;
+        row.setMean(s.mean);
+        row.setWeight(s.weight);
+        row.setTrades(s.trades);
+        row.setLastTradeTime(s.lastTime);
+
+        // Oldest first so the ring order survives a reload
+        StringBuilder samples = new StringBuilder();
+        int start = s.size < SAMPLES ? 0 : s.next;
+        for (int n = 0; n < s.size; n++) {
+            int i = (start + n) % SAMPLES;
+            if (n > 0) {
+                samples.append(';');
+            }
+            samples.append(s.times[i]).append(':').append(s.prices[i]);
+        }
+        row.setSamples(samples.toString());
+    }
+
+    private static void readSamples(Series s, String samples) {
+        if (samples == null || samples.isEmpty()) {
+            return;
+        }
+        for (String entry : samples.split(";")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                long time = Long.parseLong(parts[0]);
+                double price = Double.parseDouble(parts[1]);
+                s.prices[s.next] = price;
+                s.times[s.next] = time;
+                s.next = (s.next + 1) % SAMPLES;
+                s.size = Math.min(s.size + 1, SAMPLES);
+            } catch (NumberFormatException ignored) {
+                // Skip the broken sample, keep the rest
+            }
+        }
+    }
+}
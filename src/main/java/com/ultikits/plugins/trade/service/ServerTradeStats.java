@@ -0,0 +1,182 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.ServerTradeStatsData;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Server-wide trade aggregates maintained incrementally as trades complete.
+ * <p>
+ * Money volume is kept in 24 hourly buckets indexed by
+ * hour-of-epoch; a bucket is reset lazily when its slot is reused by a newer
+ * hour, so recording and reading never scan the trade log.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class ServerTradeStats {
+
+    static final int BUCKETS = 24;
+    private static final long HOUR_MILLIS = 60L * 60L * 1000L;
+
+    private final ZoneId zone;
+
+    private final long[] bucketHours = new long[BUCKETS];
+    private final double[] bucketVolume = new double[BUCKETS];
+
+    private long day = Long.MIN_VALUE;
+    private long tradesToday;
+    private double taxCollected;
+    private boolean dirty;
+
+    public ServerTradeStats() {
+        this(ZoneId.systemDefault());
+    }
+
+    public ServerTradeStats(ZoneId zone) {
+        this.zone = zone;
+        Arrays.fill(bucketHours, -1L);
+    }
+
+    /**
+     * Record a completed trade.
+     *
+     * @param time   Completion timestamp in millis
+     * @param volume Money moved by both sides
+     * @param tax    Money tax collected
+     */
+    public synchronized void record(long time, double volume, double tax) {
+        long today = dayOf(time);
+        if (today != day) {
+            day = today;
+            tradesToday = 0;
+        }
+        tradesToday++;
+
+        int index = bucket(time);
+        bucketVolume[index] += volume;
+        taxCollected += tax;
+        dirty = true;
+    }
+
+    /**
+     * @return Completed trades since local midnight
+     */
+    public synchronized long getTradesToday(long now) {
+        return dayOf(now) == day ? tradesToday : 0;
+    }
+
+    /**
+     * @return Money traded in the last 24 hours
+     */
+    public synchronized double getVolume24h(long now) {
+        long hour = now / HOUR_MILLIS;
+        double total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (hour - bucketHours[i] < BUCKETS) {
+                total += bucketVolume[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return Money tax collected since the statistics were first created
+     */
+    public synchronized double getTaxCollected() {
+        return taxCollected;
+    }
+
+    /**
+     * @return true if anything was recorded since the last snapshot
+     */
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Flag the state for saving again, e.g. after a failed write.
+     */
+    synchronized void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Copy the current state into a persistence entity and clear the dirty flag.
+     *
+     * @param data Entity to write into
+     */
+    public synchronized void writeTo(ServerTradeStatsData data) {
+        data.setDay(day);
+        data.setTradesToday(tradesToday);
+        data.setTaxCollected(taxCollected);
+
+        StringBuilder buckets = new StringBuilder();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (bucketHours[i] < 0) {
+                continue;
+            }
+            if (buckets.length() > 0) {
+                buckets.append(';');
+            }
+            buckets.append(bucketHours[i]).append(':').append(bucketVolume[i]);
+        }
+        data.setHourlyBuckets(buckets.toString());
+        data.setUpdatedAt(System.currentTimeMillis());
+        dirty = false;
+    }
+
+    /**
+     * Restore state from a persisted snapshot. Malformed buckets are skipped.
+     *
+     * @param data Snapshot entity
+     */
+    public synchronized void readFrom(ServerTradeStatsData data) {
+        day = data.getDay();
+        tradesToday = data.getTradesToday();
+        taxCollected = data.getTaxCollected();
+
+        Arrays.fill(bucketHours, -1L);
+        Arrays.fill(bucketVolume, 0.0);
+        String buckets = data.getHourlyBuckets();
+        if (buckets != null && !buckets.isEmpty()) {
+            for (String entry : buckets.split(";")) {
+                String[] parts = entry.split(":");
+                if (parts.length != 2) {
+                    continue;
+                }
+                try {
+                    long hour = Long.parseLong(parts[0]);
+                    double volume = Double.parseDouble(parts[1]);
+                    if (hour < 0) {
+                        continue;
+                    }
+                    int index = (int) (hour % BUCKETS);
+                    if (hour > bucketHours[index]) {
+                        bucketHours[index] = hour;
+                        bucketVolume[index] = volume;
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Skip the broken bucket, keep the rest
+                }
+            }
+        }
+        dirty = false;
+    }
+
+    private int bucket(long time) {
+        long hour = time / HOUR_MILLIS;
+        int index = (int) (hour % BUCKETS);
+        if (bucketHours[index] != hour) {
+            bucketHours[index] = hour;
+            bucketVolume[index] = 0.0;
+        }
+        return index;
+    }
+
+    private long dayOf(long time) {
+        return Instant.ofEpochMilli(time).atZone(zone).toLocalDate().toEpochDay();
+    }
+}
@@ -0,0 +1,160 @@
+package com.ultikits.plugins.trade.service;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Queue for side effects that can wait a tick: GUI refreshes, messages,
+ * BossBar updates, sounds and particles.
+ * <p>
+ * Work is drained on the main thread once per tick, highest priority first,
+ * until the tick budget is spent; whatever is left waits for the next tick.
+ * At least one task runs per drain, so a task slower than the whole budget
+ * cannot stall the queue. With a budget of zero every task runs immediately
+ * on the caller's thread, as if there were no queue.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TickScheduler {
+
+    /**
+     * Drain order. HIGH is for what the player is looking at (GUI refreshes),
+     * NORMAL for chat and BossBar updates, LOW for sounds and particles.
+     */
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    private final Queue<Task>[] queues;
+    private final Set<Object> pendingKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Consumer<RuntimeException> onError;
+    private final LongSupplier clock;
+    private volatile long budgetNanos;
+
+    /**
+     * @param onError Called with the exception when a task fails; the drain goes on
+     */
+    public TickScheduler(Consumer<RuntimeException> onError) {
+        this(onError, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    TickScheduler(Consumer<RuntimeException> onError, LongSupplier clock) {
+        this.onError = onError;
+        this.clock = clock;
+        this.queues = new Queue[Priority.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * @param micros Time each drain may spend, in microseconds; 0 runs tasks immediately
+     */
+    public void setBudgetMicros(long micros) {
+        this.budgetNanos = Math.max(0L, micros) * 1000L;
+    }
+
+    public void defer(Priority priority, Runnable task) {
+        defer(priority, null, task);
+    }
+
+    /**
+     * Queue a task for the next drain.
+     *
+     * @param priority Drain order
+     * @param key      While a task with an equal key is queued, further ones
+     *                 are dropped; null to always queue
+     * @param task     Side effect; must tolerate the player having left since
+     */
+    public void defer(Priority priority, Object key, Runnable task) {
+        if (budgetNanos <= 0) {
+            run(task);
+            return;
+        }
+        if (key != null && !pendingKeys.add(key)) {
+            return;
+        }
+        size.incrementAndGet();
+        queues[priority.ordinal()].add(new Task(key, task));
+    }
+
+    /**
+     * Run queued tasks until the budget is spent. Main thread only.
+     *
+     * @return Number of tasks left for the next tick
+     */
+    public int drain() {
+        long budget = budgetNanos;
+        long start = clock.getAsLong();
+        int ran = 0;
+        for (Queue<Task> queue : queues) {
+            Task task;
+            while ((ran == 0 || budget <= 0 || clock.getAsLong() - start < budget)
+                && (task = queue.poll()) != null) {
+                ran++;
+                run(task);
+            }
+        }
+        return size.get();
+    }
+
+    /**
+     * Run every queued task regardless of the budget, e.g. on shutdown.
+     */
+    public void flush() {
+        for (Queue<Task> queue : queues) {
+            Task task;
+            while ((task = queue.poll()) != null) {
+                run(task);
+            }
+        }
+    }
+
+    /**
+     * @return Number of queued tasks
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    private void run(Task task) {
+        size.decrementAndGet();
+        if (task.key != null) {
+            pendingKeys.remove(task.key);
+        }
+        run(task.action);
+    }
+
+    private void run(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            onError.accept(e);
+        }
+    }
+
+    /**
+     * Queued side effect with its coalescing key.
+     */
+    private static final class Task {
+        private final Object key;
+        private final Runnable action;
+
+        Task(Object key, Runnable action) {
+            this.key = key;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
+import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.gui.TradeGUI;
+import com.ultikits.ultitools.annotations.Autowired;
+import com.ultikits.ultitools.annotations.Scheduled;
+import com.ultikits.ultitools.annotations.Service;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Service for money and experience amounts entered in chat.
+ * <p>
+ * Prompts are registered on the main thread with a deadline. Chat messages are
+ * parsed on the async chat thread and queued; a single per-tick task expires
+ * overdue prompts and applies all queued amounts on the main thread in one
+ * batch, refreshing each affected trade once.
+ * </p>
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Service
+public class TradeInputService {
+
+    /**
+     * Kind of amount a prompt is waiting for.
+     */
+    public enum InputType {
+        MONEY, EXPERIENCE
+    }
+
+    @Autowired
+    private TradeService tradeService;
+
+    // Pending prompt per player, consumed from the async chat thread
+    private final Map<UUID, Prompt> prompts = new ConcurrentHashMap<>();
+
+    // Prompt deadlines in expiry order (main thread only)
+    private final PriorityQueue<Prompt> deadlines =
+        new PriorityQueue<>(Comparator.comparingLong(prompt -> prompt.deadline));
+
+    // Parsed input waiting to be applied on the main thread
+    private final Queue<InputResult> results = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Start waiting for an amount from a player.
+     * Replaces any prompt the player already had. Must be called on the main thread.
+     *
+     * @param player Player to prompt
+     * @param type   Kind of amount
+     */
+    public void prompt(Player player, InputType type) {
+        TradeSession session = tradeService.getSession(player.getUniqueId());
+        TradeConfigSnapshot settings = session != null ? tradeService.getSettings(session) : tradeService.getSettings();
+        long deadline = System.currentTimeMillis() + settings.getInputTimeout() * 1000L;
+        Prompt prompt = new Prompt(player.getUniqueId(), type, deadline);
+        prompts.put(player.getUniqueId(), prompt);
+        deadlines.add(prompt);
+    }
+
+    /**
+     * Check whether a player has an open prompt.
+     *
+     * @param playerUuid Player UUID
+     * @return true if waiting for input
+     */
+    public boolean isWaiting(UUID playerUuid) {
+        return prompts.containsKey(playerUuid);
+    }
+
+    /**
+     * Drop a player's prompt without reopening the trade window.
+     *
+     * @param playerUuid Player UUID
+     */
+    public void cancel(UUID playerUuid) {
+        prompts.remove(playerUuid);
+    }
+
+    /**
+     * Consume a chat message as prompt input. Safe to call from the async chat thread;
+     * the parsed amount is applied on the next tick.
+     *
+     * @param player  Chatting player
+     * @param message Raw chat message
+     * @return true if the message answered a prompt and should be hidden
+     */
+    public boolean handleChat(Player player, String message) {
+        UUID uuid = player.getUniqueId();
+        Prompt prompt = prompts.get(uuid);
+        if (prompt == null || prompt.isExpired(System.currentTimeMillis())
+            || !prompts.remove(uuid, prompt)) {
+            return false;
+        }
+
+        String input = message.trim();
+        if (input.equalsIgnoreCase("cancel")) {
+            player.sendMessage(ChatColor.YELLOW + "已取消输入");
+            results.add(new InputResult(player, prompt.type, -1));
+            return true;
+        }
+
+        double value;
+        try {
+            value = Double.parseDouble(input);
+        } catch (NumberFormatException e) {
+            value = Double.NaN;
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            player.sendMessage(ChatColor.RED + "无效的数值！");
+            results.add(new InputResult(player, prompt.type, -1));
+            return true;
+        }
+        if (value < 0) {
+            player.sendMessage(ChatColor.RED + "数值不能为负数！");
+            results.add(new InputResult(player, prompt.type, -1));
+            return true;
+        }
+
+        results.add(new InputResult(player, prompt.type, value));
+        return true;
+    }
+
+    /**
+     * Expire overdue prompts and apply queued input, once per tick.
+     */
+    @Scheduled(period = 1, async = false)
+    public void tick() {
+        if (deadlines.isEmpty() && results.isEmpty()) {
+            return;
+        }
+
+        List<Player> reopen = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        Prompt head;
+        while ((head = deadlines.peek()) != null && head.isExpired(now)) {
+            deadlines.poll();
+            if (prompts.remove(head.player, head)) {
+                Player player = Bukkit.getPlayer(head.player);
+                if (player != null) {
+                    reopen.add(player);
+                }
+            }
+        }
+
+        InputResult result;
+        while ((result = results.poll()) != null) {
+            if (apply(result)) {
+                reopen.add(result.player);
+            }
+        }
+
+        Set<TradeSession> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Player player : reopen) {
+            TradeSession session = tradeService.getSession(player.getUniqueId());
+            if (session != null && tradeService.isTrading(player.getUniqueId())) {
+                TradeGUI gui = new TradeGUI(tradeService, session, player);
+                player.openInventory(gui.getInventory());
+                changed.add(session);
+            }
+        }
+        for (TradeSession session : changed) {
+            tradeService.refreshGUIs(session);
+        }
+    }
+
+    /**
+     * Apply a parsed amount to the player's trade.
+     *
+     * @return true if the trade window should be reopened
+     */
+    private boolean apply(InputResult result) {
+        Player player = result.player;
+        if (result.value < 0) {
+            return true;
+        }
+
+        TradeSession session = tradeService.getSession(player.getUniqueId());
+        if (session == null) {
+            player.sendMessage(ChatColor.RED + "交易已结束！");
+            return false;
+        }
+
+        if (result.type == InputType.MONEY) {
+            if (tradeService.hasEconomy(session) &&
+                tradeService.getEconomy().getBalance(player) < result.value) {
+                player.sendMessage(ChatColor.RED + "余额不足！");
+                return true;
+            }
+            session.setMoney(player.getUniqueId(), result.value);
+            player.sendMessage(ChatColor.GREEN + "已设置交易金币: " + result.value);
+        } else {
+            int expValue = (int) result.value;
+            if (tradeService.getTotalExperience(player) < expValue) {
+                player.sendMessage(ChatColor.RED + "经验不足！");
+                return true;
+            }
+            session.setExp(player.getUniqueId(), expValue);
+            player.sendMessage(ChatColor.GREEN + "已设置交易经验: " + expValue);
+        }
+        return true;
+    }
+
+    /**
+     * Open prompt with its deadline.
+     */
+    private static final class Prompt {
+        private final UUID player;
+        private final InputType type;
+        private final long deadline;
+
+        Prompt(UUID player, InputType type, long deadline) {
+            this.player = player;
+            this.type = type;
+            this.deadline = deadline;
+        }
+
+        boolean isExpired(long now) {
+            return now >= deadline;
+        }
+    }
+
+    /**
+     * Parsed chat input; a negative value means "reopen without changes".
+     */
+    private static final class InputResult {
+        private final Player player;
+        private final InputType type;
+        private final double value;
+
+        InputResult(Player player, InputType type, double value) {
+            this.player = player;
+            this.type = type;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.TradeSession;
+
+import lombok.Getter;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Append-only journal of open trade sessions, so that offered items survive
+ * a crash.
+ * <p>
+ * Every change of a journaled session is queued in memory and written as
+ * one text line by {@link #sync()}, which the owner runs every few ticks off
+ * the main thread: one write and one fsync cover everything changed since
+ * the last run. Items are copied when the change is made and serialized
+ * during the sync. Once no session is open the file is truncated; while
+ * trades keep running it is rewritten with only the open sessions whenever
+ * it grows past {@link #COMPACT_BYTES}.
+ * <p>
+ * On startup {@link #recover(ToLongFunction)} replays the file. Items still
+ * offered in sessions that neither completed nor were cancelled belong to
+ * their owners again and stay in the journal until {@link #takeReturns(UUID)}
+ * hands them out. Every offer is stamped with the time it was made: a stack
+ * offered after its owner's player data was last saved is still in that saved
+ * inventory, so it is not handed out a second time. Money and experience are
+ * only taken when a trade completes, so they are reported but never refunded.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TradeJournal implements TradeSession.Journal {
+
+    static final long COMPACT_BYTES = 1024L * 1024L;
+
+    private static final String EMPTY = "-";
+
+    private final File file;
+    private final Function<ItemStack, String> encoder;
+    private final Function<String, ItemStack> decoder;
+    private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, List<ItemStack>> returns = new ConcurrentHashMap<>();
+
+    // Changes taken from the queue but not yet written, only touched under the lock
+    private final List<Change> held = new ArrayList<>();
+    // Open sessions as written so far; only touched under the lock
+    private final Map<UUID, OpenSession> sessions = new LinkedHashMap<>();
+    private FileChannel channel;
+    private boolean rewrite;
+
+    public TradeJournal(File file) {
+        this(file, TradeJournal::encode, TradeJournal::decode);
+    }
+
+    TradeJournal(File file, Function<ItemStack, String> encoder, Function<String, ItemStack> decoder) {
+        this.file = file;
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Start journaling a new session.
+     */
+    public void open(TradeSession session) {
+        changes.add(new Change('O', session.getSessionId(), session.getPlayer1(), 0,
+            null, session.getPlayer2().toString()));
+        session.setJournal(this);
+    }
+
+    @Override
+    public void item(TradeSession session, UUID player, int slot, ItemStack item) {
+        changes.add(new Change('I', session.getSessionId(), player, slot,
+            item == null ? null : item.clone(), Long.toString(System.currentTimeMillis())));
+    }
+
+    @Override
+    public void money(TradeSession session, UUID player, double amount) {
+        changes.add(new Change('M', session.getSessionId(), player, 0, null, Double.toString(amount)));
+    }
+
+    @Override
+    public void exp(TradeSession session, UUID player, int amount) {
+        changes.add(new Change('E', session.getSessionId(), player, 0, null, Integer.toString(amount)));
+    }
+
+    @Override
+    public void state(TradeSession session, TradeSession.TradeState state) {
+        changes.add(new Change('S', session.getSessionId(), null, 0, null, state.name()));
+        if (isFinal(state.name())) {
+            session.setJournal(null);
+        }
+    }
+
+    /**
+     * Replay the journal left by the last run, handing back every offered
+     * stack. Call once, before any session is opened.
+     *
+     * @return What was found
+     * @throws IOException If the file cannot be read or rewritten
+     */
+    public Recovery recover() throws IOException {
+        return recover(player -> Long.MAX_VALUE);
+    }
+
+    /**
+     * Replay the journal left by the last run. Call once, before any session
+     * is opened.
+     *
+     * @param savedAt When a player's data was last saved, in epoch millis;
+     *                stacks they offered later are still in that saved
+     *                inventory and are not handed back. Long.MAX_VALUE if
+     *                unknown
+     * @return What was found
+     * @throws IOException If the file cannot be read or rewritten
+     */
+    public synchronized Recovery recover(ToLongFunction<UUID> savedAt) throws IOException {
+        Map<UUID, List<String>> recovered = new LinkedHashMap<>();
+        if (file.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        apply(line.split(" "), recovered);
+                    } catch (IllegalArgumentException | IndexOutOfBoundsException ignored) {
+                        // Torn last line after a crash
+                    }
+                }
+            }
+        }
+
+        int interrupted = sessions.size();
+        int inInventory = 0;
+        double money = 0;
+        long exp = 0;
+        for (OpenSession session : sessions.values()) {
+            for (int i = 0; i < 2; i++) {
+                long ownerSavedAt = savedAt.applyAsLong(session.players[i]);
+                List<String> owned = recovered.computeIfAbsent(session.players[i], p -> new ArrayList<>());
+                for (Offer offer : session.items.get(i).values()) {
+                    if (offer.offeredAt > ownerSavedAt) {
+                        inInventory++;
+                    } else {
+                        owned.add(offer.data);
+                    }
+                }
+                money += session.money[i];
+                exp += session.exp[i];
+            }
+        }
+        sessions.clear();
+
+        int stacks = 0;
+        int unreadable = 0;
+        for (Map.Entry<UUID, List<String>> entry : recovered.entrySet()) {
+            List<ItemStack> items = new ArrayList<>();
+            for (String encoded : entry.getValue()) {
+                try {
+                    items.add(decoder.apply(encoded));
+                } catch (RuntimeException e) {
+                    unreadable++;
+                }
+            }
+            if (!items.isEmpty()) {
+                returns.put(entry.getKey(), items);
+                stacks += items.size();
+            }
+        }
+        compact();
+        return new Recovery(interrupted, stacks, inInventory, unreadable, money, exp);
+    }
+
+    /**
+     * Hand out the items recovered for a player. They are gone from the
+     * journal after the next sync.
+     *
+     * @param player Owner
+     * @return Recovered stacks; empty if there are none
+     */
+    public List<ItemStack> takeReturns(UUID player) {
+        return takeReturns(player, items -> { });
+    }
+
+    /**
+     * Hand out the items recovered for a player. {@code handOut} runs before
+     * the journal records them as handed out, so anything it queues for
+     * saving elsewhere is queued ahead of that record.
+     *
+     * @param player Owner
+     * @param handOut Receives the stacks; not called if there are none
+     * @return Recovered stacks; empty if there are none
+     */
+    public List<ItemStack> takeReturns(UUID player, Consumer<List<ItemStack>> handOut) {
+        List<ItemStack> items = returns.remove(player);
+        if (items == null) {
+            return Collections.emptyList();
+        }
+        handOut.accept(items);
+        changes.add(new Change('D', null, player, 0, null, null));
+        return items;
+    }
+
+    /**
+     * @return Number of players with recovered items waiting for them
+     */
+    public int getPendingReturns() {
+        return returns.size();
+    }
+
+    /**
+     * Write and fsync every change queued since the last call.
+     *
+     * @return Number of changes written
+     * @throws IOException If the file cannot be written, in which case the
+     *                     next call rewrites it as a whole, or if an item
+     *                     could not be serialized
+     */
+    public int sync() throws IOException {
+        return sync(() -> true);
+    }
+
+    /**
+     * Write and fsync every change queued since the last call, once
+     * {@code ready} agrees. The changes are taken from the queue before
+     * {@code ready} runs, so whatever it saves covers everything queued
+     * elsewhere before them, e.g. the mailbox deposits of a trade that
+     * closed. If it returns false nothing is written and the changes are
+     * kept for the next call.
+     *
+     * @param ready Runs before the write; false holds the changes back
+     * @return Number of changes written
+     * @throws IOException If the file cannot be written, in which case the
+     *                     next call rewrites it as a whole, or if an item
+     *                     could not be serialized
+     */
+    public synchronized int sync(BooleanSupplier ready) throws IOException {
+        Change change;
+        while ((change = changes.poll()) != null) {
+            held.add(change);
+        }
+        if (held.isEmpty() && !rewrite) {
+            return 0;
+        }
+        if (!ready.getAsBoolean()) {
+            return 0;
+        }
+        StringBuilder lines = new StringBuilder();
+        int written = 0;
+        int unencodable = 0;
+        for (Change next : held) {
+            String line;
+            try {
+                line = next.toLine(encoder);
+            } catch (RuntimeException e) {
+                unencodable++;
+                continue;
+            }
+            apply(line.split(" "), null);
+            lines.append(line).append('\n');
+            written++;
+        }
+        held.clear();
+
+        // Changes are folded in already; if they do not reach the disk, the
+        // whole file is rewritten from the fold next time
+        boolean failedBefore = rewrite;
+        rewrite = true;
+        FileChannel out = channel();
+        byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+        if (sessions.isEmpty() && returns.isEmpty()) {
+            // Nothing left that would need recovering
+            out.truncate(0);
+        } else if (failedBefore || out.size() + bytes.length > COMPACT_BYTES) {
+            compact();
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        rewrite = false;
+        if (unencodable > 0) {
+            throw new IOException(unencodable + " trade item(s) could not be serialized");
+        }
+        return written;
+    }
+
+    /**
+     * Sync and close the file, e.g. on shutdown.
+     *
+     * @throws IOException If the last changes cannot be written
+     */
+    public void close() throws IOException {
+        close(() -> true);
+    }
+
+    /**
+     * Sync as with {@link #sync(BooleanSupplier)} and close the file. If
+     * {@code ready} returns false the held changes are dropped and the file
+     * keeps what was written before, for {@link #recover()} to replay.
+     *
+     * @param ready Runs before the last write; false skips it
+     * @throws IOException If the last changes cannot be written
+     */
+    public synchronized void close(BooleanSupplier ready) throws IOException {
+        try {
+            sync(ready);
+        } finally {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Rewrite the file with only the open sessions and pending returns.
+     */
+    private void compact() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<UUID, OpenSession> entry : sessions.entrySet()) {
+            String id = entry.getKey().toString();
+            OpenSession session = entry.getValue();
+            lines.append("O ").append(id).append(' ').append(session.players[0])
+                .append(' ').append(session.players[1]).append('\n');
+            for (int i = 0; i < 2; i++) {
+                for (Map.Entry<Integer, Offer> item : session.items.get(i).entrySet()) {
+                    lines.append("I ").append(id).append(' ').append(session.players[i]).append(' ')
+                        .append(item.getKey()).append(' ').append(item.getValue().data)
+                        .append(' ').append(item.getValue().offeredAt).append('\n');
+                }
+                if (session.money[i] != 0) {
+                    lines.append("M ").append(id).append(' ').append(session.players[i]).append(' ')
+                        .append(session.money[i]).append('\n');
+                }
+                if (session.exp[i] != 0) {
+                    lines.append("E ").append(id).append(' ').append(session.players[i]).append(' ')
+                        .append(session.exp[i]).append('\n');
+                }
+            }
+        }
+        for (Map.Entry<UUID, List<ItemStack>> entry : returns.entrySet()) {
+            for (ItemStack item : entry.getValue()) {
+                lines.append("R ").append(entry.getKey()).append(' ').append(encoder.apply(item)).append('\n');
+            }
+        }
+
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /**
+     * Fold one journal line into the open sessions.
+     *
+     * @param returns Where returned items are collected while recovering;
+     *                null while running, when they are already in memory
+     */
+    private void apply(String[] parts, Map<UUID, List<String>> returns) {
+        switch (parts[0]) {
+            case "O":
+                sessions.put(UUID.fromString(parts[1]),
+                    new OpenSession(UUID.fromString(parts[2]), UUID.fromString(parts[3])));
+                break;
+            case "I": {
+                OpenSession session = sessions.get(UUID.fromString(parts[1]));
+                if (session != null) {
+                    Map<Integer, Offer> items = session.items.get(session.side(UUID.fromString(parts[2])));
+                    int slot = Integer.parseInt(parts[3]);
+                    if (EMPTY.equals(parts[4])) {
+                        items.remove(slot);
+                    } else {
+                        // Lines written before offers were stamped count as saved long ago
+                        long offeredAt = parts.length > 5 ? Long.parseLong(parts[5]) : 0L;
+                        items.put(slot, new Offer(parts[4], offeredAt));
+                    }
+                }
+                break;
+            }
+            case "M": {
+                OpenSession session = sessions.get(UUID.fromString(parts[1]));
+                if (session != null) {
+                    session.money[session.side(UUID.fromString(parts[2]))] = Double.parseDouble(parts[3]);
+                }
+                break;
+            }
+            case "E": {
+                OpenSession session = sessions.get(UUID.fromString(parts[1]));
+                if (session != null) {
+                    session.exp[session.side(UUID.fromString(parts[2]))] = Integer.parseInt(parts[3]);
+                }
+                break;
+            }
+            case "S":
+                if (isFinal(parts[2])) {
+                    sessions.remove(UUID.fromString(parts[1]));
+                }
+                break;
+            case "R":
+                if (returns != null) {
+                    returns.computeIfAbsent(UUID.fromString(parts[1]), p -> new ArrayList<>()).add(parts[2]);
+                }
+                break;
+            case "D":
+                if (returns != null) {
+                    returns.remove(UUID.fromString(parts[1]));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal entry: " + parts[0]);
+        }
+    }
+
+    private static boolean isFinal(String state) {
+        return TradeSession.TradeState.COMPLETED.name().equals(state)
+            || TradeSession.TradeState.CANCELLED.name().equals(state);
+    }
+
+    /**
+     * Serialize an item with everything Bukkit knows about it.
+     */
+    static String encode(ItemStack item) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BukkitObjectOutputStream out = new BukkitObjectOutputStream(bytes)) {
+            out.writeObject(item);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    static ItemStack decode(String encoded) {
+        try (BukkitObjectInputStream in = new BukkitObjectInputStream(
+            new ByteArrayInputStream(Base64.getDecoder().decode(encoded)))) {
+            return (ItemStack) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new IllegalArgumentException("Unreadable journaled item", e);
+        }
+    }
+
+    /**
+     * Result of replaying the journal.
+     */
+    @Getter
+    public static final class Recovery {
+        /** Sessions that neither completed nor were cancelled */
+        private final int sessions;
+        /** Stacks waiting for their owners, including earlier unclaimed ones */
+        private final int stacks;
+        /** Stacks offered after their owner was last saved, so still in their inventory */
+        private final int inInventory;
+        /** Stacks that could not be deserialized and are lost */
+        private final int unreadable;
+        /** Money offered in the interrupted sessions; it was never taken */
+        private final double money;
+        /** Experience offered in the interrupted sessions; it was never taken */
+        private final long exp;
+
+        Recovery(int sessions, int stacks, int inInventory, int unreadable, double money, long exp) {
+            this.sessions = sessions;
+            this.stacks = stacks;
+            this.inInventory = inInventory;
+            this.unreadable = unreadable;
+            this.money = money;
+            this.exp = exp;
+        }
+    }
+
+    /**
+     * Queued change of a journaled session.
+     */
+    private static final class Change {
+        private final char op;
+        private final UUID session;
+        private final UUID player;
+        private final int slot;
+        private final ItemStack item;
+        private final String value;
+
+        Change(char op, UUID session, UUID player, int slot, ItemStack item, String value) {
+            this.op = op;
+            this.session = session;
+            this.player = player;
+            this.slot = slot;
+            this.item = item;
+            this.value = value;
+        }
+
+        String toLine(Function<ItemStack, String> encoder) {
+            switch (op) {
+                case 'O':
+                case 'M':
+                case 'E':
+                    return op + " " + session + " " + player + " " + value;
+                case 'I':
+                    return "I " + session + " " + player + " " + slot + " "
+                        + (item == null ? EMPTY : encoder.apply(item) + " " + value);
+                case 'S':
+                    return "S " + session + " " + value;
+                default:
+                    return "D " + player;
+            }
+        }
+    }
+
+    /**
+     * Offers of a session that is still open, as last written.
+     */
+    private static final class OpenSession {
+        private final UUID[] players;
+        private final List<Map<Integer, Offer>> items = Arrays.asList(new TreeMap<>(), new TreeMap<>());
+        private final double[] money = new double[2];
+        private final int[] exp = new int[2];
+
+        OpenSession(UUID player1, UUID player2) {
+            this.players = new UUID[]{player1, player2};
+        }
+
+        int side(UUID player) {
+            return player.equals(players[0]) ? 0 : 1;
+        }
+    }
+
+    /**
+     * Offered stack as written, with the time it was offered.
+     */
+    private static final class Offer {
+        private final String data;
+        private final long offeredAt;
+
+        Offer(String data, long offeredAt) {
+            this.data = data;
+            this.offeredAt = offeredAt;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * In-memory trader rankings by total trades, money and experience.
+ * <p>
+ * Each metric keeps a sorted set of entries plus a per-player index, so an
+ * update is one O(log n) removal and insertion and reading the top N walks
+ * only the first N entries. Rankings are built once from the settings table
+ * and then kept current from the trade stats write path.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TradeLeaderboard {
+
+    /**
+     * Ranking metric.
+     */
+    public enum Metric {
+        TRADES("交易次数"),
+        MONEY("交易金币"),
+        EXP("交易经验");
+
+        @Getter
+        private final String displayName;
+
+        Metric(String displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * Format a ranking value for display.
+         */
+        public String format(double value) {
+            return this == MONEY ? String.format("%.2f", value) : String.valueOf((long) value);
+        }
+
+        /**
+         * Parse a metric name, case-insensitively.
+         *
+         * @return The metric, or null if unknown
+         */
+        public static Metric parse(String name) {
+            if (name == null) {
+                return null;
+            }
+            for (Metric metric : values()) {
+                if (metric.name().equalsIgnoreCase(name)) {
+                    return metric;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Immutable ranking entry.
+     */
+    @Getter
+    public static final class Entry {
+        private final String playerUuid;
+        private final String playerName;
+        private final double value;
+
+        Entry(String playerUuid, String playerName, double value) {
+            this.playerUuid = playerUuid;
+            this.playerName = playerName;
+            this.value = value;
+        }
+    }
+
+    // Highest value first, ties broken by UUID so entries never collide
+    private static final Comparator<Entry> ORDER = Comparator
+        .comparingDouble(Entry::getValue).reversed()
+        .thenComparing(Entry::getPlayerUuid);
+
+    private final Map<Metric, TreeSet<Entry>> rankings = new EnumMap<>(Metric.class);
+    private final Map<Metric, Map<String, Entry>> index = new EnumMap<>(Metric.class);
+
+    public TradeLeaderboard() {
+        for (Metric metric : Metric.values()) {
+            rankings.put(metric, new TreeSet<>(ORDER));
+            index.put(metric, new HashMap<>());
+        }
+    }
+
+    /**
+     * Build rankings from persisted settings in a single pass. Players already
+     * ranked by a live update are kept, and duplicate rows resolve to the
+     * lowest id like {@link TradeLogService#getOrCreateSettings}.
+     *
+     * @param rows All settings rows
+     */
+    public synchronized void load(Iterable<PlayerTradeSettings> rows) {
+        Map<String, String> loadedIds = new HashMap<>();
+        Map<String, Entry> live = index.get(Metric.TRADES);
+        Set<String> liveAtStart = new HashSet<>(live.keySet());
+
+        for (PlayerTradeSettings settings : rows) {
+            String uuid = settings.getPlayerUuid();
+            if (uuid == null || liveAtStart.contains(uuid)) {
+                continue;
+            }
+            String previousId = loadedIds.get(uuid);
+            if (loadedIds.containsKey(uuid)
+                && (settings.getId() == null
+                    || (previousId != null && previousId.compareTo(settings.getId()) <= 0))) {
+                continue;
+            }
+            loadedIds.put(uuid, settings.getId());
+            put(settings);
+        }
+    }
+
+    /**
+     * Re-rank a player after their statistics changed.
+     *
+     * @param settings Player settings holding the new totals
+     */
+    public synchronized void update(PlayerTradeSettings settings) {
+        if (settings.getPlayerUuid() == null) {
+            return;
+        }
+        put(settings);
+    }
+
+    /**
+     * Get the top entries for a metric.
+     *
+     * @param metric Ranking metric
+     * @param limit  Maximum number of entries
+     * @return Entries, best first
+     */
+    public synchronized List<Entry> getTop(Metric metric, int limit) {
+        List<Entry> top = new ArrayList<>(Math.min(Math.max(limit, 0), 16));
+        for (Entry entry : rankings.get(metric)) {
+            if (top.size() >= limit) {
+                break;
+            }
+            top.add(entry);
+        }
+        return top;
+    }
+
+    /**
+     * Get the entry at a 1-based rank.
+     *
+     * @return The entry, or null if fewer players are ranked
+     */
+    public synchronized Entry getEntry(Metric metric, int rank) {
+        if (rank < 1) {
+            return null;
+        }
+        int position = 1;
+        for (Entry entry : rankings.get(metric)) {
+            if (position++ == rank) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Number of ranked players
+     */
+    public synchronized int size() {
+        return index.get(Metric.TRADES).size();
+    }
+
+    private void put(PlayerTradeSettings settings) {
+        put(Metric.TRADES, settings, settings.getTotalTrades());
+        put(Metric.MONEY, settings, settings.getTotalMoneyTraded());
+        put(Metric.EXP, settings, settings.getTotalExpTraded());
+    }
+
+    private void put(Metric metric, PlayerTradeSettings settings, double value) {
+        Entry entry = new Entry(settings.getPlayerUuid(), settings.getPlayerName(), value);
+        Entry previous = index.get(metric).put(entry.getPlayerUuid(), entry);
+        if (previous != null) {
+            rankings.get(metric).remove(previous);
+        }
+        rankings.get(metric).add(entry);
+    }
+}
@@ -0,0 +1,311 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.TradeLogData;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only, compressed monthly archive of trade logs past retention.
+ * <p>
+ * Each month is one data file of independent gzip blocks, at most
+ * {@link #BLOCK_ROWS} logs each, and an index file with one line per block:
+ * byte offset, length, time range, row count and a Bloom filter of the
+ * players in it. A search reads only the index and then the blocks whose
+ * time range and player filter can match.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TradeLogArchive {
+
+    static final int BLOCK_ROWS = 256;
+    static final int BLOOM_BITS = 4096;
+    private static final int BLOOM_HASHES = 3;
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Index entry for one gzip block.
+     */
+    static final class Block {
+        final long offset;
+        final long length;
+        final long minTime;
+        final long maxTime;
+        final int rows;
+        final BitSet players;
+
+        Block(long offset, long length, long minTime, long maxTime, int rows, BitSet players) {
+            this.offset = offset;
+            this.length = length;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.rows = rows;
+            this.players = players;
+        }
+
+        boolean mayContain(String playerUuid) {
+            if (playerUuid == null) {
+                return true;
+            }
+            for (int bit : bloomBits(playerUuid)) {
+                if (!players.get(bit)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final File directory;
+    private final ZoneId zone;
+
+    public TradeLogArchive(File directory) {
+        this(directory, ZoneId.systemDefault());
+    }
+
+    TradeLogArchive(File directory, ZoneId zone) {
+        this.directory = directory;
+        this.zone = zone;
+    }
+
+    /**
+     * Append logs to their months' archives. Data is forced to disk before
+     * the index line that points at it is written.
+     *
+     * @param logs Logs to archive
+     * @throws IOException If a file cannot be written
+     */
+    public synchronized void append(Collection<TradeLogData> logs) throws IOException {
+        Map<YearMonth, List<TradeLogData>> byMonth = new TreeMap<>();
+        for (TradeLogData log : logs) {
+            byMonth.computeIfAbsent(monthOf(log.getTradeTime()), m -> new ArrayList<>()).add(log);
+        }
+        Files.createDirectories(directory.toPath());
+        for (Map.Entry<YearMonth, List<TradeLogData>> entry : byMonth.entrySet()) {
+            List<TradeLogData> monthLogs = entry.getValue();
+            for (int start = 0; start < monthLogs.size(); start += BLOCK_ROWS) {
+                writeBlock(entry.getKey(), monthLogs.subList(start, Math.min(start + BLOCK_ROWS, monthLogs.size())));
+            }
+        }
+    }
+
+    /**
+     * Search one archived month.
+     *
+     * @param month      Month to search
+     * @param playerUuid Player taking part, or null for any
+     * @param from       Earliest trade time, inclusive
+     * @param to         Latest trade time, inclusive
+     * @param limit      Maximum number of results
+     * @return Matching logs, newest first, without duplicates
+     * @throws IOException If the archive cannot be read
+     */
+    public List<TradeLogData> search(YearMonth month, String playerUuid, long from, long to,
+                                     int limit) throws IOException {
+        List<Block> blocks = readIndex(month);
+        Map<String, TradeLogData> found = new HashMap<>();
+        if (blocks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (FileChannel channel = FileChannel.open(dataFile(month).toPath(), StandardOpenOption.READ)) {
+            for (Block block : blocks) {
+                if (block.maxTime < from || block.minTime > to || !block.mayContain(playerUuid)) {
+                    continue;
+                }
+                for (TradeLogData log : readBlock(channel, block)) {
+                    if (log.getTradeTime() < from || log.getTradeTime() > to) {
+                        continue;
+                    }
+                    if (playerUuid == null || playerUuid.equals(log.getPlayer1Uuid())
+                        || playerUuid.equals(log.getPlayer2Uuid())) {
+                        // A block can be re-archived after a crash; keep one copy
+                        found.putIfAbsent(log.getTradeId(), log);
+                    }
+                }
+            }
+        }
+        List<TradeLogData> result = new ArrayList<>(found.values());
+        result.sort(TradeLogPage.NEWEST_FIRST);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * @return Archived months, oldest first
+     */
+    public List<YearMonth> getMonths() {
+        List<YearMonth> months = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("trades-") && name.endsWith(".idx"));
+        if (files == null) {
+            return months;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                months.add(YearMonth.parse(name.substring("trades-".length(), name.length() - ".idx".length())));
+            } catch (RuntimeException ignored) {
+                // Not one of ours
+            }
+        }
+        Collections.sort(months);
+        return months;
+    }
+
+    /**
+     * @return Month of a trade time in the archive's zone
+     */
+    YearMonth monthOf(long time) {
+        return YearMonth.from(Instant.ofEpochMilli(time).atZone(zone));
+    }
+
+    File dataFile(YearMonth month) {
+        return new File(directory, "trades-" + month + ".ndjson.gz");
+    }
+
+    File indexFile(YearMonth month) {
+        return new File(directory, "trades-" + month + ".idx");
+    }
+
+    private void writeBlock(YearMonth month, List<TradeLogData> logs) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        BitSet players = new BitSet(BLOOM_BITS);
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            for (TradeLogData log : logs) {
+                writer.write(GSON.toJson(log));
+                writer.write('\n');
+                minTime = Math.min(minTime, log.getTradeTime());
+                maxTime = Math.max(maxTime, log.getTradeTime());
+                addPlayer(players, log.getPlayer1Uuid());
+                addPlayer(players, log.getPlayer2Uuid());
+            }
+        }
+
+        long offset;
+        try (FileChannel data = FileChannel.open(dataFile(month).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Overwrite any tail left by a write whose index line never landed
+            offset = indexedEnd(month);
+            data.truncate(offset);
+            data.position(offset);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                data.write(buffer);
+            }
+            data.force(false);
+        }
+
+        String line = offset + " " + bytes.size() + " " + minTime + " " + maxTime + " " + logs.size() + " "
+            + Base64.getEncoder().encodeToString(players.toByteArray()) + "\n";
+        try (FileChannel index = FileChannel.open(indexFile(month).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND)) {
+            if (index.size() > 0) {
+                // Start on a fresh line after a torn one
+                ByteBuffer last = ByteBuffer.allocate(1);
+                index.read(last, index.size() - 1);
+                if (last.get(0) != '\n') {
+                    line = "\n" + line;
+                }
+            }
+            index.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            index.force(false);
+        }
+    }
+
+    /**
+     * End of the last indexed block, where the next block starts.
+     */
+    private long indexedEnd(YearMonth month) throws IOException {
+        long end = 0;
+        for (Block block : readIndex(month)) {
+            end = Math.max(end, block.offset + block.length);
+        }
+        return end;
+    }
+
+    List<Block> readIndex(YearMonth month) throws IOException {
+        File file = indexFile(month);
+        List<Block> blocks = new ArrayList<>();
+        if (!file.exists()) {
+            return blocks;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts.length != 6) {
+                    // Torn last line after a crash
+                    continue;
+                }
+                try {
+                    blocks.add(new Block(Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                        Long.parseLong(parts[2]), Long.parseLong(parts[3]), Integer.parseInt(parts[4]),
+                        BitSet.valueOf(Base64.getDecoder().decode(parts[5]))));
+                } catch (IllegalArgumentException ignored) {
+                    // Skip the broken entry, keep the rest
+                }
+            }
+        }
+        return blocks;
+    }
+
+    private static List<TradeLogData> readBlock(FileChannel channel, Block block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) block.length);
+        long position = block.offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Archive block past end of file");
+            }
+            position += read;
+        }
+        List<TradeLogData> logs = new ArrayList<>(block.rows);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new GZIPInputStream(new ByteArrayInputStream(buffer.array())), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    logs.add(GSON.fromJson(line, TradeLogData.class));
+                } catch (JsonParseException ignored) {
+                    // Skip the broken row, keep the rest
+                }
+            }
+        }
+        return logs;
+    }
+
+    private static void addPlayer(BitSet players, String playerUuid) {
+        if (playerUuid != null) {
+            for (int bit : bloomBits(playerUuid)) {
+                players.set(bit);
+            }
+        }
+    }
+
+    private static int[] bloomBits(String playerUuid) {
+        // Double hashing: h1 + i * h2
+        int h1 = playerUuid.hashCode();
+        int h2 = Integer.reverse(h1 * 0x9E3779B9) | 1;
+        int[] bits = new int[BLOOM_HASHES];
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            bits[i] = Math.floorMod(h1 + i * h2, BLOOM_BITS);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,230 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.TradeLogData;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams trade logs to a CSV or NDJSON file for offline analysis.
+ * <p>
+ * Logs are read in keyset chunks of {@link #CHUNK_SIZE} and written as they
+ * arrive, so memory stays bounded by one chunk however large the range is.
+ * Output goes to a ".part" file that is renamed once the export finishes.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TradeLogExporter {
+
+    static final int CHUNK_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static final String[] CSV_COLUMNS = {
+        "trade_id", "trade_time", "trade_time_iso", "status", "cancel_reason",
+        "player1_uuid", "player1_name", "player2_uuid", "player2_name",
+        "player1_money", "player2_money", "player1_exp", "player2_exp",
+        "money_tax_collected", "exp_tax_collected", "player1_items", "player2_items"
+    };
+
+    /**
+     * Export file format.
+     */
+    public enum Format {
+        CSV("csv"),
+        NDJSON("ndjson");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Parse a format name, case-insensitively.
+         *
+         * @return The format, or null if unknown
+         */
+        public static Format parse(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final TradeLogService logService;
+
+    public TradeLogExporter(TradeLogService logService) {
+        this.logService = logService;
+    }
+
+    /**
+     * Write every log matching the filter to a file.
+     *
+     * @param filter   Logs to export
+     * @param format   Output format
+     * @param gzip     Whether to gzip the output
+     * @param target   Final file; written as target + ".part" until complete
+     * @param progress Receives the number of rows written after each chunk
+     * @return Number of rows written
+     * @throws IOException If reading the logs or writing the file fails
+     */
+    public long export(TradeLogFilter filter, Format format, boolean gzip, File target,
+                       LongConsumer progress) throws IOException {
+        Path finalPath = target.toPath();
+        Path partPath = finalPath.resolveSibling(target.getName() + ".part");
+        if (finalPath.getParent() != null) {
+            Files.createDirectories(finalPath.getParent());
+        }
+
+        long rows = 0;
+        boolean complete = false;
+        try {
+            try (Writer writer = openWriter(partPath, gzip)) {
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, CSV_COLUMNS);
+                }
+                TradeLogPage.Cursor cursor = null;
+                do {
+                    TradeLogPage page;
+                    try {
+                        page = logService.readLogPage(filter, cursor, CHUNK_SIZE);
+                    } catch (RuntimeException e) {
+                        throw new IOException("Failed to read trade logs", e);
+                    }
+                    for (TradeLogData log : page.getLogs()) {
+                        if (format == Format.CSV) {
+                            writeCsv(writer, log);
+                        } else {
+                            writeJson(writer, log);
+                        }
+                        rows++;
+                    }
+                    progress.accept(rows);
+                    cursor = page.getNext();
+                } while (cursor != null);
+            }
+            Files.move(partPath, finalPath, StandardCopyOption.REPLACE_EXISTING);
+            complete = true;
+            return rows;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(partPath);
+            }
+        }
+    }
+
+    private static Writer openWriter(Path path, boolean gzip) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        OutputStream out = Channels.newOutputStream(channel);
+        if (gzip) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static void writeCsv(Writer writer, TradeLogData log) throws IOException {
+        writeCsvRow(writer, new String[]{
+            log.getTradeId(),
+            String.valueOf(log.getTradeTime()),
+            Instant.ofEpochMilli(log.getTradeTime()).toString(),
+            log.getStatus(),
+            log.getCancelReason(),
+            log.getPlayer1Uuid(),
+            log.getPlayer1Name(),
+            log.getPlayer2Uuid(),
+            log.getPlayer2Name(),
+            String.valueOf(log.getPlayer1Money()),
+            String.valueOf(log.getPlayer2Money()),
+            String.valueOf(log.getPlayer1Exp()),
+            String.valueOf(log.getPlayer2Exp()),
+            String.valueOf(log.getMoneyTaxCollected()),
+            String.valueOf(log.getExpTaxCollected()),
+            itemsText(log.getPlayer1ItemsJson()),
+            itemsText(log.getPlayer2ItemsJson())
+        });
+    }
+
+    static void writeCsvRow(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0
+                || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void writeJson(Writer writer, TradeLogData log) throws IOException {
+        JsonObject row = new JsonObject();
+        row.addProperty("trade_id", log.getTradeId());
+        row.addProperty("trade_time", log.getTradeTime());
+        row.addProperty("status", log.getStatus());
+        row.addProperty("cancel_reason", log.getCancelReason());
+        row.addProperty("player1_uuid", log.getPlayer1Uuid());
+        row.addProperty("player1_name", log.getPlayer1Name());
+        row.addProperty("player2_uuid", log.getPlayer2Uuid());
+        row.addProperty("player2_name", log.getPlayer2Name());
+        row.addProperty("player1_money", log.getPlayer1Money());
+        row.addProperty("player2_money", log.getPlayer2Money());
+        row.addProperty("player1_exp", log.getPlayer1Exp());
+        row.addProperty("player2_exp", log.getPlayer2Exp());
+        row.addProperty("money_tax_collected", log.getMoneyTaxCollected());
+        row.addProperty("exp_tax_collected", log.getExpTaxCollected());
+        row.add("player1_items", compactItems(log.getPlayer1ItemsJson()));
+        row.add("player2_items", compactItems(log.getPlayer2ItemsJson()));
+        writer.write(row.toString());
+        writer.write('\n');
+    }
+
+    /**
+     * Parse stored item JSON (pretty-printed) so it can be written on one line.
+     * Unreadable JSON is kept as a plain string.
+     */
+    private static JsonElement compactItems(String json) {
+        if (json == null || json.isEmpty()) {
+            return new JsonArray();
+        }
+        try {
+            return JsonParser.parseString(json);
+        } catch (RuntimeException e) {
+            return new JsonPrimitive(json);
+        }
+    }
+
+    private static String itemsText(String json) {
+        JsonElement items = compactItems(json);
+        return items.isJsonPrimitive() ? json : items.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.TradeLogData;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Composite filter for admin trade log queries.
+ * Unset (null) criteria match every log.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeLogFilter {
+
+    /**
+     * Earliest trade time in millis (inclusive)
+     */
+    private Long from;
+
+    /**
+     * Latest trade time in millis (inclusive)
+     */
+    private Long to;
+
+    /**
+     * COMPLETED or CANCELLED
+     */
+    private String status;
+
+    /**
+     * Minimum money offered by either side
+     */
+    private Double minMoney;
+
+    /**
+     * Minimum experience offered by either side
+     */
+    private Integer minExp;
+
+    /**
+     * Case-insensitive substring of the cancel reason
+     */
+    private String cancelReason;
+
+    /**
+     * UUID of a player taking part in the trade
+     */
+    private String player;
+
+    /**
+     * UUID of the trading partner; with {@link #player} this selects a pair
+     */
+    private String partner;
+
+    /**
+     * Check a log against every criterion.
+     *
+     * @param log Trade log
+     * @return true if the log matches
+     */
+    public boolean matches(TradeLogData log) {
+        if (from != null && log.getTradeTime() < from) {
+            return false;
+        }
+        if (to != null && log.getTradeTime() > to) {
+            return false;
+        }
+        if (status != null && !status.equalsIgnoreCase(log.getStatus())) {
+            return false;
+        }
+        if (minMoney != null && Math.max(log.getPlayer1Money(), log.getPlayer2Money()) < minMoney) {
+            return false;
+        }
+        if (minExp != null && Math.max(log.getPlayer1Exp(), log.getPlayer2Exp()) < minExp) {
+            return false;
+        }
+        if (cancelReason != null && (log.getCancelReason() == null
+            || !log.getCancelReason().toLowerCase().contains(cancelReason.toLowerCase()))) {
+            return false;
+        }
+        if (player != null && partner != null) {
+            return (player.equals(log.getPlayer1Uuid()) && partner.equals(log.getPlayer2Uuid()))
+                || (player.equals(log.getPlayer2Uuid()) && partner.equals(log.getPlayer1Uuid()));
+        }
+        String involved = player != null ? player : partner;
+        return involved == null || involved.equals(log.getPlayer1Uuid()) || involved.equals(log.getPlayer2Uuid());
+    }
+}
@@ -0,0 +1,79 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.TradeLogData;
+
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One page of trade logs, newest first, with the cursor for the next page.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+@Getter
+public class TradeLogPage {
+
+    /**
+     * Page order: newest trade time first, then id descending.
+     */
+    static final Comparator<TradeLogData> NEWEST_FIRST = Comparator
+        .comparingLong(TradeLogData::getTradeTime)
+        .thenComparing(TradeLogData::getId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .reversed();
+
+    /**
+     * Keyset position: the (trade_time, id) of the last row already seen.
+     */
+    @Getter
+    public static final class Cursor {
+        private final long tradeTime;
+        private final String id;
+
+        public Cursor(long tradeTime, String id) {
+            this.tradeTime = tradeTime;
+            this.id = id;
+        }
+
+        static Cursor of(TradeLogData log) {
+            return new Cursor(log.getTradeTime(), log.getId());
+        }
+
+        /**
+         * @return true if the log comes after this position in page order
+         */
+        boolean precedes(TradeLogData log) {
+            if (log.getTradeTime() != tradeTime) {
+                return log.getTradeTime() < tradeTime;
+            }
+            if (id == null) {
+                return false;
+            }
+            return log.getId() == null || log.getId().compareTo(id) < 0;
+        }
+    }
+
+    private final List<TradeLogData> logs;
+    private final Cursor next;
+    private final int scanned;
+
+    /**
+     * @param logs    Matching logs on this page
+     * @param next    Cursor to continue from, or null when no rows are left
+     * @param scanned Rows read to build this page
+     */
+    public TradeLogPage(List<TradeLogData> logs, Cursor next, int scanned) {
+        this.logs = logs;
+        this.next = next;
+        this.scanned = scanned;
+    }
+
+    /**
+     * @return true if more rows may follow this page
+     */
+    public boolean hasNext() {
+        return next != null;
+    }
+}
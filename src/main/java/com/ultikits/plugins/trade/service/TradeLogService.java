@@ -1,22 +1,35 @@
 package com.ultikits.plugins.trade.service;
 
 import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.entity.MaterialPriceData;
 import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+import com.ultikits.plugins.trade.entity.ServerTradeStatsData;
+import com.ultikits.plugins.trade.entity.TradeDailyStats;
+import com.ultikits.plugins.trade.entity.TradeLogItem;
 import com.ultikits.plugins.trade.entity.TradeLogData;
 import com.ultikits.plugins.trade.entity.TradeSession;
 import com.ultikits.ultitools.abstracts.UltiToolsPlugin;
 import com.ultikits.ultitools.annotations.Autowired;
 import com.ultikits.ultitools.annotations.Service;
 import com.ultikits.ultitools.interfaces.DataOperator;
+import com.ultikits.ultitools.interfaces.Query;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitTask;
 
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for managing trade logs and player settings.
@@ -27,6 +40,16 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class TradeLogService {
     
+    // Snapshot interval for server aggregates and prices (5 minutes in ticks)
+    private static final long STATS_SAVE_INTERVAL = 5L * 60L * 20L;
+
+    // Admin log queries: smallest batch per read, and rows read per call
+    private static final int QUERY_MIN_BATCH = 64;
+    static final int QUERY_SCAN_LIMIT = 5000;
+
+    // Expired logs archived and deleted per chunk
+    static final int CLEANUP_BATCH = 500;
+    
     @Autowired
     private UltiToolsPlugin plugin;
 
@@ -36,16 +59,49 @@ public class TradeLogService {
     // Player settings cache
     private final Map<UUID, PlayerTradeSettings> settingsCache = new ConcurrentHashMap<>();
     
+    // Server-wide aggregates, updated as trades complete
+    private final ServerTradeStats serverStats = new ServerTradeStats();
+    private ServerTradeStatsData serverStatsData;
+    
+    // Trader rankings, built once at startup and updated with player stats
+    private final TradeLeaderboard leaderboard = new TradeLeaderboard();
+    
+    // Unit prices discovered from items-for-money trades
+    private final PriceIndex priceIndex = new PriceIndex();
+    
+    // Hot-path counters and latency histograms
+    private final TradeMetrics metrics = new TradeMetrics();
+    
+    // Log writes scheduled but not yet finished
+    private final AtomicInteger pendingLogWrites = new AtomicInteger();
+    
+    // Rollup rows for the days currently being written, guarded by rollupDaily
+    private final Map<String, TradeDailyStats> dailyStatsCache = new HashMap<>();
+    
     // Data operators
     private DataOperator<TradeLogData> logOperator;
     private DataOperator<PlayerTradeSettings> settingsOperator;
+    private DataOperator<ServerTradeStatsData> serverStatsOperator;
+    private DataOperator<TradeDailyStats> dailyStatsOperator;
+    private DataOperator<MaterialPriceData> priceOperator;
+    private DataOperator<TradeLogItem> itemOperator;
     
     // Bukkit plugin instance for scheduler tasks
     private Plugin bukkitPlugin;
 
+    // Cold storage for logs past retention
+    private TradeLogArchive archive;
+
     // Cleanup task
     private BukkitTask cleanupTask;
     
+    // Server aggregate and price snapshot task
+    private BukkitTask statsSaveTask;
+    
+    // Prometheus textfile writer task
+    private BukkitTask metricsExportTask;
+    private boolean metricsExportFailing;
+    
     /**
      * Initialize the log service.
      */
@@ -56,6 +112,24 @@ public class TradeLogService {
         // Initialize data operators
         logOperator = plugin.getDataOperator(TradeLogData.class);
         settingsOperator = plugin.getDataOperator(PlayerTradeSettings.class);
+        serverStatsOperator = plugin.getDataOperator(ServerTradeStatsData.class);
+        dailyStatsOperator = plugin.getDataOperator(TradeDailyStats.class);
+        priceOperator = plugin.getDataOperator(MaterialPriceData.class);
+        itemOperator = plugin.getDataOperator(TradeLogItem.class);
+        archive = new TradeLogArchive(new File(bukkitPlugin.getDataFolder(), "UltiTrade/archive"));
+        metrics.register(TradeMetrics.Gauge.CACHED_SETTINGS, settingsCache::size);
+        metrics.register(TradeMetrics.Gauge.LOG_QUEUE, pendingLogWrites::get);
+        startMetricsExport();
+
+        loadServerStats();
+        loadPrices();
+        Bukkit.getScheduler().runTaskAsynchronously(bukkitPlugin, this::loadLeaderboard);
+        statsSaveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(
+            bukkitPlugin,
+            this::saveAggregates,
+            STATS_SAVE_INTERVAL,
+            STATS_SAVE_INTERVAL
+        );
 
         // Start cleanup task
         if (config.isEnableTradeLog()) {
@@ -77,6 +151,15 @@ public class TradeLogService {
             cleanupTask.cancel();
             cleanupTask = null;
         }
+        if (statsSaveTask != null) {
+            statsSaveTask.cancel();
+            statsSaveTask = null;
+        }
+        if (metricsExportTask != null) {
+            metricsExportTask.cancel();
+            metricsExportTask = null;
+        }
+        saveAggregates();
         
         // Save all cached settings
         for (PlayerTradeSettings settings : settingsCache.values()) {
@@ -101,10 +184,18 @@ public class TradeLogService {
      */
     public void logCompletedTrade(TradeSession session, Player player1, Player player2,
                                    double moneyTax, int expTax) {
+        long now = System.currentTimeMillis();
+        serverStats.record(now,
+            session.getPlayerMoney(session.getPlayer1()) + session.getPlayerMoney(session.getPlayer2()),
+            moneyTax);
+        recordPrice(session, session.getPlayer1(), session.getPlayer2(), now);
+        recordPrice(session, session.getPlayer2(), session.getPlayer1(), now);
+        
         if (!config.isEnableTradeLog()) {
             return;
         }
         
+        pendingLogWrites.incrementAndGet();
         Bukkit.getScheduler().runTaskAsynchronously(bukkitPlugin, () -> {
             try {
                 TradeLogData log = new TradeLogData(
@@ -133,7 +224,9 @@ public class TradeLogService {
                 log.markCompleted();
                 
                 // Save to database
-                logOperator.insert(log);
+                insertLog(log);
+                rollupDaily(log);
+                indexItems(log, session);
                 
                 // Update player statistics
                 updatePlayerStats(session.getPlayer1(), player1.getName(),
@@ -144,8 +237,11 @@ public class TradeLogService {
                     session.getPlayerExp(session.getPlayer2()));
                 
             } catch (Exception e) {
+                metrics.increment(TradeMetrics.Counter.DB_ERRORS);
                 plugin.getLogger().warn(e,
                     "Failed to log trade");
+            } finally {
+                pendingLogWrites.decrementAndGet();
             }
         });
     }
@@ -161,6 +257,7 @@ public class TradeLogService {
             return;
         }
         
+        pendingLogWrites.incrementAndGet();
         Bukkit.getScheduler().runTaskAsynchronously(bukkitPlugin, () -> {
             try {
                 Player player1 = Bukkit.getPlayer(session.getPlayer1());
@@ -188,15 +285,26 @@ public class TradeLogService {
                 log.markCancelled(reason);
                 
                 // Save to database
-                logOperator.insert(log);
+                insertLog(log);
+                rollupDaily(log);
+                indexItems(log, session);
                 
             } catch (Exception e) {
+                metrics.increment(TradeMetrics.Counter.DB_ERRORS);
                 plugin.getLogger().warn(e,
                     "Failed to log cancelled trade");
+            } finally {
+                pendingLogWrites.decrementAndGet();
             }
         });
     }
     
+    private void insertLog(TradeLogData log) {
+        long start = System.nanoTime();
+        logOperator.insert(log);
+        metrics.record(TradeMetrics.Timer.DB_LOG_INSERT, start);
+    }
+    
     /**
      * Update player trade statistics.
      */
@@ -204,31 +312,561 @@ public class TradeLogService {
                                    double moneyTraded, int expTraded) {
         PlayerTradeSettings settings = getOrCreateSettings(playerUuid, playerName);
         settings.incrementTradeStats(moneyTraded, expTraded);
+        leaderboard.update(settings);
         saveSettings(settings);
     }
     
+    /**
+     * Load the last server aggregate snapshot, if any.
+     */
+    private void loadServerStats() {
+        try {
+            List<ServerTradeStatsData> snapshots = serverStatsOperator.getAll();
+            if (snapshots != null && !snapshots.isEmpty()) {
+                serverStatsData = snapshots.get(0);
+                serverStats.readFrom(serverStatsData);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warn(e,
+                "Failed to load server trade statistics");
+        }
+    }
+    
+    /**
+     * Feed the price index when the seller gave only items and the buyer only money.
+     */
+    private void recordPrice(TradeSession session, UUID seller, UUID buyer, long time) {
+        if (session.getPlayerMoney(seller) > 0 || session.getPlayerExp(seller) > 0
+            || session.getPlayerExp(buyer) > 0 || !session.getPlayerItems(buyer).isEmpty()) {
+            return;
+        }
+        priceIndex.observe(session.getPlayerItems(seller).values(), session.getPlayerMoney(buyer), time);
+    }
+    
+    /**
+     * Load persisted material prices.
+     */
+    private void loadPrices() {
+        try {
+            List<MaterialPriceData> rows = priceOperator.getAll();
+            if (rows != null) {
+                priceIndex.load(rows);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warn(e,
+                "Failed to load material prices");
+        }
+    }
+    
+    /**
+     * Persist everything that is kept in memory and snapshotted periodically.
+     */
+    void saveAggregates() {
+        saveServerStats();
+        savePrices();
+    }
+    
+    /**
+     * Start writing the Prometheus metrics file, if one is configured.
+     */
+    private void startMetricsExport() {
+        String path = config.getMetricsFile() == null ? "" : config.getMetricsFile().trim();
+        if (path.isEmpty()) {
+            return;
+        }
+        File configured = new File(path);
+        File target = configured.isAbsolute()
+            ? configured
+            : new File(new File(bukkitPlugin.getDataFolder(), "UltiTrade"), path);
+        TradeMetricsExporter exporter = new TradeMetricsExporter(metrics, serverStats);
+        long interval = config.getMetricsInterval() * 20L;
+        metricsExportTask = Bukkit.getScheduler().runTaskTimerAsynchronously(
+            bukkitPlugin, () -> exportMetrics(exporter, target), interval, interval);
+    }
+    
+    /**
+     * Write the metrics file once. Only the first of a run of failures is
+     * logged, so a bad path does not flood the console.
+     */
+    void exportMetrics(TradeMetricsExporter exporter, File file) {
+        try {
+            exporter.write(file);
+            metricsExportFailing = false;
+        } catch (IOException e) {
+            if (!metricsExportFailing) {
+                plugin.getLogger().warn(e,
+                    "Failed to write metrics file: " + file);
+            }
+            metricsExportFailing = true;
+        }
+    }
+    
+    /**
+     * Persist material prices that changed since the last save.
+     */
+    synchronized void savePrices() {
+        if (priceOperator == null) {
+            return;
+        }
+        List<MaterialPriceData> inserts = new ArrayList<>();
+        List<MaterialPriceData> updates = new ArrayList<>();
+        priceIndex.drainDirty(inserts, updates);
+        
+        for (MaterialPriceData row : inserts) {
+            try {
+                priceOperator.insert(row);
+                priceIndex.markStored(row);
+            } catch (Exception e) {
+                priceIndex.markDirty(row);
+                plugin.getLogger().warn(e,
+                    "Failed to save material price: " + row.getMaterial());
+            }
+        }
+        for (MaterialPriceData row : updates) {
+            try {
+                priceOperator.update(row);
+            } catch (Exception e) {
+                priceIndex.markDirty(row);
+                plugin.getLogger().warn(e,
+                    "Failed to save material price: " + row.getMaterial());
+            }
+        }
+    }
+    
+    /**
+     * Get the material price index.
+     *
+     * @return Live price index
+     */
+    public PriceIndex getPriceIndex() {
+        return priceIndex;
+    }
+    
+    /**
+     * Get the hot-path metrics shared by the trade services.
+     *
+     * @return Metrics registry
+     */
+    public TradeMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Persist the server aggregates if they changed since the last snapshot.
+     */
+    synchronized void saveServerStats() {
+        if (serverStatsOperator == null || !serverStats.isDirty()) {
+            return;
+        }
+        try {
+            if (serverStatsData == null) {
+                ServerTradeStatsData data = new ServerTradeStatsData();
+                serverStats.writeTo(data);
+                serverStatsOperator.insert(data);
+                serverStatsData = data;
+            } else {
+                serverStats.writeTo(serverStatsData);
+                serverStatsOperator.update(serverStatsData);
+            }
+        } catch (Exception e) {
+            serverStats.markDirty();
+            plugin.getLogger().warn(e,
+                "Failed to save server trade statistics");
+        }
+    }
+    
+    /**
+     * Get the server-wide trade aggregates.
+     *
+     * @return Live aggregate counters
+     */
+    public ServerTradeStats getServerStats() {
+        return serverStats;
+    }
+    
+    /**
+     * Build the trader rankings from all settings rows.
+     */
+    void loadLeaderboard() {
+        try {
+            List<PlayerTradeSettings> rows = settingsOperator.getAll();
+            if (rows != null) {
+                leaderboard.load(rows);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warn(e,
+                "Failed to load trade leaderboard");
+        }
+    }
+    
+    /**
+     * Get config.
+     */
+    public TradeConfig getConfig() {
+        return config;
+    }
+    
+    /**
+     * Get the trader rankings.
+     *
+     * @return Live leaderboard
+     */
+    public TradeLeaderboard getLeaderboard() {
+        return leaderboard;
+    }
+    
+    /**
+     * Write the material side index for a logged trade.
+     */
+    private void indexItems(TradeLogData log, TradeSession session) {
+        if (itemOperator == null) {
+            return;
+        }
+        try {
+            List<TradeLogItem> rows = new ArrayList<>();
+            rows.addAll(TradeLogItem.fromItems(log, 1, session.getPlayerItems(session.getPlayer1()).values()));
+            rows.addAll(TradeLogItem.fromItems(log, 2, session.getPlayerItems(session.getPlayer2()).values()));
+            for (TradeLogItem row : rows) {
+                itemOperator.insert(row);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warn(e,
+                "Failed to index trade items");
+        }
+    }
+    
+    /**
+     * Remove the material side index of a purged trade.
+     */
+    private void deleteItemIndex(String tradeId) {
+        if (itemOperator == null || tradeId == null) {
+            return;
+        }
+        try {
+            List<TradeLogItem> rows = itemOperator.query()
+                .where("trade_id").eq(tradeId)
+                .list();
+            if (rows != null) {
+                for (TradeLogItem row : rows) {
+                    itemOperator.delById(row.getId());
+                }
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warn(e,
+                "Failed to delete item index of trade: " + tradeId);
+        }
+    }
+    
+    /**
+     * Find trades that moved at least a given amount of a material, using the
+     * material side index. Amounts are summed per trade side. The time range
+     * is applied in the query, and at most {@link #QUERY_SCAN_LIMIT} of the
+     * newest index rows in it are read.
+     *
+     * @param material Material to search
+     * @param minAmount Minimum amount moved by one side
+     * @param from Earliest trade time (inclusive)
+     * @param to Latest trade time (inclusive)
+     * @param limit Maximum number of results
+     * @return Matching index rows, newest first
+     */
+    public List<TradeLogItem> searchItemTrades(Material material, int minAmount, long from, long to, int limit) {
+        try {
+            List<TradeLogItem> rows = itemOperator.query()
+                .where("material").eq(material.name())
+                .where("trade_time").gte(from)
+                .where("trade_time").lte(to)
+                .orderByDesc("trade_time")
+                .limit(QUERY_SCAN_LIMIT)
+                .list();
+            if (rows == null) {
+                return new ArrayList<>();
+            }
+            
+            Map<String, TradeLogItem> perSide = new HashMap<>();
+            for (TradeLogItem row : rows) {
+                // Guard against stores that ignore the range
+                if (row.getTradeTime() < from || row.getTradeTime() > to) {
+                    continue;
+                }
+                perSide.merge(row.getTradeId() + ":" + row.getSide(), row, (a, b) -> {
+                    TradeLogItem merged = new TradeLogItem(a.getTradeId(), a.getSide(), a.getMaterial(), a.getTradeTime());
+                    merged.setAmount(a.getAmount() + b.getAmount());
+                    merged.setEnchanted(a.isEnchanted() || b.isEnchanted());
+                    return merged;
+                });
+            }
+            
+            List<TradeLogItem> result = new ArrayList<>();
+            for (TradeLogItem row : perSide.values()) {
+                if (row.getAmount() >= minAmount) {
+                    result.add(row);
+                }
+            }
+            result.sort(Comparator.comparingLong(TradeLogItem::getTradeTime).reversed());
+            return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+        } catch (Exception e) {
+            plugin.getLogger().warn(e,
+                "Failed to search trade items");
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Get a trade log by its trade ID.
+     *
+     * @param tradeId Trade ID
+     * @return The log, or null if not found
+     */
+    public TradeLogData getLog(String tradeId) {
+        try {
+            List<TradeLogData> logs = logOperator.query()
+                .where("trade_id").eq(tradeId)
+                .list();
+            return logs == null || logs.isEmpty() ? null : logs.get(0);
+        } catch (Exception e) {
+            plugin.getLogger().warn(e,
+                "Failed to get trade log");
+            return null;
+        }
+    }
+    
+    /**
+     * Query trade logs with a composite filter, one page at a time.
+     * <p>
+     * Rows are read through the most selective indexed column the filter
+     * allows (player UUID, then status, then time alone) in bounded batches
+     * ordered by trade_time, and resumed from the keyset cursor instead of an
+     * offset. The remaining criteria are checked in memory. A call stops after
+     * {@link #QUERY_SCAN_LIMIT} rows, so a page may be short while
+     * {@link TradeLogPage#hasNext()} is still true.
+     *
+     * @param filter Query filter
+     * @param after Cursor from the previous page, or null for the first page
+     * @param pageSize Maximum number of logs on the page
+     * @return The page, newest first
+     */
+    public TradeLogPage queryLogs(TradeLogFilter filter, TradeLogPage.Cursor after, int pageSize) {
+        long start = System.nanoTime();
+        try {
+            TradeLogPage page = readLogPage(filter, after, pageSize);
+            metrics.record(TradeMetrics.Timer.DB_LOG_QUERY, start);
+            return page;
+        } catch (Exception e) {
+            metrics.increment(TradeMetrics.Counter.DB_ERRORS);
+            plugin.getLogger().warn(e,
+                "Failed to query trade logs");
+            return new TradeLogPage(new ArrayList<>(), null, 0);
+        }
+    }
+
+    /**
+     * Same as {@link #queryLogs} but lets database errors through, for callers
+     * that must not mistake a failure for the end of the data.
+     */
+    TradeLogPage readLogPage(TradeLogFilter filter, TradeLogPage.Cursor after, int pageSize) {
+        List<TradeLogData> matches = new ArrayList<>();
+        TradeLogPage.Cursor cursor = after;
+        int batchSize = Math.max(pageSize * 2, QUERY_MIN_BATCH);
+        int scanned = 0;
+        while (scanned < QUERY_SCAN_LIMIT) {
+            List<TradeLogData> rows = new ArrayList<>();
+            // Rows at or below a full batch's oldest time may be missing from it
+            long frontier = Long.MIN_VALUE;
+            for (String[] driver : drivingColumns(filter)) {
+                List<TradeLogData> batch = fetchLogBatch(driver[0], driver[1], filter, cursor, batchSize);
+                if (batch.size() >= batchSize) {
+                    long oldest = Long.MAX_VALUE;
+                    for (TradeLogData row : batch) {
+                        oldest = Math.min(oldest, row.getTradeTime());
+                    }
+                    frontier = Math.max(frontier, oldest);
+                }
+                for (TradeLogData row : batch) {
+                    if (cursor == null || cursor.precedes(row)) {
+                        rows.add(row);
+                    }
+                }
+            }
+            rows.sort(TradeLogPage.NEWEST_FIRST);
+
+            boolean progressed = false;
+            for (TradeLogData row : rows) {
+                if (row.getTradeTime() <= frontier) {
+                    break;
+                }
+                if (cursor != null && !cursor.precedes(row)) {
+                    // Same row reached through a second driving column
+                    continue;
+                }
+                cursor = TradeLogPage.Cursor.of(row);
+                progressed = true;
+                scanned++;
+                if (filter.matches(row)) {
+                    matches.add(row);
+                    if (matches.size() >= pageSize) {
+                        return new TradeLogPage(matches, cursor, scanned);
+                    }
+                }
+            }
+            if (frontier == Long.MIN_VALUE) {
+                return new TradeLogPage(matches, null, scanned);
+            }
+            if (!progressed) {
+                // More rows share one trade_time than a batch holds
+                batchSize *= 2;
+            }
+        }
+        return new TradeLogPage(matches, cursor, scanned);
+    }
+
+    /**
+     * Pick the indexed column(s) that narrow the filter the most. A player
+     * appears in either UUID column, so that needs two keyset streams.
+     */
+    private static List<String[]> drivingColumns(TradeLogFilter filter) {
+        String player = filter.getPlayer() != null ? filter.getPlayer() : filter.getPartner();
+        if (player != null) {
+            return Arrays.asList(new String[]{"player1_uuid", player}, new String[]{"player2_uuid", player});
+        }
+        if (filter.getStatus() != null) {
+            return Collections.singletonList(new String[]{"status", filter.getStatus().toUpperCase()});
+        }
+        return Collections.singletonList(new String[]{null, null});
+    }
+
+    private List<TradeLogData> fetchLogBatch(String column, String value, TradeLogFilter filter,
+                                             TradeLogPage.Cursor cursor, int limit) {
+        Query<TradeLogData> query = logOperator.query();
+        if (column != null) {
+            query = query.where(column).eq(value);
+        }
+        Long upper = filter.getTo();
+        if (cursor != null) {
+            // Inclusive: rows sharing the cursor's time are split by id in memory
+            upper = upper == null ? cursor.getTradeTime() : Math.min(upper, cursor.getTradeTime());
+        }
+        if (upper != null) {
+            query = query.where("trade_time").lte(upper);
+        }
+        if (filter.getFrom() != null) {
+            query = query.where("trade_time").gte(filter.getFrom());
+        }
+        List<TradeLogData> rows = query.orderByDesc("trade_time").limit(limit).list();
+        return rows == null ? Collections.emptyList() : rows;
+    }
+
+    /**
+     * Fold a written trade log into its day's rollup row.
+     *
+     * @param log Completed or cancelled trade log
+     */
+    synchronized void rollupDaily(TradeLogData log) {
+        if (dailyStatsOperator == null) {
+            return;
+        }
+        String date = Instant.ofEpochMilli(log.getTradeTime())
+            .atZone(ZoneId.systemDefault()).toLocalDate().toString();
+        try {
+            TradeDailyStats stats = dailyStatsCache.get(date);
+            boolean created = false;
+            if (stats == null) {
+                List<TradeDailyStats> existing = dailyStatsOperator.query()
+                    .where("stat_date").eq(date)
+                    .list();
+                if (existing != null && !existing.isEmpty()) {
+                    stats = existing.get(0);
+                } else {
+                    stats = new TradeDailyStats(date);
+                    created = true;
+                }
+                // Only keep the newest days hot
+                dailyStatsCache.keySet().removeIf(day -> day.compareTo(date) < 0);
+                dailyStatsCache.put(date, stats);
+            }
+            
+            if ("COMPLETED".equals(log.getStatus())) {
+                stats.addCompleted(log);
+            } else {
+                stats.addCancelled();
+            }
+            
+            if (created) {
+                dailyStatsOperator.insert(stats);
+            } else {
+                dailyStatsOperator.update(stats);
+            }
+        } catch (Exception e) {
+            // Reload the row from the database next time
+            dailyStatsCache.remove(date);
+            plugin.getLogger().warn(e,
+                "Failed to update daily trade stats");
+        }
+    }
+    
+    /**
+     * Get daily rollups for a date range.
+     *
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Rollup rows ordered by day
+     */
+    public List<TradeDailyStats> getDailyStats(LocalDate from, LocalDate to) {
+        try {
+            String first = from.toString();
+            String last = to.toString();
+            List<TradeDailyStats> result = new ArrayList<>();
+            for (TradeDailyStats stats : dailyStatsOperator.getAll()) {
+                String date = stats.getStatDate();
+                if (date != null && date.compareTo(first) >= 0 && date.compareTo(last) <= 0) {
+                    result.add(stats);
+                }
+            }
+            result.sort(Comparator.comparing(TradeDailyStats::getStatDate));
+            return result;
+        } catch (Exception e) {
+            plugin.getLogger().warn(e,
+                "Failed to get daily trade stats");
+            return new ArrayList<>();
+        }
+    }
+    
     /**
      * Cleanup old logs based on retention days.
+     * Daily rollups in trade_daily_stats are kept. Expired logs are moved to
+     * the compressed archive first when archiving is enabled; a chunk that
+     * fails to archive is left in the table for the next run.
      */
     private void cleanupOldLogs() {
         try {
             int retentionDays = config.getLogRetentionDays();
             long cutoffTime = System.currentTimeMillis() - (retentionDays * 24L * 60L * 60L * 1000L);
+            boolean archiving = config.isArchiveExpiredLogs();
+            if (archiving && archive == null) {
+                return;
+            }
             
-            // Get all logs and filter expired ones
-            List<TradeLogData> allLogs = logOperator.getAll();
+            // Page through expired logs in keyset chunks
+            TradeLogFilter expired = TradeLogFilter.builder().to(cutoffTime - 1).build();
+            TradeLogPage.Cursor cursor = null;
             int deleted = 0;
-            
-            for (TradeLogData log : allLogs) {
-                if (log.getTradeTime() < cutoffTime) {
+            do {
+                TradeLogPage page = readLogPage(expired, cursor, CLEANUP_BATCH);
+                if (archiving && !page.getLogs().isEmpty()) {
+                    archive.append(page.getLogs());
+                }
+                for (TradeLogData log : page.getLogs()) {
                     logOperator.delById(log.getId());
+                    deleteItemIndex(log.getTradeId());
                     deleted++;
                 }
-            }
+                cursor = page.getNext();
+            } while (cursor != null);
             
             if (deleted > 0) {
                 plugin.getLogger().info(
-                    "Cleaned up " + deleted + " expired trade logs (older than " + retentionDays + " days)");
+                    (archiving ? "Archived " : "Cleaned up ") + deleted
+                        + " expired trade logs (older than " + retentionDays + " days)");
             }
         } catch (Exception e) {
             plugin.getLogger().warn(e,
@@ -236,6 +874,29 @@ public class TradeLogService {
         }
     }
     
+    /**
+     * Search archived logs of one month.
+     *
+     * @param month      Month to search
+     * @param playerUuid Player taking part, or null for any
+     * @param limit      Maximum number of results
+     * @return Matching logs, newest first
+     * @throws IOException If the archive cannot be read
+     */
+    public List<TradeLogData> searchArchive(YearMonth month, String playerUuid, int limit) throws IOException {
+        if (archive == null) {
+            return new ArrayList<>();
+        }
+        return archive.search(month, playerUuid, Long.MIN_VALUE, Long.MAX_VALUE, limit);
+    }
+    
+    /**
+     * @return Months that have archived logs, oldest first
+     */
+    public List<YearMonth> getArchivedMonths() {
+        return archive == null ? new ArrayList<>() : archive.getMonths();
+    }
+    
     // ==================== Player Settings Management ====================
     
     /**
@@ -249,13 +910,12 @@ public class TradeLogService {
         // Check cache first
         PlayerTradeSettings cached = settingsCache.get(playerUuid);
         if (cached != null) {
+            metrics.increment(TradeMetrics.Counter.SETTINGS_CACHE_HIT);
             return cached;
         }
         
         // Try to load from database
-        List<PlayerTradeSettings> existing = settingsOperator.query()
-            .where("player_uuid").eq(playerUuid.toString())
-            .list();
+        List<PlayerTradeSettings> existing = loadSettings(playerUuid);
         
         PlayerTradeSettings settings;
         if (existing != null && !existing.isEmpty()) {
@@ -284,12 +944,11 @@ public class TradeLogService {
     public PlayerTradeSettings getSettings(UUID playerUuid) {
         PlayerTradeSettings cached = settingsCache.get(playerUuid);
         if (cached != null) {
+            metrics.increment(TradeMetrics.Counter.SETTINGS_CACHE_HIT);
             return cached;
         }
 
-        List<PlayerTradeSettings> existing = settingsOperator.query()
-            .where("player_uuid").eq(playerUuid.toString())
-            .list();
+        List<PlayerTradeSettings> existing = loadSettings(playerUuid);
         
         if (existing != null && !existing.isEmpty()) {
             PlayerTradeSettings settings = selectCanonicalSettings(existing);
@@ -299,6 +958,53 @@ public class TradeLogService {
         
         return null;
     }
+    
+    /**
+     * Read a player's settings rows after a cache miss.
+     */
+    private List<PlayerTradeSettings> loadSettings(UUID playerUuid) {
+        metrics.increment(TradeMetrics.Counter.SETTINGS_CACHE_MISS);
+        long start = System.nanoTime();
+        List<PlayerTradeSettings> existing = settingsOperator.query()
+            .where("player_uuid").eq(playerUuid.toString())
+            .list();
+        metrics.record(TradeMetrics.Timer.DB_SETTINGS_LOAD, start);
+        return existing;
+    }
+
+    /**
+     * Resolve a player name to a UUID, checking online players first and then
+     * players who have traded before.
+     *
+     * @param playerName Player name
+     * @return The UUID string, or null if the player is unknown
+     */
+    public String findPlayerUuid(String playerName) {
+        Player online = Bukkit.getPlayerExact(playerName);
+        if (online != null) {
+            return online.getUniqueId().toString();
+        }
+        try {
+            List<PlayerTradeSettings> existing = settingsOperator.query()
+                .where("player_name").eq(playerName)
+                .list();
+            return existing == null || existing.isEmpty() ? null : existing.get(0).getPlayerUuid();
+        } catch (Exception e) {
+            plugin.getLogger().warn(e,
+                "Failed to look up player: " + playerName);
+            return null;
+        }
+    }
+
+    /**
+     * Get player settings only if they are already in memory. Never touches the database.
+     *
+     * @param playerUuid Player UUID
+     * @return Cached PlayerTradeSettings or null
+     */
+    public PlayerTradeSettings getCachedSettings(UUID playerUuid) {
+        return settingsCache.get(playerUuid);
+    }
 
     private PlayerTradeSettings selectCanonicalSettings(List<PlayerTradeSettings> existing) {
         return existing.stream()
@@ -346,6 +1052,31 @@ public class TradeLogService {
         return settings.isTradeEnabled();
     }
     
+    /**
+     * Check if player has asked for reduced trade effects. Only consults
+     * settings already in memory, so it is safe on the effect path.
+     *
+     * @param playerUuid Player UUID
+     * @return true if sounds and particles should be skipped
+     */
+    public boolean hasReducedEffects(UUID playerUuid) {
+        PlayerTradeSettings settings = getCachedSettings(playerUuid);
+        return settings != null && settings.isReducedEffects();
+    }
+    
+    /**
+     * Toggle reduced trade effects for player.
+     *
+     * @param player Player
+     * @return new reduced effects status
+     */
+    public boolean toggleReducedEffects(Player player) {
+        PlayerTradeSettings settings = getOrCreateSettings(player.getUniqueId(), player.getName());
+        settings.setReducedEffects(!settings.isReducedEffects());
+        saveSettings(settings);
+        return settings.isReducedEffects();
+    }
+    
     /**
      * Check if target is blocked by player.
      *
@@ -391,17 +1122,26 @@ public class TradeLogService {
     }
     
     /**
-     * Get player statistics.
+     * Get player statistics. Players not in the settings cache are read from
+     * the database without being added to it, so stats of any number of
+     * offline players can be looked up; callers that poll keep their own
+     * expiring copy.
      *
      * @param playerUuid Player UUID
      * @return PlayerTradeSettings with statistics (may be default values if not found)
      */
     public PlayerTradeSettings getPlayerStats(UUID playerUuid) {
-        PlayerTradeSettings settings = getSettings(playerUuid);
-        if (settings == null) {
-            settings = new PlayerTradeSettings();
-            settings.setPlayerUuid(playerUuid.toString());
+        PlayerTradeSettings cached = settingsCache.get(playerUuid);
+        if (cached != null) {
+            metrics.increment(TradeMetrics.Counter.SETTINGS_CACHE_HIT);
+            return cached;
+        }
+        List<PlayerTradeSettings> existing = loadSettings(playerUuid);
+        if (existing != null && !existing.isEmpty()) {
+            return selectCanonicalSettings(existing);
         }
+        PlayerTradeSettings settings = new PlayerTradeSettings();
+        settings.setPlayerUuid(playerUuid.toString());
         return settings;
     }
     
@@ -0,0 +1,290 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.TradeMailItem;
+import com.ultikits.ultitools.interfaces.DataOperator;
+
+import lombok.Getter;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * Per-player mailbox for items that could not be handed over directly.
+ * <p>
+ * Stacks that overflow a full inventory, or belong to a player who is
+ * offline when a trade ends, are deposited here instead of being dropped
+ * into the world. Mail is indexed by owner UUID in memory, so deposits and
+ * claims never wait on the database; the matching inserts and deletes are
+ * queued and written in order by {@link #flush()} on an async task. A stack
+ * deposited and claimed between two flushes never reaches the database.
+ * Without an operator the mailbox only lives in memory.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TradeMailbox {
+
+    /**
+     * Why a stack was deposited.
+     */
+    public enum Source {
+        TRADE, CANCEL, RECOVERY
+    }
+
+    private final Function<ItemStack, String> encoder;
+    private final Function<String, ItemStack> decoder;
+    private final Map<UUID, List<Mail>> mail = new ConcurrentHashMap<>();
+    private final Queue<Write> writes = new ConcurrentLinkedQueue<>();
+    // Writes taken from the queue but not yet done, guarded by flush
+    private final List<Write> pending = new ArrayList<>();
+    private volatile DataOperator<TradeMailItem> operator;
+
+    public TradeMailbox() {
+        this(TradeJournal::encode, TradeJournal::decode);
+    }
+
+    TradeMailbox(Function<ItemStack, String> encoder, Function<String, ItemStack> decoder) {
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Load the stored mail and persist from now on.
+     *
+     * @param operator Mailbox table
+     * @return Stored rows that could not be read; they are left in the table
+     */
+    public synchronized int open(DataOperator<TradeMailItem> operator) {
+        int unreadable = 0;
+        List<TradeMailItem> rows = operator.getAll();
+        if (rows != null) {
+            rows.sort(Comparator.comparingLong(TradeMailItem::getCreatedAt));
+            for (TradeMailItem row : rows) {
+                ItemStack item;
+                UUID owner;
+                try {
+                    item = decoder.apply(row.getItemData());
+                    owner = UUID.fromString(row.getOwnerUuid());
+                } catch (RuntimeException e) {
+                    unreadable++;
+                    continue;
+                }
+                mail.computeIfAbsent(owner, k -> new ArrayList<>())
+                    .add(new Mail(row.getMailId(), item, row.getSource(), row.getCreatedAt()));
+            }
+        }
+        this.operator = operator;
+        return unreadable;
+    }
+
+    /**
+     * Put stacks into a player's mailbox. The stacks are copied.
+     *
+     * @param owner Player the stacks belong to
+     * @param items Stacks to keep; null and empty stacks are skipped
+     * @param source Why they are deposited
+     * @return Number of stacks deposited
+     */
+    public synchronized int deposit(UUID owner, Collection<ItemStack> items, Source source) {
+        int deposited = 0;
+        long now = System.currentTimeMillis();
+        for (ItemStack item : items) {
+            if (item == null || item.getType().isAir() || item.getAmount() <= 0) {
+                continue;
+            }
+            Mail letter = new Mail(UUID.randomUUID().toString(), item.clone(), source.name(), now);
+            mail.computeIfAbsent(owner, k -> new ArrayList<>()).add(letter);
+            writes.add(Write.insert(owner, letter));
+            deposited++;
+        }
+        return deposited;
+    }
+
+    /**
+     * @return Number of stacks waiting for a player
+     */
+    public synchronized int count(UUID owner) {
+        List<Mail> letters = mail.get(owner);
+        return letters == null ? 0 : letters.size();
+    }
+
+    /**
+     * @return Number of stacks waiting across all players
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (List<Mail> letters : mail.values()) {
+            size += letters.size();
+        }
+        return size;
+    }
+
+    /**
+     * Move as much of a player's mail as fits into their inventory, oldest
+     * first. A stack that only partly fits stays in the mailbox with the
+     * rest, and nothing after it is tried. Main thread only.
+     *
+     * @param player Owner
+     * @return What was handed over and what is left
+     */
+    public synchronized Claim claim(Player player) {
+        UUID owner = player.getUniqueId();
+        List<Mail> letters = mail.get(owner);
+        if (letters == null || letters.isEmpty()) {
+            return new Claim(0, 0);
+        }
+        int delivered = 0;
+        Iterator<Mail> it = letters.iterator();
+        while (it.hasNext()) {
+            Mail letter = it.next();
+            Map<Integer, ItemStack> overflow = player.getInventory().addItem(letter.item.clone());
+            int left = 0;
+            for (ItemStack rest : overflow.values()) {
+                left += rest.getAmount();
+            }
+            if (left >= letter.item.getAmount()) {
+                break;
+            }
+            it.remove();
+            writes.add(Write.delete(owner, letter));
+            if (left > 0) {
+                // Keep the rest under a new key, so the stored row always matches
+                ItemStack rest = letter.item.clone();
+                rest.setAmount(left);
+                Mail remainder = new Mail(UUID.randomUUID().toString(), rest, letter.source, letter.createdAt);
+                letters.add(0, remainder);
+                writes.add(Write.insert(owner, remainder));
+                break;
+            }
+            delivered++;
+        }
+        if (letters.isEmpty()) {
+            mail.remove(owner);
+        }
+        return new Claim(delivered, letters.size());
+    }
+
+    /**
+     * Write queued deposits and claims to the database, in the order they
+     * happened. A deposit claimed before it was written cancels out. If the
+     * database fails, the failed write and everything after it are retried
+     * on the next flush.
+     *
+     * @return Number of rows inserted or deleted
+     * @throws IOException if stacks could not be serialized; they stay in
+     *                     memory until claimed but are lost on restart
+     */
+    public int flush() throws IOException {
+        DataOperator<TradeMailItem> target = operator;
+        if (target == null) {
+            writes.clear();
+            return 0;
+        }
+        synchronized (pending) {
+            Write polled;
+            while ((polled = writes.poll()) != null) {
+                Write next = polled;
+                if (!next.insert && pending.removeIf(w -> w.insert && w.mail == next.mail)) {
+                    continue;
+                }
+                pending.add(next);
+            }
+
+            int written = 0;
+            int unencodable = 0;
+            Iterator<Write> it = pending.iterator();
+            while (it.hasNext()) {
+                Write write = it.next();
+                if (write.insert) {
+                    String data;
+                    try {
+                        data = encoder.apply(write.mail.item);
+                    } catch (RuntimeException e) {
+                        unencodable++;
+                        it.remove();
+                        continue;
+                    }
+                    target.insert(new TradeMailItem(write.mail.mailId, write.owner.toString(), data,
+                        write.mail.source, write.mail.createdAt));
+                } else {
+                    List<TradeMailItem> rows = target.query()
+                        .where("mail_id").eq(write.mail.mailId)
+                        .list();
+                    if (rows != null) {
+                        for (TradeMailItem row : rows) {
+                            target.delById(row.getId());
+                        }
+                    }
+                }
+                it.remove();
+                written++;
+            }
+            if (unencodable > 0) {
+                throw new IOException(unencodable + " mailbox item(s) could not be serialized");
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Outcome of a claim.
+     */
+    @Getter
+    public static final class Claim {
+        /** Stacks moved into the inventory in full */
+        private final int delivered;
+        /** Stacks still in the mailbox */
+        private final int remaining;
+
+        public Claim(int delivered, int remaining) {
+            this.delivered = delivered;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * Stack in a mailbox.
+     */
+    private static final class Mail {
+        private final String mailId;
+        private final ItemStack item;
+        private final String source;
+        private final long createdAt;
+
+        Mail(String mailId, ItemStack item, String source, long createdAt) {
+            this.mailId = mailId;
+            this.item = item;
+            this.source = source;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Queued insert or delete of a row.
+     */
+    private static final class Write {
+        private final boolean insert;
+        private final UUID owner;
+        private final Mail mail;
+
+        private Write(boolean insert, UUID owner, Mail mail) {
+            this.insert = insert;
+            this.owner = owner;
+            this.mail = mail;
+        }
+
+        static Write insert(UUID owner, Mail mail) {
+            return new Write(true, owner, mail);
+        }
+
+        static Write delete(UUID owner, Mail mail) {
+            return new Write(false, owner, mail);
+        }
+    }
+}
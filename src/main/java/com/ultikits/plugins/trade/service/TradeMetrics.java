@@ -0,0 +1,394 @@
+package com.ultikits.plugins.trade.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process metrics for the trade hot paths.
+ * <p>
+ * Counters are {@link LongAdder}s, so threads add to their own cell instead
+ * of fighting over one value. Timers are fixed-bucket histograms in the
+ * HDR style: each power of two is split into {@link #SUB_BUCKETS} linear
+ * buckets, so any latency from 1 ns to about a minute is kept within 12.5%
+ * in a few kilobytes, and recording is one array increment with no
+ * allocation. Gauges are read from their owners when a snapshot is taken.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TradeMetrics {
+
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Largest tracked power of two is 2^36 ns (about 69 s); slower samples share the top bucket
+    static final int MAX_EXPONENT = 36;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /**
+     * Timed operations.
+     */
+    @Getter
+    public enum Timer {
+        SEND_REQUEST("send_request", "发起请求"),
+        COMPLETE_TRADE("complete_trade", "完成交易"),
+        CANCEL_TRADE("cancel_trade", "取消交易"),
+        GUI_RENDER("gui_render", "界面渲染"),
+        DB_LOG_INSERT("db_log_insert", "写入日志"),
+        DB_SETTINGS_LOAD("db_settings_load", "读取玩家设置"),
+        DB_LOG_QUERY("db_log_query", "查询日志"),
+        DEFERRED_TASKS("deferred_tasks", "延后任务"),
+        JOURNAL_SYNC("journal_sync", "会话日志落盘");
+
+        private final String key;
+        private final String displayName;
+
+        Timer(String key, String displayName) {
+            this.key = key;
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return The timer with this key, or null
+         */
+        public static Timer parse(String key) {
+            for (Timer timer : values()) {
+                if (timer.key.equalsIgnoreCase(key)) {
+                    return timer;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Monotonic event counts.
+     */
+    @Getter
+    public enum Counter {
+        REQUESTS_SENT("requests_sent", "已发送请求"),
+        TRADES_COMPLETED("trades_completed", "完成的交易"),
+        TRADES_CANCELLED("trades_cancelled", "取消的交易"),
+        SETTINGS_CACHE_HIT("settings_cache_hit", "设置缓存命中"),
+        SETTINGS_CACHE_MISS("settings_cache_miss", "设置缓存未命中"),
+        EXP_TAX_COLLECTED("exp_tax_collected", "收取的经验税"),
+        DEFERRED_CARRYOVERS("deferred_carryovers", "延后任务顺延"),
+        EFFECTS_DROPPED("effects_dropped", "丢弃的特效"),
+        PARTICLES_DROPPED("particles_dropped", "丢弃的粒子"),
+        DB_ERRORS("db_errors", "数据库错误"),
+        MAIL_DEPOSITED("mail_deposited", "存入交易邮箱的物品");
+
+        private final String key;
+        private final String displayName;
+
+        Counter(String key, String displayName) {
+            this.key = key;
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return The counter with this key, or null
+         */
+        public static Counter parse(String key) {
+            for (Counter counter : values()) {
+                if (counter.key.equalsIgnoreCase(key)) {
+                    return counter;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Point-in-time values owned by other services.
+     */
+    @Getter
+    public enum Gauge {
+        ACTIVE_SESSIONS("active_sessions", "进行中的交易"),
+        PENDING_REQUESTS("pending_requests", "待处理请求"),
+        CACHED_SETTINGS("cached_settings", "缓存的玩家设置"),
+        LOG_QUEUE("log_queue_depth", "待写入日志"),
+        DEFERRED_QUEUE("deferred_queue_depth", "待执行的延后任务"),
+        MAILBOX_ITEMS("mailbox_items", "交易邮箱中的物品");
+
+        private final String key;
+        private final String displayName;
+
+        Gauge(String key, String displayName) {
+            this.key = key;
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return The gauge with this key, or null
+         */
+        public static Gauge parse(String key) {
+            for (Gauge gauge : values()) {
+                if (gauge.key.equalsIgnoreCase(key)) {
+                    return gauge;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Why a trade was cancelled, without the player names in the log text.
+     */
+    @Getter
+    public enum CancelReason {
+        PLAYER("player"),
+        OFFLINE("offline"),
+        INSUFFICIENT_MONEY("insufficient_money"),
+        INSUFFICIENT_EXP("insufficient_exp"),
+        SHUTDOWN("shutdown"),
+        OTHER("other");
+
+        private final String key;
+
+        CancelReason(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Latency histogram with log-linear buckets.
+     */
+    static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+        void record(long nanos) {
+            long value = Math.max(0L, nanos);
+            buckets.incrementAndGet(bucketOf(value));
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        Snapshot snapshot() {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            long maxNanos = max.get();
+            long sumNanos = sum.sum();
+            return new Snapshot(total, total == 0 ? 0 : sumNanos / total,
+                percentile(counts, total, 50, maxNanos), percentile(counts, total, 95, maxNanos),
+                percentile(counts, total, 99, maxNanos), maxNanos, sumNanos, counts);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0L);
+            }
+            sum.reset();
+            max.reset();
+        }
+
+        private static long percentile(long[] counts, long total, int percent, long maxNanos) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percent / 100.0 * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    /**
+     * Summary of one timer, all times in nanoseconds.
+     */
+    @Getter
+    public static final class Snapshot {
+        private final long count;
+        private final long meanNanos;
+        private final long p50Nanos;
+        private final long p95Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+        private final long sumNanos;
+        @Getter(AccessLevel.NONE)
+        private final long[] buckets;
+
+        Snapshot(long count, long meanNanos, long p50Nanos, long p95Nanos, long p99Nanos, long maxNanos,
+                 long sumNanos, long[] buckets) {
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p95Nanos = p95Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.sumNanos = sumNanos;
+            this.buckets = buckets;
+        }
+
+        /**
+         * Samples known to be at most a duration: every bucket that ends at
+         * or below it. A bucket straddling the limit is left out, so the
+         * result can be low by up to one bucket.
+         *
+         * @param nanos Limit in nanoseconds
+         * @return Number of samples
+         */
+        public long getCountAtMost(long nanos) {
+            long total = 0;
+            for (int i = 0; i < buckets.length && upperBound(i) <= nanos; i++) {
+                total += buckets[i];
+            }
+            return total;
+        }
+    }
+
+    private final Histogram[] timers = new Histogram[Timer.values().length];
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private final LongAdder[] cancelReasons = new LongAdder[CancelReason.values().length];
+    private final Map<Gauge, LongSupplier> gauges = new EnumMap<>(Gauge.class);
+    private volatile long since = System.currentTimeMillis();
+
+    public TradeMetrics() {
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new Histogram();
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        for (int i = 0; i < cancelReasons.length; i++) {
+            cancelReasons[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record the time since a {@link System#nanoTime()} reading.
+     *
+     * @param timer      Operation
+     * @param startNanos Reading taken when the operation started
+     */
+    public void record(Timer timer, long startNanos) {
+        recordNanos(timer, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record a measured duration.
+     *
+     * @param timer Operation
+     * @param nanos Duration in nanoseconds
+     */
+    public void recordNanos(Timer timer, long nanos) {
+        timers[timer.ordinal()].record(nanos);
+    }
+
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    public void add(Counter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * Count a cancelled trade, in total and by reason.
+     */
+    public void cancelled(CancelReason reason) {
+        counters[Counter.TRADES_CANCELLED.ordinal()].increment();
+        cancelReasons[reason.ordinal()].increment();
+    }
+
+    public long getCount(CancelReason reason) {
+        return cancelReasons[reason.ordinal()].sum();
+    }
+
+    public Snapshot getSnapshot(Timer timer) {
+        return timers[timer.ordinal()].snapshot();
+    }
+
+    /**
+     * Publish a value owned by another service.
+     *
+     * @param gauge  Gauge to publish
+     * @param source Supplier read on every snapshot; must be cheap and thread-safe
+     */
+    public synchronized void register(Gauge gauge, LongSupplier source) {
+        gauges.put(gauge, source);
+    }
+
+    /**
+     * @return The gauge's current value, or 0 if nothing publishes it
+     */
+    public synchronized long getGauge(Gauge gauge) {
+        LongSupplier source = gauges.get(gauge);
+        return source == null ? 0 : source.getAsLong();
+    }
+
+    /**
+     * @return When counters and timers were created or last reset, in millis
+     */
+    public long getSince() {
+        return since;
+    }
+
+    /**
+     * Clear counters and timers. Gauges are live values and are kept.
+     * Samples recorded while resetting may land on either side.
+     */
+    public void reset() {
+        for (Histogram timer : timers) {
+            timer.reset();
+        }
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+        for (LongAdder counter : cancelReasons) {
+            counter.reset();
+        }
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * Bucket of a non-negative duration: values below {@link #SUB_BUCKETS}
+     * get their own bucket, larger ones share a bucket with values that have
+     * the same top {@link #SUB_BUCKET_BITS} + 1 bits.
+     */
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Largest duration that falls into a bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lower + width - 1;
+    }
+}
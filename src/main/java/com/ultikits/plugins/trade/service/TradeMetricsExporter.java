@@ -0,0 +1,130 @@
+package com.ultikits.plugins.trade.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes {@link TradeMetrics} in the Prometheus text exposition format, for
+ * node-exporter's textfile collector.
+ * <p>
+ * The file is written next to the target under a hidden temporary name and
+ * renamed over it, so the collector never reads half a file. Timers are
+ * exported as one histogram family labelled by operation, with a fixed set
+ * of {@code le} bounds taken from the in-memory buckets.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TradeMetricsExporter {
+
+    static final String PREFIX = "ultitrade_";
+
+    // Histogram bounds in seconds, and the same bounds in nanoseconds
+    static final String[] BOUNDS = {
+        "0.0001", "0.00025", "0.0005", "0.001", "0.0025", "0.005", "0.01",
+        "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10"
+    };
+    private static final long[] BOUND_NANOS = new long[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUND_NANOS[i] = new BigDecimal(BOUNDS[i]).movePointRight(9).longValueExact();
+        }
+    }
+
+    private final TradeMetrics metrics;
+    private final ServerTradeStats serverStats;
+
+    public TradeMetricsExporter(TradeMetrics metrics, ServerTradeStats serverStats) {
+        this.metrics = metrics;
+        this.serverStats = serverStats;
+    }
+
+    /**
+     * Replace the target file with the current metrics.
+     *
+     * @param target File the collector reads, normally ending in ".prom"
+     * @throws IOException If the file cannot be written
+     */
+    public void write(File target) throws IOException {
+        Path path = target.toPath().toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        // Not Files.createTempFile: its owner-only permissions would hide the file from the collector
+        Path temp = path.resolveSibling("." + path.getFileName() + ".tmp");
+        try {
+            Files.write(temp, render().getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return The metrics in Prometheus text format
+     */
+    String render() {
+        StringBuilder out = new StringBuilder(4096);
+
+        for (TradeMetrics.Gauge gauge : TradeMetrics.Gauge.values()) {
+            family(out, gauge.getKey(), "gauge", gauge.getDisplayName());
+            sample(out, gauge.getKey(), null, String.valueOf(metrics.getGauge(gauge)));
+        }
+
+        for (TradeMetrics.Counter counter : TradeMetrics.Counter.values()) {
+            String name = counter.getKey() + "_total";
+            family(out, name, "counter", counter.getDisplayName());
+            if (counter == TradeMetrics.Counter.TRADES_CANCELLED) {
+                for (TradeMetrics.CancelReason reason : TradeMetrics.CancelReason.values()) {
+                    sample(out, name, "reason=\"" + reason.getKey() + "\"", String.valueOf(metrics.getCount(reason)));
+                }
+            } else {
+                sample(out, name, null, String.valueOf(metrics.getCount(counter)));
+            }
+        }
+
+        family(out, "money_tax_collected_total", "counter", "收取的金币税");
+        sample(out, "money_tax_collected_total", null, plain(serverStats.getTaxCollected()));
+
+        String histogram = "operation_duration_seconds";
+        family(out, histogram, "histogram", "操作耗时（秒）");
+        for (TradeMetrics.Timer timer : TradeMetrics.Timer.values()) {
+            TradeMetrics.Snapshot snapshot = metrics.getSnapshot(timer);
+            String label = "operation=\"" + timer.getKey() + "\"";
+            for (int i = 0; i < BOUNDS.length; i++) {
+                sample(out, histogram + "_bucket", label + ",le=\"" + BOUNDS[i] + "\"",
+                    String.valueOf(snapshot.getCountAtMost(BOUND_NANOS[i])));
+            }
+            sample(out, histogram + "_bucket", label + ",le=\"+Inf\"", String.valueOf(snapshot.getCount()));
+            sample(out, histogram + "_sum", label, plain(snapshot.getSumNanos() / 1_000_000_000.0));
+            sample(out, histogram + "_count", label, String.valueOf(snapshot.getCount()));
+        }
+        return out.toString();
+    }
+
+    private static void family(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, String value) {
+        out.append(PREFIX).append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String plain(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+}
@@ -1,10 +1,14 @@
 package com.ultikits.plugins.trade.service;
 
 import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
+import com.ultikits.plugins.trade.config.TradeLayoutConfig;
+import com.ultikits.plugins.trade.entity.TradeMailItem;
 import com.ultikits.plugins.trade.entity.TradeRequest;
 import com.ultikits.plugins.trade.entity.TradeSession;
 import com.ultikits.plugins.trade.gui.TradeConfirmPage;
 import com.ultikits.plugins.trade.gui.TradeGUI;
+import com.ultikits.plugins.trade.gui.TradeLayout;
 import com.ultikits.ultitools.abstracts.UltiToolsPlugin;
 import com.ultikits.ultitools.annotations.Autowired;
 import com.ultikits.ultitools.annotations.Scheduled;
@@ -25,6 +29,8 @@ import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.scheduler.BukkitTask;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -46,6 +52,9 @@ public class TradeService {
 
     @Autowired
     private TradeLogService logService;
+
+    @Autowired
+    private TradeLayoutConfig layoutConfig;
     
     // Pending trade requests
     private final Map<UUID, TradeRequest> pendingRequests = new ConcurrentHashMap<>();
@@ -65,6 +74,26 @@ public class TradeService {
 
     // Economy integration
     private Economy economy;
+
+    // Current settings with compiled layouts, replaced as a whole on reload
+    private volatile TradeConfigSnapshot currentSettings;
+    
+    // Deferrable side effects, drained within the tick budget
+    private final TickScheduler tickScheduler = new TickScheduler(
+        e -> plugin.getLogger().warn(e, "Deferred trade task failed"));
+    
+    // Sounds and particles, merged and capped per chunk
+    private final EffectDispatcher effects = new EffectDispatcher(tickScheduler,
+        player -> logService.hasReducedEffects(player.getUniqueId()),
+        () -> logService.getMetrics());
+    
+    // Crash-recovery journal of open sessions
+    private volatile TradeJournal journal;
+    private boolean journalFailing;
+    
+    // Items waiting for owners who were offline or had no room
+    private final TradeMailbox mailbox = new TradeMailbox();
+    private boolean mailboxFailing;
     
     /**
      * Initialize the trade service.
@@ -73,8 +102,138 @@ public class TradeService {
         // Initialize Bukkit plugin reference for scheduler tasks
         this.bukkitPlugin = Bukkit.getPluginManager().getPlugin("UltiTools");
 
-        // Setup economy
-        if (config.isEnableMoneyTrade()) {
+        // Publish live sizes to the metrics registry
+        TradeMetrics metrics = logService.getMetrics();
+        metrics.register(TradeMetrics.Gauge.ACTIVE_SESSIONS, activeSessions::size);
+        metrics.register(TradeMetrics.Gauge.PENDING_REQUESTS, pendingRequests::size);
+        metrics.register(TradeMetrics.Gauge.DEFERRED_QUEUE, tickScheduler::size);
+        metrics.register(TradeMetrics.Gauge.MAILBOX_ITEMS, mailbox::size);
+        
+        // Compile layouts, take the first snapshot and hook the economy
+        TradeConfigSnapshot initial = loadSettings();
+        for (String problem : initial.validate()) {
+            plugin.getLogger().warn("Invalid trade config: " + problem);
+        }
+        applySettings(initial);
+        
+        // Load the mailboxes, then return items left in trades that a crash interrupted
+        if (bukkitPlugin != null) {
+            openMailbox();
+            openJournal(new File(bukkitPlugin.getDataFolder(), "UltiTrade/journal/sessions.journal"));
+        }
+    }
+    
+    /**
+     * Replay the journal of the last run and journal new sessions in it.
+     * If it cannot be read it is left alone for an admin to inspect, and
+     * sessions are not journaled, so nothing in it is overwritten.
+     */
+    void openJournal(File file) {
+        TradeJournal opened = new TradeJournal(file);
+        TradeJournal.Recovery recovery;
+        try {
+            recovery = opened.recover(TradeService::playerDataSavedAt);
+        } catch (IOException e) {
+            plugin.getLogger().warn(e, "Failed to read trade journal, crash recovery disabled: " + file);
+            return;
+        }
+        if (recovery.getSessions() > 0) {
+            plugin.getLogger().warn("Recovered " + recovery.getSessions() + " interrupted trade(s): "
+                + recovery.getStacks() + " item stack(s) go back to their owners; "
+                + recovery.getMoney() + " money and " + recovery.getExp() + " exp were never taken.");
+        }
+        if (recovery.getInInventory() > 0) {
+            plugin.getLogger().warn(recovery.getInInventory() + " journaled item stack(s) were offered after "
+                + "their owner was last saved and are still in their inventory, so they are not returned.");
+        }
+        if (recovery.getUnreadable() > 0) {
+            plugin.getLogger().warn(recovery.getUnreadable() + " journaled item stack(s) could not be read: " + file);
+        }
+        journal = opened;
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            deliverRecovered(player);
+        }
+    }
+    
+    /**
+     * When the server last wrote a player's data file, which holds the
+     * inventory the player gets back after a crash.
+     *
+     * @return Epoch millis, or Long.MAX_VALUE if there is no such file
+     */
+    static long playerDataSavedAt(UUID player) {
+        List<World> worlds = Bukkit.getWorlds();
+        if (worlds == null || worlds.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        File data = new File(worlds.get(0).getWorldFolder(), "playerdata/" + player + ".dat");
+        long modified = data.lastModified();
+        return modified == 0L ? Long.MAX_VALUE : modified;
+    }
+    
+    /**
+     * Load the stored mailboxes. If the table cannot be read, mail is only
+     * kept in memory until the next restart.
+     */
+    private void openMailbox() {
+        try {
+            int unreadable = mailbox.open(plugin.getDataOperator(TradeMailItem.class));
+            if (unreadable > 0) {
+                plugin.getLogger().warn(unreadable + " mailbox item(s) could not be read and were left in the database");
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warn(e, "Failed to load trade mailboxes, mail will not be saved");
+        }
+    }
+    
+    /**
+     * Take a new snapshot of the reloaded config and swap it in. Running
+     * trades keep the snapshot they started with. An invalid config is
+     * rejected as a whole and the current settings stay in effect.
+     *
+     * @return Problems that rejected the reload; empty if it was applied
+     */
+    public List<String> reload() {
+        TradeConfigSnapshot next = loadSettings();
+        List<String> problems = next.validate();
+        if (!problems.isEmpty()) {
+            for (String problem : problems) {
+                plugin.getLogger().warn("Reload rejected, invalid trade config: " + problem);
+            }
+            return problems;
+        }
+        applySettings(next);
+        return problems;
+    }
+    
+    /**
+     * Compile the layouts and copy the config into a snapshot.
+     */
+    private TradeConfigSnapshot loadSettings() {
+        TradeLayout tradeLayout = TradeLayout.DEFAULT_TRADE;
+        TradeLayout confirmLayout = TradeLayout.DEFAULT_CONFIRM;
+        if (layoutConfig != null) {
+            tradeLayout = compileLayout("trade-window", layoutConfig.getTradeWindowRows(), TradeLayout.DEFAULT_TRADE);
+            confirmLayout = compileLayout("confirm-page", layoutConfig.getConfirmPageRows(), TradeLayout.DEFAULT_CONFIRM);
+        }
+        if (config.getOfferPages() > 1 && !tradeLayout.hasPageControls()) {
+            // layout.yml written before paging has no '<' / '>' slots
+            plugin.getLogger().warn("offerPages is " + config.getOfferPages()
+                + " but the trade-window layout has no '<' and '>' page controls, using one page.");
+        }
+        return TradeConfigSnapshot.of(config, tradeLayout, confirmLayout);
+    }
+    
+    /**
+     * Publish a snapshot and rebuild what depends on it.
+     */
+    private void applySettings(TradeConfigSnapshot next) {
+        currentSettings = next;
+        tickScheduler.setBudgetMicros(next.getTickBudgetMicros());
+        effects.setMaxParticlesPerChunk(next.getMaxParticlesPerChunk());
+        
+        // Look the provider up on every load, so a swapped economy plugin is picked up
+        if (next.isEnableMoneyTrade()) {
             setupEconomy();
         }
     }
@@ -85,7 +244,21 @@ public class TradeService {
     public void shutdown() {
         // Cancel all active sessions
         for (TradeSession session : activeSessions.values()) {
-            cancelTrade(session, "插件关闭");
+            cancelTrade(session, "插件关闭", TradeMetrics.CancelReason.SHUTDOWN);
+        }
+        effects.flush();
+        tickScheduler.flush();
+        boolean mailSaved = saveMailbox();
+        
+        // Every session is closed now, so this empties the journal, unless the
+        // mailbox could not be saved and the sessions have to be recovered
+        TradeJournal current = journal;
+        if (current != null) {
+            try {
+                current.close(() -> mailSaved);
+            } catch (IOException e) {
+                plugin.getLogger().warn(e, "Failed to write trade journal");
+            }
         }
         
         // Cleanup BossBars
@@ -104,7 +277,7 @@ public class TradeService {
     }
     
     /**
-     * Setup Vault economy.
+     * Setup Vault economy. Keeps the current provider if none is registered.
      */
     private void setupEconomy() {
         if (Bukkit.getPluginManager().getPlugin("Vault") == null) {
@@ -118,11 +291,72 @@ public class TradeService {
         }
     }
     
+    /**
+     * Compile a configured inventory layout, falling back to the default
+     * when the declaration is invalid.
+     */
+    private TradeLayout compileLayout(String name, List<String> rows, TradeLayout fallback) {
+        try {
+            return TradeLayout.compile(rows, TradeLayout.SlotRole.CONFIRM, TradeLayout.SlotRole.CANCEL);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warn("Invalid " + name + " layout (" + e.getMessage() + "), using default.");
+            return fallback;
+        }
+    }
+
+    /**
+     * Get the current settings. Read it once per operation so that all
+     * values come from the same load.
+     *
+     * @return Current snapshot; before {@link #init()} a fresh copy of the
+     *         live config with the default layouts
+     */
+    public TradeConfigSnapshot getSettings() {
+        TradeConfigSnapshot current = currentSettings;
+        if (current == null) {
+            return TradeConfigSnapshot.of(config, TradeLayout.DEFAULT_TRADE, TradeLayout.DEFAULT_CONFIRM);
+        }
+        return current;
+    }
+    
+    /**
+     * Get the settings a trade runs under.
+     *
+     * @param session Trade session
+     * @return The snapshot the session started with, or the current one
+     */
+    public TradeConfigSnapshot getSettings(TradeSession session) {
+        TradeConfigSnapshot captured = session.getSettings();
+        return captured != null ? captured : getSettings();
+    }
+
+    /**
+     * Get the compiled trade window layout.
+     */
+    public TradeLayout getLayout() {
+        return getSettings().getTradeLayout();
+    }
+
+    /**
+     * Get the compiled large trade confirmation page layout.
+     */
+    public TradeLayout getConfirmLayout() {
+        return getSettings().getConfirmLayout();
+    }
+    
     /**
      * Check if economy is available.
      */
     public boolean hasEconomy() {
-        return economy != null && config.isEnableMoneyTrade();
+        return economy != null && getSettings().isEnableMoneyTrade();
+    }
+    
+    /**
+     * Check if money can be traded in a session, under the settings it
+     * started with.
+     */
+    public boolean hasEconomy(TradeSession session) {
+        return economy != null && getSettings(session).isEnableMoneyTrade();
     }
     
     /**
@@ -140,6 +374,19 @@ public class TradeService {
      * @return true if request sent
      */
     public boolean sendRequest(Player sender, Player target) {
+        long start = System.nanoTime();
+        boolean sent = request(sender, target);
+        TradeMetrics metrics = logService.getMetrics();
+        metrics.record(TradeMetrics.Timer.SEND_REQUEST, start);
+        if (sent) {
+            metrics.increment(TradeMetrics.Counter.REQUESTS_SENT);
+        }
+        return sent;
+    }
+    
+    private boolean request(Player sender, Player target) {
+        TradeConfigSnapshot settings = getSettings();
+        
         // Check if sender has trade enabled
         if (!logService.isTradeEnabled(sender.getUniqueId())) {
             sender.sendMessage(ChatColor.RED + "你已关闭交易功能！使用 /trade toggle 开启");
@@ -148,14 +395,14 @@ public class TradeService {
         
         // Check if target has trade enabled
         if (!logService.isTradeEnabled(target.getUniqueId())) {
-            String msg = config.getTradeDisabledMessage().replace("{PLAYER}", target.getName());
+            String msg = settings.getTradeDisabledMessage().replace("{PLAYER}", target.getName());
             sender.sendMessage(ChatColor.translateAlternateColorCodes('&', msg));
             return false;
         }
         
         // Check if sender is blocked by target
         if (logService.isBlocked(target.getUniqueId(), sender.getUniqueId())) {
-            String msg = config.getPlayerBlockedMessage().replace("{PLAYER}", target.getName());
+            String msg = settings.getPlayerBlockedMessage().replace("{PLAYER}", target.getName());
             sender.sendMessage(ChatColor.translateAlternateColorCodes('&', msg));
             return false;
         }
@@ -179,14 +426,14 @@ public class TradeService {
         }
         
         // Check distance
-        if (config.getMaxDistance() > 0) {
-            if (!config.isAllowCrossWorld() && !sender.getWorld().equals(target.getWorld())) {
+        if (settings.getMaxDistance() > 0) {
+            if (!settings.isAllowCrossWorld() && !sender.getWorld().equals(target.getWorld())) {
                 sender.sendMessage(ChatColor.RED + "不能跨世界交易！");
                 return false;
             }
             
             if (sender.getWorld().equals(target.getWorld()) && 
-                sender.getLocation().distance(target.getLocation()) > config.getMaxDistance()) {
+                sender.getLocation().distance(target.getLocation()) > settings.getMaxDistance()) {
                 sender.sendMessage(ChatColor.RED + "距离太远，无法交易！");
                 return false;
             }
@@ -213,16 +460,16 @@ public class TradeService {
         pendingRequests.put(target.getUniqueId(), request);
         
         // Notify sender
-        String sentMsg = config.getRequestSentMessage().replace("{PLAYER}", target.getName());
+        String sentMsg = settings.getRequestSentMessage().replace("{PLAYER}", target.getName());
         sender.sendMessage(ChatColor.translateAlternateColorCodes('&', sentMsg));
-        playSound(sender, Sound.BLOCK_NOTE_BLOCK_PLING);
+        playSound(sender, Sound.BLOCK_NOTE_BLOCK_PLING, settings);
         
         // Notify target
-        notifyTradeRequest(target, sender);
+        notifyTradeRequest(target, sender, settings);
         
         // Show BossBar if enabled
-        if (config.isEnableBossbar()) {
-            showRequestBossBar(target, sender.getName());
+        if (settings.isEnableBossbar()) {
+            showRequestBossBar(target, sender.getName(), settings.getRequestTimeout());
         }
         
         return true;
@@ -231,8 +478,13 @@ public class TradeService {
     /**
      * Notify player of trade request with clickable buttons.
      */
-    private void notifyTradeRequest(Player target, Player sender) {
-        if (config.isEnableClickableButtons()) {
+    private void notifyTradeRequest(Player target, Player sender, TradeConfigSnapshot settings) {
+        tickScheduler.defer(TickScheduler.Priority.NORMAL, () -> sendRequestMessage(target, sender, settings));
+        playSound(target, Sound.BLOCK_NOTE_BLOCK_BELL, settings);
+    }
+    
+    private void sendRequestMessage(Player target, Player sender, TradeConfigSnapshot settings) {
+        if (settings.isEnableClickableButtons()) {
             // Create clickable message
             TextComponent message = new TextComponent(ChatColor.YELLOW + sender.getName() + 
                 ChatColor.WHITE + " 请求与你交易！ ");
@@ -254,22 +506,20 @@ public class TradeService {
             
             target.spigot().sendMessage(message);
         } else {
-            String receivedMsg = config.getRequestReceivedMessage().replace("{PLAYER}", sender.getName());
+            String receivedMsg = settings.getRequestReceivedMessage().replace("{PLAYER}", sender.getName());
             target.sendMessage(ChatColor.translateAlternateColorCodes('&', receivedMsg));
         }
-        
-        playSound(target, Sound.BLOCK_NOTE_BLOCK_BELL);
     }
     
     /**
      * Show BossBar for trade request countdown.
      */
-    private void showRequestBossBar(Player target, String senderName) {
+    private void showRequestBossBar(Player target, String senderName, int timeout) {
         // Remove existing BossBar if any
         removeBossBar(target.getUniqueId());
         
         BossBar bar = Bukkit.createBossBar(
-            ChatColor.YELLOW + senderName + " 请求与你交易 (剩余 " + config.getRequestTimeout() + "秒)",
+            ChatColor.YELLOW + senderName + " 请求与你交易 (剩余 " + timeout + "秒)",
             BarColor.YELLOW,
             BarStyle.SOLID
         );
@@ -278,7 +528,7 @@ public class TradeService {
         requestBossBars.put(target.getUniqueId(), bar);
         
         // Start countdown task
-        final int[] remaining = {config.getRequestTimeout()};
+        final int[] remaining = {timeout};
         BukkitTask task = Bukkit.getScheduler().runTaskTimer(bukkitPlugin, () -> {
             remaining[0]--;
             if (remaining[0] <= 0) {
@@ -286,16 +536,19 @@ public class TradeService {
                 return;
             }
             
-            double progress = (double) remaining[0] / config.getRequestTimeout();
-            bar.setProgress(Math.max(0, progress));
-            bar.setTitle(ChatColor.YELLOW + senderName + " 请求与你交易 (剩余 " + remaining[0] + "秒)");
-            
-            // Change color when time is running out
-            if (remaining[0] <= 5) {
-                bar.setColor(BarColor.RED);
-            } else if (remaining[0] <= 10) {
-                bar.setColor(BarColor.PINK);
-            }
+            int seconds = remaining[0];
+            tickScheduler.defer(TickScheduler.Priority.NORMAL, bar, () -> {
+                double progress = (double) seconds / timeout;
+                bar.setProgress(Math.max(0, progress));
+                bar.setTitle(ChatColor.YELLOW + senderName + " 请求与你交易 (剩余 " + seconds + "秒)");
+                
+                // Change color when time is running out
+                if (seconds <= 5) {
+                    bar.setColor(BarColor.RED);
+                } else if (seconds <= 10) {
+                    bar.setColor(BarColor.PINK);
+                }
+            });
         }, 20L, 20L);
         
         bossBarTasks.put(target.getUniqueId(), task);
@@ -326,7 +579,7 @@ public class TradeService {
         removeBossBar(player.getUniqueId());
         
         TradeRequest request = pendingRequests.remove(player.getUniqueId());
-        if (request == null || request.isExpired(config.getRequestTimeout())) {
+        if (request == null || request.isExpired(getSettings().getRequestTimeout())) {
             player.sendMessage(ChatColor.RED + "没有待处理的交易请求！");
             return false;
         }
@@ -370,22 +623,28 @@ public class TradeService {
      * Start a trade between two players.
      */
     public void startTrade(Player player1, Player player2) {
-        TradeSession session = new TradeSession(player1, player2);
+        TradeSession session = new TradeSession(player1, player2, getSettings());
+        TradeJournal current = journal;
+        if (current != null) {
+            current.open(session);
+        }
         
         activeSessions.put(session.getSessionId(), session);
         playerSessionMap.put(player1.getUniqueId(), session.getSessionId());
         playerSessionMap.put(player2.getUniqueId(), session.getSessionId());
         
         // Open trade GUI for both players
+        long start = System.nanoTime();
         TradeGUI gui1 = new TradeGUI(this, session, player1);
         TradeGUI gui2 = new TradeGUI(this, session, player2);
+        logService.getMetrics().record(TradeMetrics.Timer.GUI_RENDER, start);
         
         player1.openInventory(gui1.getInventory());
         player2.openInventory(gui2.getInventory());
         
         // Play sound
-        playSound(player1, Sound.BLOCK_CHEST_OPEN);
-        playSound(player2, Sound.BLOCK_CHEST_OPEN);
+        playSound(session, player1, Sound.BLOCK_CHEST_OPEN);
+        playSound(session, player2, Sound.BLOCK_CHEST_OPEN);
     }
     
     /**
@@ -406,6 +665,48 @@ public class TradeService {
         return playerSessionMap.containsKey(playerUuid);
     }
     
+    /**
+     * Get the number of trades currently in progress.
+     */
+    public int getActiveSessionCount() {
+        return activeSessions.size();
+    }
+    
+    /**
+     * Re-render the trade window of both participants, if they have it open.
+     * The render is deferred; repeated calls before it runs render once.
+     *
+     * @param session Trade session
+     */
+    public void refreshGUIs(TradeSession session) {
+        tickScheduler.defer(TickScheduler.Priority.HIGH, session, () -> renderGUIs(session));
+    }
+    
+    private void renderGUIs(TradeSession session) {
+        long start = System.nanoTime();
+        for (UUID uuid : new UUID[]{session.getPlayer1(), session.getPlayer2()}) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null && player.getOpenInventory().getTopInventory().getHolder() instanceof TradeGUI) {
+                ((TradeGUI) player.getOpenInventory().getTopInventory().getHolder()).update();
+            }
+        }
+        logService.getMetrics().record(TradeMetrics.Timer.GUI_RENDER, start);
+    }
+    
+    /**
+     * Reopen the trade window for a player who left it for a sub-page or prompt.
+     *
+     * @param player Player to reopen for
+     */
+    public void reopenTradeGUI(Player player) {
+        TradeSession session = getSession(player.getUniqueId());
+        if (session != null && isTrading(player.getUniqueId())) {
+            TradeGUI gui = new TradeGUI(this, session, player);
+            player.openInventory(gui.getInventory());
+            refreshGUIs(session);
+        }
+    }
+    
     /**
      * Confirm trade for player.
      * Handles large trade confirmation if threshold is exceeded.
@@ -417,7 +718,7 @@ public class TradeService {
         }
         
         // Check if large trade confirmation is needed
-        double threshold = config.getConfirmThreshold();
+        double threshold = getSettings(session).getConfirmThreshold();
         double totalMoney = session.getPlayerMoney(player.getUniqueId()) + 
                            session.getOtherPlayerMoney(player.getUniqueId());
         int totalExp = session.getPlayerExp(player.getUniqueId()) + 
@@ -475,7 +776,7 @@ public class TradeService {
         Player other = Bukkit.getPlayer(session.getOtherPlayer(confirmer.getUniqueId()));
         if (other != null) {
             other.sendMessage(ChatColor.GREEN + confirmer.getName() + " 已确认交易！");
-            playSound(other, Sound.BLOCK_NOTE_BLOCK_PLING);
+            playSound(session, other, Sound.BLOCK_NOTE_BLOCK_PLING);
         }
     }
     
@@ -495,35 +796,45 @@ public class TradeService {
      * Complete the trade.
      */
     public void completeTrade(TradeSession session) {
+        long start = System.nanoTime();
+        try {
+            transfer(session);
+        } finally {
+            logService.getMetrics().record(TradeMetrics.Timer.COMPLETE_TRADE, start);
+        }
+    }
+    
+    private void transfer(TradeSession session) {
         Player player1 = Bukkit.getPlayer(session.getPlayer1());
         Player player2 = Bukkit.getPlayer(session.getPlayer2());
         
         if (player1 == null || player2 == null) {
-            cancelTrade(session, "玩家离线");
+            cancelTrade(session, "玩家离线", TradeMetrics.CancelReason.OFFLINE);
             return;
         }
         
+        TradeConfigSnapshot settings = getSettings(session);
         double moneyTax = 0;
         int expTax = 0;
         
         // Handle money transfer
-        if (hasEconomy()) {
+        if (hasEconomy(session)) {
             double money1 = session.getPlayerMoney(session.getPlayer1());
             double money2 = session.getPlayerMoney(session.getPlayer2());
             
             // Apply tax
-            double taxRate = config.getTradeTax();
+            double taxRate = settings.getTradeTax();
             double tax1 = money1 * taxRate;
             double tax2 = money2 * taxRate;
             moneyTax = tax1 + tax2;
             
             // Check balances
             if (money1 > 0 && economy.getBalance(player1) < money1) {
-                cancelTrade(session, player1.getName() + " 余额不足");
+                cancelTrade(session, player1.getName() + " 余额不足", TradeMetrics.CancelReason.INSUFFICIENT_MONEY);
                 return;
             }
             if (money2 > 0 && economy.getBalance(player2) < money2) {
-                cancelTrade(session, player2.getName() + " 余额不足");
+                cancelTrade(session, player2.getName() + " 余额不足", TradeMetrics.CancelReason.INSUFFICIENT_MONEY);
                 return;
             }
             
@@ -539,23 +850,23 @@ public class TradeService {
         }
         
         // Handle experience transfer
-        if (config.isEnableExpTrade()) {
+        if (settings.isEnableExpTrade()) {
             int exp1 = session.getPlayerExp(session.getPlayer1());
             int exp2 = session.getPlayerExp(session.getPlayer2());
             
             // Apply tax
-            double expTaxRate = config.getExpTaxRate();
+            double expTaxRate = settings.getExpTaxRate();
             int tax1 = (int)(exp1 * expTaxRate);
             int tax2 = (int)(exp2 * expTaxRate);
             expTax = tax1 + tax2;
             
             // Check experience
             if (exp1 > 0 && getTotalExperience(player1) < exp1) {
-                cancelTrade(session, player1.getName() + " 经验不足");
+                cancelTrade(session, player1.getName() + " 经验不足", TradeMetrics.CancelReason.INSUFFICIENT_EXP);
                 return;
             }
             if (exp2 > 0 && getTotalExperience(player2) < exp2) {
-                cancelTrade(session, player2.getName() + " 经验不足");
+                cancelTrade(session, player2.getName() + " 经验不足", TradeMetrics.CancelReason.INSUFFICIENT_EXP);
                 return;
             }
             
@@ -574,31 +885,18 @@ public class TradeService {
         Map<Integer, ItemStack> items1 = session.getPlayerItems(session.getPlayer1());
         Map<Integer, ItemStack> items2 = session.getPlayerItems(session.getPlayer2());
         
-        // Give player1's items to player2
-        for (ItemStack item : items1.values()) {
-            if (item != null) {
-                HashMap<Integer, ItemStack> overflow = player2.getInventory().addItem(item);
-                for (ItemStack drop : overflow.values()) {
-                    player2.getWorld().dropItemNaturally(player2.getLocation(), drop);
-                }
-            }
-        }
-        
-        // Give player2's items to player1
-        for (ItemStack item : items2.values()) {
-            if (item != null) {
-                HashMap<Integer, ItemStack> overflow = player1.getInventory().addItem(item);
-                for (ItemStack drop : overflow.values()) {
-                    player1.getWorld().dropItemNaturally(player1.getLocation(), drop);
-                }
-            }
-        }
+        // Swap the items; what does not fit goes to the receiver's mailbox
+        int mailed2 = give(player2, items1.values(), TradeMailbox.Source.TRADE);
+        int mailed1 = give(player1, items2.values(), TradeMailbox.Source.TRADE);
         
         // Close inventories
         player1.closeInventory();
         player2.closeInventory();
         
         session.setState(TradeSession.TradeState.COMPLETED);
+        TradeMetrics metrics = logService.getMetrics();
+        metrics.increment(TradeMetrics.Counter.TRADES_COMPLETED);
+        metrics.add(TradeMetrics.Counter.EXP_TAX_COLLECTED, expTax);
         
         // Log the trade
         logService.logCompletedTrade(session, player1, player2, moneyTax, expTax);
@@ -606,63 +904,76 @@ public class TradeService {
         cleanupSession(session);
         
         // Notify players
-        String completeMsg = ChatColor.translateAlternateColorCodes('&', config.getTradeCompleteMessage());
-        player1.sendMessage(completeMsg);
-        player2.sendMessage(completeMsg);
+        String completeMsg = ChatColor.translateAlternateColorCodes('&', settings.getTradeCompleteMessage());
+        tickScheduler.defer(TickScheduler.Priority.NORMAL, () -> {
+            player1.sendMessage(completeMsg);
+            player2.sendMessage(completeMsg);
+        });
+        notifyMailed(player1, mailed1);
+        notifyMailed(player2, mailed2);
         
         // Play success effects
-        playSuccessEffects(player1);
-        playSuccessEffects(player2);
+        playSuccessEffects(session, player1);
+        playSuccessEffects(session, player2);
     }
     
     /**
      * Cancel a trade.
      */
     public void cancelTrade(TradeSession session, String reason) {
+        cancelTrade(session, reason, TradeMetrics.CancelReason.OTHER);
+    }
+    
+    /**
+     * Cancel a trade, counting it under a reason category.
+     */
+    public void cancelTrade(TradeSession session, String reason, TradeMetrics.CancelReason cause) {
+        long start = System.nanoTime();
+        try {
+            cancel(session, reason, cause);
+        } finally {
+            logService.getMetrics().record(TradeMetrics.Timer.CANCEL_TRADE, start);
+        }
+    }
+    
+    private void cancel(TradeSession session, String reason, TradeMetrics.CancelReason cause) {
         Player player1 = Bukkit.getPlayer(session.getPlayer1());
         Player player2 = Bukkit.getPlayer(session.getPlayer2());
         
+        String msg = getSettings(session).getTradeCancelledMessage();
+        if (reason != null) {
+            msg += " (" + reason + ")";
+        }
+        String cancelMsg = ChatColor.translateAlternateColorCodes('&', msg);
+        
         // Log cancelled trade
         logService.logCancelledTrade(session, reason);
         
-        // Return items to original owners
+        // Return items to original owners, or to the mailbox of those who left
+        Collection<ItemStack> items1 = session.getPlayerItems(session.getPlayer1()).values();
         if (player1 != null) {
-            for (ItemStack item : session.getPlayerItems(session.getPlayer1()).values()) {
-                if (item != null) {
-                    HashMap<Integer, ItemStack> overflow = player1.getInventory().addItem(item);
-                    for (ItemStack drop : overflow.values()) {
-                        player1.getWorld().dropItemNaturally(player1.getLocation(), drop);
-                    }
-                }
-            }
+            int mailed = give(player1, items1, TradeMailbox.Source.CANCEL);
             player1.closeInventory();
-            String msg = config.getTradeCancelledMessage();
-            if (reason != null) {
-                msg += " (" + reason + ")";
-            }
-            player1.sendMessage(ChatColor.translateAlternateColorCodes('&', msg));
-            playFailEffects(player1);
+            tickScheduler.defer(TickScheduler.Priority.NORMAL, () -> player1.sendMessage(cancelMsg));
+            notifyMailed(player1, mailed);
+            playFailEffects(session, player1);
+        } else {
+            mail(session.getPlayer1(), items1, TradeMailbox.Source.CANCEL);
         }
         
+        Collection<ItemStack> items2 = session.getPlayerItems(session.getPlayer2()).values();
         if (player2 != null) {
-            for (ItemStack item : session.getPlayerItems(session.getPlayer2()).values()) {
-                if (item != null) {
-                    HashMap<Integer, ItemStack> overflow = player2.getInventory().addItem(item);
-                    for (ItemStack drop : overflow.values()) {
-                        player2.getWorld().dropItemNaturally(player2.getLocation(), drop);
-                    }
-                }
-            }
+            int mailed = give(player2, items2, TradeMailbox.Source.CANCEL);
             player2.closeInventory();
-            String msg = config.getTradeCancelledMessage();
-            if (reason != null) {
-                msg += " (" + reason + ")";
-            }
-            player2.sendMessage(ChatColor.translateAlternateColorCodes('&', msg));
-            playFailEffects(player2);
+            tickScheduler.defer(TickScheduler.Priority.NORMAL, () -> player2.sendMessage(cancelMsg));
+            notifyMailed(player2, mailed);
+            playFailEffects(session, player2);
+        } else {
+            mail(session.getPlayer2(), items2, TradeMailbox.Source.CANCEL);
         }
         
         session.setState(TradeSession.TradeState.CANCELLED);
+        logService.getMetrics().cancelled(cause);
         cleanupSession(session);
     }
     
@@ -672,7 +983,7 @@ public class TradeService {
     public void cancelTrade(Player player) {
         TradeSession session = getSession(player.getUniqueId());
         if (session != null) {
-            cancelTrade(session, player.getName() + " 取消了交易");
+            cancelTrade(session, player.getName() + " 取消了交易", TradeMetrics.CancelReason.PLAYER);
         }
     }
     
@@ -685,13 +996,170 @@ public class TradeService {
         playerSessionMap.remove(session.getPlayer2());
     }
     
+    /**
+     * Run deferred side effects within the tick budget, once per tick,
+     * starting with the effects collected during the last tick.
+     */
+    @Scheduled(period = 1, async = false)
+    public void runDeferredTasks() {
+        if (!effects.isEmpty()) {
+            // Keyed on the dispatcher: effects from this tick play in one flush
+            tickScheduler.defer(TickScheduler.Priority.LOW, effects, effects::flush);
+        }
+        if (tickScheduler.isEmpty()) {
+            return;
+        }
+        TradeMetrics metrics = logService.getMetrics();
+        long start = System.nanoTime();
+        int left = tickScheduler.drain();
+        metrics.record(TradeMetrics.Timer.DEFERRED_TASKS, start);
+        if (left > 0) {
+            metrics.increment(TradeMetrics.Counter.DEFERRED_CARRYOVERS);
+        }
+    }
+    
+    /**
+     * Write the session changes of the last few ticks to the journal with a
+     * single fsync. The mailbox is saved first, so a session is only
+     * journaled as closed once the items it mailed are in the database.
+     * Only the first of a run of failures is logged.
+     */
+    @Scheduled(period = 5, async = true)
+    public void syncJournal() {
+        TradeJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            if (current.sync(this::saveMailbox) > 0) {
+                logService.getMetrics().record(TradeMetrics.Timer.JOURNAL_SYNC, start);
+            }
+            journalFailing = false;
+        } catch (IOException e) {
+            if (!journalFailing) {
+                plugin.getLogger().warn(e, "Failed to write trade journal");
+            }
+            journalFailing = true;
+        }
+    }
+    
+    /**
+     * Hand items taken out of an offer back to their owner. Whatever does
+     * not fit goes to the mailbox, as when a trade is cancelled.
+     *
+     * @param player Owner of the items
+     * @param items  Items to return
+     */
+    public void giveBack(Player player, Collection<ItemStack> items) {
+        notifyMailed(player, give(player, items, TradeMailbox.Source.CANCEL));
+    }
+    
+    /**
+     * Give a player the items recovered from trades that a crash
+     * interrupted, if any.
+     */
+    public void deliverRecovered(Player player) {
+        TradeJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        int[] mailed = new int[1];
+        List<ItemStack> items = current.takeReturns(player.getUniqueId(),
+            taken -> mailed[0] = give(player, taken, TradeMailbox.Source.RECOVERY));
+        if (items.isEmpty()) {
+            return;
+        }
+        player.sendMessage(ChatColor.YELLOW + "服务器异常关闭时未完成的交易中的 " + items.size() + " 组物品已退还给你。");
+        notifyMailed(player, mailed[0]);
+    }
+    
+    /**
+     * Put items into a player's inventory. Whatever does not fit goes to
+     * their mailbox instead of being dropped.
+     *
+     * @return Number of stacks sent to the mailbox
+     */
+    private int give(Player player, Collection<ItemStack> items, TradeMailbox.Source source) {
+        List<ItemStack> overflow = new ArrayList<>();
+        for (ItemStack item : items) {
+            if (item != null) {
+                overflow.addAll(player.getInventory().addItem(item).values());
+            }
+        }
+        return overflow.isEmpty() ? 0 : mail(player.getUniqueId(), overflow, source);
+    }
+    
+    private int mail(UUID owner, Collection<ItemStack> items, TradeMailbox.Source source) {
+        int deposited = mailbox.deposit(owner, items, source);
+        if (deposited > 0) {
+            logService.getMetrics().add(TradeMetrics.Counter.MAIL_DEPOSITED, deposited);
+        }
+        return deposited;
+    }
+    
+    private void notifyMailed(Player player, int mailed) {
+        if (mailed > 0) {
+            tickScheduler.defer(TickScheduler.Priority.NORMAL, () -> player.sendMessage(ChatColor.YELLOW
+                + "背包已满，" + mailed + " 组物品已存入交易邮箱，输入 /trade claim 领取。"));
+        }
+    }
+    
+    /**
+     * Move a player's mail into their inventory, as far as it fits.
+     * Tells the player what was delivered and what is left.
+     *
+     * @param player Mailbox owner
+     * @return What was delivered and what is left
+     */
+    public TradeMailbox.Claim claimMail(Player player) {
+        TradeMailbox.Claim claim = mailbox.claim(player);
+        if (claim.getDelivered() > 0) {
+            player.sendMessage(ChatColor.GREEN + "已从交易邮箱领取 " + claim.getDelivered() + " 组物品。");
+        }
+        if (claim.getRemaining() > 0) {
+            player.sendMessage(ChatColor.YELLOW + "背包空间不足，交易邮箱中还有 " + claim.getRemaining()
+                + " 组物品，清理背包后输入 /trade claim 领取。");
+        }
+        return claim;
+    }
+    
+    /**
+     * Write mailbox deposits and claims to the database about once a
+     * second. Only the first of a run of failures is logged.
+     */
+    @Scheduled(period = 20, async = true)
+    public void flushMailbox() {
+        saveMailbox();
+    }
+    
+    /**
+     * @return False if deposits or claims are still waiting for the
+     *         database; stacks that cannot be serialized are never retried,
+     *         so they do not count
+     */
+    private boolean saveMailbox() {
+        try {
+            mailbox.flush();
+            mailboxFailing = false;
+            return true;
+        } catch (Exception e) {
+            if (!mailboxFailing) {
+                plugin.getLogger().warn(e, "Failed to save trade mailbox");
+            }
+            mailboxFailing = true;
+            return e instanceof IOException;
+        }
+    }
+    
     /**
      * Cleanup expired requests every 10 seconds.
      * Scheduled task using @Scheduled annotation.
      */
     @Scheduled(period = 200, async = false)
     public void cleanupExpiredRequests() {
-        int timeout = config.getRequestTimeout();
+        TradeConfigSnapshot settings = getSettings();
+        int timeout = settings.getRequestTimeout();
         Iterator<Map.Entry<UUID, TradeRequest>> it = pendingRequests.entrySet().iterator();
         while (it.hasNext()) {
             Map.Entry<UUID, TradeRequest> entry = it.next();
@@ -703,7 +1171,7 @@ public class TradeService {
                 Player receiver = Bukkit.getPlayer(entry.getKey());
                 if (receiver != null) {
                     receiver.sendMessage(ChatColor.translateAlternateColorCodes('&', 
-                        config.getRequestTimeoutMessage()));
+                        settings.getRequestTimeoutMessage()));
                 }
             }
         }
@@ -715,37 +1183,48 @@ public class TradeService {
      * Play a sound to player.
      */
     public void playSound(Player player, Sound sound) {
-        if (config.isEnableSounds() && player != null) {
-            player.playSound(player.getLocation(), sound, 1.0f, 1.0f);
+        playSound(player, sound, getSettings());
+    }
+    
+    /**
+     * Play a sound to a player in a trade, if the trade's settings allow it.
+     */
+    public void playSound(TradeSession session, Player player, Sound sound) {
+        playSound(player, sound, getSettings(session));
+    }
+    
+    private void playSound(Player player, Sound sound, TradeConfigSnapshot settings) {
+        if (player != null && settings.isEnableSounds()) {
+            effects.sound(player, sound);
         }
     }
     
     /**
      * Play success effects (sound + particles).
      */
-    private void playSuccessEffects(Player player) {
+    private void playSuccessEffects(TradeSession session, Player player) {
         if (player == null) return;
         
-        playSound(player, Sound.ENTITY_PLAYER_LEVELUP);
+        TradeConfigSnapshot settings = getSettings(session);
+        playSound(player, Sound.ENTITY_PLAYER_LEVELUP, settings);
         
-        if (config.isEnableParticles()) {
-            Location loc = player.getLocation().add(0, 1, 0);
-            player.getWorld().spawnParticle(Particle.VILLAGER_HAPPY, loc, 30, 0.5, 0.5, 0.5, 0.1);
-            player.getWorld().spawnParticle(Particle.END_ROD, loc, 15, 0.3, 0.5, 0.3, 0.05);
+        if (settings.isEnableParticles()) {
+            effects.particles(player, Particle.VILLAGER_HAPPY, 30, 0.5, 0.5, 0.5, 0.1);
+            effects.particles(player, Particle.END_ROD, 15, 0.3, 0.5, 0.3, 0.05);
         }
     }
     
     /**
      * Play fail effects (sound + particles).
      */
-    private void playFailEffects(Player player) {
+    private void playFailEffects(TradeSession session, Player player) {
         if (player == null) return;
         
-        playSound(player, Sound.ENTITY_VILLAGER_NO);
+        TradeConfigSnapshot settings = getSettings(session);
+        playSound(player, Sound.ENTITY_VILLAGER_NO, settings);
         
-        if (config.isEnableParticles()) {
-            Location loc = player.getLocation().add(0, 1, 0);
-            player.getWorld().spawnParticle(Particle.SMOKE_NORMAL, loc, 20, 0.3, 0.3, 0.3, 0.05);
+        if (settings.isEnableParticles()) {
+            effects.particles(player, Particle.SMOKE_NORMAL, 20, 0.3, 0.3, 0.3, 0.05);
         }
     }
     
@@ -797,4 +1276,18 @@ public class TradeService {
     public TradeLogService getLogService() {
         return logService;
     }
+    
+    /**
+     * Get the queue for deferrable side effects.
+     */
+    public TickScheduler getTickScheduler() {
+        return tickScheduler;
+    }
+    
+    /**
+     * Get the sound and particle dispatcher.
+     */
+    public EffectDispatcher getEffects() {
+        return effects;
+    }
 }
@@ -0,0 +1,178 @@
+package com.ultikits.plugins.trade;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Allocation-free stand-ins for the Bukkit interfaces.
+ * <p>
+ * Mockito records every call and, with the inline mock maker, instruments
+ * the classes it has mocked, so its own allocations would swamp the numbers
+ * being measured. These are plain {@link Proxy} instances answering from
+ * fixed values: a call costs at most the argument array the proxy builds.
+ * The allocation budget tests and the JMH suites both build on them.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public final class BukkitFakes {
+
+    /**
+     * Computes a return value from the call arguments.
+     */
+    public interface Answer {
+        Object answer(Object[] args);
+    }
+
+    private static final Map<Class<?>, Object> ZEROS = new HashMap<>();
+
+    static {
+        ZEROS.put(boolean.class, Boolean.FALSE);
+        ZEROS.put(byte.class, (byte) 0);
+        ZEROS.put(short.class, (short) 0);
+        ZEROS.put(char.class, (char) 0);
+        ZEROS.put(int.class, 0);
+        ZEROS.put(long.class, 0L);
+        ZEROS.put(float.class, 0f);
+        ZEROS.put(double.class, 0d);
+    }
+
+    private BukkitFakes() {
+    }
+
+    /**
+     * Proxy answering methods by name from {@code answers}: an {@link Answer}
+     * is called with the arguments, any other value is returned as is.
+     * Methods without an answer return zero, false, an empty collection or
+     * null; {@code clone()} returns the proxy itself.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T fake(Class<T> type, Map<String, Object> answers, Class<?>... extraInterfaces) {
+        Class<?>[] interfaces = new Class<?>[extraInterfaces.length + 1];
+        interfaces[0] = type;
+        System.arraycopy(extraInterfaces, 0, interfaces, 1, extraInterfaces.length);
+        return (T) Proxy.newProxyInstance(BukkitFakes.class.getClassLoader(), interfaces, (proxy, method, args) -> {
+            String name = method.getName();
+            Object value = answers.get(name);
+            if (value instanceof Answer) {
+                return ((Answer) value).answer(args);
+            }
+            if (value != null) {
+                return value;
+            }
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName();
+                case "clone":
+                    return proxy;
+                default:
+                    return zero(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object zero(Class<?> type) {
+        if (type.isPrimitive()) {
+            return ZEROS.get(type);
+        }
+        if (type == List.class || type == Collection.class) {
+            return Collections.emptyList();
+        }
+        if (type == Set.class) {
+            return Collections.emptySet();
+        }
+        if (type == Map.class) {
+            return Collections.emptyMap();
+        }
+        return null;
+    }
+
+    /**
+     * Install a fake server whose item factory and inventories behave like
+     * the real ones closely enough for item and GUI code.
+     *
+     * @param players Players returned by {@code getPlayer(UUID)}
+     */
+    public static void installServer(Player... players) throws Exception {
+        Map<UUID, Player> online = new HashMap<>();
+        for (Player player : players) {
+            online.put(player.getUniqueId(), player);
+        }
+        ItemMeta sharedMeta = fake(ItemMeta.class, new HashMap<>());
+
+        Map<String, Object> factoryAnswers = new HashMap<>();
+        factoryAnswers.put("getItemMeta", sharedMeta);
+        factoryAnswers.put("isApplicable", Boolean.TRUE);
+        factoryAnswers.put("asMetaFor", (Answer) args -> args[0]);
+        factoryAnswers.put("updateMaterial", (Answer) args -> args[1]);
+        ItemFactory itemFactory = fake(ItemFactory.class, factoryAnswers);
+
+        Inventory inventory = fake(Inventory.class, new HashMap<>());
+
+        Map<String, Object> serverAnswers = new HashMap<>();
+        serverAnswers.put("getItemFactory", itemFactory);
+        serverAnswers.put("createInventory", inventory);
+        serverAnswers.put("getPlayer", (Answer) args -> args[0] instanceof UUID ? online.get(args[0]) : null);
+        UltiTradeTestHelper.setStaticField(Bukkit.class, "server", fake(Server.class, serverAnswers));
+    }
+
+    public static void uninstallServer() throws Exception {
+        UltiTradeTestHelper.setStaticField(Bukkit.class, "server", null);
+    }
+
+    /**
+     * Level-30 player whose chat and sounds go nowhere.
+     */
+    public static Player player(String name, UUID uuid) {
+        Player.Spigot spigot = new Player.Spigot() {
+            @Override
+            public void sendMessage(BaseComponent component) {
+            }
+
+            @Override
+            public void sendMessage(BaseComponent... components) {
+            }
+        };
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getName", name);
+        answers.put("getUniqueId", uuid);
+        answers.put("getLevel", 30);
+        answers.put("getExpToLevel", 50);
+        answers.put("isOnline", Boolean.TRUE);
+        answers.put("spigot", spigot);
+        return fake(Player.class, answers);
+    }
+
+    /**
+     * Named, lored, damaged item, as players usually offer them. Needs
+     * {@link #installServer(Player...)}.
+     */
+    public static ItemStack detailedItem(Material type, int index) {
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("hasDisplayName", Boolean.TRUE);
+        answers.put("getDisplayName", "§6传说之刃 #" + index);
+        answers.put("hasLore", Boolean.TRUE);
+        answers.put("getLore", Arrays.asList("§7锻造于下界", "§8#" + index));
+        answers.put("getDamage", 100 + index);
+        ItemMeta meta = fake(ItemMeta.class, answers, Damageable.class);
+
+        ItemStack item = new ItemStack(type, 1);
+        item.setItemMeta(meta);
+        return item;
+    }
+}
@@ -1,10 +1,13 @@
 package com.ultikits.plugins.trade;
 
+import com.ultikits.plugins.trade.service.TradeService;
 import com.ultikits.ultitools.context.SimpleContainer;
 import com.ultikits.ultitools.interfaces.impl.logger.PluginLogger;
 
 import org.junit.jupiter.api.*;
 
+import java.util.Collections;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -59,12 +62,54 @@ class UltiTradeTest {
     void reloadSelf() throws Exception {
         UltiTrade plugin = mock(UltiTrade.class);
         PluginLogger logger = mock(PluginLogger.class);
+        SimpleContainer context = mock(SimpleContainer.class);
+        when(plugin.getLogger()).thenReturn(logger);
+        when(plugin.getContext()).thenReturn(context);
+        when(plugin.i18n(anyString())).thenAnswer(inv -> inv.getArgument(0));
+        doCallRealMethod().when(plugin).reloadSelf();
+
+        plugin.reloadSelf();
+
+        verify(logger).info("UltiTrade 配置已重载！");
+    }
+
+    @Test
+    @DisplayName("reloadSelf should reload the trade service")
+    void reloadSelfReloadsService() throws Exception {
+        UltiTrade plugin = mock(UltiTrade.class);
+        PluginLogger logger = mock(PluginLogger.class);
+        SimpleContainer context = mock(SimpleContainer.class);
+        TradeService tradeService = mock(TradeService.class);
         when(plugin.getLogger()).thenReturn(logger);
+        when(plugin.getContext()).thenReturn(context);
+        when(context.getBean(TradeService.class)).thenReturn(tradeService);
+        when(tradeService.reload()).thenReturn(Collections.emptyList());
         when(plugin.i18n(anyString())).thenAnswer(inv -> inv.getArgument(0));
         doCallRealMethod().when(plugin).reloadSelf();
 
         plugin.reloadSelf();
 
+        verify(tradeService).reload();
         verify(logger).info("UltiTrade 配置已重载！");
     }
+
+    @Test
+    @DisplayName("reloadSelf should warn when the config is rejected")
+    void reloadSelfRejected() throws Exception {
+        UltiTrade plugin = mock(UltiTrade.class);
+        PluginLogger logger = mock(PluginLogger.class);
+        SimpleContainer context = mock(SimpleContainer.class);
+        TradeService tradeService = mock(TradeService.class);
+        when(plugin.getLogger()).thenReturn(logger);
+        when(plugin.getContext()).thenReturn(context);
+        when(context.getBean(TradeService.class)).thenReturn(tradeService);
+        when(tradeService.reload()).thenReturn(Collections.singletonList("tradeTax = 2.0 (0.0 ~ 1.0)"));
+        when(plugin.i18n(anyString())).thenAnswer(inv -> inv.getArgument(0));
+        doCallRealMethod().when(plugin).reloadSelf();
+
+        plugin.reloadSelf();
+
+        verify(logger).warn("UltiTrade 配置有误，已保留原配置！");
+        verify(logger, never()).info("UltiTrade 配置已重载！");
+    }
 }
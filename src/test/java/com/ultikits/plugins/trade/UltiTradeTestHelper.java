@@ -138,17 +138,27 @@ public final class UltiTradeTestHelper {
         lenient().when(config.isEnableMoneyTrade()).thenReturn(true);
         lenient().when(config.isEnableExpTrade()).thenReturn(true);
         lenient().when(config.isEnableShiftClick()).thenReturn(true);
+        lenient().when(config.getAmountInputMode()).thenReturn("CHAT");
         lenient().when(config.getTradeTax()).thenReturn(0.0);
         lenient().when(config.getExpTaxRate()).thenReturn(0.0);
         lenient().when(config.getConfirmThreshold()).thenReturn(10000.0);
         lenient().when(config.isEnableTradeLog()).thenReturn(true);
         lenient().when(config.getLogRetentionDays()).thenReturn(30);
         lenient().when(config.getCleanupIntervalHours()).thenReturn(24);
+        lenient().when(config.isExportGzip()).thenReturn(true);
+        lenient().when(config.isArchiveExpiredLogs()).thenReturn(true);
+        lenient().when(config.getMetricsFile()).thenReturn("");
+        lenient().when(config.getMetricsInterval()).thenReturn(15);
+        lenient().when(config.getTickBudgetMicros()).thenReturn(0);
+        lenient().when(config.getMaxParticlesPerChunk()).thenReturn(0);
         lenient().when(config.isEnableSounds()).thenReturn(true);
         lenient().when(config.isEnableParticles()).thenReturn(true);
         lenient().when(config.isEnableBossbar()).thenReturn(true);
         lenient().when(config.isEnableClickableButtons()).thenReturn(true);
+        lenient().when(config.getPlaceholderCacheSeconds()).thenReturn(30);
         lenient().when(config.getGuiTitle()).thenReturn("&6与 {PLAYER} 交易");
+        lenient().when(config.getOfferPages()).thenReturn(1);
+        lenient().when(config.getInputTimeout()).thenReturn(10);
         lenient().when(config.getRequestSentMessage()).thenReturn("&a已向 &f{PLAYER} &a发送交易请求！");
         lenient().when(config.getRequestReceivedMessage()).thenReturn("&e{PLAYER} &f请求与你交易！");
         lenient().when(config.getRequestTimeoutMessage()).thenReturn("&c交易请求已超时！");
@@ -0,0 +1,149 @@
+package com.ultikits.plugins.trade.alloc;
+
+import com.ultikits.plugins.trade.BukkitFakes;
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
+import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.gui.TradeGUI;
+import com.ultikits.plugins.trade.placeholder.TradePlaceholderExpansion;
+import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.plugins.trade.service.TradeService;
+
+import net.milkbowl.vault.economy.Economy;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Allocation budgets for the trade hot paths, in bytes per operation.
+ * <p>
+ * Budgets leave roughly twice the current allocation as headroom, so they
+ * only fail on a real regression such as a formatter, parser or item copy
+ * per call; a failure reports the measured value. Tagged {@code allocation}:
+ * the build runs this class in its own JVM, because classes that Mockito's
+ * inline mock maker has instrumented in other tests allocate on every call.
+ */
+@Tag("allocation")
+@DisplayName("Allocation Budget Tests")
+class AllocationBudgetTest {
+
+    private static final int BLOCKED_PLAYERS = 500;
+
+    private AllocationMeter meter;
+    private TradeService tradeService;
+    private Player player1;
+    private Player player2;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meter = AllocationMeter.create();
+        Assumptions.assumeTrue(meter != null, "JVM cannot count allocations per thread");
+
+        player1 = BukkitFakes.player("Alice", UUID.randomUUID());
+        player2 = BukkitFakes.player("Bob", UUID.randomUUID());
+        BukkitFakes.installServer(player1, player2);
+
+        tradeService = new TradeService();
+        UltiTradeTestHelper.setField(tradeService, "config", new TradeConfig());
+        UltiTradeTestHelper.setField(tradeService, "economy", BukkitFakes.fake(Economy.class, new HashMap<>()));
+        UltiTradeTestHelper.setField(tradeService, "logService", new TradeLogService());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        BukkitFakes.uninstallServer();
+    }
+
+    private void assertBudget(String path, long budget, Runnable operation) {
+        long bytes = meter.bytesPerOp(operation);
+        assertThat(bytes).as("%s: %d B/op (budget %d)", path, bytes, budget).isLessThanOrEqualTo(budget);
+    }
+
+    @Test
+    @DisplayName("TradeGUI.update with four detailed items per side")
+    void guiUpdate() {
+        TradeSession session = new TradeSession(player1, player2);
+        for (int i = 0; i < 4; i++) {
+            session.setItem(player1.getUniqueId(), i, BukkitFakes.detailedItem(Material.DIAMOND_SWORD, i));
+            session.setItem(player2.getUniqueId(), i, BukkitFakes.detailedItem(Material.BOW, i));
+        }
+        session.setMoney(player1.getUniqueId(), 250.0);
+        session.setExp(player2.getUniqueId(), 40);
+        TradeGUI gui = new TradeGUI(tradeService, session, player1);
+
+        assertBudget("TradeGUI.update", 48 * 1024, gui::update);
+    }
+
+    @Test
+    @DisplayName("notifyTradeRequest with clickable buttons")
+    void notifyTradeRequest() throws Exception {
+        Method notify = TradeService.class.getDeclaredMethod("notifyTradeRequest",
+            Player.class, Player.class, TradeConfigSnapshot.class);
+        notify.setAccessible(true);
+        TradeConfigSnapshot settings = tradeService.getSettings();
+
+        assertBudget("TradeService.notifyTradeRequest", 4 * 1024, () -> {
+            try {
+                notify.invoke(tradeService, player2, player1, settings);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("PlayerTradeSettings.isBlocked should not depend on the blacklist size")
+    void isBlocked() {
+        PlayerTradeSettings settings = new PlayerTradeSettings(player1.getUniqueId(), "Alice");
+        List<String> blocked = new ArrayList<>(BLOCKED_PLAYERS);
+        for (int i = 0; i < BLOCKED_PLAYERS; i++) {
+            blocked.add(new UUID(0L, i).toString());
+        }
+        settings.setBlockedPlayers(blocked);
+        String hit = blocked.get(BLOCKED_PLAYERS / 2);
+        String miss = player2.getUniqueId().toString();
+
+        assertBudget("PlayerTradeSettings.isBlocked", 16, () -> {
+            if (!settings.isBlocked(hit) || settings.isBlocked(miss)) {
+                throw new AssertionError("wrong answer");
+            }
+        });
+    }
+
+    @Nested
+    @DisplayName("Placeholders")
+    class Placeholders {
+
+        private TradePlaceholderExpansion expansion;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            TradeLogService logService = new TradeLogService();
+            PlayerTradeSettings stats = new PlayerTradeSettings(player1.getUniqueId(), "Alice");
+            stats.setTotalTrades(42);
+            stats.setLastTradeTime(1_706_745_600_000L);
+            Map<UUID, PlayerTradeSettings> settingsCache = UltiTradeTestHelper.getField(logService, "settingsCache");
+            settingsCache.put(player1.getUniqueId(), stats);
+            expansion = new TradePlaceholderExpansion(tradeService, logService);
+        }
+
+        @Test
+        @DisplayName("total_trades")
+        void totalTrades() {
+            assertBudget("placeholder total_trades", 128, () -> expansion.onRequest(player1, "total_trades"));
+        }
+
+        @Test
+        @DisplayName("last_trade_time should not build a date format per call")
+        void lastTradeTime() {
+            assertBudget("placeholder last_trade_time", 1024, () -> expansion.onRequest(player1, "last_trade_time"));
+        }
+    }
+}
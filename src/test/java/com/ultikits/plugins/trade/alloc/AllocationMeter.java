@@ -0,0 +1,72 @@
+package com.ultikits.plugins.trade.alloc;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures heap bytes allocated per operation on the calling thread, using
+ * the HotSpot per-thread allocation counter.
+ * <p>
+ * Each measurement warms the operation up first, then takes the lowest of
+ * several rounds, so class loading and one-off lazy initialisation do not
+ * count against the operation. JIT escape analysis can only lower the
+ * result, so a budget is an upper bound whether or not the code is compiled.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+final class AllocationMeter {
+
+    private static final int WARMUP = 2_000;
+    private static final int ROUNDS = 5;
+    private static final int OPS_PER_ROUND = 1_000;
+
+    private final com.sun.management.ThreadMXBean threads;
+
+    private AllocationMeter(com.sun.management.ThreadMXBean threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return A meter, or null if this JVM cannot count allocations per thread
+     */
+    static AllocationMeter create() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return new AllocationMeter(threads);
+    }
+
+    /**
+     * @param operation Operation to measure; must not hand work to other threads
+     * @return Bytes allocated by one run of the operation
+     */
+    long bytesPerOp(Runnable operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        // Reading the counter may allocate itself
+        long first = allocated();
+        long overhead = allocated() - first;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = allocated();
+            for (int i = 0; i < OPS_PER_ROUND; i++) {
+                operation.run();
+            }
+            long bytes = allocated() - start - overhead;
+            best = Math.min(best, Math.max(0L, bytes) / OPS_PER_ROUND);
+        }
+        return best;
+    }
+
+    private long allocated() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,381 @@
+package com.ultikits.plugins.trade.commands;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.entity.TradeLogData;
+import com.ultikits.plugins.trade.entity.TradeLogItem;
+import com.ultikits.plugins.trade.service.TradeLogFilter;
+import com.ultikits.plugins.trade.service.TradeLogPage;
+import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.plugins.trade.service.TradeMetrics;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.*;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.and;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TradeAdminCommand Tests")
+class TradeAdminCommandTest {
+
+    private TradeAdminCommand command;
+    private TradeLogService logService;
+    private CommandSender sender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UltiTradeTestHelper.setUp();
+
+        logService = mock(TradeLogService.class);
+        command = new TradeAdminCommand(logService);
+        sender = mock(CommandSender.class);
+
+        // Run scheduled work inline
+        BukkitScheduler scheduler = Bukkit.getScheduler();
+        doAnswer(inv -> {
+            inv.getArgument(1, Runnable.class).run();
+            return null;
+        }).when(scheduler).runTaskAsynchronously(any(), any(Runnable.class));
+        doAnswer(inv -> {
+            inv.getArgument(1, Runnable.class).run();
+            return null;
+        }).when(scheduler).runTask(any(), any(Runnable.class));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        UltiTradeTestHelper.tearDown();
+    }
+
+    @Nested
+    @DisplayName("search")
+    class Search {
+
+        @Test
+        @DisplayName("Should list matching trades with both player names")
+        void listHits() {
+            TradeLogData log = new TradeLogData(UUID.randomUUID(), UUID.randomUUID(), "Alice",
+                UUID.randomUUID(), "Bob");
+            TradeLogItem hit = new TradeLogItem(log.getTradeId(), 2, "NETHERITE_INGOT", log.getTradeTime());
+            hit.setAmount(12);
+            hit.setEnchanted(true);
+            when(logService.searchItemTrades(eq(Material.NETHERITE_INGOT), eq(10), anyLong(), anyLong(), anyInt()))
+                .thenReturn(Collections.singletonList(hit));
+            when(logService.getLog(log.getTradeId())).thenReturn(log);
+
+            command.search(sender, "netherite_ingot", "10", "7");
+
+            verify(sender).sendMessage(and(contains("Bob"), and(contains("Alice"), contains("NETHERITE_INGOT x12"))));
+            verify(sender).sendMessage(contains("[附魔]"));
+        }
+
+        @Test
+        @DisplayName("Should search the requested time range")
+        void timeRange() {
+            when(logService.searchItemTrades(any(), anyInt(), anyLong(), anyLong(), anyInt()))
+                .thenReturn(Collections.emptyList());
+            long before = System.currentTimeMillis();
+
+            command.search(sender, "diamond", "1", "2");
+
+            org.mockito.ArgumentCaptor<Long> from = org.mockito.ArgumentCaptor.forClass(Long.class);
+            org.mockito.ArgumentCaptor<Long> to = org.mockito.ArgumentCaptor.forClass(Long.class);
+            verify(logService).searchItemTrades(eq(Material.DIAMOND), eq(1), from.capture(), to.capture(), eq(10));
+            assertThat(to.getValue() - from.getValue()).isEqualTo(2L * 24L * 60L * 60L * 1000L);
+            assertThat(to.getValue()).isGreaterThanOrEqualTo(before);
+            verify(sender).sendMessage(contains("没有找到匹配的交易"));
+        }
+
+        @Test
+        @DisplayName("Should default to one item over seven days")
+        void defaults() {
+            when(logService.searchItemTrades(any(), anyInt(), anyLong(), anyLong(), anyInt()))
+                .thenReturn(Collections.emptyList());
+
+            command.search(sender, "diamond");
+
+            verify(sender).sendMessage(contains("近 7 天"));
+            verify(logService).searchItemTrades(eq(Material.DIAMOND), eq(1), anyLong(), anyLong(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should reject unknown materials and bad numbers")
+        void invalidInput() {
+            command.search(sender, "unobtainium");
+            command.search(sender, "diamond", "lots");
+            command.search(sender, "diamond", "0", "7");
+
+            verify(sender).sendMessage(contains("未知的物品类型"));
+            verify(sender).sendMessage(contains("必须是整数"));
+            verify(sender).sendMessage(contains("必须大于 0"));
+            verifyNoInteractions(logService);
+        }
+    }
+
+    @Nested
+    @DisplayName("logs")
+    class Logs {
+
+        private final String aliceUuid = UUID.randomUUID().toString();
+
+        @BeforeEach
+        void setUpLogs() {
+            when(sender.getName()).thenReturn("Admin");
+            when(logService.findPlayerUuid("Alice")).thenReturn(aliceUuid);
+        }
+
+        private TradeLogData log(String status) {
+            TradeLogData log = new TradeLogData(UUID.randomUUID(), UUID.randomUUID(), "Alice",
+                UUID.randomUUID(), "Bob");
+            log.setStatus(status);
+            return log;
+        }
+
+        @Test
+        @DisplayName("Should parse every filter key into the query")
+        void parseFilter() {
+            when(logService.queryLogs(any(), any(), anyInt()))
+                .thenReturn(new TradeLogPage(new ArrayList<>(), null, 0));
+            long before = System.currentTimeMillis();
+
+            command.logs(sender, "player:Alice,status:cancelled,days:3,minmoney:100,minexp:5,reason:quit");
+
+            org.mockito.ArgumentCaptor<TradeLogFilter> filter = org.mockito.ArgumentCaptor.forClass(TradeLogFilter.class);
+            verify(logService).queryLogs(filter.capture(), isNull(), eq(10));
+            TradeLogFilter value = filter.getValue();
+            assertThat(value.getPlayer()).isEqualTo(aliceUuid);
+            assertThat(value.getPartner()).isNull();
+            assertThat(value.getStatus()).isEqualTo("CANCELLED");
+            assertThat(value.getFrom()).isBetween(before - 3L * 24L * 60L * 60L * 1000L, System.currentTimeMillis());
+            assertThat(value.getMinMoney()).isEqualTo(100.0);
+            assertThat(value.getMinExp()).isEqualTo(5);
+            assertThat(value.getCancelReason()).isEqualTo("quit");
+            verify(sender).sendMessage(contains("没有找到匹配的交易"));
+            verify(sender).sendMessage(contains("没有更多记录了"));
+        }
+
+        @Test
+        @DisplayName("Should show a page and continue from its cursor with logs next")
+        void paging() {
+            TradeLogPage.Cursor cursor = new TradeLogPage.Cursor(1234L, "log-9");
+            TradeLogData cancelled = log("CANCELLED");
+            cancelled.setCancelReason("Timeout");
+            when(logService.queryLogs(any(), isNull(), anyInt()))
+                .thenReturn(new TradeLogPage(new ArrayList<>(Collections.singletonList(cancelled)), cursor, 64));
+            when(logService.queryLogs(any(), eq(cursor), anyInt()))
+                .thenReturn(new TradeLogPage(new ArrayList<>(Collections.singletonList(log("COMPLETED"))), null, 3));
+
+            command.logs(sender);
+            command.logs(sender, "next");
+
+            verify(sender).sendMessage(contains("第 1 页"));
+            verify(sender).sendMessage(and(contains("已取消"), contains("Timeout")));
+            verify(sender).sendMessage(contains("/tradeadmin logs next"));
+            verify(sender).sendMessage(contains("第 2 页"));
+            verify(sender).sendMessage(contains("已完成"));
+            verify(logService).queryLogs(any(), eq(cursor), eq(10));
+
+            command.logs(sender, "next");
+            verify(sender).sendMessage(contains("没有可以翻页的查询"));
+        }
+
+        @Test
+        @DisplayName("Should reject malformed filters before querying")
+        void invalidFilters() {
+            command.logs(sender, "colour:red");
+            command.logs(sender, "status:pending");
+            command.logs(sender, "days:soon");
+            command.logs(sender, "minmoney:0");
+            command.logs(sender, "player");
+
+            verify(sender).sendMessage(contains("未知的条件"));
+            verify(sender).sendMessage(contains("completed 或 cancelled"));
+            verify(sender).sendMessage(contains("必须是整数"));
+            verify(sender).sendMessage(contains("必须大于 0"));
+            verify(sender).sendMessage(contains("键:值"));
+            verify(logService, never()).queryLogs(any(), any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should report unknown players")
+        void unknownPlayer() {
+            command.logs(sender, "player:Alice,with:Ghost");
+
+            verify(sender).sendMessage(contains("未找到玩家: Ghost"));
+            verify(logService, never()).queryLogs(any(), any(), anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("export")
+    class Export {
+
+        @Test
+        @DisplayName("Should reject bad formats, dates and ranges before exporting")
+        void invalidInput() {
+            command.export(sender, "2024-01-01", "2024-01-31", "xml");
+            command.export(sender, "2024/01/01", "2024-01-31");
+            command.export(sender, "2024-02-01", "2024-01-31");
+
+            verify(sender).sendMessage(contains("未知的导出格式"));
+            verify(sender).sendMessage(contains("yyyy-MM-dd"));
+            verify(sender).sendMessage(contains("结束日期不能早于开始日期"));
+            verifyNoInteractions(logService);
+            verify(Bukkit.getScheduler(), never()).runTaskAsynchronously(any(), any(Runnable.class));
+        }
+
+        @Test
+        @DisplayName("Should refuse a second export while one is running")
+        void oneAtATime() {
+            org.bukkit.plugin.Plugin plugin = mock(org.bukkit.plugin.Plugin.class);
+            when(plugin.getDataFolder()).thenReturn(new java.io.File("build/test-exports"));
+            when(Bukkit.getPluginManager().getPlugin("UltiTools")).thenReturn(plugin);
+            com.ultikits.plugins.trade.config.TradeConfig config = UltiTradeTestHelper.createDefaultConfig();
+            when(logService.getConfig()).thenReturn(config);
+            // Keep the first export queued
+            doReturn(null).when(Bukkit.getScheduler()).runTaskAsynchronously(any(), any(Runnable.class));
+
+            command.export(sender, "2024-01-01", "2024-01-31", "ndjson");
+            command.export(sender, "2024-01-01", "2024-01-31");
+
+            verify(sender).sendMessage(contains("开始导出 2024-01-01 至 2024-01-31"));
+            verify(sender).sendMessage(contains("已有导出任务正在进行"));
+            verify(Bukkit.getScheduler(), times(1)).runTaskAsynchronously(any(), any(Runnable.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("archive")
+    class Archive {
+
+        private TradeLogData log(String partner) {
+            TradeLogData log = new TradeLogData(UUID.randomUUID(), UUID.randomUUID(), "Alice", UUID.randomUUID(), partner);
+            log.setTradeTime(System.currentTimeMillis());
+            log.markCompleted();
+            return log;
+        }
+
+        @Test
+        @DisplayName("Should list archived months")
+        void months() {
+            when(logService.getArchivedMonths()).thenReturn(java.util.Arrays.asList(
+                YearMonth.of(2024, 1), YearMonth.of(2024, 2)));
+
+            command.archive(sender);
+
+            verify(sender).sendMessage(contains("2024-01, 2024-02"));
+        }
+
+        @Test
+        @DisplayName("Should search a month for one player")
+        void searchPlayer() throws Exception {
+            String aliceUuid = UUID.randomUUID().toString();
+            when(logService.findPlayerUuid("Alice")).thenReturn(aliceUuid);
+            when(logService.searchArchive(YearMonth.of(2024, 1), aliceUuid, 11))
+                .thenReturn(Collections.singletonList(log("Bob")));
+
+            command.archive(sender, "2024-01", "Alice");
+
+            verify(sender).sendMessage(contains("2024-01 归档 (Alice)"));
+            verify(sender).sendMessage(and(contains("Alice"), contains("Bob")));
+        }
+
+        @Test
+        @DisplayName("Should cap the results and hint at narrowing the search")
+        void capped() throws Exception {
+            List<TradeLogData> logs = new ArrayList<>();
+            for (int i = 0; i < 11; i++) {
+                logs.add(log("Partner" + i));
+            }
+            when(logService.searchArchive(any(), isNull(), anyInt())).thenReturn(logs);
+
+            command.archive(sender, "2024-01");
+
+            verify(sender, never()).sendMessage(contains("Partner10"));
+            verify(sender).sendMessage(contains("仅显示最近 10 条"));
+        }
+
+        @Test
+        @DisplayName("Should report bad months, unknown players and read errors")
+        void errors() throws Exception {
+            when(logService.searchArchive(any(), any(), anyInt())).thenThrow(new java.io.IOException("broken"));
+
+            command.archive(sender, "2024-13");
+            command.archive(sender, "2024-01", "Ghost");
+            command.archive(sender, "2024-01");
+
+            verify(sender).sendMessage(contains("yyyy-MM"));
+            verify(sender).sendMessage(contains("未找到玩家: Ghost"));
+            verify(sender).sendMessage(contains("读取归档失败: broken"));
+        }
+    }
+
+    @Nested
+    @DisplayName("help")
+    class Help {
+
+        @Test
+        @DisplayName("handleHelp should list admin commands")
+        void handleHelp() {
+            command.handleHelp(sender);
+
+            verify(sender).sendMessage(contains("/tradeadmin search"));
+            verify(sender).sendMessage(contains("/tradeadmin logs [条件]"));
+            verify(sender).sendMessage(contains("/tradeadmin export"));
+            verify(sender).sendMessage(contains("/tradeadmin archive"));
+            verify(sender).sendMessage(contains("/tradeadmin stats"));
+        }
+    }
+
+    @Nested
+    @DisplayName("stats")
+    class Stats {
+
+        private TradeMetrics metrics;
+
+        @BeforeEach
+        void setUp() {
+            metrics = new TradeMetrics();
+            when(logService.getMetrics()).thenReturn(metrics);
+        }
+
+        @Test
+        @DisplayName("Should show gauges, counters, hit rate and recorded timers")
+        void show() {
+            metrics.register(TradeMetrics.Gauge.ACTIVE_SESSIONS, () -> 3);
+            metrics.increment(TradeMetrics.Counter.SETTINGS_CACHE_HIT);
+            metrics.increment(TradeMetrics.Counter.SETTINGS_CACHE_HIT);
+            metrics.increment(TradeMetrics.Counter.SETTINGS_CACHE_HIT);
+            metrics.increment(TradeMetrics.Counter.SETTINGS_CACHE_MISS);
+            metrics.recordNanos(TradeMetrics.Timer.COMPLETE_TRADE, 1_500_000L);
+
+            command.stats(sender);
+
+            verify(sender).sendMessage(contains("进行中的交易: §f3"));
+            verify(sender).sendMessage(contains("设置缓存命中率: §f75.0%"));
+            verify(sender).sendMessage(and(contains("完成交易"), contains("1 / 1.50 / ")));
+            verify(sender, never()).sendMessage(contains("界面渲染"));
+        }
+
+        @Test
+        @DisplayName("reset should clear the counters")
+        void reset() {
+            metrics.increment(TradeMetrics.Counter.TRADES_COMPLETED);
+
+            command.statsReset(sender);
+
+            assertThat(metrics.getCount(TradeMetrics.Counter.TRADES_COMPLETED)).isZero();
+            verify(sender).sendMessage(contains("运行指标已清零"));
+        }
+    }
+}
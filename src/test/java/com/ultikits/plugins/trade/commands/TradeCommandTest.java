@@ -1,9 +1,14 @@
 package com.ultikits.plugins.trade.commands;
 
 import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+import com.ultikits.plugins.trade.service.PriceIndex;
+import com.ultikits.plugins.trade.service.TradeLeaderboard;
 import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.plugins.trade.service.TradeMailbox;
 import com.ultikits.plugins.trade.service.TradeService;
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.Server;
 import org.bukkit.entity.Player;
 import org.junit.jupiter.api.*;
@@ -11,6 +16,7 @@ import org.junit.jupiter.api.*;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.and;
 import static org.mockito.Mockito.*;
 
 @DisplayName("TradeCommand Tests")
@@ -186,6 +192,32 @@ class TradeCommandTest {
         }
     }
 
+    @Nested
+    @DisplayName("effects")
+    class Effects {
+
+        @Test
+        @DisplayName("Should turn trade effects off")
+        void reduce() {
+            when(logService.toggleReducedEffects(player)).thenReturn(true);
+
+            command.effects(player);
+
+            verify(logService).toggleReducedEffects(player);
+            verify(player).sendMessage(contains("已关闭交易音效和粒子效果"));
+        }
+
+        @Test
+        @DisplayName("Should turn trade effects back on")
+        void restore() {
+            when(logService.toggleReducedEffects(player)).thenReturn(false);
+
+            command.effects(player);
+
+            verify(player).sendMessage(contains("已开启交易音效和粒子效果"));
+        }
+    }
+
     @Nested
     @DisplayName("blockPlayer")
     class BlockPlayer {
@@ -278,6 +310,32 @@ class TradeCommandTest {
         }
     }
 
+    @Nested
+    @DisplayName("claim")
+    class Claim {
+
+        @Test
+        @DisplayName("Should claim the player's mail")
+        void claims() {
+            when(tradeService.claimMail(player)).thenReturn(new TradeMailbox.Claim(2, 0));
+
+            command.claim(player);
+
+            verify(tradeService).claimMail(player);
+            verify(player, never()).sendMessage(contains("交易邮箱是空的"));
+        }
+
+        @Test
+        @DisplayName("Should say so when the mailbox is empty")
+        void empty() {
+            when(tradeService.claimMail(player)).thenReturn(new TradeMailbox.Claim(0, 0));
+
+            command.claim(player);
+
+            verify(player).sendMessage(contains("交易邮箱是空的"));
+        }
+    }
+
     @Nested
     @DisplayName("help")
     class Help {
@@ -333,8 +391,123 @@ class TradeCommandTest {
             verify(player).sendMessage(contains("/trade deny"));
             verify(player).sendMessage(contains("/trade cancel"));
             verify(player).sendMessage(contains("/trade toggle"));
+            verify(player).sendMessage(contains("/trade effects"));
             verify(player).sendMessage(contains("/trade block"));
             verify(player).sendMessage(contains("/trade unblock"));
+            verify(player).sendMessage(contains("/trade history"));
+            verify(player).sendMessage(contains("/trade claim"));
+        }
+    }
+
+    @Nested
+    @DisplayName("history")
+    class History {
+
+        @Test
+        @DisplayName("Should open the history page and load it off the main thread")
+        void openHistory() {
+            command.history(player);
+
+            verify(player).openInventory(any(org.bukkit.inventory.Inventory.class));
+            verify(server.getScheduler()).runTaskAsynchronously(any(), any(Runnable.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("top")
+    class Top {
+
+        private TradeLeaderboard leaderboard;
+
+        @BeforeEach
+        void setUpLeaderboard() {
+            leaderboard = new TradeLeaderboard();
+            when(logService.getLeaderboard()).thenReturn(leaderboard);
+        }
+
+        @Test
+        @DisplayName("Should rank by trade count by default")
+        void defaultMetric() {
+            PlayerTradeSettings alice = new PlayerTradeSettings(UUID.randomUUID(), "Alice");
+            alice.setTotalTrades(3);
+            leaderboard.update(alice);
+
+            command.top(player);
+
+            verify(player).sendMessage(contains("交易次数排行榜"));
+            verify(player).sendMessage(and(contains("#1"), contains("Alice")));
+        }
+
+        @Test
+        @DisplayName("Should rank by the requested metric")
+        void moneyMetric() {
+            PlayerTradeSettings alice = new PlayerTradeSettings(UUID.randomUUID(), "Alice");
+            alice.setTotalMoneyTraded(12.5);
+            leaderboard.update(alice);
+
+            command.top(player, "MONEY");
+
+            verify(player).sendMessage(contains("交易金币排行榜"));
+            verify(player).sendMessage(contains("12.50"));
+        }
+
+        @Test
+        @DisplayName("Should show a notice when nobody is ranked")
+        void empty() {
+            command.top(player, "exp");
+
+            verify(player).sendMessage(contains("暂无数据"));
+        }
+
+        @Test
+        @DisplayName("Should reject unknown metrics")
+        void unknownMetric() {
+            command.top(player, "gold");
+
+            verify(player).sendMessage(contains("未知的排行类型"));
+            verify(logService, never()).getLeaderboard();
+        }
+    }
+
+    @Nested
+    @DisplayName("price")
+    class Price {
+
+        private PriceIndex priceIndex;
+
+        @BeforeEach
+        void setUpIndex() {
+            priceIndex = new PriceIndex();
+            when(logService.getPriceIndex()).thenReturn(priceIndex);
+        }
+
+        @Test
+        @DisplayName("Should show the quote for a traded material")
+        void quote() {
+            priceIndex.record(Material.DIAMOND, 25.0, System.currentTimeMillis());
+
+            command.price(player, "diamond");
+
+            verify(player).sendMessage(contains("DIAMOND 参考价格"));
+            verify(player).sendMessage(and(contains("均价"), contains("25.00")));
+            verify(player).sendMessage(and(contains("成交次数"), contains("1")));
+        }
+
+        @Test
+        @DisplayName("Should report materials without trades")
+        void noTrades() {
+            command.price(player, "DIAMOND");
+
+            verify(player).sendMessage(contains("暂无 DIAMOND"));
+        }
+
+        @Test
+        @DisplayName("Should reject unknown materials")
+        void unknownMaterial() {
+            command.price(player, "unobtainium");
+
+            verify(player).sendMessage(contains("未知的物品类型"));
+            verify(logService, never()).getPriceIndex();
         }
     }
 
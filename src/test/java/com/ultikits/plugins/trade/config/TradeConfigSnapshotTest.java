@@ -0,0 +1,113 @@
+package com.ultikits.plugins.trade.config;
+
+import com.ultikits.plugins.trade.gui.TradeLayout;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradeConfigSnapshot Tests")
+class TradeConfigSnapshotTest {
+
+    private TradeConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new TradeConfig();
+    }
+
+    private TradeConfigSnapshot snapshot() {
+        return TradeConfigSnapshot.of(config, TradeLayout.DEFAULT_TRADE, TradeLayout.DEFAULT_CONFIRM);
+    }
+
+    @Nested
+    @DisplayName("Copy")
+    class Copy {
+
+        @Test
+        @DisplayName("Should copy the config values and layouts")
+        void copiesValues() {
+            TradeConfigSnapshot settings = snapshot();
+
+            assertThat(settings.getRequestTimeout()).isEqualTo(config.getRequestTimeout());
+            assertThat(settings.getMaxDistance()).isEqualTo(config.getMaxDistance());
+            assertThat(settings.getInputTimeout()).isEqualTo(config.getInputTimeout());
+            assertThat(settings.getAmountInputMode()).isEqualTo(config.getAmountInputMode());
+            assertThat(settings.getTradeTax()).isEqualTo(config.getTradeTax());
+            assertThat(settings.getConfirmThreshold()).isEqualTo(config.getConfirmThreshold());
+            assertThat(settings.getOfferPages()).isEqualTo(config.getOfferPages());
+            assertThat(settings.getGuiTitle()).isEqualTo(config.getGuiTitle());
+            assertThat(settings.getTradeCompleteMessage()).isEqualTo(config.getTradeCompleteMessage());
+            assertThat(settings.getTradeLayout()).isSameAs(TradeLayout.DEFAULT_TRADE);
+            assertThat(settings.getConfirmLayout()).isSameAs(TradeLayout.DEFAULT_CONFIRM);
+        }
+
+        @Test
+        @DisplayName("Should not change when the config is rewritten")
+        void immutable() {
+            TradeConfigSnapshot settings = snapshot();
+
+            config.setTradeTax(0.2);
+            config.setGuiTitle("&a新标题");
+
+            assertThat(settings.getTradeTax()).isEqualTo(0.0);
+            assertThat(settings.getGuiTitle()).isNotEqualTo("&a新标题");
+        }
+
+        @Test
+        @DisplayName("Should limit the offer to one page when the layout cannot flip pages")
+        void noPageControls() {
+            config.setOfferPages(3);
+            TradeLayout legacy = TradeLayout.compile(Arrays.asList(
+                "YYYY|TTTT",
+                "MSE_|_esm",
+                "X###C####"
+            ), TradeLayout.SlotRole.CONFIRM, TradeLayout.SlotRole.CANCEL);
+
+            assertThat(snapshot().getOfferPages()).isEqualTo(3);
+            assertThat(TradeConfigSnapshot.of(config, legacy, TradeLayout.DEFAULT_CONFIRM).getOfferPages())
+                .isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Validate")
+    class Validate {
+
+        @Test
+        @DisplayName("Should accept the defaults")
+        void defaults() {
+            assertThat(snapshot().validate()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should report values outside their range")
+        void outOfRange() {
+            config.setTradeTax(1.5);
+            config.setRequestTimeout(1);
+
+            assertThat(snapshot().validate())
+                .hasSize(2)
+                .anyMatch(problem -> problem.startsWith("tradeTax = 1.5"))
+                .anyMatch(problem -> problem.startsWith("requestTimeout = 1"));
+        }
+
+        @Test
+        @DisplayName("Should report empty messages")
+        void emptyMessage() {
+            config.setTradeCompleteMessage("  ");
+
+            assertThat(snapshot().validate()).containsExactly("tradeCompleteMessage is empty");
+        }
+
+        @Test
+        @DisplayName("Should report missing layouts")
+        void missingLayouts() {
+            TradeConfigSnapshot settings = TradeConfigSnapshot.of(config, null, TradeLayout.DEFAULT_CONFIRM);
+
+            assertThat(settings.validate()).containsExactly("layouts are missing");
+        }
+    }
+}
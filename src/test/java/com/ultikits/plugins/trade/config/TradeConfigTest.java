@@ -69,6 +69,10 @@ class TradeConfigTest {
         @DisplayName("Should have correct GUI settings defaults")
         void guiSettingsDefaults() {
             assertThat(config.getGuiTitle()).isEqualTo("&6与 {PLAYER} 交易");
+            assertThat(config.getOfferPages()).isEqualTo(1);
+            assertThat(config.getInputTimeout()).isEqualTo(10);
+            assertThat(config.getAmountInputMode()).isEqualTo("CHAT");
+            assertThat(config.getPlaceholderCacheSeconds()).isEqualTo(30);
         }
 
         @Test
@@ -0,0 +1,48 @@
+package com.ultikits.plugins.trade.config;
+
+import com.ultikits.plugins.trade.gui.TradeLayout;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradeLayoutConfig Tests")
+class TradeLayoutConfigTest {
+
+    private TradeLayoutConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new TradeLayoutConfig();
+    }
+
+    @Test
+    @DisplayName("Should default to the built-in trade window layout")
+    void tradeWindowDefault() {
+        assertThat(config.getTradeWindowRows()).isEqualTo(TradeLayout.DEFAULT_TRADE_ROWS);
+    }
+
+    @Test
+    @DisplayName("Should default to the built-in confirm page layout")
+    void confirmPageDefault() {
+        assertThat(config.getConfirmPageRows()).isEqualTo(TradeLayout.DEFAULT_CONFIRM_ROWS);
+    }
+
+    @Test
+    @DisplayName("Default rows should be mutable copies")
+    void mutableCopies() {
+        config.getTradeWindowRows().set(0, "#########");
+
+        assertThat(TradeLayout.DEFAULT_TRADE_ROWS.get(0)).isEqualTo("YYYY|TTTT");
+    }
+
+    @Test
+    @DisplayName("Setters should replace rows")
+    void setters() {
+        config.setTradeWindowRows(Arrays.asList("Y|T#C#X##"));
+
+        assertThat(config.getTradeWindowRows()).containsExactly("Y|T#C#X##");
+    }
+}
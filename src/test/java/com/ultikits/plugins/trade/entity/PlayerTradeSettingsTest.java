@@ -40,6 +40,12 @@ class PlayerTradeSettingsTest {
             assertThat(settings.isTradeEnabled()).isTrue();
         }
 
+        @Test
+        @DisplayName("Should initialize reduced effects as false")
+        void initialReducedEffects() {
+            assertThat(settings.isReducedEffects()).isFalse();
+        }
+
         @Test
         @DisplayName("Should initialize statistics as zero")
         void initialStatistics() {
@@ -129,6 +135,27 @@ class PlayerTradeSettingsTest {
             assertThat(settings.isBlocked(targetUuid)).isFalse();
         }
 
+        @Test
+        @DisplayName("isBlocked should follow changes after a cached check")
+        void isBlockedAfterChange() {
+            String targetUuid = UUID.randomUUID().toString();
+            assertThat(settings.isBlocked(targetUuid)).isFalse();
+
+            settings.blockPlayer(targetUuid);
+            assertThat(settings.isBlocked(targetUuid)).isTrue();
+
+            settings.setBlockedPlayersJson("[]");
+            assertThat(settings.isBlocked(targetUuid)).isFalse();
+        }
+
+        @Test
+        @DisplayName("isBlocked should handle null JSON")
+        void isBlockedNullJson() {
+            settings.setBlockedPlayersJson(null);
+
+            assertThat(settings.isBlocked(UUID.randomUUID().toString())).isFalse();
+        }
+
         @Test
         @DisplayName("Should handle multiple blocked players")
         void multipleBlockedPlayers() {
@@ -0,0 +1,64 @@
+package com.ultikits.plugins.trade.entity;
+
+import org.junit.jupiter.api.*;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradeDailyStats Tests")
+class TradeDailyStatsTest {
+
+    private TradeDailyStats stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = new TradeDailyStats("2024-01-01");
+    }
+
+    private static TradeLogData completedLog(double money1, double money2, int exp1, int exp2,
+                                             double moneyTax, int expTax) {
+        TradeLogData log = new TradeLogData(UUID.randomUUID(), UUID.randomUUID(), "Player1",
+            UUID.randomUUID(), "Player2");
+        log.setPlayer1Money(money1);
+        log.setPlayer2Money(money2);
+        log.setPlayer1Exp(exp1);
+        log.setPlayer2Exp(exp2);
+        log.setMoneyTaxCollected(moneyTax);
+        log.setExpTaxCollected(expTax);
+        log.markCompleted();
+        return log;
+    }
+
+    @Test
+    @DisplayName("Should start empty for the given day")
+    void emptyDay() {
+        assertThat(stats.getStatDate()).isEqualTo("2024-01-01");
+        assertThat(stats.getCompletedTrades()).isZero();
+        assertThat(stats.getCancelledTrades()).isZero();
+        assertThat(stats.getMoneyVolume()).isZero();
+    }
+
+    @Test
+    @DisplayName("addCompleted should accumulate volume and tax from both sides")
+    void addCompleted() {
+        stats.addCompleted(completedLog(100.0, 20.0, 5, 7, 6.0, 1));
+        stats.addCompleted(completedLog(10.0, 0.0, 0, 3, 0.5, 0));
+
+        assertThat(stats.getCompletedTrades()).isEqualTo(2);
+        assertThat(stats.getMoneyVolume()).isEqualTo(130.0);
+        assertThat(stats.getExpVolume()).isEqualTo(15);
+        assertThat(stats.getMoneyTaxCollected()).isEqualTo(6.5);
+        assertThat(stats.getExpTaxCollected()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("addCancelled should only count the trade")
+    void addCancelled() {
+        stats.addCancelled();
+
+        assertThat(stats.getCancelledTrades()).isEqualTo(1);
+        assertThat(stats.getCompletedTrades()).isZero();
+        assertThat(stats.getMoneyVolume()).isZero();
+    }
+}
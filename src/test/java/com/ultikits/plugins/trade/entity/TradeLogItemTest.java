@@ -0,0 +1,74 @@
+package com.ultikits.plugins.trade.entity;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TradeLogItem Tests")
+class TradeLogItemTest {
+
+    private TradeLogData log;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UltiTradeTestHelper.setUp();
+        log = new TradeLogData(UUID.randomUUID(), UUID.randomUUID(), "Player1", UUID.randomUUID(), "Player2");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        UltiTradeTestHelper.tearDown();
+    }
+
+    @Test
+    @DisplayName("fromItems should merge stacks of the same material")
+    void mergeStacks() {
+        List<TradeLogItem> rows = TradeLogItem.fromItems(log, 1, Arrays.asList(
+            new ItemStack(Material.NETHERITE_INGOT, 8),
+            new ItemStack(Material.DIAMOND, 3),
+            new ItemStack(Material.NETHERITE_INGOT, 5)));
+
+        assertThat(rows).extracting(TradeLogItem::getMaterial)
+            .containsExactly("NETHERITE_INGOT", "DIAMOND");
+        assertThat(rows.get(0).getAmount()).isEqualTo(13);
+        assertThat(rows.get(0).getSide()).isEqualTo(1);
+        assertThat(rows.get(0).getTradeId()).isEqualTo(log.getTradeId());
+        assertThat(rows.get(0).getTradeTime()).isEqualTo(log.getTradeTime());
+        assertThat(rows.get(0).isEnchanted()).isFalse();
+    }
+
+    @Test
+    @DisplayName("fromItems should flag enchanted stacks")
+    void enchanted() {
+        ItemStack sword = mock(ItemStack.class);
+        when(sword.getType()).thenReturn(Material.DIAMOND_SWORD);
+        when(sword.getAmount()).thenReturn(1);
+        when(sword.getEnchantments()).thenReturn(Collections.singletonMap(mock(Enchantment.class), 5));
+
+        List<TradeLogItem> rows = TradeLogItem.fromItems(log, 2, Collections.singletonList(sword));
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).isEnchanted()).isTrue();
+        assertThat(rows.get(0).getSide()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("fromItems should skip null and air stacks")
+    void skipEmpty() {
+        List<TradeLogItem> rows = TradeLogItem.fromItems(log, 1,
+            Arrays.asList(null, new ItemStack(Material.AIR)));
+
+        assertThat(rows).isEmpty();
+    }
+}
@@ -1,10 +1,16 @@
 package com.ultikits.plugins.trade.entity;
 
+import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
+import com.ultikits.plugins.trade.gui.TradeLayout;
+
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.junit.jupiter.api.*;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 import java.util.UUID;
 
@@ -67,6 +73,16 @@ class TradeSessionTest {
             assertThat(session.getState()).isEqualTo(TradeSession.TradeState.TRADING);
         }
 
+        @Test
+        @DisplayName("Should follow the current settings unless given a snapshot")
+        void settings() {
+            TradeConfigSnapshot settings = TradeConfigSnapshot.of(new TradeConfig(),
+                TradeLayout.DEFAULT_TRADE, TradeLayout.DEFAULT_CONFIRM);
+
+            assertThat(session.getSettings()).isNull();
+            assertThat(new TradeSession(player1, player2, settings).getSettings()).isSameAs(settings);
+        }
+
         @Test
         @DisplayName("Should initialize confirmation as false")
         void initialConfirmation() {
@@ -194,6 +210,64 @@ class TradeSessionTest {
         }
     }
 
+    @Nested
+    @DisplayName("Batch Offering")
+    class BatchOffering {
+
+        @Test
+        @DisplayName("offerItems should fill the lowest free indices")
+        void fillFreeIndices() {
+            ItemStack existing = new ItemStack(Material.DIAMOND, 1);
+            session.setItem(uuid1, 1, existing);
+
+            int placed = session.offerItems(uuid1, Arrays.asList(
+                new ItemStack(Material.STONE, 64),
+                new ItemStack(Material.STONE, 64),
+                new ItemStack(Material.STONE, 32)), 10);
+
+            Map<Integer, ItemStack> items = session.getPlayerItems(uuid1);
+            assertThat(placed).isEqualTo(3);
+            assertThat(items).containsOnlyKeys(0, 1, 2, 3);
+            assertThat(items.get(1)).isSameAs(existing);
+            assertThat(items.get(3).getAmount()).isEqualTo(32);
+        }
+
+        @Test
+        @DisplayName("offerItems should stop at capacity")
+        void stopAtCapacity() {
+            int placed = session.offerItems(uuid2, Arrays.asList(
+                new ItemStack(Material.STONE), new ItemStack(Material.DIRT), new ItemStack(Material.SAND)), 2);
+
+            assertThat(placed).isEqualTo(2);
+            assertThat(session.getPlayerItems(uuid2)).containsOnlyKeys(0, 1);
+            assertThat(session.getPlayerItems(uuid1)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("offerItems should reset confirmation when placing")
+        void resetConfirmation() {
+            session.setConfirmed(uuid1, true);
+            session.setConfirmed(uuid2, true);
+
+            session.offerItems(uuid1, Collections.singletonList(new ItemStack(Material.STONE)), 4);
+
+            assertThat(session.isConfirmed(uuid1)).isFalse();
+            assertThat(session.isConfirmed(uuid2)).isFalse();
+        }
+
+        @Test
+        @DisplayName("offerItems should keep confirmation when nothing fits")
+        void keepConfirmationWhenFull() {
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND));
+            session.setConfirmed(uuid1, true);
+
+            int placed = session.offerItems(uuid1, Collections.singletonList(new ItemStack(Material.STONE)), 1);
+
+            assertThat(placed).isZero();
+            assertThat(session.isConfirmed(uuid1)).isTrue();
+        }
+    }
+
     @Nested
     @DisplayName("Money Management")
     class MoneyManagement {
@@ -370,4 +444,32 @@ class TradeSessionTest {
                     );
         }
     }
+
+    @Nested
+    @DisplayName("Journal")
+    class JournalHooks {
+
+        @Test
+        @DisplayName("Should report every change to its journal")
+        void journal() {
+            TradeSession.Journal journal = mock(TradeSession.Journal.class);
+            session.setJournal(journal);
+            ItemStack diamond = new ItemStack(Material.DIAMOND, 10);
+            ItemStack gold = new ItemStack(Material.GOLD_INGOT, 5);
+
+            session.setItem(uuid1, 0, diamond);
+            session.setItem(uuid1, 0, null);
+            session.offerItems(uuid2, Arrays.asList(gold), 16);
+            session.setMoney(uuid1, 100.0);
+            session.setExp(uuid2, 20);
+            session.setState(TradeSession.TradeState.CANCELLED);
+
+            verify(journal).item(session, uuid1, 0, diamond);
+            verify(journal).item(session, uuid1, 0, null);
+            verify(journal).item(session, uuid2, 0, gold);
+            verify(journal).money(session, uuid1, 100.0);
+            verify(journal).exp(session, uuid2, 20);
+            verify(journal).state(session, TradeSession.TradeState.CANCELLED);
+        }
+    }
 }
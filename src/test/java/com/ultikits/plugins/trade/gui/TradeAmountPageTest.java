@@ -0,0 +1,231 @@
+package com.ultikits.plugins.trade.gui;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.service.TradeInputService.InputType;
+import com.ultikits.plugins.trade.service.TradeService;
+
+import net.milkbowl.vault.economy.Economy;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.Inventory;
+import org.junit.jupiter.api.*;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TradeAmountPage Tests")
+class TradeAmountPageTest {
+
+    private TradeService tradeService;
+    private TradeConfig config;
+    private Economy economy;
+    private TradeSession session;
+    private Player player1;
+    private Player player2;
+    private UUID uuid1;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UltiTradeTestHelper.setUp();
+
+        tradeService = mock(TradeService.class);
+        config = UltiTradeTestHelper.createDefaultConfig();
+        economy = mock(Economy.class);
+        when(tradeService.getConfig()).thenReturn(config);
+        when(tradeService.hasEconomy(any(TradeSession.class))).thenReturn(true);
+        when(tradeService.getEconomy()).thenReturn(economy);
+
+        uuid1 = UUID.randomUUID();
+        player1 = UltiTradeTestHelper.createMockPlayer("Player1", uuid1);
+        player2 = UltiTradeTestHelper.createMockPlayer("Player2", UUID.randomUUID());
+        when(economy.getBalance(player1)).thenReturn(1500.0);
+        when(tradeService.getTotalExperience(player1)).thenReturn(250);
+
+        session = new TradeSession(player1, player2);
+        when(tradeService.getSession(uuid1)).thenReturn(session);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        UltiTradeTestHelper.tearDown();
+    }
+
+    private void click(TradeAmountPage page, int slot) {
+        InventoryClickEvent event = mock(InventoryClickEvent.class);
+        when(event.getRawSlot()).thenReturn(slot);
+        page.handleClick(event);
+        verify(event).setCancelled(true);
+    }
+
+    @Nested
+    @DisplayName("Constructor")
+    class Constructor {
+
+        @Test
+        @DisplayName("Should start from the current offer")
+        void startFromOffer() {
+            session.setMoney(uuid1, 42.5);
+
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.MONEY);
+
+            assertThat(page.getAmount()).isEqualTo(42.5);
+            assertThat(page.getType()).isEqualTo(InputType.MONEY);
+            assertThat(page.getInventory()).isNotNull();
+        }
+
+        @Test
+        @DisplayName("Should clamp the current offer to the balance")
+        void clampToBalance() {
+            session.setMoney(uuid1, 5000);
+
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.MONEY);
+
+            assertThat(page.getAmount()).isEqualTo(1500.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Keypad Buttons")
+    class KeypadButtons {
+
+        @Test
+        @DisplayName("Step buttons should adjust the amount within bounds")
+        void stepButtons() {
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.MONEY);
+
+            click(page, TradeAmountPage.INCREASE_SLOTS[1]); // +100
+            click(page, TradeAmountPage.INCREASE_SLOTS[2]); // +10
+            click(page, TradeAmountPage.DECREASE_SLOTS[3]); // -1
+            assertThat(page.getAmount()).isEqualTo(109.0);
+
+            click(page, TradeAmountPage.INCREASE_SLOTS[0]); // +1000
+            click(page, TradeAmountPage.INCREASE_SLOTS[0]); // +1000, capped
+            assertThat(page.getAmount()).isEqualTo(1500.0);
+
+            click(page, TradeAmountPage.DECREASE_SLOTS[0]);
+            click(page, TradeAmountPage.DECREASE_SLOTS[0]);
+            assertThat(page.getAmount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Max and clear buttons should jump to the bounds")
+        void maxAndClear() {
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.EXPERIENCE);
+
+            click(page, TradeAmountPage.MAX_SLOT);
+            assertThat(page.getAmount()).isEqualTo(250.0);
+
+            click(page, TradeAmountPage.CLEAR_SLOT);
+            assertThat(page.getAmount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Adjusting should only redraw the amount display")
+        void redrawDisplayOnly() {
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.MONEY);
+            Inventory inventory = page.getInventory();
+            clearInvocations(inventory);
+
+            click(page, TradeAmountPage.INCREASE_SLOTS[3]);
+
+            verify(inventory).setItem(eq(TradeAmountPage.DISPLAY_SLOT), any());
+            verifyNoMoreInteractions(inventory);
+        }
+    }
+
+    @Nested
+    @DisplayName("Confirm and Back")
+    class ConfirmAndBack {
+
+        @Test
+        @DisplayName("Confirm should write money into the session and return")
+        void confirmMoney() {
+            session.setConfirmed(uuid1, true);
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.MONEY);
+            click(page, TradeAmountPage.INCREASE_SLOTS[1]);
+
+            click(page, TradeAmountPage.CONFIRM_SLOT);
+
+            assertThat(session.getPlayerMoney(uuid1)).isEqualTo(100.0);
+            assertThat(session.isConfirmed(uuid1)).isFalse();
+            verify(Bukkit.getScheduler()).runTask(any(), any(Runnable.class));
+        }
+
+        @Test
+        @DisplayName("Confirm should write experience into the session")
+        void confirmExp() {
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.EXPERIENCE);
+            click(page, TradeAmountPage.INCREASE_SLOTS[1]);
+
+            click(page, TradeAmountPage.CONFIRM_SLOT);
+
+            assertThat(session.getPlayerExp(uuid1)).isEqualTo(100);
+        }
+
+        @Test
+        @DisplayName("Confirm should re-check the balance")
+        void recheckBalance() {
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.MONEY);
+            click(page, TradeAmountPage.MAX_SLOT);
+            when(economy.getBalance(player1)).thenReturn(10.0);
+
+            click(page, TradeAmountPage.CONFIRM_SLOT);
+
+            assertThat(session.getPlayerMoney(uuid1)).isZero();
+            verify(player1).sendMessage(contains("余额不足"));
+        }
+
+        @Test
+        @DisplayName("Confirm should not touch a session that already ended")
+        void sessionEnded() {
+            when(tradeService.getSession(uuid1)).thenReturn(null);
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.MONEY);
+            click(page, TradeAmountPage.INCREASE_SLOTS[1]);
+
+            click(page, TradeAmountPage.CONFIRM_SLOT);
+
+            assertThat(session.getPlayerMoney(uuid1)).isZero();
+            verify(player1).sendMessage(contains("交易已结束"));
+        }
+
+        @Test
+        @DisplayName("Back should return without changes")
+        void back() {
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.MONEY);
+            click(page, TradeAmountPage.INCREASE_SLOTS[1]);
+
+            click(page, TradeAmountPage.BACK_SLOT);
+
+            assertThat(session.getPlayerMoney(uuid1)).isZero();
+            verify(Bukkit.getScheduler()).runTask(any(), any(Runnable.class));
+        }
+
+        @Test
+        @DisplayName("Closing after returning should not schedule a second reopen")
+        void closeAfterReturn() {
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.MONEY);
+
+            click(page, TradeAmountPage.BACK_SLOT);
+            page.handleClose();
+
+            verify(Bukkit.getScheduler(), times(1)).runTask(any(), any(Runnable.class));
+        }
+
+        @Test
+        @DisplayName("Closing without confirming should return to the trade")
+        void closeReturns() {
+            TradeAmountPage page = new TradeAmountPage(tradeService, session, player1, InputType.MONEY);
+
+            page.handleClose();
+
+            verify(Bukkit.getScheduler()).runTask(any(), any(Runnable.class));
+            assertThat(session.getPlayerMoney(uuid1)).isZero();
+        }
+    }
+}
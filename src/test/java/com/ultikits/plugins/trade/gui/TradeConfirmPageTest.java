@@ -2,6 +2,7 @@ package com.ultikits.plugins.trade.gui;
 
 import com.ultikits.plugins.trade.UltiTradeTestHelper;
 import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
 import com.ultikits.plugins.trade.entity.TradeSession;
 import com.ultikits.plugins.trade.service.TradeService;
 
@@ -37,6 +38,8 @@ class TradeConfirmPageTest {
         tradeService = mock(TradeService.class);
         config = UltiTradeTestHelper.createDefaultConfig();
         when(tradeService.getConfig()).thenReturn(config);
+        when(tradeService.getSettings(any(TradeSession.class))).thenAnswer(inv ->
+            TradeConfigSnapshot.of(config, TradeLayout.DEFAULT_TRADE, TradeLayout.DEFAULT_CONFIRM));
 
         uuid1 = UUID.randomUUID();
         uuid2 = UUID.randomUUID();
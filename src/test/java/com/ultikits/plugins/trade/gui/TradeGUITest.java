@@ -2,6 +2,7 @@ package com.ultikits.plugins.trade.gui;
 
 import com.ultikits.plugins.trade.UltiTradeTestHelper;
 import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
 import com.ultikits.plugins.trade.entity.TradeSession;
 import com.ultikits.plugins.trade.service.TradeService;
 
@@ -38,7 +39,9 @@ class TradeGUITest {
         tradeService = mock(TradeService.class);
         config = UltiTradeTestHelper.createDefaultConfig();
         when(tradeService.getConfig()).thenReturn(config);
-        when(tradeService.hasEconomy()).thenReturn(true);
+        when(tradeService.hasEconomy(any(TradeSession.class))).thenReturn(true);
+        when(tradeService.getSettings(any(TradeSession.class))).thenAnswer(inv ->
+            TradeConfigSnapshot.of(config, TradeLayout.DEFAULT_TRADE, TradeLayout.DEFAULT_CONFIRM));
 
         uuid1 = UUID.randomUUID();
         uuid2 = UUID.randomUUID();
@@ -200,7 +203,7 @@ class TradeGUITest {
 
             gui.playItemSound();
 
-            verify(tradeService).playSound(player1, Sound.BLOCK_NOTE_BLOCK_PLING);
+            verify(tradeService).playSound(session, player1, Sound.BLOCK_NOTE_BLOCK_PLING);
         }
     }
 
@@ -247,7 +250,7 @@ class TradeGUITest {
         @Test
         @DisplayName("update should handle economy disabled")
         void updateEconomyDisabled() {
-            when(tradeService.hasEconomy()).thenReturn(false);
+            when(tradeService.hasEconomy(any(TradeSession.class))).thenReturn(false);
 
             gui.update();
         }
@@ -256,6 +259,7 @@ class TradeGUITest {
         @DisplayName("update should handle exp trade disabled")
         void updateExpDisabled() {
             when(config.isEnableExpTrade()).thenReturn(false);
+            gui = new TradeGUI(tradeService, session, player1);
 
             gui.update();
         }
@@ -284,11 +288,105 @@ class TradeGUITest {
             when(config.getExpTaxRate()).thenReturn(0.05);
             session.setMoney(uuid1, 100.0);
             session.setExp(uuid1, 50);
+            gui = new TradeGUI(tradeService, session, player1);
 
             gui.update();
         }
     }
 
+    @Nested
+    @DisplayName("Offer Pages")
+    class OfferPages {
+
+        @Test
+        @DisplayName("Single page should keep page at zero")
+        void singlePage() {
+            gui.setPage(3);
+
+            assertThat(gui.getPageCount()).isEqualTo(1);
+            assertThat(gui.getPage()).isZero();
+        }
+
+        @Test
+        @DisplayName("getOfferCapacity should span all pages")
+        void offerCapacity() {
+            when(config.getOfferPages()).thenReturn(3);
+            TradeGUI paged = new TradeGUI(tradeService, session, player1);
+
+            assertThat(gui.getOfferCapacity()).isEqualTo(16);
+            assertThat(paged.getOfferCapacity()).isEqualTo(48);
+        }
+
+        @Test
+        @DisplayName("A legacy layout without page controls should hold one page")
+        void legacyLayout() {
+            when(config.getOfferPages()).thenReturn(3);
+            TradeLayout legacy = TradeLayout.compile(java.util.Arrays.asList(
+                "YYYY|TTTT",
+                "YYYY|TTTT",
+                "YYYY|TTTT",
+                "YYYY|TTTT",
+                "MSE_|_esm",
+                "X###C####"
+            ), TradeLayout.SlotRole.CONFIRM, TradeLayout.SlotRole.CANCEL);
+            when(tradeService.getSettings(any(TradeSession.class))).thenAnswer(inv ->
+                TradeConfigSnapshot.of(config, legacy, TradeLayout.DEFAULT_CONFIRM));
+            TradeGUI paged = new TradeGUI(tradeService, session, player1);
+
+            paged.setPage(2);
+
+            assertThat(paged.getPageCount()).isEqualTo(1);
+            assertThat(paged.getPage()).isZero();
+            assertThat(paged.getOfferCapacity()).isEqualTo(16);
+        }
+
+        @Test
+        @DisplayName("getItemIndex should offset by the current page")
+        void itemIndexOffset() {
+            when(config.getOfferPages()).thenReturn(3);
+            TradeGUI paged = new TradeGUI(tradeService, session, player1);
+
+            paged.setPage(2);
+
+            assertThat(paged.getPage()).isEqualTo(2);
+            assertThat(paged.getItemIndex(TradeGUI.YOUR_SLOTS[0])).isEqualTo(32);
+            assertThat(paged.getItemIndex(TradeGUI.YOUR_SLOTS[15])).isEqualTo(47);
+            assertThat(paged.getItemIndex(TradeGUI.THEIR_SLOTS[0])).isEqualTo(-1);
+        }
+
+        @Test
+        @DisplayName("setPage should clamp to the valid range")
+        void clampPage() {
+            when(config.getOfferPages()).thenReturn(3);
+            TradeGUI paged = new TradeGUI(tradeService, session, player1);
+
+            paged.setPage(10);
+            assertThat(paged.getPage()).isEqualTo(2);
+
+            paged.setPage(-1);
+            assertThat(paged.getPage()).isZero();
+        }
+
+        @Test
+        @DisplayName("update should only render the visible page")
+        void renderVisiblePage() {
+            when(config.getOfferPages()).thenReturn(2);
+            TradeGUI paged = new TradeGUI(tradeService, session, player1);
+            ItemStack firstPage = new ItemStack(Material.DIAMOND, 1);
+            ItemStack secondPage = new ItemStack(Material.EMERALD, 1);
+            session.setItem(uuid1, 0, firstPage);
+            session.setItem(uuid1, 16, secondPage);
+            Inventory inventory = paged.getInventory();
+
+            paged.update();
+            verify(inventory).setItem(TradeGUI.YOUR_SLOTS[0], firstPage);
+            verify(inventory, never()).setItem(anyInt(), eq(secondPage));
+
+            paged.setPage(1);
+            verify(inventory).setItem(TradeGUI.YOUR_SLOTS[0], secondPage);
+        }
+    }
+
     @Nested
     @DisplayName("Static Constants")
     class StaticConstants {
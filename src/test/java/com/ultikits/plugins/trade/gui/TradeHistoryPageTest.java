@@ -0,0 +1,172 @@
+package com.ultikits.plugins.trade.gui;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.entity.SerializedItemStack;
+import com.ultikits.plugins.trade.entity.TradeLogData;
+import com.ultikits.plugins.trade.service.TradeLogFilter;
+import com.ultikits.plugins.trade.service.TradeLogPage;
+import com.ultikits.plugins.trade.service.TradeLogService;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TradeHistoryPage Tests")
+class TradeHistoryPageTest {
+
+    private TradeLogService logService;
+    private Player viewer;
+    private UUID viewerUuid;
+    private BukkitScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UltiTradeTestHelper.setUp();
+
+        logService = mock(TradeLogService.class);
+        viewerUuid = UUID.randomUUID();
+        viewer = UltiTradeTestHelper.createMockPlayer("Viewer", viewerUuid);
+
+        scheduler = Bukkit.getScheduler();
+        doAnswer(inv -> {
+            inv.getArgument(1, Runnable.class).run();
+            return null;
+        }).when(scheduler).runTaskAsynchronously(any(), any(Runnable.class));
+        doAnswer(inv -> {
+            inv.getArgument(1, Runnable.class).run();
+            return null;
+        }).when(scheduler).runTask(any(), any(Runnable.class));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        UltiTradeTestHelper.tearDown();
+    }
+
+    private TradeLogData log(boolean viewerIsPlayer1) {
+        UUID other = UUID.randomUUID();
+        TradeLogData log = viewerIsPlayer1
+            ? new TradeLogData(UUID.randomUUID(), viewerUuid, "Viewer", other, "Other")
+            : new TradeLogData(UUID.randomUUID(), other, "Other", viewerUuid, "Viewer");
+        log.markCompleted();
+        return log;
+    }
+
+    private static String itemsJson(String type, int amount) {
+        return SerializedItemStack.listToJson(Collections.singletonList(
+            SerializedItemStack.builder().type(type).amount(amount).build()));
+    }
+
+    private static TradeLogPage page(TradeLogPage.Cursor next, TradeLogData... logs) {
+        return new TradeLogPage(new ArrayList<>(Arrays.asList(logs)), next, logs.length);
+    }
+
+    private static InventoryClickEvent click(int slot) {
+        InventoryClickEvent event = mock(InventoryClickEvent.class);
+        when(event.getRawSlot()).thenReturn(slot);
+        return event;
+    }
+
+    @Test
+    @DisplayName("Should query only the viewer's trades, one page at a time")
+    void queriesViewer() {
+        when(logService.queryLogs(any(), any(), anyInt())).thenReturn(page(null));
+
+        new TradeHistoryPage(logService, viewer).open();
+
+        ArgumentCaptor<TradeLogFilter> filter = ArgumentCaptor.forClass(TradeLogFilter.class);
+        verify(logService).queryLogs(filter.capture(), isNull(), eq(TradeHistoryPage.PAGE_SIZE));
+        assertThat(filter.getValue().getPlayer()).isEqualTo(viewerUuid.toString());
+        verify(viewer).openInventory(any(Inventory.class));
+        verify(scheduler).runTaskAsynchronously(any(), any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("Should draw item summaries from the viewer's side")
+    void entryLore() {
+        TradeLogData log = log(false);
+        log.setPlayer1ItemsJson(itemsJson("DIAMOND", 3));
+        log.setPlayer2ItemsJson(itemsJson("EMERALD", 7));
+        log.setPlayer2Money(12.5);
+        when(logService.queryLogs(any(), any(), anyInt())).thenReturn(page(null, log));
+
+        TradeHistoryPage page = new TradeHistoryPage(logService, viewer);
+        page.open();
+
+        verify(page.getInventory()).setItem(eq(0), any());
+        ItemMeta meta = Bukkit.getItemFactory().getItemMeta(Material.PAPER);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> lore = ArgumentCaptor.forClass(List.class);
+        verify(meta, atLeastOnce()).setLore(lore.capture());
+        List<String> entry = lore.getAllValues().stream()
+            .filter(lines -> lines.stream().anyMatch(line -> line.contains("你给出")))
+            .findFirst().orElseThrow(AssertionError::new);
+        String joined = String.join("\n", entry);
+        assertThat(joined.indexOf("EMERALD x7")).isLessThan(joined.indexOf("你收到"));
+        assertThat(joined.indexOf("DIAMOND x3")).isGreaterThan(joined.indexOf("你收到"));
+        assertThat(joined).contains("12.50").contains("已完成");
+    }
+
+    @Test
+    @DisplayName("Next and previous should follow the keyset cursors")
+    void paging() {
+        TradeLogPage.Cursor second = new TradeLogPage.Cursor(500L, "log-2");
+        when(logService.queryLogs(any(), isNull(), anyInt())).thenReturn(page(second, log(true)));
+        when(logService.queryLogs(any(), eq(second), anyInt())).thenReturn(page(null, log(true)));
+
+        TradeHistoryPage page = new TradeHistoryPage(logService, viewer);
+        page.open();
+        page.handleClick(click(TradeHistoryPage.PREV_SLOT));
+        assertThat(page.getPageIndex()).isZero();
+
+        page.handleClick(click(TradeHistoryPage.NEXT_SLOT));
+        assertThat(page.getPageIndex()).isEqualTo(1);
+        verify(logService).queryLogs(any(), eq(second), anyInt());
+
+        page.handleClick(click(TradeHistoryPage.NEXT_SLOT));
+        assertThat(page.getPageIndex()).isEqualTo(1);
+
+        page.handleClick(click(TradeHistoryPage.PREV_SLOT));
+        assertThat(page.getPageIndex()).isZero();
+        verify(logService, times(2)).queryLogs(any(), isNull(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Clicks should be ignored while a page is loading")
+    void ignoreWhileLoading() {
+        doReturn(null).when(scheduler).runTaskAsynchronously(any(), any(Runnable.class));
+        TradeHistoryPage page = new TradeHistoryPage(logService, viewer);
+        page.open();
+
+        InventoryClickEvent event = click(TradeHistoryPage.NEXT_SLOT);
+        page.handleClick(event);
+
+        verify(event).setCancelled(true);
+        verify(scheduler, times(1)).runTaskAsynchronously(any(), any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("Unreadable item JSON should not break the page")
+    void brokenJson() {
+        TradeLogData log = log(true);
+        log.setPlayer1ItemsJson("{not json");
+        when(logService.queryLogs(any(), any(), anyInt())).thenReturn(page(null, log));
+
+        TradeHistoryPage page = new TradeHistoryPage(logService, viewer);
+
+        assertThatCode(page::open).doesNotThrowAnyException();
+        verify(page.getInventory()).setItem(eq(0), any());
+    }
+}
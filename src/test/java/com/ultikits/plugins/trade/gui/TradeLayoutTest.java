@@ -0,0 +1,187 @@
+package com.ultikits.plugins.trade.gui;
+
+import com.ultikits.plugins.trade.gui.TradeLayout.SlotRole;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradeLayout Tests")
+class TradeLayoutTest {
+
+    @Nested
+    @DisplayName("Default Trade Layout")
+    class DefaultTradeLayout {
+
+        private final TradeLayout layout = TradeLayout.DEFAULT_TRADE;
+
+        @Test
+        @DisplayName("Should be a six row inventory")
+        void size() {
+            assertThat(layout.getSize()).isEqualTo(54);
+        }
+
+        @Test
+        @DisplayName("Should map item grids in reading order")
+        void itemGrids() {
+            assertThat(layout.getSlots(SlotRole.YOUR_ITEM))
+                .containsExactly(0, 1, 2, 3, 9, 10, 11, 12, 18, 19, 20, 21, 27, 28, 29, 30);
+            assertThat(layout.getSlots(SlotRole.THEIR_ITEM))
+                .containsExactly(5, 6, 7, 8, 14, 15, 16, 17, 23, 24, 25, 26, 32, 33, 34, 35);
+            assertThat(layout.getItemCapacity()).isEqualTo(16);
+        }
+
+        @Test
+        @DisplayName("Should map single-slot roles")
+        void singleSlots() {
+            assertThat(layout.getSlot(SlotRole.CONFIRM)).isEqualTo(49);
+            assertThat(layout.getSlot(SlotRole.CANCEL)).isEqualTo(45);
+            assertThat(layout.getSlot(SlotRole.YOUR_MONEY)).isEqualTo(36);
+            assertThat(layout.getSlot(SlotRole.THEIR_MONEY)).isEqualTo(44);
+            assertThat(layout.getSlot(SlotRole.YOUR_EXP)).isEqualTo(38);
+            assertThat(layout.getSlot(SlotRole.THEIR_EXP)).isEqualTo(42);
+            assertThat(layout.getSlot(SlotRole.YOUR_STATUS)).isEqualTo(37);
+            assertThat(layout.getSlot(SlotRole.THEIR_STATUS)).isEqualTo(43);
+            assertThat(layout.getSlot(SlotRole.INFO)).isEqualTo(-1);
+            assertThat(layout.getSlot(SlotRole.PREV_PAGE)).isEqualTo(46);
+            assertThat(layout.getSlot(SlotRole.PAGE_INFO)).isEqualTo(47);
+            assertThat(layout.getSlot(SlotRole.NEXT_PAGE)).isEqualTo(48);
+        }
+
+        @Test
+        @DisplayName("getItemIndex should only resolve your item slots")
+        void itemIndex() {
+            assertThat(layout.getItemIndex(0)).isEqualTo(0);
+            assertThat(layout.getItemIndex(30)).isEqualTo(15);
+            assertThat(layout.getItemIndex(5)).isEqualTo(-1);
+            assertThat(layout.getItemIndex(49)).isEqualTo(-1);
+        }
+
+        @Test
+        @DisplayName("getRole should return EMPTY outside the layout")
+        void outside() {
+            assertThat(layout.getRole(-999)).isEqualTo(SlotRole.EMPTY);
+            assertThat(layout.getRole(54)).isEqualTo(SlotRole.EMPTY);
+            assertThat(layout.getIndex(54)).isEqualTo(-1);
+        }
+
+        @Test
+        @DisplayName("getSlots should return a defensive copy")
+        void defensiveCopy() {
+            int[] slots = layout.getSlots(SlotRole.YOUR_ITEM);
+            slots[0] = 99;
+
+            assertThat(layout.getSlot(SlotRole.YOUR_ITEM)).isEqualTo(0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Default Confirm Layout")
+    class DefaultConfirmLayout {
+
+        @Test
+        @DisplayName("Should match the confirmation page positions")
+        void positions() {
+            TradeLayout layout = TradeLayout.DEFAULT_CONFIRM;
+
+            assertThat(layout.getSize()).isEqualTo(45);
+            assertThat(layout.getSlot(SlotRole.INFO)).isEqualTo(13);
+            assertThat(layout.getSlots(SlotRole.YOUR_ITEM)).containsExactly(10, 11, 12);
+            assertThat(layout.getSlots(SlotRole.THEIR_ITEM)).containsExactly(14, 15, 16);
+            assertThat(layout.getSlot(SlotRole.CONFIRM)).isEqualTo(38);
+            assertThat(layout.getSlot(SlotRole.CANCEL)).isEqualTo(42);
+        }
+    }
+
+    @Nested
+    @DisplayName("Compilation")
+    class Compilation {
+
+        @Test
+        @DisplayName("Should compile a smaller custom layout")
+        void customLayout() {
+            TradeLayout layout = TradeLayout.compile(Arrays.asList(
+                "YYY|||TTT",
+                "MES#C#sem",
+                "X________"
+            ), SlotRole.CONFIRM, SlotRole.CANCEL);
+
+            assertThat(layout.getSize()).isEqualTo(27);
+            assertThat(layout.getItemCapacity()).isEqualTo(3);
+            assertThat(layout.getRole(13)).isEqualTo(SlotRole.CONFIRM);
+            assertThat(layout.getRole(18)).isEqualTo(SlotRole.CANCEL);
+            assertThat(layout.getIndex(8)).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should reject empty layouts")
+        void rejectEmpty() {
+            assertThatThrownBy(() -> TradeLayout.compile(Collections.emptyList()))
+                .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> TradeLayout.compile(null))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject more than six rows")
+        void rejectTooManyRows() {
+            assertThatThrownBy(() -> TradeLayout.compile(Collections.nCopies(7, "#########")))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject rows of the wrong width")
+        void rejectWrongWidth() {
+            assertThatThrownBy(() -> TradeLayout.compile(Collections.singletonList("YT")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("row 1");
+        }
+
+        @Test
+        @DisplayName("Should reject unknown symbols")
+        void rejectUnknownSymbol() {
+            assertThatThrownBy(() -> TradeLayout.compile(Collections.singletonList("####?####")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("?");
+        }
+
+        @Test
+        @DisplayName("Should reject duplicated single-slot roles")
+        void rejectDuplicateButton() {
+            assertThatThrownBy(() -> TradeLayout.compile(Collections.singletonList("CC#######")))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject unbalanced item grids")
+        void rejectUnbalancedGrids() {
+            assertThatThrownBy(() -> TradeLayout.compile(Collections.singletonList("YY|T#####")))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject missing required roles")
+        void rejectMissingRequired() {
+            assertThatThrownBy(() -> TradeLayout.compile(
+                Collections.singletonList("Y|T###C##"), SlotRole.CONFIRM, SlotRole.CANCEL))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("X");
+        }
+
+        @Test
+        @DisplayName("hasPageControls should need both page buttons")
+        void pageControls() {
+            TradeLayout legacy = TradeLayout.compile(Collections.singletonList("Y|TX###C#"),
+                SlotRole.CONFIRM, SlotRole.CANCEL);
+            TradeLayout nextOnly = TradeLayout.compile(Collections.singletonList("Y|TX#>C##"),
+                SlotRole.CONFIRM, SlotRole.CANCEL);
+
+            assertThat(TradeLayout.DEFAULT_TRADE.hasPageControls()).isTrue();
+            assertThat(legacy.hasPageControls()).isFalse();
+            assertThat(nextOnly.hasPageControls()).isFalse();
+        }
+    }
+}
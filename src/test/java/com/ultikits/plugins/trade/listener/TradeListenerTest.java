@@ -2,26 +2,40 @@ package com.ultikits.plugins.trade.listener;
 
 import com.ultikits.plugins.trade.UltiTradeTestHelper;
 import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
 import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.gui.TradeAmountPage;
 import com.ultikits.plugins.trade.gui.TradeConfirmPage;
 import com.ultikits.plugins.trade.gui.TradeGUI;
+import com.ultikits.plugins.trade.gui.TradeHistoryPage;
+import com.ultikits.plugins.trade.gui.TradeLayout;
+import com.ultikits.plugins.trade.service.TradeInputService;
+import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.plugins.trade.service.TradeMailbox;
+import com.ultikits.plugins.trade.service.TradeMetrics;
 import com.ultikits.plugins.trade.service.TradeService;
 
+import org.bukkit.Material;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 import org.junit.jupiter.api.*;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.*;
@@ -34,6 +48,7 @@ class TradeListenerTest {
     private TradeListener listener;
     private TradeService tradeService;
     private TradeConfig config;
+    private TradeInputService inputService;
     private Player player1;
     private Player player2;
     private UUID uuid1;
@@ -45,10 +60,14 @@ class TradeListenerTest {
 
         tradeService = mock(TradeService.class);
         config = UltiTradeTestHelper.createDefaultConfig();
+        inputService = mock(TradeInputService.class);
+        lenient().when(tradeService.getSettings(any(TradeSession.class))).thenAnswer(inv ->
+            TradeConfigSnapshot.of(config, TradeLayout.DEFAULT_TRADE, TradeLayout.DEFAULT_CONFIRM));
 
         listener = new TradeListener();
         UltiTradeTestHelper.setField(listener, "tradeService", tradeService);
         UltiTradeTestHelper.setField(listener, "config", config);
+        UltiTradeTestHelper.setField(listener, "inputService", inputService);
 
         uuid1 = UUID.randomUUID();
         uuid2 = UUID.randomUUID();
@@ -61,6 +80,15 @@ class TradeListenerTest {
         UltiTradeTestHelper.tearDown();
     }
 
+    /**
+     * Create a TradeGUI mock backed by the default layout.
+     */
+    private TradeGUI mockTradeGUI() {
+        TradeGUI gui = mock(TradeGUI.class);
+        lenient().when(gui.getLayout()).thenReturn(TradeLayout.DEFAULT_TRADE);
+        return gui;
+    }
+
     @Nested
     @DisplayName("Shift+Right-Click Trading")
     class ShiftRightClickTrading {
@@ -176,6 +204,27 @@ class TradeListenerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Player Join Handling")
+    class PlayerJoinHandling {
+
+        @Test
+        @DisplayName("Should deliver items recovered from interrupted trades on join")
+        void deliverOnJoin() {
+            listener.onPlayerJoin(new PlayerJoinEvent(player1, "Join message"));
+
+            verify(tradeService).deliverRecovered(player1);
+        }
+
+        @Test
+        @DisplayName("Should hand over waiting mail on join")
+        void claimOnJoin() {
+            listener.onPlayerJoin(new PlayerJoinEvent(player1, "Join message"));
+
+            verify(tradeService).claimMail(player1);
+        }
+    }
+
     @Nested
     @DisplayName("Player Quit Handling")
     class PlayerQuitHandling {
@@ -205,22 +254,14 @@ class TradeListenerTest {
         }
 
         @Test
-        @DisplayName("Should remove from waiting for input on quit")
-        void removeFromWaitingOnQuit() throws Exception {
-            Map<UUID, ?> waitingForInput = UltiTradeTestHelper.getField(listener, "waitingForInput");
-            // Add player to waiting list - we need to use the enum via reflection
-            Class<?> inputTypeClass = Class.forName("com.ultikits.plugins.trade.listener.TradeListener$InputType");
-            Object moneyType = inputTypeClass.getEnumConstants()[0]; // MONEY
-            @SuppressWarnings("unchecked")
-            Map<UUID, Object> typedMap = (Map<UUID, Object>) waitingForInput;
-            typedMap.put(uuid1, moneyType);
-
+        @DisplayName("Should drop pending input on quit")
+        void removeFromWaitingOnQuit() {
             when(tradeService.isTrading(uuid1)).thenReturn(false);
 
             PlayerQuitEvent event = new PlayerQuitEvent(player1, "Quit message");
             listener.onPlayerQuit(event);
 
-            assertThat(waitingForInput).doesNotContainKey(uuid1);
+            verify(inputService).cancel(uuid1);
         }
     }
 
@@ -231,7 +272,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should handle confirm button click")
         void confirmButtonClick() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             when(gui.getSession()).thenReturn(session);
             when(gui.getInventory()).thenReturn(mock(Inventory.class));
@@ -251,7 +292,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should handle cancel button click")
         void cancelButtonClick() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             when(gui.getSession()).thenReturn(session);
 
@@ -270,7 +311,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should cancel unconfirm on confirm button click")
         void unconfirmButtonClick() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             session.setConfirmed(uuid1, true);
             when(gui.getSession()).thenReturn(session);
@@ -290,7 +331,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should handle click outside inventory")
         void clickOutside() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
 
             InventoryClickEvent event = mock(InventoryClickEvent.class);
             when(event.getInventory()).thenReturn(mock(Inventory.class));
@@ -317,7 +358,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should block clicks on their slots")
         void blockTheirSlots() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             when(gui.getSession()).thenReturn(session);
 
@@ -335,7 +376,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should block clicks on separator slots")
         void blockSeparatorSlots() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             when(gui.getSession()).thenReturn(session);
 
@@ -353,7 +394,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should block clicks on status slots")
         void blockStatusSlots() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             when(gui.getSession()).thenReturn(session);
             when(gui.isMoneySlot(anyInt())).thenReturn(false);
@@ -371,6 +412,46 @@ class TradeListenerTest {
             verify(event).setCancelled(true);
         }
 
+        @Test
+        @DisplayName("Should switch to the next offer page")
+        void nextPageClick() {
+            TradeGUI gui = mockTradeGUI();
+            TradeSession session = new TradeSession(player1, player2);
+            when(gui.getSession()).thenReturn(session);
+            when(gui.getPage()).thenReturn(0);
+
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(gui);
+            when(event.getWhoClicked()).thenReturn(player1);
+            when(event.getRawSlot()).thenReturn(TradeLayout.DEFAULT_TRADE.getSlot(TradeLayout.SlotRole.NEXT_PAGE));
+
+            listener.onInventoryClick(event);
+
+            verify(event).setCancelled(true);
+            verify(gui).setPage(1);
+        }
+
+        @Test
+        @DisplayName("Should switch to the previous offer page")
+        void prevPageClick() {
+            TradeGUI gui = mockTradeGUI();
+            TradeSession session = new TradeSession(player1, player2);
+            when(gui.getSession()).thenReturn(session);
+            when(gui.getPage()).thenReturn(2);
+
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(gui);
+            when(event.getWhoClicked()).thenReturn(player1);
+            when(event.getRawSlot()).thenReturn(TradeLayout.DEFAULT_TRADE.getSlot(TradeLayout.SlotRole.PREV_PAGE));
+
+            listener.onInventoryClick(event);
+
+            verify(event).setCancelled(true);
+            verify(gui).setPage(1);
+        }
+
         @Test
         @DisplayName("Should handle TradeConfirmPage clicks")
         void confirmPageClick() {
@@ -389,11 +470,11 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should handle money slot click with economy")
         void moneySlotClick() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             when(gui.getSession()).thenReturn(session);
             when(gui.isMoneySlot(TradeGUI.YOUR_MONEY_SLOT)).thenReturn(true);
-            when(tradeService.hasEconomy()).thenReturn(true);
+            when(tradeService.hasEconomy(any(TradeSession.class))).thenReturn(true);
 
             InventoryClickEvent event = mock(InventoryClickEvent.class);
             when(event.getInventory()).thenReturn(mock(Inventory.class));
@@ -406,12 +487,35 @@ class TradeListenerTest {
             verify(event).setCancelled(true);
             verify(player1).closeInventory();
             verify(player1).sendMessage(contains("\u91D1\u5E01\u6570\u91CF")); // "金币数量"
+            verify(inputService).prompt(player1, TradeInputService.InputType.MONEY);
+        }
+
+        @Test
+        @DisplayName("Money slot should stay closed when the trade started without money trading")
+        void moneySlotUsesSessionSettings() {
+            TradeGUI gui = mockTradeGUI();
+            TradeSession session = new TradeSession(player1, player2);
+            when(gui.getSession()).thenReturn(session);
+            // Reloaded with money trading on while the trade is open
+            lenient().when(tradeService.hasEconomy()).thenReturn(true);
+            when(tradeService.hasEconomy(session)).thenReturn(false);
+
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(gui);
+            when(event.getWhoClicked()).thenReturn(player1);
+            when(event.getRawSlot()).thenReturn(TradeGUI.YOUR_MONEY_SLOT);
+
+            listener.onInventoryClick(event);
+
+            verify(event).setCancelled(true);
+            verify(inputService, never()).prompt(any(), any());
         }
 
         @Test
         @DisplayName("Should handle experience slot click")
         void expSlotClick() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             when(gui.getSession()).thenReturn(session);
             when(gui.isMoneySlot(anyInt())).thenReturn(false);
@@ -430,6 +534,331 @@ class TradeListenerTest {
             verify(event).setCancelled(true);
             verify(player1).closeInventory();
             verify(player1).sendMessage(contains("\u7ECF\u9A8C\u503C")); // "经验值"
+            verify(inputService).prompt(player1, TradeInputService.InputType.EXPERIENCE);
+        }
+
+        @Test
+        @DisplayName("Experience slot should follow the settings the trade started with")
+        void expSlotUsesSessionSettings() {
+            TradeGUI gui = mockTradeGUI();
+            TradeSession session = new TradeSession(player1, player2);
+            when(gui.getSession()).thenReturn(session);
+            when(config.isEnableExpTrade()).thenReturn(true);
+            TradeConfigSnapshot started = TradeConfigSnapshot.of(config,
+                TradeLayout.DEFAULT_TRADE, TradeLayout.DEFAULT_CONFIRM);
+            when(tradeService.getSettings(session)).thenReturn(started);
+            // Reloaded with experience trading off while the trade is open
+            when(config.isEnableExpTrade()).thenReturn(false);
+
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(gui);
+            when(event.getWhoClicked()).thenReturn(player1);
+            when(event.getRawSlot()).thenReturn(TradeGUI.YOUR_EXP_SLOT);
+
+            listener.onInventoryClick(event);
+
+            verify(inputService).prompt(player1, TradeInputService.InputType.EXPERIENCE);
+        }
+    }
+
+    @Nested
+    @DisplayName("Keypad Amount Input")
+    class KeypadAmountInput {
+
+        @Test
+        @DisplayName("Money slot should open the keypad instead of prompting in chat")
+        void moneySlotOpensKeypad() {
+            when(config.getAmountInputMode()).thenReturn("keypad");
+            when(tradeService.hasEconomy(any(TradeSession.class))).thenReturn(true);
+            when(tradeService.getEconomy()).thenReturn(UltiTradeTestHelper.createMockEconomy());
+            TradeGUI gui = mockTradeGUI();
+            TradeSession session = new TradeSession(player1, player2);
+            when(gui.getSession()).thenReturn(session);
+
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(gui);
+            when(event.getWhoClicked()).thenReturn(player1);
+            when(event.getRawSlot()).thenReturn(TradeGUI.YOUR_MONEY_SLOT);
+
+            listener.onInventoryClick(event);
+
+            verify(event).setCancelled(true);
+            verify(inputService, never()).prompt(any(), any());
+            verify(player1, never()).closeInventory();
+            verify(org.bukkit.Bukkit.getScheduler()).runTask(any(), any(Runnable.class));
+        }
+
+        @Test
+        @DisplayName("Should route keypad clicks to the page")
+        void routeClick() {
+            TradeAmountPage page = mock(TradeAmountPage.class);
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(page);
+
+            listener.onInventoryClick(event);
+
+            verify(event).setCancelled(true);
+            verify(page).handleClick(event);
+        }
+
+        @Test
+        @DisplayName("Should route keypad close to the page without cancelling the trade")
+        void routeClose() {
+            TradeAmountPage page = mock(TradeAmountPage.class);
+            InventoryCloseEvent event = mock(InventoryCloseEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(page);
+
+            listener.onInventoryClose(event);
+
+            verify(page).handleClose();
+            verify(tradeService, never()).cancelTrade(any(Player.class));
+        }
+
+        @Test
+        @DisplayName("Should cancel drags on the keypad")
+        void cancelDrag() {
+            InventoryDragEvent event = mock(InventoryDragEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(mock(TradeAmountPage.class));
+
+            listener.onInventoryDrag(event);
+
+            verify(event).setCancelled(true);
+        }
+    }
+
+    @Nested
+    @DisplayName("History Page")
+    class HistoryPage {
+
+        @Test
+        @DisplayName("Should route history clicks to the page")
+        void routeClick() {
+            TradeHistoryPage page = mock(TradeHistoryPage.class);
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(page);
+
+            listener.onInventoryClick(event);
+
+            verify(event).setCancelled(true);
+            verify(page).handleClick(event);
+        }
+
+        @Test
+        @DisplayName("Should cancel drags on the history page")
+        void cancelDrag() {
+            InventoryDragEvent event = mock(InventoryDragEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(mock(TradeHistoryPage.class));
+
+            listener.onInventoryDrag(event);
+
+            verify(event).setCancelled(true);
+        }
+    }
+
+    @Nested
+    @DisplayName("Bulk Offering")
+    class BulkOffering {
+
+        private TradeGUI gui;
+        private TradeSession session;
+        private PlayerInventory inventory;
+
+        @BeforeEach
+        void setUpGui() {
+            gui = mockTradeGUI();
+            session = spy(new TradeSession(player1, player2));
+            when(gui.getSession()).thenReturn(session);
+            when(gui.getOfferCapacity()).thenReturn(3);
+            inventory = player1.getInventory();
+        }
+
+        private InventoryClickEvent ownInventoryClick(ClickType click, int inventorySlot, ItemStack current) {
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(gui);
+            when(event.getWhoClicked()).thenReturn(player1);
+            when(event.getRawSlot()).thenReturn(54 + inventorySlot);
+            when(event.getSlot()).thenReturn(inventorySlot);
+            when(event.getClick()).thenReturn(click);
+            when(event.getCurrentItem()).thenReturn(current);
+            return event;
+        }
+
+        @Test
+        @DisplayName("Shift+left-click should offer the clicked stack")
+        void shiftLeftOffersStack() {
+            ItemStack diamond = new ItemStack(Material.DIAMOND, 5);
+            when(inventory.getItem(12)).thenReturn(diamond);
+
+            InventoryClickEvent event = ownInventoryClick(ClickType.SHIFT_LEFT, 12, diamond);
+            listener.onInventoryClick(event);
+
+            verify(event).setCancelled(true);
+            assertThat(session.getPlayerItems(uuid1)).containsOnlyKeys(0);
+            assertThat(session.getPlayerItems(uuid1).get(0).getType()).isEqualTo(Material.DIAMOND);
+            verify(inventory).setItem(12, null);
+            verify(gui).playItemSound();
+        }
+
+        @Test
+        @DisplayName("Shift+right-click should offer all stacks of the material in one batch")
+        void shiftRightOffersMaterial() {
+            ItemStack stone = new ItemStack(Material.STONE, 64);
+            ItemStack[] contents = new ItemStack[36];
+            contents[0] = stone;
+            contents[4] = new ItemStack(Material.DIRT, 10);
+            contents[9] = new ItemStack(Material.STONE, 64);
+            contents[20] = new ItemStack(Material.STONE, 7);
+            when(inventory.getStorageContents()).thenReturn(contents);
+            for (int i = 0; i < contents.length; i++) {
+                when(inventory.getItem(i)).thenReturn(contents[i]);
+            }
+            session.setConfirmed(uuid2, true);
+
+            listener.onInventoryClick(ownInventoryClick(ClickType.SHIFT_RIGHT, 0, stone));
+
+            assertThat(session.getPlayerItems(uuid1)).hasSize(3);
+            assertThat(session.isConfirmed(uuid2)).isFalse();
+            verify(session, times(1)).offerItems(eq(uuid1), anyList(), eq(3));
+            verify(session, never()).setItem(any(), anyInt(), any());
+            verify(inventory).setItem(0, null);
+            verify(inventory).setItem(9, null);
+            verify(inventory).setItem(20, null);
+            verify(inventory, never()).setItem(4, null);
+            verify(gui, times(1)).playItemSound();
+        }
+
+        @Test
+        @DisplayName("Should keep leftover stacks when the offer is full")
+        void leftoverWhenFull() {
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND));
+            session.setItem(uuid1, 1, new ItemStack(Material.DIAMOND));
+            ItemStack[] contents = new ItemStack[36];
+            contents[0] = new ItemStack(Material.STONE, 64);
+            contents[1] = new ItemStack(Material.STONE, 64);
+            when(inventory.getStorageContents()).thenReturn(contents);
+            when(inventory.getItem(0)).thenReturn(contents[0]);
+            when(inventory.getItem(1)).thenReturn(contents[1]);
+
+            listener.onInventoryClick(ownInventoryClick(ClickType.SHIFT_RIGHT, 0, contents[0]));
+
+            assertThat(session.getPlayerItems(uuid1)).hasSize(3);
+            verify(inventory).setItem(0, null);
+            verify(inventory, never()).setItem(1, null);
+            verify(player1).sendMessage(contains("1"));
+        }
+
+        @Test
+        @DisplayName("Plain clicks in the player inventory should not offer anything")
+        void plainClickIgnored() {
+            ItemStack diamond = new ItemStack(Material.DIAMOND, 5);
+
+            listener.onInventoryClick(ownInventoryClick(ClickType.LEFT, 3, diamond));
+
+            assertThat(session.getPlayerItems(uuid1)).isEmpty();
+            verify(inventory, never()).setItem(anyInt(), any());
+        }
+
+        @Test
+        @DisplayName("Number key over an item slot should swap with the hotbar")
+        void numberKeySwap() {
+            ItemStack offered = new ItemStack(Material.DIAMOND, 1);
+            ItemStack hotbar = new ItemStack(Material.EMERALD, 3);
+            session.setItem(uuid1, 0, offered);
+            when(inventory.getItem(2)).thenReturn(hotbar);
+            when(gui.getItemIndex(TradeGUI.YOUR_SLOTS[0])).thenReturn(0);
+
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(gui);
+            when(event.getWhoClicked()).thenReturn(player1);
+            when(event.getRawSlot()).thenReturn(TradeGUI.YOUR_SLOTS[0]);
+            when(event.getClick()).thenReturn(ClickType.NUMBER_KEY);
+            when(event.getHotbarButton()).thenReturn(2);
+
+            listener.onInventoryClick(event);
+
+            verify(event).setCancelled(true);
+            assertThat(session.getPlayerItems(uuid1).get(0).getType()).isEqualTo(Material.EMERALD);
+            verify(inventory).setItem(2, offered);
+        }
+
+        private InventoryClickEvent itemSlotClick(ItemStack current, ItemStack cursor) {
+            InventoryClickEvent event = mock(InventoryClickEvent.class);
+            when(event.getInventory()).thenReturn(mock(Inventory.class));
+            when(event.getInventory().getHolder()).thenReturn(gui);
+            when(event.getWhoClicked()).thenReturn(player1);
+            when(event.getRawSlot()).thenReturn(TradeGUI.YOUR_SLOTS[0]);
+            when(event.getClick()).thenReturn(ClickType.LEFT);
+            lenient().when(event.getCurrentItem()).thenReturn(current);
+            lenient().when(event.getCursor()).thenReturn(cursor);
+            lenient().when(event.getView()).thenReturn(mock(InventoryView.class));
+            return event;
+        }
+
+        @Test
+        @DisplayName("Two remove-clicks in one tick should give the item back once")
+        void doubleRemoveInOneTick() {
+            ItemStack offered = new ItemStack(Material.DIAMOND, 5);
+            session.setItem(uuid1, 0, offered);
+            when(gui.getItemIndex(TradeGUI.YOUR_SLOTS[0])).thenReturn(0);
+            // The render is deferred, so both clicks still see the diamond in the slot
+            ItemStack rendered = offered.clone();
+
+            listener.onInventoryClick(itemSlotClick(rendered, null));
+            listener.onInventoryClick(itemSlotClick(rendered, null));
+
+            verify(tradeService, times(1)).giveBack(eq(player1), anyCollection());
+            verify(tradeService).giveBack(player1, Collections.singletonList(offered));
+            assertThat(session.getPlayerItems(uuid1)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Taking an item back into a full inventory should mail it")
+        void removeIntoFullInventory() throws Exception {
+            TradeService realService = new TradeService();
+            TradeLogService logService = mock(TradeLogService.class);
+            when(logService.getMetrics()).thenReturn(new TradeMetrics());
+            UltiTradeTestHelper.setField(realService, "config", config);
+            UltiTradeTestHelper.setField(realService, "logService", logService);
+            UltiTradeTestHelper.setField(listener, "tradeService", realService);
+
+            ItemStack offered = new ItemStack(Material.DIAMOND, 5);
+            session.setItem(uuid1, 0, offered);
+            when(gui.getItemIndex(TradeGUI.YOUR_SLOTS[0])).thenReturn(0);
+            HashMap<Integer, ItemStack> overflow = new HashMap<>();
+            overflow.put(0, offered);
+            when(inventory.addItem(any(ItemStack.class))).thenReturn(overflow);
+
+            listener.onInventoryClick(itemSlotClick(offered.clone(), null));
+
+            TradeMailbox mailbox = UltiTradeTestHelper.getField(realService, "mailbox");
+            assertThat(mailbox.count(uuid1)).isEqualTo(1);
+            assertThat(session.getPlayerItems(uuid1)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("A click on a slot still drawn empty should not overwrite the offered item")
+        void placeOnStaleEmptySlot() {
+            ItemStack offered = new ItemStack(Material.DIAMOND, 5);
+            session.setItem(uuid1, 0, offered);
+            when(gui.getItemIndex(TradeGUI.YOUR_SLOTS[0])).thenReturn(0);
+            ItemStack cursor = new ItemStack(Material.EMERALD, 3);
+
+            InventoryClickEvent event = itemSlotClick(new ItemStack(Material.GRAY_STAINED_GLASS_PANE), cursor);
+            listener.onInventoryClick(event);
+
+            // The diamond goes back and the emerald stays on the cursor
+            verify(tradeService).giveBack(player1, Collections.singletonList(offered));
+            verify(event.getView(), never()).setCursor(any());
+            assertThat(session.getPlayerItems(uuid1)).isEmpty();
         }
     }
 
@@ -440,7 +869,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should cancel drag on TradeGUI")
         void cancelDragOnTradeGUI() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
 
             InventoryDragEvent event = mock(InventoryDragEvent.class);
             when(event.getInventory()).thenReturn(mock(Inventory.class));
@@ -485,7 +914,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should cancel trade on close")
         void cancelTradeOnClose() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             when(gui.getSession()).thenReturn(session);
             when(tradeService.getSession(uuid1)).thenReturn(session);
@@ -531,15 +960,10 @@ class TradeListenerTest {
 
         @Test
         @DisplayName("Should not cancel trade when waiting for input")
-        void dontCancelWhenWaitingForInput() throws Exception {
-            Map<UUID, ?> waitingForInput = UltiTradeTestHelper.getField(listener, "waitingForInput");
-            Class<?> inputTypeClass = Class.forName("com.ultikits.plugins.trade.listener.TradeListener$InputType");
-            Object moneyType = inputTypeClass.getEnumConstants()[0];
-            @SuppressWarnings("unchecked")
-            Map<UUID, Object> typedMap = (Map<UUID, Object>) waitingForInput;
-            typedMap.put(uuid1, moneyType);
-
-            TradeGUI gui = mock(TradeGUI.class);
+        void dontCancelWhenWaitingForInput() {
+            when(inputService.isWaiting(uuid1)).thenReturn(true);
+
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             when(gui.getSession()).thenReturn(session);
             when(tradeService.getSession(uuid1)).thenReturn(session);
@@ -558,7 +982,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should not cancel if session is not in TRADING state")
         void notInTradingState() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
             TradeSession session = new TradeSession(player1, player2);
             session.setState(TradeSession.TradeState.COMPLETED);
             when(gui.getSession()).thenReturn(session);
@@ -578,7 +1002,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should not cancel if no session found for player")
         void noSessionFound() {
-            TradeGUI gui = mock(TradeGUI.class);
+            TradeGUI gui = mockTradeGUI();
 
             when(tradeService.getSession(uuid1)).thenReturn(null);
 
@@ -600,6 +1024,7 @@ class TradeListenerTest {
         @Test
         @DisplayName("Should ignore chat if not waiting for input")
         void ignoreChatNotWaiting() {
+            when(inputService.handleChat(player1, "hello")).thenReturn(false);
             AsyncPlayerChatEvent event = new AsyncPlayerChatEvent(false, player1, "hello", new HashSet<>());
 
             listener.onPlayerChat(event);
@@ -608,144 +1033,14 @@ class TradeListenerTest {
         }
 
         @Test
-        @DisplayName("Should handle cancel input")
-        void handleCancelInput() throws Exception {
-            addToWaitingForInput(uuid1, 0); // MONEY
-
-            AsyncPlayerChatEvent event = new AsyncPlayerChatEvent(false, player1, "cancel", new HashSet<>());
-
-            listener.onPlayerChat(event);
-
-            assertThat(event.isCancelled()).isTrue();
-            verify(player1).sendMessage(contains("\u53D6\u6D88\u8F93\u5165")); // "取消输入"
-        }
-
-        @Test
-        @DisplayName("Should handle negative value input")
-        void handleNegativeValue() throws Exception {
-            addToWaitingForInput(uuid1, 0); // MONEY
-
-            AsyncPlayerChatEvent event = new AsyncPlayerChatEvent(false, player1, "-100", new HashSet<>());
-
-            listener.onPlayerChat(event);
-
-            assertThat(event.isCancelled()).isTrue();
-            verify(player1).sendMessage(contains("\u4E0D\u80FD\u4E3A\u8D1F\u6570")); // "不能为负数"
-        }
-
-        @Test
-        @DisplayName("Should handle invalid number input")
-        void handleInvalidNumber() throws Exception {
-            addToWaitingForInput(uuid1, 0); // MONEY
-
-            AsyncPlayerChatEvent event = new AsyncPlayerChatEvent(false, player1, "not_a_number", new HashSet<>());
-
-            listener.onPlayerChat(event);
-
-            assertThat(event.isCancelled()).isTrue();
-            verify(player1).sendMessage(contains("\u65E0\u6548\u7684\u6570\u503C")); // "无效的数值"
-        }
-
-        @Test
-        @DisplayName("Should handle valid money input")
-        void handleValidMoneyInput() throws Exception {
-            addToWaitingForInput(uuid1, 0); // MONEY
-
-            TradeSession session = new TradeSession(player1, player2);
-            when(tradeService.getSession(uuid1)).thenReturn(session);
-            when(tradeService.hasEconomy()).thenReturn(true);
-            net.milkbowl.vault.economy.Economy mockEconomy = UltiTradeTestHelper.createMockEconomy();
-            when(tradeService.getEconomy()).thenReturn(mockEconomy);
-
-            AsyncPlayerChatEvent event = new AsyncPlayerChatEvent(false, player1, "500", new HashSet<>());
-
-            listener.onPlayerChat(event);
-
-            assertThat(event.isCancelled()).isTrue();
-            assertThat(session.getPlayerMoney(uuid1)).isEqualTo(500.0);
-            verify(player1).sendMessage(contains("\u91D1\u5E01")); // "金币"
-        }
-
-        @Test
-        @DisplayName("Should handle valid experience input")
-        void handleValidExpInput() throws Exception {
-            addToWaitingForInput(uuid1, 1); // EXPERIENCE
-
-            TradeSession session = new TradeSession(player1, player2);
-            when(tradeService.getSession(uuid1)).thenReturn(session);
-            when(tradeService.getTotalExperience(player1)).thenReturn(1000);
-
-            AsyncPlayerChatEvent event = new AsyncPlayerChatEvent(false, player1, "500", new HashSet<>());
-
-            listener.onPlayerChat(event);
-
-            assertThat(event.isCancelled()).isTrue();
-            assertThat(session.getPlayerExp(uuid1)).isEqualTo(500);
-            verify(player1).sendMessage(contains("\u7ECF\u9A8C")); // "经验"
-        }
-
-        @Test
-        @DisplayName("Should reject money input exceeding balance")
-        void rejectInsufficientBalance() throws Exception {
-            addToWaitingForInput(uuid1, 0); // MONEY
-
-            TradeSession session = new TradeSession(player1, player2);
-            when(tradeService.getSession(uuid1)).thenReturn(session);
-            when(tradeService.hasEconomy()).thenReturn(true);
-            net.milkbowl.vault.economy.Economy mockEconomy = mock(net.milkbowl.vault.economy.Economy.class);
-            when(mockEconomy.getBalance(player1)).thenReturn(100.0);
-            when(tradeService.getEconomy()).thenReturn(mockEconomy);
-
-            AsyncPlayerChatEvent event = new AsyncPlayerChatEvent(false, player1, "500", new HashSet<>());
-
-            listener.onPlayerChat(event);
-
-            assertThat(event.isCancelled()).isTrue();
-            verify(player1).sendMessage(contains("\u4F59\u989D\u4E0D\u8DB3")); // "余额不足"
-        }
-
-        @Test
-        @DisplayName("Should reject exp input exceeding available exp")
-        void rejectInsufficientExp() throws Exception {
-            addToWaitingForInput(uuid1, 1); // EXPERIENCE
-
-            TradeSession session = new TradeSession(player1, player2);
-            when(tradeService.getSession(uuid1)).thenReturn(session);
-            when(tradeService.getTotalExperience(player1)).thenReturn(100);
-
-            AsyncPlayerChatEvent event = new AsyncPlayerChatEvent(false, player1, "500", new HashSet<>());
-
-            listener.onPlayerChat(event);
-
-            assertThat(event.isCancelled()).isTrue();
-            verify(player1).sendMessage(contains("\u7ECF\u9A8C\u4E0D\u8DB3")); // "经验不足"
-        }
-
-        @Test
-        @DisplayName("Should handle trade ended during input")
-        void tradeEndedDuringInput() throws Exception {
-            addToWaitingForInput(uuid1, 0); // MONEY
-
-            when(tradeService.getSession(uuid1)).thenReturn(null);
-
+        @DisplayName("Should hide chat consumed as input")
+        void hideConsumedChat() {
+            when(inputService.handleChat(player1, "500")).thenReturn(true);
             AsyncPlayerChatEvent event = new AsyncPlayerChatEvent(false, player1, "500", new HashSet<>());
 
             listener.onPlayerChat(event);
 
             assertThat(event.isCancelled()).isTrue();
-            verify(player1).sendMessage(contains("\u4EA4\u6613\u5DF2\u7ED3\u675F")); // "交易已结束"
-        }
-
-        /**
-         * Helper to add a player to the waiting for input map.
-         */
-        private void addToWaitingForInput(UUID uuid, int typeOrdinal) throws Exception {
-            Map<UUID, ?> waitingForInput = UltiTradeTestHelper.getField(listener, "waitingForInput");
-            Class<?> inputTypeClass = Class.forName("com.ultikits.plugins.trade.listener.TradeListener$InputType");
-            Object inputType = inputTypeClass.getEnumConstants()[typeOrdinal];
-            @SuppressWarnings("unchecked")
-            Map<UUID, Object> typedMap = (Map<UUID, Object>) waitingForInput;
-            typedMap.put(uuid, inputType);
         }
     }
 }
@@ -0,0 +1,419 @@
+package com.ultikits.plugins.trade.load;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.gui.TradeGUI;
+import com.ultikits.plugins.trade.gui.TradeLayout;
+import com.ultikits.plugins.trade.gui.TradeLayout.SlotRole;
+import com.ultikits.plugins.trade.listener.TradeListener;
+import com.ultikits.plugins.trade.service.TradeInputService;
+import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.plugins.trade.service.TradeMetrics;
+import com.ultikits.plugins.trade.service.TradeService;
+
+import net.milkbowl.vault.economy.Economy;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives pairs of virtual players through whole trades against the real
+ * {@link TradeService}, {@link TradeListener} and {@link TradeInputService},
+ * on top of the {@link UltiTradeTestHelper} server mocks.
+ * <p>
+ * Every phase runs for all pairs before the next one starts, so all
+ * sessions are open at the same time, the way a busy server sees them.
+ * Each call is timed and its allocations are read from the thread's
+ * allocation counter. Mock overhead is part of the numbers, so compare
+ * reports with each other rather than with real server timings.
+ *
+ * @author wisdomme
+ * @version 1.0.0
+ */
+public class TradeLoadSimulator {
+
+    /**
+     * Main-thread tick budget at 20 TPS.
+     */
+    static final long TICK_NANOS = 50_000_000L;
+
+    /**
+     * Steps of one trade, in the order they run.
+     */
+    public enum Phase {
+        REQUEST, ACCEPT, PLACE_ITEM, MONEY_INPUT, EXP_INPUT, INPUT_TICK, CONFIRM, CANCEL
+    }
+
+    private static final Material[] ITEM_TYPES = {
+        Material.DIAMOND, Material.EMERALD, Material.IRON_INGOT, Material.GOLD_INGOT,
+        Material.DIAMOND_SWORD, Material.OAK_LOG, Material.ENDER_PEARL, Material.BREAD
+    };
+
+    private final int pairs;
+    private final int itemsPerSide;
+    private final double cancelRatio;
+    private final Random random;
+
+    private TradeService tradeService;
+    private TradeListener listener;
+    private TradeInputService inputService;
+    private Economy economy;
+
+    private final Map<UUID, Player> online = new HashMap<>();
+    private final Map<UUID, Inventory> topInventories = new HashMap<>();
+    private final Deque<Runnable> nextTick = new ArrayDeque<>();
+    private final Map<Phase, Recorder> recorders = new EnumMap<>(Phase.class);
+
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * @param pairs        Number of simultaneous trades (2 players each)
+     * @param itemsPerSide Items each player places
+     * @param cancelRatio  Share of trades cancelled instead of confirmed
+     * @param seed         Seed for choosing which trades cancel
+     */
+    public TradeLoadSimulator(int pairs, int itemsPerSide, double cancelRatio, long seed) {
+        this.pairs = pairs;
+        this.itemsPerSide = itemsPerSide;
+        this.cancelRatio = cancelRatio;
+        this.random = new Random(seed);
+        for (Phase phase : Phase.values()) {
+            recorders.put(phase, new Recorder());
+        }
+    }
+
+    /**
+     * Run every trade to completion or cancellation.
+     * Must be called between {@link UltiTradeTestHelper#setUp()} and
+     * {@link UltiTradeTestHelper#tearDown()}.
+     *
+     * @return Latency and allocation report
+     */
+    public Report run() throws Exception {
+        wire();
+        List<Player[]> trades = new ArrayList<>(pairs);
+        for (int i = 0; i < pairs; i++) {
+            trades.add(new Player[]{player("Trader" + (2 * i)), player("Trader" + (2 * i + 1))});
+        }
+
+        for (Player[] trade : trades) {
+            record(Phase.REQUEST, () -> tradeService.sendRequest(trade[0], trade[1]));
+        }
+        for (Player[] trade : trades) {
+            record(Phase.ACCEPT, () -> tradeService.acceptRequest(trade[1]));
+        }
+        int peakSessions = tradeService.getActiveSessionCount();
+
+        for (int item = 0; item < itemsPerSide; item++) {
+            for (Player[] trade : trades) {
+                for (Player player : trade) {
+                    placeItem(player, item);
+                }
+            }
+        }
+        for (Player[] trade : trades) {
+            enterAmount(Phase.MONEY_INPUT, trade[0], SlotRole.YOUR_MONEY, "100");
+        }
+        record(Phase.INPUT_TICK, this::tick);
+        for (Player[] trade : trades) {
+            enterAmount(Phase.EXP_INPUT, trade[1], SlotRole.YOUR_EXP, "30");
+        }
+        record(Phase.INPUT_TICK, this::tick);
+
+        int cancelled = 0;
+        for (Player[] trade : trades) {
+            if (random.nextDouble() < cancelRatio) {
+                click(Phase.CANCEL, trade[0], layout().getSlot(SlotRole.CANCEL), null, null);
+                cancelled++;
+            } else {
+                for (Player player : trade) {
+                    click(Phase.CONFIRM, player, layout().getSlot(SlotRole.CONFIRM), null, null);
+                }
+            }
+        }
+        tick();
+
+        Map<Phase, PhaseStats> stats = new EnumMap<>(Phase.class);
+        for (Map.Entry<Phase, Recorder> entry : recorders.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().stats());
+        }
+        return new Report(pairs, peakSessions, pairs - cancelled, cancelled,
+            tradeService.getActiveSessionCount(), stats);
+    }
+
+    public Economy getEconomy() {
+        return economy;
+    }
+
+    // ==================== Steps ====================
+
+    private void placeItem(Player player, int index) {
+        int slot = layout().getSlots(SlotRole.YOUR_ITEM)[index];
+        click(Phase.PLACE_ITEM, player, slot,
+            new ItemStack(ITEM_TYPES[index % ITEM_TYPES.length], 1 + index % 64),
+            new ItemStack(Material.LIME_STAINED_GLASS_PANE));
+    }
+
+    /**
+     * Click the amount button and answer the chat prompt, as a player would.
+     * The amount is applied on the next {@link Phase#INPUT_TICK}.
+     */
+    private void enterAmount(Phase phase, Player player, SlotRole button, String amount) {
+        click(phase, player, layout().getSlot(button), null, null);
+        AsyncPlayerChatEvent chat = new AsyncPlayerChatEvent(true, player, amount, new HashSet<>());
+        record(phase, () -> listener.onPlayerChat(chat));
+    }
+
+    /**
+     * Left-click a slot of the player's open window. Only the listener call
+     * is measured, not building the event.
+     */
+    private void click(Phase phase, Player player, int slot, ItemStack cursor, ItemStack current) {
+        Inventory top = topInventories.get(player.getUniqueId());
+        InventoryClickEvent event = mock(InventoryClickEvent.class);
+        when(event.getInventory()).thenReturn(top);
+        when(event.getWhoClicked()).thenReturn(player);
+        when(event.getRawSlot()).thenReturn(slot);
+        when(event.getClick()).thenReturn(ClickType.LEFT);
+        when(event.getCursor()).thenReturn(cursor);
+        when(event.getCurrentItem()).thenReturn(current);
+        when(event.getView()).thenReturn(mock(InventoryView.class));
+        record(phase, () -> listener.onInventoryClick(event));
+    }
+
+    /**
+     * Run one server tick: queued tasks, then the input service.
+     */
+    private void tick() {
+        Runnable task;
+        while ((task = nextTick.poll()) != null) {
+            task.run();
+        }
+        inputService.tick();
+    }
+
+    private TradeLayout layout() {
+        return tradeService.getLayout();
+    }
+
+    private void record(Phase phase, Runnable step) {
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        step.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        recorders.get(phase).add(elapsed, allocated);
+    }
+
+    // ==================== Wiring ====================
+
+    private void wire() throws Exception {
+        TradeConfig config = UltiTradeTestHelper.createDefaultConfig();
+        // Mock players all stand in different worlds
+        when(config.getMaxDistance()).thenReturn(0);
+
+        TradeLogService logService = mock(TradeLogService.class);
+        when(logService.isTradeEnabled(any())).thenReturn(true);
+        when(logService.getMetrics()).thenReturn(new TradeMetrics());
+        economy = UltiTradeTestHelper.createMockEconomy();
+
+        tradeService = new TradeService();
+        UltiTradeTestHelper.setField(tradeService, "plugin", UltiTradeTestHelper.getMockPlugin());
+        UltiTradeTestHelper.setField(tradeService, "config", config);
+        UltiTradeTestHelper.setField(tradeService, "logService", logService);
+        UltiTradeTestHelper.setField(tradeService, "economy", economy);
+
+        inputService = new TradeInputService();
+        UltiTradeTestHelper.setField(inputService, "tradeService", tradeService);
+
+        listener = new TradeListener();
+        UltiTradeTestHelper.setField(listener, "tradeService", tradeService);
+        UltiTradeTestHelper.setField(listener, "config", config);
+        UltiTradeTestHelper.setField(listener, "inputService", inputService);
+
+        Server server = Bukkit.getServer();
+        when(server.getPlayer(any(UUID.class))).thenAnswer(inv -> online.get(inv.<UUID>getArgument(0)));
+        when(server.createInventory(any(), anyInt(), anyString()))
+            .thenAnswer(inv -> inventory(inv.getArgument(0), inv.getArgument(1)));
+        BukkitScheduler scheduler = Bukkit.getScheduler();
+        doAnswer(inv -> nextTick.add(inv.getArgument(1))).when(scheduler).runTask(any(), any(Runnable.class));
+        doAnswer(inv -> nextTick.add(inv.getArgument(1)))
+            .when(scheduler).runTaskLater(any(), any(Runnable.class), anyLong());
+    }
+
+    private Player player(String name) {
+        UUID uuid = UUID.randomUUID();
+        Player player = UltiTradeTestHelper.createMockPlayer(name, uuid);
+        InventoryView view = mock(InventoryView.class);
+        when(view.getTopInventory()).thenAnswer(inv -> topInventories.get(uuid));
+        when(player.getOpenInventory()).thenReturn(view);
+        when(player.openInventory(any(Inventory.class))).thenAnswer(inv -> {
+            topInventories.put(uuid, inv.getArgument(0));
+            return view;
+        });
+        doAnswer(inv -> topInventories.put(uuid, inventory(null, 5))).when(player).closeInventory();
+        when(player.getInventory().addItem(any(ItemStack.class))).thenReturn(new HashMap<>());
+        topInventories.put(uuid, inventory(null, 5));
+        online.put(uuid, player);
+        return player;
+    }
+
+    /**
+     * Inventory that only knows its holder and size. A proxy rather than a
+     * mock, so opening windows costs about what it costs on a server.
+     */
+    private static Inventory inventory(InventoryHolder holder, int size) {
+        return (Inventory) Proxy.newProxyInstance(Inventory.class.getClassLoader(), new Class<?>[]{Inventory.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getHolder":
+                        return holder;
+                    case "getSize":
+                        return size;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        Class<?> type = method.getReturnType();
+                        if (type == boolean.class) {
+                            return false;
+                        }
+                        if (type == int.class) {
+                            return 0;
+                        }
+                        return null;
+                }
+            });
+    }
+
+    // ==================== Results ====================
+
+    /**
+     * Raw samples of one phase.
+     */
+    private static final class Recorder {
+        private long[] nanos = new long[64];
+        private long allocated;
+        private int count;
+
+        void add(long elapsed, long bytes) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = elapsed;
+            allocated += bytes;
+        }
+
+        PhaseStats stats() {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long sample : sorted) {
+                total += sample;
+            }
+            return new PhaseStats(count, percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                count == 0 ? 0 : sorted[count - 1], total, count == 0 ? 0 : allocated / count);
+        }
+    }
+
+    /**
+     * Nearest-rank percentile of sorted samples.
+     */
+    static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Latency and allocation summary of one phase.
+     */
+    public static final class PhaseStats {
+        public final int count;
+        public final long p50Nanos;
+        public final long p95Nanos;
+        public final long p99Nanos;
+        public final long maxNanos;
+        public final long totalNanos;
+        public final long bytesPerOp;
+
+        PhaseStats(int count, long p50Nanos, long p95Nanos, long p99Nanos, long maxNanos, long totalNanos,
+                   long bytesPerOp) {
+            this.count = count;
+            this.p50Nanos = p50Nanos;
+            this.p95Nanos = p95Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.totalNanos = totalNanos;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+    /**
+     * Outcome of a run.
+     */
+    public static final class Report {
+        public final int pairs;
+        public final int peakSessions;
+        public final int completed;
+        public final int cancelled;
+        public final int sessionsLeft;
+        public final Map<Phase, PhaseStats> phases;
+
+        Report(int pairs, int peakSessions, int completed, int cancelled, int sessionsLeft,
+               Map<Phase, PhaseStats> phases) {
+            this.pairs = pairs;
+            this.peakSessions = peakSessions;
+            this.completed = completed;
+            this.cancelled = cancelled;
+            this.sessionsLeft = sessionsLeft;
+            this.phases = phases;
+        }
+
+        /**
+         * Share of a 50 ms tick one phase takes when every open trade does
+         * it in the same tick.
+         */
+        public double tickShare(Phase phase) {
+            return (double) phases.get(phase).totalNanos / TICK_NANOS;
+        }
+
+        public String format() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%d trades (%d players), peak %d sessions, %d completed, %d cancelled%n",
+                pairs, pairs * 2, peakSessions, completed, cancelled));
+            out.append(String.format("%-12s %7s %9s %9s %9s %9s %10s %7s%n",
+                "phase", "ops", "p50 us", "p95 us", "p99 us", "max us", "B/op", "tick%"));
+            for (Map.Entry<Phase, PhaseStats> entry : phases.entrySet()) {
+                PhaseStats stats = entry.getValue();
+                out.append(String.format("%-12s %7d %9.1f %9.1f %9.1f %9.1f %10d %6.1f%%%n",
+                    entry.getKey(), stats.count, stats.p50Nanos / 1000.0, stats.p95Nanos / 1000.0,
+                    stats.p99Nanos / 1000.0, stats.maxNanos / 1000.0, stats.bytesPerOp,
+                    tickShare(entry.getKey()) * 100));
+            }
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ultikits.plugins.trade.load;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.load.TradeLoadSimulator.Phase;
+import com.ultikits.plugins.trade.load.TradeLoadSimulator.Report;
+
+import org.bukkit.OfflinePlayer;
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the load simulator. The default size keeps the suite fast; raise it
+ * with {@code -Dultitrade.sim.pairs=500} for a real measurement. The report
+ * is published as a test report entry rather than printed.
+ */
+@DisplayName("TradeLoadSimulator Tests")
+class TradeLoadSimulatorTest {
+
+    private static final int PAIRS = Integer.getInteger("ultitrade.sim.pairs", 50);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UltiTradeTestHelper.setUp();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        UltiTradeTestHelper.tearDown();
+    }
+
+    @Test
+    @DisplayName("Every trade should complete or cancel and leave no session behind")
+    void runsAllTrades(TestReporter reporter) throws Exception {
+        TradeLoadSimulator simulator = new TradeLoadSimulator(PAIRS, 4, 0.2, 42L);
+
+        Report report = simulator.run();
+        reporter.publishEntry("report", report.format());
+
+        assertThat(report.peakSessions).as("%s", report.format()).isEqualTo(PAIRS);
+        assertThat(report.completed + report.cancelled).isEqualTo(PAIRS);
+        assertThat(report.sessionsLeft).isZero();
+        assertThat(report.phases.get(Phase.REQUEST).count).isEqualTo(PAIRS);
+        assertThat(report.phases.get(Phase.PLACE_ITEM).count).isEqualTo(PAIRS * 2 * 4);
+        assertThat(report.phases.get(Phase.CONFIRM).count).isEqualTo(report.completed * 2);
+        assertThat(report.phases.get(Phase.CANCEL).count).isEqualTo(report.cancelled);
+        verify(simulator.getEconomy(), times(report.completed)).withdrawPlayer(any(OfflinePlayer.class), eq(100.0));
+    }
+
+    @Test
+    @DisplayName("The seed should decide which trades cancel")
+    void seeded() throws Exception {
+        Report first = new TradeLoadSimulator(20, 1, 0.5, 7L).run();
+        UltiTradeTestHelper.tearDown();
+        UltiTradeTestHelper.setUp();
+        Report second = new TradeLoadSimulator(20, 1, 0.5, 7L).run();
+
+        assertThat(second.cancelled).isEqualTo(first.cancelled);
+    }
+
+    @Test
+    @DisplayName("Percentiles should use the nearest rank")
+    void percentile() {
+        long[] samples = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+        assertThat(TradeLoadSimulator.percentile(samples, 50)).isEqualTo(5);
+        assertThat(TradeLoadSimulator.percentile(samples, 95)).isEqualTo(10);
+        assertThat(TradeLoadSimulator.percentile(new long[0], 99)).isZero();
+    }
+}
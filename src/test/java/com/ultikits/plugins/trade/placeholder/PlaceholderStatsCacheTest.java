@@ -0,0 +1,152 @@
+package com.ultikits.plugins.trade.placeholder;
+
+import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+import com.ultikits.plugins.trade.service.TradeLogService;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PlaceholderStatsCache Tests")
+class PlaceholderStatsCacheTest {
+
+    private TradeLogService logService;
+    private List<Runnable> pending;
+    private UUID playerUuid;
+
+    @BeforeEach
+    void setUp() {
+        logService = mock(TradeLogService.class);
+        pending = new ArrayList<>();
+        playerUuid = UUID.randomUUID();
+    }
+
+    private PlaceholderStatsCache deferredCache(long ttlMillis) {
+        return new PlaceholderStatsCache(logService, ttlMillis, pending::add);
+    }
+
+    private void runPending() {
+        List<Runnable> tasks = new ArrayList<>(pending);
+        pending.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    @DisplayName("First lookup should return empty stats without loading inline")
+    void firstLookupNonBlocking() {
+        PlaceholderStatsCache cache = deferredCache(30_000L);
+
+        PlayerTradeSettings stats = cache.get(playerUuid);
+
+        assertThat(stats.getTotalTrades()).isZero();
+        assertThat(stats.getPlayerUuid()).isEqualTo(playerUuid.toString());
+        assertThat(pending).hasSize(1);
+        verify(logService, never()).getPlayerStats(any());
+    }
+
+    @Test
+    @DisplayName("Should serve the loaded value after the refresh completes")
+    void serveLoadedValue() {
+        PlaceholderStatsCache cache = deferredCache(30_000L);
+        PlayerTradeSettings loaded = new PlayerTradeSettings(playerUuid, "Player");
+        when(logService.getPlayerStats(playerUuid)).thenReturn(loaded);
+
+        cache.get(playerUuid);
+        runPending();
+
+        assertThat(cache.get(playerUuid)).isSameAs(loaded);
+        assertThat(pending).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should schedule at most one refresh per player at a time")
+    void singleFlight() {
+        PlaceholderStatsCache cache = deferredCache(0L);
+
+        for (int i = 0; i < 10; i++) {
+            cache.get(playerUuid);
+        }
+
+        assertThat(pending).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Stale entries should return the old value while refreshing")
+    void staleWhileRefreshing() {
+        PlaceholderStatsCache cache = deferredCache(0L);
+        PlayerTradeSettings first = new PlayerTradeSettings(playerUuid, "Player");
+        PlayerTradeSettings second = new PlayerTradeSettings(playerUuid, "Player");
+        when(logService.getPlayerStats(playerUuid)).thenReturn(first, second);
+
+        cache.get(playerUuid);
+        runPending();
+
+        assertThat(cache.get(playerUuid)).isSameAs(first);
+        assertThat(pending).hasSize(1);
+        runPending();
+        assertThat(cache.get(playerUuid)).isSameAs(second);
+    }
+
+    @Test
+    @DisplayName("A failed load should keep the last value")
+    void failedLoad() {
+        PlaceholderStatsCache cache = deferredCache(0L);
+        PlayerTradeSettings first = new PlayerTradeSettings(playerUuid, "Player");
+        when(logService.getPlayerStats(playerUuid))
+            .thenReturn(first)
+            .thenThrow(new RuntimeException("database down"));
+
+        cache.get(playerUuid);
+        runPending();
+        cache.get(playerUuid);
+        runPending();
+
+        assertThat(cache.get(playerUuid)).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("A rejected refresh should allow a later retry")
+    void rejectedRefresh() {
+        AtomicInteger attempts = new AtomicInteger();
+        PlaceholderStatsCache cache = new PlaceholderStatsCache(logService, 0L, task -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("shutting down");
+        });
+
+        cache.get(playerUuid);
+        cache.get(playerUuid);
+
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should use in-memory settings without caching them")
+    void liveSettings() {
+        PlaceholderStatsCache cache = deferredCache(30_000L);
+        PlayerTradeSettings live = new PlayerTradeSettings(playerUuid, "Player");
+        when(logService.getCachedSettings(playerUuid)).thenReturn(live);
+
+        assertThat(cache.get(playerUuid)).isSameAs(live);
+        assertThat(cache.size()).isZero();
+        assertThat(pending).isEmpty();
+    }
+
+    @Test
+    @DisplayName("invalidate should force a reload")
+    void invalidate() {
+        PlaceholderStatsCache cache = deferredCache(30_000L);
+        cache.get(playerUuid);
+        runPending();
+
+        cache.invalidate(playerUuid);
+        cache.get(playerUuid);
+
+        assertThat(pending).hasSize(1);
+    }
+}
@@ -1,9 +1,14 @@
 package com.ultikits.plugins.trade.placeholder;
 
 import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+import com.ultikits.plugins.trade.service.PriceIndex;
+import com.ultikits.plugins.trade.service.ServerTradeStats;
+import com.ultikits.plugins.trade.service.TradeLeaderboard;
 import com.ultikits.plugins.trade.service.TradeLogService;
+import com.ultikits.plugins.trade.service.TradeMetrics;
 import com.ultikits.plugins.trade.service.TradeService;
 
+import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
 import org.junit.jupiter.api.*;
 
@@ -18,6 +23,10 @@ class TradePlaceholderExpansionTest {
     private TradePlaceholderExpansion expansion;
     private TradeService tradeService;
     private TradeLogService logService;
+    private ServerTradeStats serverStats;
+    private TradeLeaderboard leaderboard;
+    private PriceIndex priceIndex;
+    private TradeMetrics metrics;
     private OfflinePlayer player;
     private UUID playerUuid;
 
@@ -25,7 +34,14 @@ class TradePlaceholderExpansionTest {
     void setUp() {
         tradeService = mock(TradeService.class);
         logService = mock(TradeLogService.class);
-        expansion = new TradePlaceholderExpansion(tradeService, logService);
+        serverStats = new ServerTradeStats();
+        leaderboard = new TradeLeaderboard();
+        priceIndex = new PriceIndex();
+        metrics = new TradeMetrics();
+        // Refresh inline so the first lookup already sees the stubbed stats
+        expansion = new TradePlaceholderExpansion(tradeService,
+            new PlaceholderStatsCache(logService, 30_000L, Runnable::run), serverStats, leaderboard, priceIndex,
+            metrics);
 
         playerUuid = UUID.randomUUID();
         player = mock(OfflinePlayer.class);
@@ -73,6 +89,167 @@ class TradePlaceholderExpansionTest {
         }
     }
 
+    @Nested
+    @DisplayName("Metric Placeholders")
+    class MetricPlaceholders {
+
+        @Test
+        @DisplayName("Should return counters and gauges")
+        void countersAndGauges() {
+            metrics.increment(TradeMetrics.Counter.TRADES_COMPLETED);
+            metrics.increment(TradeMetrics.Counter.TRADES_COMPLETED);
+            metrics.register(TradeMetrics.Gauge.PENDING_REQUESTS, () -> 4);
+
+            assertThat(expansion.onRequest(null, "metric_trades_completed")).isEqualTo("2");
+            assertThat(expansion.onRequest(null, "metric_pending_requests")).isEqualTo("4");
+            verifyNoInteractions(logService);
+        }
+
+        @Test
+        @DisplayName("Should return timer statistics in milliseconds")
+        void timers() {
+            metrics.recordNanos(TradeMetrics.Timer.COMPLETE_TRADE, 2_500_000L);
+
+            assertThat(expansion.onRequest(null, "metric_complete_trade_count")).isEqualTo("1");
+            assertThat(expansion.onRequest(null, "metric_complete_trade_max")).isEqualTo("2.50");
+            assertThat(expansion.onRequest(null, "metric_complete_trade_mean")).isEqualTo("2.50");
+            assertThat(expansion.onRequest(null, "metric_gui_render_p99")).isEqualTo("0.00");
+        }
+
+        @Test
+        @DisplayName("Should return null for unknown metrics")
+        void unknown() {
+            assertThat(expansion.onRequest(null, "metric_nope")).isNull();
+            assertThat(expansion.onRequest(null, "metric_complete_trade_p42")).isNull();
+            assertThat(expansion.onRequest(null, "metric_")).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Server Placeholders")
+    class ServerPlaceholders {
+
+        @Test
+        @DisplayName("Should report zero before any trade")
+        void emptyAggregates() {
+            assertThat(expansion.onRequest(player, "server_trades_today")).isEqualTo("0");
+            assertThat(expansion.onRequest(player, "server_volume_24h")).isEqualTo("0.00");
+            assertThat(expansion.onRequest(player, "server_tax_collected")).isEqualTo("0.00");
+        }
+
+        @Test
+        @DisplayName("Should read recorded trades without touching the log service")
+        void recordedTrades() {
+            long now = System.currentTimeMillis();
+            serverStats.record(now, 150.0, 7.5);
+            serverStats.record(now, 50.0, 2.5);
+
+            assertThat(expansion.onRequest(player, "server_trades_today")).isEqualTo("2");
+            assertThat(expansion.onRequest(player, "server_volume_24h")).isEqualTo("200.00");
+            assertThat(expansion.onRequest(player, "server_tax_collected")).isEqualTo("10.00");
+            verifyNoInteractions(logService);
+        }
+
+        @Test
+        @DisplayName("Should return active session count")
+        void activeSessions() {
+            when(tradeService.getActiveSessionCount()).thenReturn(3);
+
+            assertThat(expansion.onRequest(player, "active_sessions")).isEqualTo("3");
+        }
+
+        @Test
+        @DisplayName("Should resolve without a player")
+        void nullPlayer() {
+            when(tradeService.getActiveSessionCount()).thenReturn(1);
+
+            assertThat(expansion.onRequest(null, "active_sessions")).isEqualTo("1");
+            assertThat(expansion.onRequest(null, "SERVER_TRADES_TODAY")).isEqualTo("0");
+        }
+    }
+
+    @Nested
+    @DisplayName("Leaderboard Placeholders")
+    class LeaderboardPlaceholders {
+
+        @BeforeEach
+        void rankPlayers() {
+            PlayerTradeSettings alice = new PlayerTradeSettings(UUID.randomUUID(), "Alice");
+            alice.setTotalTrades(5);
+            alice.setTotalMoneyTraded(10.0);
+            PlayerTradeSettings bob = new PlayerTradeSettings(UUID.randomUUID(), "Bob");
+            bob.setTotalTrades(2);
+            bob.setTotalMoneyTraded(250.5);
+            leaderboard.update(alice);
+            leaderboard.update(bob);
+        }
+
+        @Test
+        @DisplayName("top_N placeholders should rank by trade count")
+        void defaultMetric() {
+            assertThat(expansion.onRequest(null, "top_1_name")).isEqualTo("Alice");
+            assertThat(expansion.onRequest(null, "top_1_value")).isEqualTo("5");
+            assertThat(expansion.onRequest(null, "top_2_name")).isEqualTo("Bob");
+        }
+
+        @Test
+        @DisplayName("top_<metric>_N placeholders should rank by that metric")
+        void explicitMetric() {
+            assertThat(expansion.onRequest(player, "top_money_1_name")).isEqualTo("Bob");
+            assertThat(expansion.onRequest(player, "top_money_1_value")).isEqualTo("250.50");
+            assertThat(expansion.onRequest(player, "top_trades_2_name")).isEqualTo("Bob");
+        }
+
+        @Test
+        @DisplayName("Should show a placeholder for unfilled ranks")
+        void unfilledRank() {
+            assertThat(expansion.onRequest(player, "top_3_name")).isEqualTo("无");
+            assertThat(expansion.onRequest(player, "top_3_value")).isEqualTo("0");
+        }
+
+        @Test
+        @DisplayName("Should return null for malformed leaderboard placeholders")
+        void malformed() {
+            assertThat(expansion.onRequest(player, "top_x_name")).isNull();
+            assertThat(expansion.onRequest(player, "top_gold_1_name")).isNull();
+            assertThat(expansion.onRequest(player, "top_1_uuid")).isNull();
+            assertThat(expansion.onRequest(player, "top_")).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Price Placeholders")
+    class PricePlaceholders {
+
+        @Test
+        @DisplayName("Should return decayed mean, median and trade count")
+        void quote() {
+            long now = System.currentTimeMillis();
+            priceIndex.record(Material.NETHERITE_INGOT, 100.0, now);
+            priceIndex.record(Material.NETHERITE_INGOT, 200.0, now);
+            priceIndex.record(Material.NETHERITE_INGOT, 120.0, now);
+
+            assertThat(expansion.onRequest(null, "price_netherite_ingot_mean")).isEqualTo("140.00");
+            assertThat(expansion.onRequest(null, "price_netherite_ingot_median")).isEqualTo("120.00");
+            assertThat(expansion.onRequest(null, "price_netherite_ingot_trades")).isEqualTo("3");
+        }
+
+        @Test
+        @DisplayName("Should show defaults for untraded materials")
+        void untraded() {
+            assertThat(expansion.onRequest(player, "price_diamond_mean")).isEqualTo("无");
+            assertThat(expansion.onRequest(player, "price_diamond_trades")).isEqualTo("0");
+        }
+
+        @Test
+        @DisplayName("Should return null for malformed price placeholders")
+        void malformed() {
+            assertThat(expansion.onRequest(player, "price_not_a_material_mean")).isNull();
+            assertThat(expansion.onRequest(player, "price_diamond_max")).isNull();
+            assertThat(expansion.onRequest(player, "price_mean")).isNull();
+        }
+    }
+
     @Nested
     @DisplayName("Total Trades Placeholder")
     class TotalTrades {
@@ -283,6 +460,19 @@ class TradePlaceholderExpansionTest {
             assertThat(result).doesNotContain("\u4ECE\u672A\u4EA4\u6613"); // Not "从未交易"
         }
 
+        @Test
+        @DisplayName("Should format the last trade time in the server time zone")
+        void lastTradeTimePattern() {
+            PlayerTradeSettings stats = new PlayerTradeSettings(playerUuid, "TestPlayer");
+            stats.setLastTradeTime(1706745600000L);
+            when(logService.getPlayerStats(playerUuid)).thenReturn(stats);
+
+            String result = expansion.onRequest(player, "last_trade_time");
+
+            assertThat(result).isEqualTo(new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm")
+                .format(new java.util.Date(1706745600000L)));
+        }
+
         @Test
         @DisplayName("Should return never traded message when no trades")
         void lastTradeTimeNever() {
@@ -446,4 +636,34 @@ class TradePlaceholderExpansionTest {
             assertThat(result).isEqualTo("true");
         }
     }
+
+    @Nested
+    @DisplayName("Stats Caching")
+    class StatsCaching {
+
+        @Test
+        @DisplayName("Repeated renders should load stats once")
+        void loadOnce() {
+            PlayerTradeSettings stats = new PlayerTradeSettings(playerUuid, "TestPlayer");
+            stats.setTotalTrades(7);
+            when(logService.getPlayerStats(playerUuid)).thenReturn(stats);
+
+            for (int i = 0; i < 20; i++) {
+                assertThat(expansion.onRequest(player, "total_trades")).isEqualTo("7");
+            }
+
+            verify(logService, times(1)).getPlayerStats(playerUuid);
+        }
+
+        @Test
+        @DisplayName("Should prefer settings already loaded in memory")
+        void preferLiveSettings() {
+            PlayerTradeSettings live = new PlayerTradeSettings(playerUuid, "TestPlayer");
+            live.setTotalTrades(3);
+            when(logService.getCachedSettings(playerUuid)).thenReturn(live);
+
+            assertThat(expansion.onRequest(player, "total_trades")).isEqualTo("3");
+            verify(logService, never()).getPlayerStats(any());
+        }
+    }
 }
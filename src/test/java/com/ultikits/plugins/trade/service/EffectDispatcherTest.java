@@ -0,0 +1,220 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("EffectDispatcher Tests")
+class EffectDispatcherTest {
+
+    private TradeMetrics metrics;
+    private Set<Player> reduced;
+    private EffectDispatcher dispatcher;
+    private World world;
+    private Player alice;
+    private Player bob;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new TradeMetrics();
+        reduced = new HashSet<>();
+        TickScheduler scheduler = new TickScheduler(e -> {
+            throw e;
+        });
+        dispatcher = new EffectDispatcher(scheduler, reduced::contains, () -> metrics);
+        dispatcher.setMaxParticlesPerChunk(60);
+
+        world = mock(World.class);
+        alice = playerAt("Alice", 100.5, 64.0, 100.5);
+        bob = playerAt("Bob", 104.5, 64.0, 102.5);
+    }
+
+    private Player playerAt(String name, double x, double y, double z) {
+        Player player = UltiTradeTestHelper.createMockPlayer(name, UUID.randomUUID());
+        when(player.getWorld()).thenReturn(world);
+        when(player.getLocation()).thenAnswer(inv -> new Location(world, x, y, z));
+        return player;
+    }
+
+    @Nested
+    @DisplayName("Unthrottled")
+    class Unthrottled {
+
+        @Test
+        @DisplayName("Should play every effect immediately with a zero cap")
+        void zeroCap() {
+            dispatcher.setMaxParticlesPerChunk(0);
+
+            dispatcher.particles(alice, Particle.VILLAGER_HAPPY, 30, 0.5, 0.5, 0.5, 0.1);
+            dispatcher.particles(bob, Particle.VILLAGER_HAPPY, 30, 0.5, 0.5, 0.5, 0.1);
+            dispatcher.sound(alice, Sound.ENTITY_PLAYER_LEVELUP);
+            dispatcher.sound(alice, Sound.ENTITY_PLAYER_LEVELUP);
+
+            verify(world, times(2)).spawnParticle(eq(Particle.VILLAGER_HAPPY), any(Location.class),
+                eq(30), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+            verify(alice, times(2)).playSound(any(Location.class), eq(Sound.ENTITY_PLAYER_LEVELUP), eq(1.0f), eq(1.0f));
+            assertThat(dispatcher.isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should skip players with reduced effects even with a zero cap")
+        void reducedWithoutCap() {
+            dispatcher.setMaxParticlesPerChunk(0);
+            reduced.add(alice);
+
+            dispatcher.sound(alice, Sound.ENTITY_PLAYER_LEVELUP);
+            dispatcher.particles(alice, Particle.SMOKE_NORMAL, 20, 0.3, 0.3, 0.3, 0.05);
+
+            verify(alice, never()).playSound(any(Location.class), any(Sound.class), anyFloat(), anyFloat());
+            verify(world, never()).spawnParticle(any(Particle.class), any(Location.class),
+                anyInt(), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+            assertThat(metrics.getCount(TradeMetrics.Counter.EFFECTS_DROPPED)).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Aggregation")
+    class Aggregation {
+
+        @Test
+        @DisplayName("Should hold effects until flushed")
+        void holdsUntilFlush() {
+            dispatcher.sound(alice, Sound.ENTITY_PLAYER_LEVELUP);
+            dispatcher.particles(alice, Particle.SMOKE_NORMAL, 20, 0.3, 0.3, 0.3, 0.05);
+
+            assertThat(dispatcher.isEmpty()).isFalse();
+            verifyNoInteractions(world);
+
+            dispatcher.flush();
+
+            assertThat(dispatcher.isEmpty()).isTrue();
+            verify(alice).playSound(any(Location.class), eq(Sound.ENTITY_PLAYER_LEVELUP), eq(1.0f), eq(1.0f));
+            verify(world).spawnParticle(eq(Particle.SMOKE_NORMAL), any(Location.class),
+                eq(20), anyDouble(), anyDouble(), anyDouble(), eq(0.05));
+        }
+
+        @Test
+        @DisplayName("Should merge the same particle in one chunk into one spawn between the players")
+        void mergeSameChunk() {
+            dispatcher.particles(alice, Particle.SMOKE_NORMAL, 20, 0.3, 0.3, 0.3, 0.05);
+            dispatcher.particles(bob, Particle.SMOKE_NORMAL, 20, 0.3, 0.3, 0.3, 0.05);
+
+            dispatcher.flush();
+
+            ArgumentCaptor<Location> at = ArgumentCaptor.forClass(Location.class);
+            verify(world).spawnParticle(eq(Particle.SMOKE_NORMAL), at.capture(),
+                eq(40), eq(2.0), eq(0.3), eq(1.0), eq(0.05));
+            assertThat(at.getValue().getX()).isEqualTo(102.5);
+            assertThat(at.getValue().getY()).isEqualTo(65.0);
+            assertThat(at.getValue().getZ()).isEqualTo(101.5);
+        }
+
+        @Test
+        @DisplayName("Should spawn separately in different chunks")
+        void separateChunks() {
+            Player far = playerAt("Carol", 300.5, 64.0, 100.5);
+
+            dispatcher.particles(alice, Particle.SMOKE_NORMAL, 20, 0.3, 0.3, 0.3, 0.05);
+            dispatcher.particles(far, Particle.SMOKE_NORMAL, 20, 0.3, 0.3, 0.3, 0.05);
+
+            dispatcher.flush();
+
+            verify(world, times(2)).spawnParticle(eq(Particle.SMOKE_NORMAL), any(Location.class),
+                eq(20), eq(0.3), eq(0.3), eq(0.3), eq(0.05));
+        }
+
+        @Test
+        @DisplayName("Should play a repeated sound to the same player once per flush")
+        void dedupeSounds() {
+            dispatcher.sound(alice, Sound.ENTITY_PLAYER_LEVELUP);
+            dispatcher.sound(alice, Sound.ENTITY_PLAYER_LEVELUP);
+            dispatcher.sound(alice, Sound.BLOCK_NOTE_BLOCK_BELL);
+            dispatcher.sound(bob, Sound.ENTITY_PLAYER_LEVELUP);
+
+            dispatcher.flush();
+
+            verify(alice).playSound(any(Location.class), eq(Sound.ENTITY_PLAYER_LEVELUP), eq(1.0f), eq(1.0f));
+            verify(alice).playSound(any(Location.class), eq(Sound.BLOCK_NOTE_BLOCK_BELL), eq(1.0f), eq(1.0f));
+            verify(bob).playSound(any(Location.class), eq(Sound.ENTITY_PLAYER_LEVELUP), eq(1.0f), eq(1.0f));
+            assertThat(metrics.getCount(TradeMetrics.Counter.EFFECTS_DROPPED)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should drop effects of players who went offline before the flush")
+        void offline() {
+            dispatcher.sound(alice, Sound.ENTITY_PLAYER_LEVELUP);
+            dispatcher.particles(alice, Particle.SMOKE_NORMAL, 20, 0.3, 0.3, 0.3, 0.05);
+            when(alice.isOnline()).thenReturn(false);
+
+            dispatcher.flush();
+
+            verify(alice, never()).playSound(any(Location.class), any(Sound.class), anyFloat(), anyFloat());
+            verifyNoInteractions(world);
+            assertThat(metrics.getCount(TradeMetrics.Counter.EFFECTS_DROPPED)).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Cap")
+    class Cap {
+
+        @Test
+        @DisplayName("Should cap particles per chunk and count what was dropped")
+        void capPerChunk() {
+            for (int i = 0; i < 3; i++) {
+                dispatcher.particles(alice, Particle.VILLAGER_HAPPY, 30, 0.5, 0.5, 0.5, 0.1);
+                dispatcher.particles(alice, Particle.END_ROD, 15, 0.3, 0.5, 0.3, 0.05);
+            }
+
+            dispatcher.flush();
+
+            verify(world).spawnParticle(eq(Particle.VILLAGER_HAPPY), any(Location.class),
+                eq(60), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+            verify(world, never()).spawnParticle(eq(Particle.END_ROD), any(Location.class),
+                anyInt(), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+            assertThat(metrics.getCount(TradeMetrics.Counter.PARTICLES_DROPPED)).isEqualTo(30 + 45);
+            assertThat(metrics.getCount(TradeMetrics.Counter.EFFECTS_DROPPED)).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should start a fresh budget on every flush")
+        void budgetPerFlush() {
+            dispatcher.particles(alice, Particle.VILLAGER_HAPPY, 50, 0.5, 0.5, 0.5, 0.1);
+            dispatcher.flush();
+            dispatcher.particles(alice, Particle.VILLAGER_HAPPY, 50, 0.5, 0.5, 0.5, 0.1);
+            dispatcher.flush();
+
+            verify(world, times(2)).spawnParticle(eq(Particle.VILLAGER_HAPPY), any(Location.class),
+                eq(50), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+            assertThat(metrics.getCount(TradeMetrics.Counter.PARTICLES_DROPPED)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should skip players with reduced effects without using the budget")
+        void reduced() {
+            reduced.add(alice);
+
+            dispatcher.particles(alice, Particle.VILLAGER_HAPPY, 60, 0.5, 0.5, 0.5, 0.1);
+            dispatcher.particles(bob, Particle.VILLAGER_HAPPY, 30, 0.5, 0.5, 0.5, 0.1);
+            dispatcher.flush();
+
+            verify(world).spawnParticle(eq(Particle.VILLAGER_HAPPY), any(Location.class),
+                eq(30), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+            assertThat(metrics.getCount(TradeMetrics.Counter.EFFECTS_DROPPED)).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.entity.MaterialPriceData;
+
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PriceIndex Tests")
+class PriceIndexTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private PriceIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UltiTradeTestHelper.setUp();
+        index = new PriceIndex();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        UltiTradeTestHelper.tearDown();
+    }
+
+    @Nested
+    @DisplayName("Observing Trades")
+    class Observing {
+
+        @Test
+        @DisplayName("Should price a single material per unit")
+        void singleMaterial() {
+            boolean recorded = index.observe(Arrays.asList(
+                new ItemStack(Material.DIAMOND, 10), new ItemStack(Material.DIAMOND, 6)), 320.0, NOW);
+
+            assertThat(recorded).isTrue();
+            assertThat(index.getQuote(Material.DIAMOND, NOW).getMean()).isEqualTo(20.0);
+        }
+
+        @Test
+        @DisplayName("Should ignore mixed materials")
+        void mixedMaterials() {
+            boolean recorded = index.observe(Arrays.asList(
+                new ItemStack(Material.DIAMOND, 1), new ItemStack(Material.EMERALD, 1)), 10.0, NOW);
+
+            assertThat(recorded).isFalse();
+            assertThat(index.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should ignore enchanted items")
+        void enchanted() {
+            ItemStack sword = mock(ItemStack.class);
+            when(sword.getType()).thenReturn(Material.DIAMOND_SWORD);
+            when(sword.getAmount()).thenReturn(1);
+            when(sword.getEnchantments()).thenReturn(Collections.singletonMap(mock(Enchantment.class), 5));
+
+            assertThat(index.observe(Collections.singletonList(sword), 500.0, NOW)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should ignore trades without money or items")
+        void nothingToPrice() {
+            assertThat(index.observe(Collections.singletonList(new ItemStack(Material.DIAMOND, 1)), 0.0, NOW))
+                .isFalse();
+            assertThat(index.observe(Collections.emptyList(), 10.0, NOW)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Quotes")
+    class Quotes {
+
+        @Test
+        @DisplayName("Should return null for untraded materials")
+        void untraded() {
+            assertThat(index.getQuote(Material.DIAMOND, NOW)).isNull();
+        }
+
+        @Test
+        @DisplayName("Median should resist a single outlier")
+        void medianOutlier() {
+            index.record(Material.DIAMOND, 10.0, NOW);
+            index.record(Material.DIAMOND, 11.0, NOW);
+            index.record(Material.DIAMOND, 1000.0, NOW);
+
+            PriceIndex.Quote quote = index.getQuote(Material.DIAMOND, NOW);
+            assertThat(quote.getMedian()).isEqualTo(11.0);
+            assertThat(quote.getMean()).isGreaterThan(300.0);
+            assertThat(quote.getTrades()).isEqualTo(3);
+            assertThat(quote.getLastTradeTime()).isEqualTo(NOW);
+        }
+
+        @Test
+        @DisplayName("Older prices should weigh less than recent ones")
+        void decay() {
+            index.record(Material.DIAMOND, 10.0, NOW);
+            index.record(Material.DIAMOND, 20.0, NOW + 10 * PriceIndex.HALF_LIFE_MILLIS);
+
+            PriceIndex.Quote quote = index.getQuote(Material.DIAMOND, NOW + 10 * PriceIndex.HALF_LIFE_MILLIS);
+            assertThat(quote.getMean()).isCloseTo(20.0, within(0.05));
+            assertThat(quote.getMedian()).isEqualTo(20.0);
+        }
+
+        @Test
+        @DisplayName("Should keep only the most recent samples for the median")
+        void ringBuffer() {
+            for (int i = 0; i < PriceIndex.SAMPLES; i++) {
+                index.record(Material.DIAMOND, 1.0, NOW);
+            }
+            for (int i = 0; i < PriceIndex.SAMPLES; i++) {
+                index.record(Material.DIAMOND, 5.0, NOW);
+            }
+
+            assertThat(index.getQuote(Material.DIAMOND, NOW).getMedian()).isEqualTo(5.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistence")
+    class Persistence {
+
+        @Test
+        @DisplayName("Should split dirty rows into inserts and updates")
+        void drain() {
+            index.record(Material.DIAMOND, 10.0, NOW);
+            List<MaterialPriceData> inserts = new ArrayList<>();
+            List<MaterialPriceData> updates = new ArrayList<>();
+
+            index.drainDirty(inserts, updates);
+            assertThat(inserts).extracting(MaterialPriceData::getMaterial).containsExactly("DIAMOND");
+            assertThat(updates).isEmpty();
+
+            index.markStored(inserts.get(0));
+            index.record(Material.DIAMOND, 12.0, NOW);
+            inserts.clear();
+            index.drainDirty(inserts, updates);
+            assertThat(inserts).isEmpty();
+            assertThat(updates).hasSize(1);
+            assertThat(updates.get(0).getTrades()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Drain should clear the dirty set until marked again")
+        void markDirty() {
+            index.record(Material.DIAMOND, 10.0, NOW);
+            List<MaterialPriceData> rows = new ArrayList<>();
+            index.drainDirty(rows, rows);
+
+            List<MaterialPriceData> again = new ArrayList<>();
+            index.drainDirty(again, again);
+            assertThat(again).isEmpty();
+
+            index.markDirty(rows.get(0));
+            index.drainDirty(again, again);
+            assertThat(again).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Should round-trip through persisted rows")
+        void roundTrip() {
+            index.record(Material.DIAMOND, 10.0, NOW);
+            index.record(Material.DIAMOND, 30.0, NOW);
+            index.record(Material.DIAMOND, 20.0, NOW);
+            List<MaterialPriceData> rows = new ArrayList<>();
+            index.drainDirty(rows, rows);
+
+            PriceIndex restored = new PriceIndex();
+            restored.load(rows);
+
+            PriceIndex.Quote quote = restored.getQuote(Material.DIAMOND, NOW);
+            assertThat(quote.getMean()).isEqualTo(20.0);
+            assertThat(quote.getMedian()).isEqualTo(20.0);
+            assertThat(quote.getTrades()).isEqualTo(3);
+
+            // Loaded rows are already stored, so the next save is an update
+            restored.record(Material.DIAMOND, 20.0, NOW);
+            List<MaterialPriceData> inserts = new ArrayList<>();
+            List<MaterialPriceData> updates = new ArrayList<>();
+            restored.drainDirty(inserts, updates);
+            assertThat(inserts).isEmpty();
+            assertThat(updates).containsExactly(rows.get(0));
+        }
+
+        @Test
+        @DisplayName("Should skip unknown materials and broken samples on load")
+        void loadTolerant() {
+            MaterialPriceData unknown = new MaterialPriceData();
+            unknown.setMaterial("NOT_A_MATERIAL");
+            MaterialPriceData broken = new MaterialPriceData();
+            broken.setMaterial("DIAMOND");
+            broken.setMean(7.0);
+            broken.setSamples(NOW + ":7.0;junk;" + NOW + ":x");
+
+            index.load(Arrays.asList(unknown, broken));
+
+            assertThat(index.size()).isEqualTo(1);
+            assertThat(index.getQuote(Material.DIAMOND, NOW).getMedian()).isEqualTo(7.0);
+        }
+    }
+}
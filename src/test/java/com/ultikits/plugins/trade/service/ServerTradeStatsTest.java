@@ -0,0 +1,162 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.ServerTradeStatsData;
+
+import org.junit.jupiter.api.*;
+
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("ServerTradeStats Tests")
+class ServerTradeStatsTest {
+
+    private static final long HOUR = 60L * 60L * 1000L;
+    private static final long DAY = 24L * HOUR;
+    // 2024-01-01T00:00:00Z
+    private static final long MIDNIGHT = 1_704_067_200_000L;
+
+    private ServerTradeStats stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = new ServerTradeStats(ZoneOffset.UTC);
+    }
+
+    @Nested
+    @DisplayName("Trades Today")
+    class TradesToday {
+
+        @Test
+        @DisplayName("Should count trades within the same day")
+        void sameDay() {
+            stats.record(MIDNIGHT + HOUR, 10.0, 0.0);
+            stats.record(MIDNIGHT + 20 * HOUR, 10.0, 0.0);
+
+            assertThat(stats.getTradesToday(MIDNIGHT + 23 * HOUR)).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should read zero once the day has passed")
+        void nextDayRead() {
+            stats.record(MIDNIGHT + HOUR, 10.0, 0.0);
+
+            assertThat(stats.getTradesToday(MIDNIGHT + DAY)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should restart counting on a new day")
+        void nextDayRecord() {
+            stats.record(MIDNIGHT + HOUR, 10.0, 0.0);
+            stats.record(MIDNIGHT + DAY + HOUR, 10.0, 0.0);
+
+            assertThat(stats.getTradesToday(MIDNIGHT + DAY + 2 * HOUR)).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Rolling Volume")
+    class RollingVolume {
+
+        @Test
+        @DisplayName("Should sum volume inside the 24 hour window")
+        void insideWindow() {
+            stats.record(MIDNIGHT, 100.0, 0.0);
+            stats.record(MIDNIGHT + 5 * HOUR, 50.0, 0.0);
+            stats.record(MIDNIGHT + 5 * HOUR + 1000, 25.0, 0.0);
+
+            assertThat(stats.getVolume24h(MIDNIGHT + 23 * HOUR)).isEqualTo(175.0);
+        }
+
+        @Test
+        @DisplayName("Should drop hours older than the window")
+        void expiredHours() {
+            stats.record(MIDNIGHT, 100.0, 0.0);
+            stats.record(MIDNIGHT + 5 * HOUR, 50.0, 0.0);
+
+            assertThat(stats.getVolume24h(MIDNIGHT + 24 * HOUR)).isEqualTo(50.0);
+            assertThat(stats.getVolume24h(MIDNIGHT + 29 * HOUR)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should reset a bucket when its slot is reused")
+        void bucketReuse() {
+            stats.record(MIDNIGHT, 100.0, 0.0);
+            stats.record(MIDNIGHT + DAY, 30.0, 0.0);
+
+            assertThat(stats.getVolume24h(MIDNIGHT + DAY)).isEqualTo(30.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tax")
+    class Tax {
+
+        @Test
+        @DisplayName("Should accumulate tax across days")
+        void accumulate() {
+            stats.record(MIDNIGHT, 100.0, 5.0);
+            stats.record(MIDNIGHT + 3 * DAY, 100.0, 2.5);
+
+            assertThat(stats.getTaxCollected()).isEqualTo(7.5);
+        }
+    }
+
+    @Nested
+    @DisplayName("Snapshots")
+    class Snapshots {
+
+        @Test
+        @DisplayName("Should track dirty state around snapshots")
+        void dirty() {
+            assertThat(stats.isDirty()).isFalse();
+
+            stats.record(MIDNIGHT, 1.0, 0.0);
+            assertThat(stats.isDirty()).isTrue();
+
+            stats.writeTo(new ServerTradeStatsData());
+            assertThat(stats.isDirty()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should round-trip through a snapshot")
+        void roundTrip() {
+            stats.record(MIDNIGHT + HOUR, 100.0, 5.0);
+            stats.record(MIDNIGHT + 2 * HOUR, 40.0, 1.0);
+            ServerTradeStatsData data = new ServerTradeStatsData();
+            stats.writeTo(data);
+
+            ServerTradeStats restored = new ServerTradeStats(ZoneOffset.UTC);
+            restored.readFrom(data);
+
+            long now = MIDNIGHT + 3 * HOUR;
+            assertThat(restored.getTradesToday(now)).isEqualTo(2);
+            assertThat(restored.getVolume24h(now)).isEqualTo(140.0);
+            assertThat(restored.getTaxCollected()).isEqualTo(6.0);
+            assertThat(restored.isDirty()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should skip malformed buckets")
+        void malformedBuckets() {
+            long hour = MIDNIGHT / HOUR;
+            ServerTradeStatsData data = new ServerTradeStatsData();
+            data.setHourlyBuckets(hour + ":10.0;garbage;" + (hour + 1) + ":abc;-5:1.0");
+
+            stats.readFrom(data);
+
+            assertThat(stats.getVolume24h(MIDNIGHT + HOUR)).isEqualTo(10.0);
+        }
+
+        @Test
+        @DisplayName("Should tolerate an empty snapshot")
+        void emptySnapshot() {
+            ServerTradeStatsData data = new ServerTradeStatsData();
+            data.setHourlyBuckets(null);
+
+            stats.readFrom(data);
+
+            assertThat(stats.getVolume24h(MIDNIGHT)).isZero();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.ultikits.plugins.trade.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TickScheduler Tests")
+class TickSchedulerTest {
+
+    private AtomicLong clock;
+    private List<RuntimeException> errors;
+    private List<String> ran;
+    private TickScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        errors = new ArrayList<>();
+        ran = new ArrayList<>();
+        scheduler = new TickScheduler(errors::add, clock::get);
+        scheduler.setBudgetMicros(1000);
+    }
+
+    /**
+     * Task that records its name and takes the given time on the fake clock.
+     */
+    private Runnable task(String name, long micros) {
+        return () -> {
+            ran.add(name);
+            clock.addAndGet(micros * 1000L);
+        };
+    }
+
+    @Nested
+    @DisplayName("Inline")
+    class Inline {
+
+        @Test
+        @DisplayName("Should run tasks immediately with a zero budget")
+        void zeroBudget() {
+            scheduler.setBudgetMicros(0);
+
+            scheduler.defer(TickScheduler.Priority.LOW, task("a", 10));
+
+            assertThat(ran).containsExactly("a");
+            assertThat(scheduler.isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should treat a negative budget as zero")
+        void negativeBudget() {
+            scheduler.setBudgetMicros(-5);
+
+            scheduler.defer(TickScheduler.Priority.HIGH, "key", task("a", 0));
+            scheduler.defer(TickScheduler.Priority.HIGH, "key", task("b", 0));
+
+            assertThat(ran).containsExactly("a", "b");
+        }
+    }
+
+    @Nested
+    @DisplayName("Drain")
+    class Drain {
+
+        @Test
+        @DisplayName("Should queue tasks until drained")
+        void queues() {
+            scheduler.defer(TickScheduler.Priority.NORMAL, task("a", 0));
+
+            assertThat(ran).isEmpty();
+            assertThat(scheduler.size()).isEqualTo(1);
+
+            assertThat(scheduler.drain()).isZero();
+            assertThat(ran).containsExactly("a");
+        }
+
+        @Test
+        @DisplayName("Should drain highest priority first, in queue order within a priority")
+        void priorityOrder() {
+            scheduler.defer(TickScheduler.Priority.LOW, task("low", 0));
+            scheduler.defer(TickScheduler.Priority.NORMAL, task("normal1", 0));
+            scheduler.defer(TickScheduler.Priority.HIGH, task("high", 0));
+            scheduler.defer(TickScheduler.Priority.NORMAL, task("normal2", 0));
+
+            scheduler.drain();
+
+            assertThat(ran).containsExactly("high", "normal1", "normal2", "low");
+        }
+
+        @Test
+        @DisplayName("Should carry tasks over once the budget is spent")
+        void carryOver() {
+            scheduler.defer(TickScheduler.Priority.HIGH, task("a", 600));
+            scheduler.defer(TickScheduler.Priority.NORMAL, task("b", 600));
+            scheduler.defer(TickScheduler.Priority.LOW, task("c", 600));
+
+            assertThat(scheduler.drain()).isEqualTo(1);
+            assertThat(ran).containsExactly("a", "b");
+
+            assertThat(scheduler.drain()).isZero();
+            assertThat(ran).containsExactly("a", "b", "c");
+        }
+
+        @Test
+        @DisplayName("Should run at least one task even if it exceeds the budget")
+        void atLeastOne() {
+            scheduler.defer(TickScheduler.Priority.LOW, task("slow", 5000));
+            scheduler.defer(TickScheduler.Priority.LOW, task("next", 0));
+
+            assertThat(scheduler.drain()).isEqualTo(1);
+            assertThat(ran).containsExactly("slow");
+        }
+
+        @Test
+        @DisplayName("Should drain everything once the budget is set to zero")
+        void budgetCleared() {
+            scheduler.defer(TickScheduler.Priority.LOW, task("a", 5000));
+            scheduler.defer(TickScheduler.Priority.LOW, task("b", 5000));
+            scheduler.setBudgetMicros(0);
+
+            assertThat(scheduler.drain()).isZero();
+            assertThat(ran).containsExactly("a", "b");
+        }
+
+        @Test
+        @DisplayName("Should report a failing task and keep draining")
+        void failingTask() {
+            IllegalStateException failure = new IllegalStateException("boom");
+            scheduler.defer(TickScheduler.Priority.HIGH, () -> {
+                throw failure;
+            });
+            scheduler.defer(TickScheduler.Priority.HIGH, task("after", 0));
+
+            assertThat(scheduler.drain()).isZero();
+
+            assertThat(errors).containsExactly(failure);
+            assertThat(ran).containsExactly("after");
+        }
+    }
+
+    @Nested
+    @DisplayName("Coalescing")
+    class Coalescing {
+
+        @Test
+        @DisplayName("Should drop a task whose key is already queued")
+        void dropsDuplicate() {
+            scheduler.defer(TickScheduler.Priority.HIGH, "session", task("first", 0));
+            scheduler.defer(TickScheduler.Priority.HIGH, "session", task("second", 0));
+            scheduler.defer(TickScheduler.Priority.HIGH, "other", task("other", 0));
+
+            assertThat(scheduler.size()).isEqualTo(2);
+            scheduler.drain();
+            assertThat(ran).containsExactly("first", "other");
+        }
+
+        @Test
+        @DisplayName("Should accept the key again once its task has run")
+        void requeueAfterRun() {
+            scheduler.defer(TickScheduler.Priority.HIGH, "session", task("first", 0));
+            scheduler.drain();
+            scheduler.defer(TickScheduler.Priority.HIGH, "session", task("second", 0));
+            scheduler.drain();
+
+            assertThat(ran).containsExactly("first", "second");
+        }
+
+        @Test
+        @DisplayName("Should never coalesce tasks without a key")
+        void nullKey() {
+            scheduler.defer(TickScheduler.Priority.NORMAL, task("a", 0));
+            scheduler.defer(TickScheduler.Priority.NORMAL, task("b", 0));
+
+            assertThat(scheduler.size()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Flush")
+    class Flush {
+
+        @Test
+        @DisplayName("Should run every queued task regardless of the budget")
+        void flushAll() {
+            scheduler.defer(TickScheduler.Priority.LOW, task("a", 5000));
+            scheduler.defer(TickScheduler.Priority.HIGH, "key", task("b", 5000));
+
+            scheduler.flush();
+
+            assertThat(ran).containsExactly("b", "a");
+            assertThat(scheduler.isEmpty()).isTrue();
+            scheduler.defer(TickScheduler.Priority.HIGH, "key", task("c", 0));
+            assertThat(scheduler.size()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
+import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.gui.TradeLayout;
+import com.ultikits.plugins.trade.service.TradeInputService.InputType;
+
+import net.milkbowl.vault.economy.Economy;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TradeInputService Tests")
+class TradeInputServiceTest {
+
+    private TradeInputService service;
+    private TradeService tradeService;
+    private TradeConfig config;
+    private Player player1;
+    private Player player2;
+    private UUID uuid1;
+    private UUID uuid2;
+    private TradeSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UltiTradeTestHelper.setUp();
+
+        config = UltiTradeTestHelper.createDefaultConfig();
+        tradeService = mock(TradeService.class);
+        when(tradeService.getConfig()).thenReturn(config);
+        when(tradeService.getLayout()).thenReturn(TradeLayout.DEFAULT_TRADE);
+        lenient().when(tradeService.getSettings(any(TradeSession.class))).thenAnswer(inv ->
+            TradeConfigSnapshot.of(config, TradeLayout.DEFAULT_TRADE, TradeLayout.DEFAULT_CONFIRM));
+
+        service = new TradeInputService();
+        UltiTradeTestHelper.setField(service, "tradeService", tradeService);
+
+        uuid1 = UUID.randomUUID();
+        uuid2 = UUID.randomUUID();
+        player1 = UltiTradeTestHelper.createMockPlayer("Player1", uuid1);
+        player2 = UltiTradeTestHelper.createMockPlayer("Player2", uuid2);
+
+        session = new TradeSession(player1, player2);
+        when(tradeService.getSession(uuid1)).thenReturn(session);
+        when(tradeService.getSession(uuid2)).thenReturn(session);
+        when(tradeService.isTrading(any())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        UltiTradeTestHelper.tearDown();
+    }
+
+    @Nested
+    @DisplayName("Prompt Registration")
+    class PromptRegistration {
+
+        @Test
+        @DisplayName("prompt should mark the player as waiting")
+        void promptWaiting() {
+            service.prompt(player1, InputType.MONEY);
+
+            assertThat(service.isWaiting(uuid1)).isTrue();
+            assertThat(service.isWaiting(uuid2)).isFalse();
+        }
+
+        @Test
+        @DisplayName("cancel should drop the prompt")
+        void cancelPrompt() {
+            service.prompt(player1, InputType.MONEY);
+
+            service.cancel(uuid1);
+
+            assertThat(service.isWaiting(uuid1)).isFalse();
+            assertThat(service.handleChat(player1, "100")).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Chat Parsing")
+    class ChatParsing {
+
+        @Test
+        @DisplayName("Should ignore chat without a prompt")
+        void ignoreWithoutPrompt() {
+            assertThat(service.handleChat(player1, "100")).isFalse();
+            verify(player1, never()).sendMessage(anyString());
+        }
+
+        @Test
+        @DisplayName("Should consume the prompt once")
+        void consumeOnce() {
+            service.prompt(player1, InputType.MONEY);
+
+            assertThat(service.handleChat(player1, "100")).isTrue();
+            assertThat(service.handleChat(player1, "200")).isFalse();
+            assertThat(service.isWaiting(uuid1)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should handle cancel input")
+        void cancelInput() {
+            service.prompt(player1, InputType.MONEY);
+
+            assertThat(service.handleChat(player1, " CANCEL ")).isTrue();
+            verify(player1).sendMessage(contains("取消输入"));
+
+            service.tick();
+            verify(player1).openInventory(any(Inventory.class));
+            assertThat(session.getPlayerMoney(uuid1)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should reject negative values")
+        void rejectNegative() {
+            service.prompt(player1, InputType.MONEY);
+
+            assertThat(service.handleChat(player1, "-100")).isTrue();
+            verify(player1).sendMessage(contains("不能为负数"));
+        }
+
+        @Test
+        @DisplayName("Should reject invalid numbers")
+        void rejectInvalid() {
+            service.prompt(player1, InputType.MONEY);
+            assertThat(service.handleChat(player1, "not_a_number")).isTrue();
+
+            service.prompt(player1, InputType.MONEY);
+            assertThat(service.handleChat(player1, "NaN")).isTrue();
+
+            verify(player1, times(2)).sendMessage(contains("无效的数值"));
+        }
+
+        @Test
+        @DisplayName("Only one concurrent message should answer a prompt")
+        void concurrentChat() throws Exception {
+            service.prompt(player1, InputType.EXPERIENCE);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> futures = new ArrayList<>();
+            try {
+                for (int i = 0; i < 8; i++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return service.handleChat(player1, "10");
+                    }));
+                }
+                start.countDown();
+
+                int consumed = 0;
+                for (Future<Boolean> future : futures) {
+                    if (future.get(5, TimeUnit.SECONDS)) {
+                        consumed++;
+                    }
+                }
+                assertThat(consumed).isEqualTo(1);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Tick Processing")
+    class TickProcessing {
+
+        @Test
+        @DisplayName("Money should only be applied on the next tick")
+        void applyMoneyOnTick() {
+            when(tradeService.hasEconomy(any(TradeSession.class))).thenReturn(true);
+            Economy economy = UltiTradeTestHelper.createMockEconomy();
+            when(tradeService.getEconomy()).thenReturn(economy);
+            service.prompt(player1, InputType.MONEY);
+
+            service.handleChat(player1, "500");
+            assertThat(session.getPlayerMoney(uuid1)).isZero();
+
+            service.tick();
+            assertThat(session.getPlayerMoney(uuid1)).isEqualTo(500.0);
+            verify(player1).sendMessage(contains("金币"));
+            verify(player1).openInventory(any(Inventory.class));
+        }
+
+        @Test
+        @DisplayName("Should apply experience input")
+        void applyExp() {
+            when(tradeService.getTotalExperience(player1)).thenReturn(1000);
+            service.prompt(player1, InputType.EXPERIENCE);
+
+            service.handleChat(player1, "500");
+            service.tick();
+
+            assertThat(session.getPlayerExp(uuid1)).isEqualTo(500);
+            verify(player1).sendMessage(contains("经验"));
+        }
+
+        @Test
+        @DisplayName("Should apply every queued input in one tick")
+        void batchApply() {
+            when(tradeService.getTotalExperience(any(Player.class))).thenReturn(1000);
+            service.prompt(player1, InputType.EXPERIENCE);
+            service.prompt(player2, InputType.EXPERIENCE);
+
+            service.handleChat(player1, "100");
+            service.handleChat(player2, "200");
+            service.tick();
+
+            assertThat(session.getPlayerExp(uuid1)).isEqualTo(100);
+            assertThat(session.getPlayerExp(uuid2)).isEqualTo(200);
+        }
+
+        @Test
+        @DisplayName("Should reject money input exceeding balance")
+        void rejectInsufficientBalance() {
+            when(tradeService.hasEconomy(any(TradeSession.class))).thenReturn(true);
+            Economy economy = mock(Economy.class);
+            when(economy.getBalance(player1)).thenReturn(100.0);
+            when(tradeService.getEconomy()).thenReturn(economy);
+            service.prompt(player1, InputType.MONEY);
+
+            service.handleChat(player1, "500");
+            service.tick();
+
+            assertThat(session.getPlayerMoney(uuid1)).isZero();
+            verify(player1).sendMessage(contains("余额不足"));
+        }
+
+        @Test
+        @DisplayName("Should reject exp input exceeding available exp")
+        void rejectInsufficientExp() {
+            when(tradeService.getTotalExperience(player1)).thenReturn(100);
+            service.prompt(player1, InputType.EXPERIENCE);
+
+            service.handleChat(player1, "500");
+            service.tick();
+
+            assertThat(session.getPlayerExp(uuid1)).isZero();
+            verify(player1).sendMessage(contains("经验不足"));
+        }
+
+        @Test
+        @DisplayName("Should report a trade that ended during input")
+        void tradeEnded() {
+            when(tradeService.getSession(uuid1)).thenReturn(null);
+            service.prompt(player1, InputType.MONEY);
+
+            service.handleChat(player1, "500");
+            service.tick();
+
+            verify(player1).sendMessage(contains("交易已结束"));
+            verify(player1, never()).openInventory(any(Inventory.class));
+        }
+
+        @Test
+        @DisplayName("Expired prompts should reopen the trade window")
+        void expirePrompt() {
+            when(config.getInputTimeout()).thenReturn(0);
+            when(Bukkit.getServer().getPlayer(uuid1)).thenReturn(player1);
+            service.prompt(player1, InputType.MONEY);
+
+            assertThat(service.handleChat(player1, "500")).isFalse();
+
+            service.tick();
+            assertThat(service.isWaiting(uuid1)).isFalse();
+            verify(player1).openInventory(any(Inventory.class));
+        }
+
+        @Test
+        @DisplayName("A stale deadline should not expire a newer prompt")
+        void staleDeadline() {
+            when(config.getInputTimeout()).thenReturn(0, 10);
+            service.prompt(player1, InputType.MONEY);
+            service.prompt(player1, InputType.EXPERIENCE);
+
+            service.tick();
+
+            assertThat(service.isWaiting(uuid1)).isTrue();
+            verify(player1, never()).openInventory(any(Inventory.class));
+        }
+
+        @Test
+        @DisplayName("Prompts should time out as configured when the trade started")
+        void sessionTimeout() {
+            when(config.getInputTimeout()).thenReturn(0);
+            TradeConfigSnapshot started = TradeConfigSnapshot.of(config,
+                TradeLayout.DEFAULT_TRADE, TradeLayout.DEFAULT_CONFIRM);
+            when(tradeService.getSettings(session)).thenReturn(started);
+            when(config.getInputTimeout()).thenReturn(60);
+            when(Bukkit.getServer().getPlayer(uuid1)).thenReturn(player1);
+
+            service.prompt(player1, InputType.MONEY);
+            service.tick();
+
+            assertThat(service.isWaiting(uuid1)).isFalse();
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.entity.TradeSession;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradeJournal Tests")
+class TradeJournalTest {
+
+    @TempDir
+    File dir;
+
+    private File file;
+    private UUID uuid1;
+    private UUID uuid2;
+    private Player player1;
+    private Player player2;
+
+    @BeforeEach
+    void setUp() {
+        file = new File(dir, "journal/sessions.journal");
+        uuid1 = UUID.randomUUID();
+        uuid2 = UUID.randomUUID();
+        player1 = UltiTradeTestHelper.createMockPlayer("Player1", uuid1);
+        player2 = UltiTradeTestHelper.createMockPlayer("Player2", uuid2);
+    }
+
+    /**
+     * Journal with a plain-text codec, so tests need no Bukkit serialization.
+     */
+    private TradeJournal journal() {
+        return new TradeJournal(file,
+            item -> {
+                if (item.getType() == Material.BARRIER) {
+                    throw new IllegalStateException("not serializable");
+                }
+                return item.getType().name() + "*" + item.getAmount();
+            },
+            encoded -> {
+                String[] parts = encoded.split("\\*");
+                return new ItemStack(Material.valueOf(parts[0]), Integer.parseInt(parts[1]));
+            });
+    }
+
+    private static List<String> names(List<ItemStack> items) {
+        return items.stream()
+            .map(item -> item.getType().name() + "*" + item.getAmount())
+            .collect(Collectors.toList());
+    }
+
+    private TradeSession open(TradeJournal journal) {
+        TradeSession session = new TradeSession(player1, player2);
+        journal.open(session);
+        return session;
+    }
+
+    @Nested
+    @DisplayName("Replay")
+    class Replay {
+
+        @Test
+        @DisplayName("Should return the offers of an interrupted session to their owners")
+        void interrupted() throws IOException {
+            TradeJournal before = journal();
+            TradeSession session = open(before);
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            session.setItem(uuid1, 1, new ItemStack(Material.EMERALD, 3));
+            session.setItem(uuid1, 1, null);
+            session.setItem(uuid2, 0, new ItemStack(Material.GOLD_INGOT, 5));
+            session.setMoney(uuid1, 250.0);
+            session.setExp(uuid2, 40);
+            assertThat(before.sync()).isEqualTo(7);
+
+            TradeJournal after = journal();
+            TradeJournal.Recovery recovery = after.recover();
+
+            assertThat(recovery.getSessions()).isEqualTo(1);
+            assertThat(recovery.getStacks()).isEqualTo(2);
+            assertThat(recovery.getMoney()).isEqualTo(250.0);
+            assertThat(recovery.getExp()).isEqualTo(40);
+            assertThat(names(after.takeReturns(uuid1))).containsExactly("DIAMOND*10");
+            assertThat(names(after.takeReturns(uuid2))).containsExactly("GOLD_INGOT*5");
+        }
+
+        @Test
+        @DisplayName("Should not return stacks offered after the owner was last saved")
+        void offeredAfterSave() throws IOException {
+            TradeJournal before = journal();
+            TradeSession session = open(before);
+            long offered = System.currentTimeMillis();
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            session.setItem(uuid2, 0, new ItemStack(Material.GOLD_INGOT, 5));
+            before.sync();
+
+            // Player1 was saved before offering, player2 after
+            TradeJournal after = journal();
+            TradeJournal.Recovery recovery = after.recover(
+                player -> player.equals(uuid1) ? offered - 1 : Long.MAX_VALUE);
+
+            assertThat(recovery.getStacks()).isEqualTo(1);
+            assertThat(recovery.getInInventory()).isEqualTo(1);
+            assertThat(after.takeReturns(uuid1)).isEmpty();
+            assertThat(names(after.takeReturns(uuid2))).containsExactly("GOLD_INGOT*5");
+        }
+
+        @Test
+        @DisplayName("Should return stacks from lines written without an offer time")
+        void unstampedLine() throws IOException {
+            UUID session = UUID.randomUUID();
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(file.toPath(), ("O " + session + " " + uuid1 + " " + uuid2 + "\n"
+                + "I " + session + " " + uuid1 + " 0 DIAMOND*10\n").getBytes(StandardCharsets.UTF_8));
+
+            TradeJournal after = journal();
+            assertThat(after.recover(player -> 1L).getStacks()).isEqualTo(1);
+            assertThat(names(after.takeReturns(uuid1))).containsExactly("DIAMOND*10");
+        }
+
+        @Test
+        @DisplayName("Should copy items when they are offered")
+        void copiesItems() throws IOException {
+            TradeJournal before = journal();
+            TradeSession session = open(before);
+            ItemStack diamond = new ItemStack(Material.DIAMOND, 10);
+            session.setItem(uuid1, 0, diamond);
+            diamond.setAmount(1);
+            before.sync();
+
+            TradeJournal after = journal();
+            after.recover();
+
+            assertThat(names(after.takeReturns(uuid1))).containsExactly("DIAMOND*10");
+        }
+
+        @Test
+        @DisplayName("Should not return anything from finished sessions and empty the file")
+        void finished() throws IOException {
+            TradeJournal before = journal();
+            TradeSession completed = open(before);
+            completed.setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            completed.setState(TradeSession.TradeState.COMPLETED);
+            TradeSession cancelled = open(before);
+            cancelled.setItem(uuid2, 0, new ItemStack(Material.GOLD_INGOT, 5));
+            cancelled.setState(TradeSession.TradeState.CANCELLED);
+            before.sync();
+
+            assertThat(file.length()).isZero();
+            assertThat(journal().recover().getSessions()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should stop journaling a session once it has finished")
+        void detaches() throws IOException {
+            TradeJournal journal = journal();
+            TradeSession session = open(journal);
+            session.setState(TradeSession.TradeState.CANCELLED);
+            journal.sync();
+
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+
+            assertThat(journal.sync()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should skip a torn last line")
+        void tornLine() throws IOException {
+            TradeJournal before = journal();
+            TradeSession session = open(before);
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            before.sync();
+            Files.write(file.toPath(), ("I " + session.getSessionId() + " " + uuid1 + " 1")
+                .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+            TradeJournal after = journal();
+            assertThat(after.recover().getStacks()).isEqualTo(1);
+            assertThat(names(after.takeReturns(uuid1))).containsExactly("DIAMOND*10");
+        }
+
+        @Test
+        @DisplayName("Should count items that cannot be read")
+        void unreadable() throws IOException {
+            UUID session = UUID.randomUUID();
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(file.toPath(), ("O " + session + " " + uuid1 + " " + uuid2 + "\n"
+                + "I " + session + " " + uuid1 + " 0 NOT_A_MATERIAL*1\n"
+                + "I " + session + " " + uuid1 + " 1 DIAMOND*2\n").getBytes(StandardCharsets.UTF_8));
+
+            TradeJournal.Recovery recovery = journal().recover();
+
+            assertThat(recovery.getStacks()).isEqualTo(1);
+            assertThat(recovery.getUnreadable()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should start empty without a journal file")
+        void noFile() throws IOException {
+            TradeJournal.Recovery recovery = journal().recover();
+
+            assertThat(recovery.getSessions()).isZero();
+            assertThat(recovery.getStacks()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Returns")
+    class Returns {
+
+        @Test
+        @DisplayName("Should keep unclaimed returns across restarts")
+        void survivesRestart() throws IOException {
+            TradeJournal first = journal();
+            open(first).setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            first.sync();
+            journal().recover();
+
+            TradeJournal third = journal();
+            TradeJournal.Recovery recovery = third.recover();
+
+            assertThat(recovery.getSessions()).isZero();
+            assertThat(recovery.getStacks()).isEqualTo(1);
+            assertThat(third.getPendingReturns()).isEqualTo(1);
+            assertThat(third.takeReturns(uuid1)).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Should hand returns out once and forget them after the next sync")
+        void takeOnce() throws IOException {
+            TradeJournal first = journal();
+            open(first).setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            first.sync();
+            TradeJournal second = journal();
+            second.recover();
+
+            assertThat(second.takeReturns(uuid1)).hasSize(1);
+            assertThat(second.takeReturns(uuid1)).isEmpty();
+            second.sync();
+
+            assertThat(file.length()).isZero();
+            assertThat(journal().recover().getStacks()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should keep returns of other players when one claims")
+        void othersKept() throws IOException {
+            TradeJournal first = journal();
+            TradeSession session = open(first);
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            session.setItem(uuid2, 0, new ItemStack(Material.GOLD_INGOT, 5));
+            first.sync();
+            TradeJournal second = journal();
+            second.recover();
+
+            second.takeReturns(uuid1);
+            second.sync();
+
+            TradeJournal third = journal();
+            third.recover();
+            assertThat(third.takeReturns(uuid1)).isEmpty();
+            assertThat(names(third.takeReturns(uuid2))).containsExactly("GOLD_INGOT*5");
+        }
+
+        @Test
+        @DisplayName("Should hand returns out before recording them as handed out")
+        void handOutFirst() throws IOException {
+            TradeJournal first = journal();
+            open(first).setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            first.sync();
+            TradeJournal second = journal();
+            second.recover();
+            List<String> handed = new ArrayList<>();
+
+            second.takeReturns(uuid1, items -> {
+                handed.addAll(names(items));
+                assertThat(second.sync()).isZero();
+            });
+
+            assertThat(handed).containsExactly("DIAMOND*10");
+            assertThat(second.sync()).isEqualTo(1);
+            assertThat(file.length()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Sync")
+    class Sync {
+
+        @Test
+        @DisplayName("Should write nothing when nothing changed")
+        void nothingQueued() throws IOException {
+            assertThat(journal().sync()).isZero();
+            assertThat(file).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("Should compact the file once it grows too large")
+        void compacts() throws IOException {
+            TradeJournal journal = journal();
+            TradeSession session = open(journal);
+            ItemStack diamond = new ItemStack(Material.DIAMOND, 10);
+            for (int i = 0; i < 20000; i++) {
+                session.setItem(uuid1, 0, diamond);
+                session.setItem(uuid1, 0, null);
+            }
+            session.setItem(uuid1, 1, diamond);
+            journal.sync();
+
+            assertThat(file.length()).isLessThan(TradeJournal.COMPACT_BYTES);
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            assertThat(lines).hasSize(2);
+            TradeJournal after = journal();
+            after.recover();
+            assertThat(names(after.takeReturns(uuid1))).containsExactly("DIAMOND*10");
+        }
+
+        @Test
+        @DisplayName("Should keep offer times when compacting")
+        void compactKeepsTimes() throws IOException {
+            TradeJournal journal = journal();
+            TradeSession session = open(journal);
+            ItemStack diamond = new ItemStack(Material.DIAMOND, 10);
+            for (int i = 0; i < 20000; i++) {
+                session.setItem(uuid1, 0, diamond);
+                session.setItem(uuid1, 0, null);
+            }
+            session.setItem(uuid1, 1, diamond);
+            journal.sync();
+
+            TradeJournal after = journal();
+            assertThat(after.recover(player -> 0L).getInInventory()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should report items it cannot serialize and still write the rest")
+        void unencodable() throws IOException {
+            TradeJournal journal = journal();
+            TradeSession session = open(journal);
+            session.setItem(uuid1, 0, new ItemStack(Material.BARRIER, 1));
+            session.setItem(uuid1, 1, new ItemStack(Material.DIAMOND, 10));
+
+            assertThatThrownBy(journal::sync).isInstanceOf(IOException.class);
+
+            TradeJournal after = journal();
+            assertThat(after.recover().getStacks()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should hold changes back while the caller is not ready")
+        void notReady() throws IOException {
+            TradeJournal journal = journal();
+            TradeSession session = open(journal);
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            journal.sync();
+            session.setState(TradeSession.TradeState.COMPLETED);
+
+            assertThat(journal.sync(() -> false)).isZero();
+            assertThat(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)).hasSize(2);
+
+            assertThat(journal.sync()).isEqualTo(1);
+            assertThat(file.length()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should leave changes made while the caller gets ready for the next sync")
+        void takenBeforeReady() throws IOException {
+            TradeJournal journal = journal();
+            TradeSession session = open(journal);
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+
+            int written = journal.sync(() -> {
+                session.setState(TradeSession.TradeState.CANCELLED);
+                return true;
+            });
+
+            assertThat(written).isEqualTo(2);
+            assertThat(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)).hasSize(2);
+            assertThat(journal.sync()).isEqualTo(1);
+            assertThat(file.length()).isZero();
+        }
+
+        @Test
+        @DisplayName("close should keep the file as it was when the caller is not ready")
+        void closeNotReady() throws IOException {
+            TradeJournal journal = journal();
+            TradeSession session = open(journal);
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            journal.sync();
+            session.setState(TradeSession.TradeState.CANCELLED);
+
+            journal.close(() -> false);
+
+            assertThat(journal().recover().getStacks()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("close should sync what is left")
+        void closeSyncs() throws IOException {
+            TradeJournal journal = journal();
+            open(journal).setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+
+            journal.close();
+
+            assertThat(journal().recover().getStacks()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+import com.ultikits.plugins.trade.service.TradeLeaderboard.Entry;
+import com.ultikits.plugins.trade.service.TradeLeaderboard.Metric;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradeLeaderboard Tests")
+class TradeLeaderboardTest {
+
+    private TradeLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new TradeLeaderboard();
+    }
+
+    private static PlayerTradeSettings settings(String name, int trades, double money, int exp) {
+        PlayerTradeSettings settings = new PlayerTradeSettings(UUID.randomUUID(), name);
+        settings.setTotalTrades(trades);
+        settings.setTotalMoneyTraded(money);
+        settings.setTotalExpTraded(exp);
+        return settings;
+    }
+
+    @Nested
+    @DisplayName("Ranking")
+    class Ranking {
+
+        @Test
+        @DisplayName("Should rank each metric independently")
+        void perMetric() {
+            leaderboard.update(settings("Alice", 10, 5.0, 300));
+            leaderboard.update(settings("Bob", 3, 900.0, 100));
+            leaderboard.update(settings("Carol", 7, 50.0, 500));
+
+            assertThat(leaderboard.getTop(Metric.TRADES, 3)).extracting(Entry::getPlayerName)
+                .containsExactly("Alice", "Carol", "Bob");
+            assertThat(leaderboard.getTop(Metric.MONEY, 3)).extracting(Entry::getPlayerName)
+                .containsExactly("Bob", "Carol", "Alice");
+            assertThat(leaderboard.getTop(Metric.EXP, 3)).extracting(Entry::getPlayerName)
+                .containsExactly("Carol", "Alice", "Bob");
+        }
+
+        @Test
+        @DisplayName("Should keep players with equal values")
+        void ties() {
+            leaderboard.update(settings("Alice", 4, 0, 0));
+            leaderboard.update(settings("Bob", 4, 0, 0));
+
+            assertThat(leaderboard.getTop(Metric.TRADES, 10)).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("Should move a player when their stats change")
+        void reRank() {
+            PlayerTradeSettings alice = settings("Alice", 1, 0, 0);
+            leaderboard.update(alice);
+            leaderboard.update(settings("Bob", 2, 0, 0));
+
+            alice.incrementTradeStats(0, 0);
+            alice.incrementTradeStats(0, 0);
+            leaderboard.update(alice);
+
+            assertThat(leaderboard.getEntry(Metric.TRADES, 1).getPlayerName()).isEqualTo("Alice");
+            assertThat(leaderboard.getEntry(Metric.TRADES, 1).getValue()).isEqualTo(3);
+            assertThat(leaderboard.size()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("getTop should respect the limit")
+        void limit() {
+            for (int i = 0; i < 20; i++) {
+                leaderboard.update(settings("P" + i, i, 0, 0));
+            }
+
+            assertThat(leaderboard.getTop(Metric.TRADES, 5)).extracting(Entry::getPlayerName)
+                .containsExactly("P19", "P18", "P17", "P16", "P15");
+            assertThat(leaderboard.getTop(Metric.TRADES, 0)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("getEntry should return null outside the ranked range")
+        void entryOutOfRange() {
+            leaderboard.update(settings("Alice", 1, 0, 0));
+
+            assertThat(leaderboard.getEntry(Metric.TRADES, 0)).isNull();
+            assertThat(leaderboard.getEntry(Metric.TRADES, 2)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should ignore settings without a player")
+        void missingUuid() {
+            leaderboard.update(new PlayerTradeSettings());
+
+            assertThat(leaderboard.size()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Loading")
+    class Loading {
+
+        @Test
+        @DisplayName("Should not overwrite players updated before loading finished")
+        void liveUpdatesWin() {
+            PlayerTradeSettings live = settings("Alice", 5, 0, 0);
+            leaderboard.update(live);
+
+            PlayerTradeSettings stale = new PlayerTradeSettings(UUID.fromString(live.getPlayerUuid()), "Alice");
+            stale.setTotalTrades(4);
+            leaderboard.load(Arrays.asList(stale, settings("Bob", 1, 0, 0)));
+
+            assertThat(leaderboard.getEntry(Metric.TRADES, 1).getValue()).isEqualTo(5);
+            assertThat(leaderboard.size()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should resolve duplicate rows to the lowest id")
+        void duplicateRows() {
+            UUID uuid = UUID.randomUUID();
+            PlayerTradeSettings duplicate = new PlayerTradeSettings(uuid, "Duplicate");
+            duplicate.setId("settings-200");
+            duplicate.setTotalTrades(99);
+            PlayerTradeSettings canonical = new PlayerTradeSettings(uuid, "Canonical");
+            canonical.setId("settings-100");
+            canonical.setTotalTrades(2);
+
+            leaderboard.load(Arrays.asList(duplicate, canonical));
+
+            assertThat(leaderboard.size()).isEqualTo(1);
+            assertThat(leaderboard.getEntry(Metric.TRADES, 1).getPlayerName()).isEqualTo("Canonical");
+        }
+    }
+
+    @Nested
+    @DisplayName("Metric")
+    class MetricTests {
+
+        @Test
+        @DisplayName("parse should be case-insensitive and reject unknown names")
+        void parse() {
+            assertThat(Metric.parse("Money")).isEqualTo(Metric.MONEY);
+            assertThat(Metric.parse("gold")).isNull();
+            assertThat(Metric.parse(null)).isNull();
+        }
+
+        @Test
+        @DisplayName("format should show money with two decimals")
+        void format() {
+            assertThat(Metric.MONEY.format(3.0)).isEqualTo("3.00");
+            assertThat(Metric.TRADES.format(3.0)).isEqualTo("3");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.TradeLogData;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradeLogArchive Tests")
+class TradeLogArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private TradeLogArchive archive;
+    private final YearMonth january = YearMonth.of(2024, 1);
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        archive = new TradeLogArchive(dir.toFile(), ZoneOffset.UTC);
+    }
+
+    private static long time(int year, int month, int day) {
+        return ZonedDateTime.of(year, month, day, 12, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private TradeLogData log(UUID player1, UUID player2, long time) {
+        TradeLogData log = new TradeLogData(UUID.randomUUID(), player1, "P1", player2, "P2");
+        log.setId(log.getTradeId());
+        log.setTradeTime(time);
+        log.setPlayer1Money(12.5);
+        log.setPlayer1ItemsJson("[\n  {\n    \"type\": \"DIAMOND\"\n  }\n]");
+        log.markCompleted();
+        return log;
+    }
+
+    private List<TradeLogData> search(UUID player) throws IOException {
+        return archive.search(january, player == null ? null : player.toString(),
+            Long.MIN_VALUE, Long.MAX_VALUE, 1000);
+    }
+
+    @Test
+    @DisplayName("Should split logs into monthly files and read them back intact")
+    void monthlyRoundTrip() throws IOException {
+        TradeLogData jan = log(alice, bob, time(2024, 1, 5));
+        TradeLogData feb = log(alice, bob, time(2024, 2, 5));
+
+        archive.append(Arrays.asList(jan, feb));
+
+        assertThat(archive.getMonths()).containsExactly(january, YearMonth.of(2024, 2));
+        List<TradeLogData> found = search(null);
+        assertThat(found).containsExactly(jan);
+        assertThat(found.get(0).getPlayer1ItemsJson()).isEqualTo(jan.getPlayer1ItemsJson());
+        assertThat(found.get(0).getPlayer1Money()).isEqualTo(12.5);
+    }
+
+    @Test
+    @DisplayName("Appends should add blocks without rewriting earlier ones")
+    void appendOnly() throws IOException {
+        archive.append(Collections.singletonList(log(alice, bob, time(2024, 1, 1))));
+        byte[] before = Files.readAllBytes(archive.dataFile(january).toPath());
+
+        archive.append(Collections.singletonList(log(bob, alice, time(2024, 1, 2))));
+
+        byte[] after = Files.readAllBytes(archive.dataFile(january).toPath());
+        assertThat(Arrays.copyOf(after, before.length)).isEqualTo(before);
+        assertThat(archive.readIndex(january)).hasSize(2);
+        assertThat(search(null)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Large batches should be split into fixed-size blocks")
+    void blocks() throws IOException {
+        List<TradeLogData> logs = new ArrayList<>();
+        for (int i = 0; i < TradeLogArchive.BLOCK_ROWS + 10; i++) {
+            logs.add(log(alice, bob, time(2024, 1, 1) + i));
+        }
+
+        archive.append(logs);
+
+        assertThat(archive.readIndex(january)).extracting(block -> block.rows)
+            .containsExactly(TradeLogArchive.BLOCK_ROWS, 10);
+        List<TradeLogData> found = archive.search(january, null, Long.MIN_VALUE, Long.MAX_VALUE, 5);
+        assertThat(found).hasSize(5);
+        assertThat(found.get(0).getTradeTime()).isEqualTo(time(2024, 1, 1) + TradeLogArchive.BLOCK_ROWS + 9);
+    }
+
+    @Test
+    @DisplayName("Player and time filters should be exact, newest first")
+    void filters() throws IOException {
+        UUID carol = UUID.randomUUID();
+        TradeLogData first = log(alice, bob, time(2024, 1, 1));
+        TradeLogData second = log(carol, alice, time(2024, 1, 20));
+        TradeLogData other = log(bob, carol, time(2024, 1, 10));
+        archive.append(Arrays.asList(first, second, other));
+
+        assertThat(search(alice)).containsExactly(second, first);
+        assertThat(search(UUID.randomUUID())).isEmpty();
+        assertThat(archive.search(january, null, time(2024, 1, 5), time(2024, 1, 15), 10))
+            .containsExactly(other);
+    }
+
+    @Test
+    @DisplayName("The index should let searches skip blocks that cannot match")
+    void skipsBlocks() throws IOException {
+        archive.append(Collections.singletonList(log(alice, bob, time(2024, 1, 1))));
+        archive.append(Collections.singletonList(log(bob, bob, time(2024, 1, 2))));
+        List<TradeLogArchive.Block> blocks = archive.readIndex(january);
+
+        assertThat(blocks.get(0).mayContain(alice.toString())).isTrue();
+        assertThat(blocks.get(1).mayContain(alice.toString())).isFalse();
+        assertThat(blocks.get(0).minTime).isEqualTo(time(2024, 1, 1));
+
+        // Corrupt the block that cannot match; the search must not read it
+        long offset = blocks.get(1).offset;
+        try (RandomAccessFile file = new RandomAccessFile(archive.dataFile(january), "rw")) {
+            file.seek(offset);
+            file.write(new byte[(int) blocks.get(1).length]);
+        }
+        assertThat(search(alice)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Re-archived logs should be returned once")
+    void dedupe() throws IOException {
+        TradeLogData log = log(alice, bob, time(2024, 1, 1));
+
+        archive.append(Collections.singletonList(log));
+        archive.append(Collections.singletonList(log));
+
+        assertThat(search(alice)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("A torn write should be skipped and overwritten by the next append")
+    void tornWrite() throws IOException {
+        archive.append(Collections.singletonList(log(alice, bob, time(2024, 1, 1))));
+        Files.write(archive.dataFile(january).toPath(), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        Files.write(archive.indexFile(january).toPath(), "999 3".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+
+        assertThat(search(null)).hasSize(1);
+
+        archive.append(Collections.singletonList(log(bob, alice, time(2024, 1, 2))));
+
+        assertThat(search(null)).hasSize(2);
+        List<TradeLogArchive.Block> blocks = archive.readIndex(january);
+        assertThat(blocks.get(1).offset).isEqualTo(blocks.get(0).offset + blocks.get(0).length);
+    }
+
+    @Test
+    @DisplayName("Missing months should search as empty")
+    void missingMonth() throws IOException {
+        assertThat(search(null)).isEmpty();
+        assertThat(archive.getMonths()).isEmpty();
+    }
+}
@@ -0,0 +1,155 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.TradeLogData;
+import com.ultikits.plugins.trade.service.TradeLogExporter.Format;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TradeLogExporter Tests")
+class TradeLogExporterTest {
+
+    @TempDir
+    Path dir;
+
+    private TradeLogService logService;
+    private TradeLogExporter exporter;
+    private final TradeLogFilter filter = TradeLogFilter.builder().from(0L).to(10_000L).build();
+
+    @BeforeEach
+    void setUp() {
+        logService = mock(TradeLogService.class);
+        exporter = new TradeLogExporter(logService);
+    }
+
+    private static TradeLogData log(String name, long time) {
+        TradeLogData log = new TradeLogData(UUID.randomUUID(), UUID.randomUUID(), name, UUID.randomUUID(), "Bob");
+        log.setTradeTime(time);
+        log.markCompleted();
+        log.setPlayer1Money(12.5);
+        log.setPlayer1ItemsJson("[\n  {\n    \"type\": \"DIAMOND\",\n    \"amount\": 3\n  }\n]");
+        return log;
+    }
+
+    private static TradeLogPage page(TradeLogPage.Cursor next, TradeLogData... logs) {
+        return new TradeLogPage(new ArrayList<>(Arrays.asList(logs)), next, logs.length);
+    }
+
+    private static List<String> readLines(File file, boolean gzip) throws IOException {
+        InputStream in = Files.newInputStream(file.toPath());
+        if (gzip) {
+            in = new GZIPInputStream(in);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        }
+    }
+
+    @Test
+    @DisplayName("Should stream every chunk until the cursor runs out")
+    void streamsChunks() throws IOException {
+        TradeLogPage.Cursor next = new TradeLogPage.Cursor(500L, "log-1");
+        when(logService.readLogPage(same(filter), isNull(), eq(TradeLogExporter.CHUNK_SIZE)))
+            .thenReturn(page(next, log("Alice", 900L), log("Carol", 800L)));
+        when(logService.readLogPage(same(filter), eq(next), eq(TradeLogExporter.CHUNK_SIZE)))
+            .thenReturn(page(null, log("Dave", 400L)));
+        List<Long> progress = new ArrayList<>();
+        File target = dir.resolve("exports/out.ndjson").toFile();
+
+        long rows = exporter.export(filter, Format.NDJSON, false, target, progress::add);
+
+        assertThat(rows).isEqualTo(3);
+        assertThat(progress).containsExactly(2L, 3L);
+        List<String> lines = readLines(target, false);
+        assertThat(lines).hasSize(3);
+        JsonObject first = JsonParser.parseString(lines.get(0)).getAsJsonObject();
+        assertThat(first.get("player1_name").getAsString()).isEqualTo("Alice");
+        assertThat(first.get("player1_money").getAsDouble()).isEqualTo(12.5);
+        assertThat(first.getAsJsonArray("player1_items").get(0).getAsJsonObject().get("type").getAsString())
+            .isEqualTo("DIAMOND");
+        assertThat(first.getAsJsonArray("player2_items")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("CSV output should have a header and quote fields that need it")
+    void csv() throws IOException {
+        TradeLogData log = log("Alice", 900L);
+        log.markCancelled("Quit, \"rage\"");
+        when(logService.readLogPage(any(), any(), anyInt())).thenReturn(page(null, log));
+        File target = dir.resolve("out.csv").toFile();
+
+        exporter.export(filter, Format.CSV, false, target, rows -> { });
+
+        List<String> lines = readLines(target, false);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).isEqualTo(String.join(",", TradeLogExporter.CSV_COLUMNS));
+        assertThat(lines.get(1))
+            .startsWith(log.getTradeId() + ",900,1970-01-01T00:00:00.900Z,CANCELLED,\"Quit, \"\"rage\"\"\",")
+            .contains("\"[{\"\"type\"\":\"\"DIAMOND\"\",\"\"amount\"\":3}]\"");
+    }
+
+    @Test
+    @DisplayName("Gzip output should decompress to the same rows")
+    void gzip() throws IOException {
+        when(logService.readLogPage(any(), any(), anyInt())).thenReturn(page(null, log("Alice", 1L)));
+        File target = dir.resolve("out.ndjson.gz").toFile();
+
+        exporter.export(filter, Format.NDJSON, true, target, rows -> { });
+
+        assertThat(readLines(target, true)).hasSize(1).first().asString().contains("\"Alice\"");
+    }
+
+    @Test
+    @DisplayName("A failed read should leave no partial file behind")
+    void failure() {
+        TradeLogPage.Cursor next = new TradeLogPage.Cursor(500L, "log-1");
+        when(logService.readLogPage(any(), isNull(), anyInt())).thenReturn(page(next, log("Alice", 900L)));
+        when(logService.readLogPage(any(), eq(next), anyInt())).thenThrow(new RuntimeException("DB error"));
+        File target = dir.resolve("out.csv").toFile();
+
+        assertThatThrownBy(() -> exporter.export(filter, Format.CSV, false, target, rows -> { }))
+            .isInstanceOf(IOException.class)
+            .hasRootCauseMessage("DB error");
+        assertThat(target).doesNotExist();
+        assertThat(dir.resolve("out.csv.part")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Unreadable item JSON should be exported as a plain string")
+    void brokenItems() throws IOException {
+        TradeLogData log = log("Alice", 1L);
+        log.setPlayer2ItemsJson("{not json");
+        when(logService.readLogPage(any(), any(), anyInt())).thenReturn(page(null, log));
+        File target = dir.resolve("out.ndjson").toFile();
+
+        exporter.export(filter, Format.NDJSON, false, target, rows -> { });
+
+        JsonObject row = JsonParser.parseString(readLines(target, false).get(0)).getAsJsonObject();
+        assertThat(row.get("player2_items").getAsString()).isEqualTo("{not json");
+    }
+
+    @Test
+    @DisplayName("Format.parse should be case-insensitive")
+    void parseFormat() {
+        assertThat(Format.parse("NDJson")).isEqualTo(Format.NDJSON);
+        assertThat(Format.parse("xml")).isNull();
+    }
+}
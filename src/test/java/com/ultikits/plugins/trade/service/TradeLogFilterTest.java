@@ -0,0 +1,84 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.entity.TradeLogData;
+
+import org.junit.jupiter.api.*;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradeLogFilter Tests")
+class TradeLogFilterTest {
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private final UUID carol = UUID.randomUUID();
+
+    private TradeLogData log(UUID player1, UUID player2) {
+        TradeLogData log = new TradeLogData(UUID.randomUUID(), player1, "P1", player2, "P2");
+        log.setTradeTime(1000L);
+        log.markCompleted();
+        return log;
+    }
+
+    @Test
+    @DisplayName("An empty filter should match every log")
+    void emptyFilter() {
+        assertThat(new TradeLogFilter().matches(log(alice, bob))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Time bounds should be inclusive")
+    void timeRange() {
+        TradeLogData log = log(alice, bob);
+
+        assertThat(TradeLogFilter.builder().from(1000L).to(1000L).build().matches(log)).isTrue();
+        assertThat(TradeLogFilter.builder().from(1001L).build().matches(log)).isFalse();
+        assertThat(TradeLogFilter.builder().to(999L).build().matches(log)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Status and cancel reason should match case-insensitively")
+    void statusAndReason() {
+        TradeLogData log = log(alice, bob);
+        log.markCancelled("Player quit the server");
+
+        assertThat(TradeLogFilter.builder().status("cancelled").cancelReason("QUIT").build().matches(log)).isTrue();
+        assertThat(TradeLogFilter.builder().status("COMPLETED").build().matches(log)).isFalse();
+        assertThat(TradeLogFilter.builder().cancelReason("timeout").build().matches(log)).isFalse();
+        assertThat(TradeLogFilter.builder().cancelReason("quit").build().matches(log(alice, bob))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Minimum money and exp should apply to either side")
+    void minimums() {
+        TradeLogData log = log(alice, bob);
+        log.setPlayer2Money(500.0);
+        log.setPlayer1Exp(30);
+
+        assertThat(TradeLogFilter.builder().minMoney(500.0).minExp(30).build().matches(log)).isTrue();
+        assertThat(TradeLogFilter.builder().minMoney(500.01).build().matches(log)).isFalse();
+        assertThat(TradeLogFilter.builder().minExp(31).build().matches(log)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A player pair should match in either order")
+    void playerPair() {
+        TradeLogFilter pair = TradeLogFilter.builder().player(alice.toString()).partner(bob.toString()).build();
+
+        assertThat(pair.matches(log(alice, bob))).isTrue();
+        assertThat(pair.matches(log(bob, alice))).isTrue();
+        assertThat(pair.matches(log(alice, carol))).isFalse();
+    }
+
+    @Test
+    @DisplayName("A single player should match on either side")
+    void singlePlayer() {
+        TradeLogFilter filter = TradeLogFilter.builder().partner(carol.toString()).build();
+
+        assertThat(filter.matches(log(carol, alice))).isTrue();
+        assertThat(filter.matches(log(bob, carol))).isTrue();
+        assertThat(filter.matches(log(alice, bob))).isFalse();
+    }
+}
@@ -2,7 +2,11 @@ package com.ultikits.plugins.trade.service;
 
 import com.ultikits.plugins.trade.UltiTradeTestHelper;
 import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.entity.MaterialPriceData;
 import com.ultikits.plugins.trade.entity.PlayerTradeSettings;
+import com.ultikits.plugins.trade.entity.ServerTradeStatsData;
+import com.ultikits.plugins.trade.entity.TradeDailyStats;
+import com.ultikits.plugins.trade.entity.TradeLogItem;
 import com.ultikits.plugins.trade.entity.TradeLogData;
 import com.ultikits.ultitools.interfaces.DataOperator;
 import com.ultikits.ultitools.interfaces.Query;
@@ -10,6 +14,8 @@ import com.ultikits.ultitools.interfaces.Query;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitTask;
 import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import java.util.*;
 
@@ -27,11 +33,17 @@ class TradeLogServiceTest {
     @SuppressWarnings("unchecked")
     private DataOperator<PlayerTradeSettings> settingsOperator = mock(DataOperator.class);
     @SuppressWarnings("unchecked")
+    private DataOperator<ServerTradeStatsData> serverStatsOperator = mock(DataOperator.class);
+    @SuppressWarnings("unchecked")
     private Query<PlayerTradeSettings> queryBuilder = mock(Query.class);
 
     private Player player;
     private UUID playerUuid;
 
+    // In-memory trade_logs table behind fakeLogQuery()
+    private final List<TradeLogData> logTable = new ArrayList<>();
+    private final List<Map<String, Object>> logReads = new ArrayList<>();
+
     @BeforeEach
     void setUp() throws Exception {
         UltiTradeTestHelper.setUp();
@@ -45,6 +57,7 @@ class TradeLogServiceTest {
         UltiTradeTestHelper.setField(service, "config", config);
         UltiTradeTestHelper.setField(service, "logOperator", logOperator);
         UltiTradeTestHelper.setField(service, "settingsOperator", settingsOperator);
+        UltiTradeTestHelper.setField(service, "serverStatsOperator", serverStatsOperator);
 
         playerUuid = UUID.randomUUID();
         player = UltiTradeTestHelper.createMockPlayer("TestPlayer", playerUuid);
@@ -55,6 +68,55 @@ class TradeLogServiceTest {
         UltiTradeTestHelper.tearDown();
     }
 
+    /**
+     * Query mock that evaluates eq/lte/gte/limit against {@link #logTable}.
+     */
+    @SuppressWarnings("unchecked")
+    private Query<TradeLogData> fakeLogQuery() {
+        Query<TradeLogData> query = mock(Query.class);
+        Map<String, Object> state = new HashMap<>();
+        String[] column = new String[1];
+        when(query.where(anyString())).thenAnswer(inv -> {
+            column[0] = inv.getArgument(0);
+            return query;
+        });
+        when(query.eq(any())).thenAnswer(inv -> {
+            state.put(column[0], inv.getArgument(0));
+            return query;
+        });
+        when(query.lte(any())).thenAnswer(inv -> {
+            state.put("max", inv.getArgument(0));
+            return query;
+        });
+        when(query.gte(any())).thenAnswer(inv -> {
+            state.put("min", inv.getArgument(0));
+            return query;
+        });
+        when(query.orderByDesc(anyString())).thenReturn(query);
+        when(query.limit(anyInt())).thenAnswer(inv -> {
+            state.put("limit", inv.getArgument(0));
+            return query;
+        });
+        when(query.list()).thenAnswer(inv -> {
+            logReads.add(state);
+            List<TradeLogData> rows = new ArrayList<>();
+            for (TradeLogData log : logTable) {
+                if (state.containsKey("player1_uuid") && !state.get("player1_uuid").equals(log.getPlayer1Uuid())
+                    || state.containsKey("player2_uuid") && !state.get("player2_uuid").equals(log.getPlayer2Uuid())
+                    || state.containsKey("status") && !state.get("status").equals(log.getStatus())
+                    || state.containsKey("max") && log.getTradeTime() > ((Number) state.get("max")).longValue()
+                    || state.containsKey("min") && log.getTradeTime() < ((Number) state.get("min")).longValue()) {
+                    continue;
+                }
+                rows.add(log);
+            }
+            rows.sort(Comparator.comparingLong(TradeLogData::getTradeTime).reversed());
+            int limit = (Integer) state.getOrDefault("limit", Integer.MAX_VALUE);
+            return rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        });
+        return query;
+    }
+
     @Nested
     @DisplayName("Player Settings Management")
     class PlayerSettingsManagement {
@@ -229,6 +291,8 @@ class TradeLogServiceTest {
 
             assertThat(result).isSameAs(cached);
             verify(settingsOperator, never()).getAll(any());
+            assertThat(service.getMetrics().getCount(TradeMetrics.Counter.SETTINGS_CACHE_HIT)).isEqualTo(1);
+            assertThat(service.getMetrics().getCount(TradeMetrics.Counter.SETTINGS_CACHE_MISS)).isZero();
         }
 
         @Test
@@ -242,9 +306,14 @@ class TradeLogServiceTest {
                     .thenReturn(Collections.singletonList(existing));
 
             service.getSettings(playerUuid);
+            service.getSettings(playerUuid);
 
             Map<UUID, PlayerTradeSettings> cache = UltiTradeTestHelper.getField(service, "settingsCache");
             assertThat(cache).containsKey(playerUuid);
+            TradeMetrics metrics = service.getMetrics();
+            assertThat(metrics.getCount(TradeMetrics.Counter.SETTINGS_CACHE_MISS)).isEqualTo(1);
+            assertThat(metrics.getCount(TradeMetrics.Counter.SETTINGS_CACHE_HIT)).isEqualTo(1);
+            assertThat(metrics.getSnapshot(TradeMetrics.Timer.DB_SETTINGS_LOAD).getCount()).isEqualTo(1);
         }
 
         @Test
@@ -327,6 +396,33 @@ class TradeLogServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Reduced Effects")
+    class ReducedEffects {
+
+        @Test
+        @DisplayName("toggleReducedEffects should toggle and return new state")
+        void toggle() {
+            when(settingsOperator.query()).thenReturn(queryBuilder);
+            when(queryBuilder.where(anyString())).thenReturn(queryBuilder);
+            when(queryBuilder.eq(any())).thenReturn(queryBuilder);
+            when(queryBuilder.list()).thenReturn(Collections.emptyList());
+
+            assertThat(service.toggleReducedEffects(player)).isTrue();
+            assertThat(service.hasReducedEffects(playerUuid)).isTrue();
+            assertThat(service.toggleReducedEffects(player)).isFalse();
+            assertThat(service.hasReducedEffects(playerUuid)).isFalse();
+        }
+
+        @Test
+        @DisplayName("hasReducedEffects should not load settings from the database")
+        void cachedOnly() {
+            assertThat(service.hasReducedEffects(playerUuid)).isFalse();
+
+            verify(settingsOperator, never()).query();
+        }
+    }
+
     @Nested
     @DisplayName("Block Management")
     class BlockManagement {
@@ -469,6 +565,35 @@ class TradeLogServiceTest {
             assertThat(result.getTotalTrades()).isEqualTo(10);
         }
 
+        @Test
+        @DisplayName("getPlayerStats should not cache offline players")
+        void getPlayerStatsNotCached() {
+            PlayerTradeSettings settings = new PlayerTradeSettings(playerUuid, "TestPlayer");
+            when(settingsOperator.query()).thenReturn(queryBuilder);
+            when(queryBuilder.where(anyString())).thenReturn(queryBuilder);
+            when(queryBuilder.eq(any())).thenReturn(queryBuilder);
+            when(queryBuilder.list()).thenReturn(Collections.singletonList(settings));
+
+            service.getPlayerStats(playerUuid);
+            service.getPlayerStats(playerUuid);
+
+            assertThat(service.getCachedSettings(playerUuid)).isNull();
+            verify(settingsOperator, times(2)).query();
+        }
+
+        @Test
+        @DisplayName("getCachedSettings should not query the database")
+        void getCachedSettingsNoQuery() throws Exception {
+            assertThat(service.getCachedSettings(playerUuid)).isNull();
+
+            PlayerTradeSettings settings = new PlayerTradeSettings(playerUuid, "TestPlayer");
+            Map<UUID, PlayerTradeSettings> cache = UltiTradeTestHelper.getField(service, "settingsCache");
+            cache.put(playerUuid, settings);
+
+            assertThat(service.getCachedSettings(playerUuid)).isSameAs(settings);
+            verify(settingsOperator, never()).query();
+        }
+
         @Test
         @DisplayName("getPlayerStats should return default if not found")
         void getPlayerStatsNotFound() {
@@ -658,6 +783,43 @@ class TradeLogServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Metrics Export")
+    class MetricsExport {
+
+        @Test
+        @DisplayName("shutdown should cancel the export task")
+        void cancelExportTask() throws Exception {
+            BukkitTask mockTask = mock(BukkitTask.class);
+            UltiTradeTestHelper.setField(service, "metricsExportTask", mockTask);
+
+            service.shutdown();
+
+            verify(mockTask).cancel();
+            BukkitTask taskAfter = UltiTradeTestHelper.getField(service, "metricsExportTask");
+            assertThat(taskAfter).isNull();
+        }
+
+        @Test
+        @DisplayName("Should warn once per run of failures")
+        void warnOnce() throws Exception {
+            TradeMetricsExporter exporter = mock(TradeMetricsExporter.class);
+            java.io.File file = new java.io.File("ultitrade.prom");
+            doThrow(new java.io.IOException("read-only"))
+                .doThrow(new java.io.IOException("read-only"))
+                .doNothing()
+                .doThrow(new java.io.IOException("read-only"))
+                .when(exporter).write(file);
+
+            for (int i = 0; i < 4; i++) {
+                service.exportMetrics(exporter, file);
+            }
+
+            verify(UltiTradeTestHelper.getMockLogger(), times(2))
+                .warn(any(java.io.IOException.class), contains("ultitrade.prom"));
+        }
+    }
+
     @Nested
     @DisplayName("Logging (disabled)")
     class LoggingDisabled {
@@ -757,6 +919,30 @@ class TradeLogServiceTest {
 
             // Should insert a log
             verify(logOperator).insert(any(TradeLogData.class));
+            assertThat(service.getMetrics().getSnapshot(TradeMetrics.Timer.DB_LOG_INSERT).getCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Log queue gauge should count scheduled writes until they finish")
+        void logQueueGauge() throws Exception {
+            when(config.isEnableTradeLog()).thenReturn(true);
+            UltiTradeTestHelper.setField(service, "bukkitPlugin", org.bukkit.Bukkit.getPluginManager().getPlugin("UltiTools"));
+            java.util.concurrent.atomic.AtomicInteger pending = UltiTradeTestHelper.getField(service, "pendingLogWrites");
+            service.getMetrics().register(TradeMetrics.Gauge.LOG_QUEUE, pending::get);
+
+            com.ultikits.plugins.trade.entity.TradeSession session = new com.ultikits.plugins.trade.entity.TradeSession(player, player);
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(any(UUID.class))).thenReturn(player);
+            doThrow(new RuntimeException("DB error")).when(logOperator).insert(any());
+            ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+
+            service.logCancelledTrade(session, "first");
+            service.logCancelledTrade(session, "second");
+
+            assertThat(service.getMetrics().getGauge(TradeMetrics.Gauge.LOG_QUEUE)).isEqualTo(2);
+            verify(server.getScheduler(), times(2)).runTaskAsynchronously(any(), captor.capture());
+            captor.getAllValues().forEach(Runnable::run);
+            assertThat(service.getMetrics().getGauge(TradeMetrics.Gauge.LOG_QUEUE)).isZero();
         }
 
         @Test
@@ -782,6 +968,7 @@ class TradeLogServiceTest {
 
             // Should insert a log
             verify(logOperator).insert(any(TradeLogData.class));
+            assertThat(service.getMetrics().getSnapshot(TradeMetrics.Timer.DB_LOG_INSERT).getCount()).isEqualTo(1);
         }
 
         @Test
@@ -867,4 +1054,727 @@ class TradeLogServiceTest {
             captor.getValue().run();
         }
     }
+
+    @Nested
+    @DisplayName("Server Statistics")
+    class ServerStatistics {
+
+        private com.ultikits.plugins.trade.entity.TradeSession session;
+        private Player other;
+
+        @BeforeEach
+        void setUpTrade() {
+            UUID otherUuid = UUID.randomUUID();
+            other = UltiTradeTestHelper.createMockPlayer("OtherPlayer", otherUuid);
+            session = new com.ultikits.plugins.trade.entity.TradeSession(player, other);
+            session.setMoney(playerUuid, 100.0);
+            session.setMoney(otherUuid, 20.0);
+        }
+
+        @Test
+        @DisplayName("logCompletedTrade should update aggregates even when logging disabled")
+        void recordWhenLoggingDisabled() {
+            when(config.isEnableTradeLog()).thenReturn(false);
+
+            service.logCompletedTrade(session, player, other, 6.0, 0);
+
+            ServerTradeStats stats = service.getServerStats();
+            long now = System.currentTimeMillis();
+            assertThat(stats.getTradesToday(now)).isEqualTo(1);
+            assertThat(stats.getVolume24h(now)).isEqualTo(120.0);
+            assertThat(stats.getTaxCollected()).isEqualTo(6.0);
+        }
+
+        @Test
+        @DisplayName("saveServerStats should skip when nothing changed")
+        void skipWhenClean() {
+            service.saveServerStats();
+
+            verifyNoInteractions(serverStatsOperator);
+        }
+
+        @Test
+        @DisplayName("saveServerStats should insert once then update the same row")
+        void insertThenUpdate() {
+            when(config.isEnableTradeLog()).thenReturn(false);
+
+            service.logCompletedTrade(session, player, other, 0.0, 0);
+            service.saveServerStats();
+            service.logCompletedTrade(session, player, other, 0.0, 0);
+            service.saveServerStats();
+
+            org.mockito.ArgumentCaptor<ServerTradeStatsData> captor =
+                org.mockito.ArgumentCaptor.forClass(ServerTradeStatsData.class);
+            verify(serverStatsOperator).insert(captor.capture());
+            verify(serverStatsOperator).update(captor.getValue());
+            assertThat(captor.getValue().getTradesToday()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("saveServerStats should retry after a failed write")
+        void retryAfterFailure() {
+            when(config.isEnableTradeLog()).thenReturn(false);
+            doThrow(new RuntimeException("DB error")).when(serverStatsOperator).insert(any());
+
+            service.logCompletedTrade(session, player, other, 0.0, 0);
+            service.saveServerStats();
+
+            assertThat(service.getServerStats().isDirty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("shutdown should cancel the snapshot task and save")
+        void shutdownSaves() throws Exception {
+            BukkitTask mockTask = mock(BukkitTask.class);
+            UltiTradeTestHelper.setField(service, "statsSaveTask", mockTask);
+            when(config.isEnableTradeLog()).thenReturn(false);
+            service.logCompletedTrade(session, player, other, 0.0, 0);
+
+            service.shutdown();
+
+            verify(mockTask).cancel();
+            verify(serverStatsOperator).insert(any(ServerTradeStatsData.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Leaderboard")
+    class Leaderboard {
+
+        @Test
+        @DisplayName("loadLeaderboard should rank all settings rows")
+        void loadFromSettings() {
+            PlayerTradeSettings alice = new PlayerTradeSettings(UUID.randomUUID(), "Alice");
+            alice.setTotalTrades(3);
+            PlayerTradeSettings bob = new PlayerTradeSettings(UUID.randomUUID(), "Bob");
+            bob.setTotalTrades(8);
+            when(settingsOperator.getAll()).thenReturn(Arrays.asList(alice, bob));
+
+            service.loadLeaderboard();
+
+            assertThat(service.getLeaderboard().getTop(TradeLeaderboard.Metric.TRADES, 10))
+                .extracting(TradeLeaderboard.Entry::getPlayerName)
+                .containsExactly("Bob", "Alice");
+        }
+
+        @Test
+        @DisplayName("loadLeaderboard should survive database errors")
+        void loadFailure() {
+            when(settingsOperator.getAll()).thenThrow(new RuntimeException("DB error"));
+
+            service.loadLeaderboard();
+
+            assertThat(service.getLeaderboard().size()).isZero();
+        }
+
+        @Test
+        @DisplayName("Completed trades should re-rank both players")
+        void updateOnTrade() throws Exception {
+            UltiTradeTestHelper.setField(service, "bukkitPlugin", org.bukkit.Bukkit.getPluginManager().getPlugin("UltiTools"));
+            UUID otherUuid = UUID.randomUUID();
+            Player other = UltiTradeTestHelper.createMockPlayer("OtherPlayer", otherUuid);
+            Map<UUID, PlayerTradeSettings> cache = UltiTradeTestHelper.getField(service, "settingsCache");
+            cache.put(playerUuid, new PlayerTradeSettings(playerUuid, "TestPlayer"));
+            cache.put(otherUuid, new PlayerTradeSettings(otherUuid, "OtherPlayer"));
+
+            com.ultikits.plugins.trade.entity.TradeSession session =
+                new com.ultikits.plugins.trade.entity.TradeSession(player, other);
+            session.setMoney(playerUuid, 40.0);
+
+            org.bukkit.scheduler.BukkitScheduler scheduler = org.bukkit.Bukkit.getServer().getScheduler();
+            org.mockito.ArgumentCaptor<Runnable> captor = org.mockito.ArgumentCaptor.forClass(Runnable.class);
+            service.logCompletedTrade(session, player, other, 0.0, 0);
+            verify(scheduler).runTaskAsynchronously(any(), captor.capture());
+            captor.getValue().run();
+
+            TradeLeaderboard leaderboard = service.getLeaderboard();
+            assertThat(leaderboard.size()).isEqualTo(2);
+            assertThat(leaderboard.getEntry(TradeLeaderboard.Metric.MONEY, 1).getPlayerName())
+                .isEqualTo("TestPlayer");
+            assertThat(leaderboard.getEntry(TradeLeaderboard.Metric.MONEY, 1).getValue()).isEqualTo(40.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Daily Rollup")
+    class DailyRollup {
+
+        @SuppressWarnings("unchecked")
+        private final DataOperator<TradeDailyStats> dailyStatsOperator = mock(DataOperator.class);
+        @SuppressWarnings("unchecked")
+        private final Query<TradeDailyStats> dailyQuery = mock(Query.class);
+
+        @BeforeEach
+        void setUpRollup() throws Exception {
+            UltiTradeTestHelper.setField(service, "dailyStatsOperator", dailyStatsOperator);
+            when(dailyStatsOperator.query()).thenReturn(dailyQuery);
+            when(dailyQuery.where(anyString())).thenReturn(dailyQuery);
+            when(dailyQuery.eq(any())).thenReturn(dailyQuery);
+        }
+
+        private TradeLogData log(String status, double money) {
+            TradeLogData log = new TradeLogData(UUID.randomUUID(), playerUuid, "TestPlayer",
+                UUID.randomUUID(), "OtherPlayer");
+            log.setPlayer1Money(money);
+            log.setMoneyTaxCollected(1.0);
+            if ("COMPLETED".equals(status)) {
+                log.markCompleted();
+            } else {
+                log.markCancelled("test");
+            }
+            return log;
+        }
+
+        @Test
+        @DisplayName("First trade of a day should insert a new rollup row")
+        void insertNewDay() {
+            when(dailyQuery.list()).thenReturn(Collections.emptyList());
+
+            service.rollupDaily(log("COMPLETED", 50.0));
+
+            org.mockito.ArgumentCaptor<TradeDailyStats> captor =
+                org.mockito.ArgumentCaptor.forClass(TradeDailyStats.class);
+            verify(dailyStatsOperator).insert(captor.capture());
+            assertThat(captor.getValue().getCompletedTrades()).isEqualTo(1);
+            assertThat(captor.getValue().getMoneyVolume()).isEqualTo(50.0);
+            assertThat(captor.getValue().getMoneyTaxCollected()).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("Later trades should update the cached row without querying again")
+        void updateCachedDay() {
+            when(dailyQuery.list()).thenReturn(Collections.emptyList());
+
+            service.rollupDaily(log("COMPLETED", 50.0));
+            service.rollupDaily(log("CANCELLED", 0.0));
+
+            org.mockito.ArgumentCaptor<TradeDailyStats> captor =
+                org.mockito.ArgumentCaptor.forClass(TradeDailyStats.class);
+            verify(dailyStatsOperator, times(1)).query();
+            verify(dailyStatsOperator).update(captor.capture());
+            assertThat(captor.getValue().getCompletedTrades()).isEqualTo(1);
+            assertThat(captor.getValue().getCancelledTrades()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should continue an existing row after a restart")
+        void continueExistingRow() {
+            TradeDailyStats existing = new TradeDailyStats("2024-01-01");
+            existing.setCompletedTrades(4);
+            when(dailyQuery.list()).thenReturn(Collections.singletonList(existing));
+
+            service.rollupDaily(log("COMPLETED", 10.0));
+
+            verify(dailyStatsOperator, never()).insert(any());
+            verify(dailyStatsOperator).update(existing);
+            assertThat(existing.getCompletedTrades()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("A failed write should reload the row next time")
+        void failedWrite() {
+            when(dailyQuery.list()).thenReturn(Collections.emptyList());
+            doThrow(new RuntimeException("DB error")).when(dailyStatsOperator).insert(any());
+
+            service.rollupDaily(log("COMPLETED", 10.0));
+            service.rollupDaily(log("COMPLETED", 10.0));
+
+            verify(dailyStatsOperator, times(2)).query();
+        }
+
+        @Test
+        @DisplayName("getDailyStats should return rows in range ordered by day")
+        void range() {
+            TradeDailyStats day1 = new TradeDailyStats("2024-01-01");
+            TradeDailyStats day2 = new TradeDailyStats("2024-01-02");
+            TradeDailyStats day3 = new TradeDailyStats("2024-01-03");
+            when(dailyStatsOperator.getAll()).thenReturn(Arrays.asList(day3, day1, day2));
+
+            List<TradeDailyStats> result = service.getDailyStats(
+                java.time.LocalDate.of(2024, 1, 1), java.time.LocalDate.of(2024, 1, 2));
+
+            assertThat(result).containsExactly(day1, day2);
+        }
+
+        @Test
+        @DisplayName("Retention cleanup should not touch rollups")
+        void cleanupKeepsRollups() throws Exception {
+            TradeLogData old = log("COMPLETED", 1.0);
+            old.setTradeTime(0L);
+            old.setId("old");
+            logTable.add(old);
+            when(logOperator.query()).thenAnswer(inv -> fakeLogQuery());
+            UltiTradeTestHelper.setField(service, "archive", mock(TradeLogArchive.class));
+
+            java.lang.reflect.Method cleanup = TradeLogService.class.getDeclaredMethod("cleanupOldLogs");
+            cleanup.setAccessible(true);
+            cleanup.invoke(service);
+
+            verify(logOperator).delById("old");
+            verifyNoInteractions(dailyStatsOperator);
+        }
+    }
+
+    @Nested
+    @DisplayName("Price Index")
+    class PriceIndexing {
+
+        @SuppressWarnings("unchecked")
+        private final DataOperator<MaterialPriceData> priceOperator = mock(DataOperator.class);
+
+        private Player other;
+        private UUID otherUuid;
+        private com.ultikits.plugins.trade.entity.TradeSession session;
+
+        @BeforeEach
+        void setUpTrade() throws Exception {
+            UltiTradeTestHelper.setField(service, "priceOperator", priceOperator);
+            when(config.isEnableTradeLog()).thenReturn(false);
+            otherUuid = UUID.randomUUID();
+            other = UltiTradeTestHelper.createMockPlayer("OtherPlayer", otherUuid);
+            session = new com.ultikits.plugins.trade.entity.TradeSession(player, other);
+        }
+
+        @Test
+        @DisplayName("Items-for-money trades should be priced")
+        void oneSidedTrade() {
+            session.setItem(playerUuid, 0, new org.bukkit.inventory.ItemStack(org.bukkit.Material.DIAMOND, 4));
+            session.setMoney(otherUuid, 100.0);
+
+            service.logCompletedTrade(session, player, other, 0.0, 0);
+
+            PriceIndex.Quote quote = service.getPriceIndex()
+                .getQuote(org.bukkit.Material.DIAMOND, System.currentTimeMillis());
+            assertThat(quote).isNotNull();
+            assertThat(quote.getMean()).isEqualTo(25.0);
+        }
+
+        @Test
+        @DisplayName("Trades with items on both sides should not be priced")
+        void barterTrade() {
+            session.setItem(playerUuid, 0, new org.bukkit.inventory.ItemStack(org.bukkit.Material.DIAMOND, 4));
+            session.setItem(otherUuid, 0, new org.bukkit.inventory.ItemStack(org.bukkit.Material.EMERALD, 4));
+            session.setMoney(otherUuid, 100.0);
+
+            service.logCompletedTrade(session, player, other, 0.0, 0);
+
+            assertThat(service.getPriceIndex().size()).isZero();
+        }
+
+        @Test
+        @DisplayName("Trades where the seller also paid should not be priced")
+        void sellerPaid() {
+            session.setItem(playerUuid, 0, new org.bukkit.inventory.ItemStack(org.bukkit.Material.DIAMOND, 4));
+            session.setMoney(playerUuid, 5.0);
+            session.setMoney(otherUuid, 100.0);
+
+            service.logCompletedTrade(session, player, other, 0.0, 0);
+
+            assertThat(service.getPriceIndex().size()).isZero();
+        }
+
+        @Test
+        @DisplayName("savePrices should insert new materials once and update afterwards")
+        void saveInsertThenUpdate() {
+            service.getPriceIndex().record(org.bukkit.Material.DIAMOND, 10.0, System.currentTimeMillis());
+            service.savePrices();
+            service.getPriceIndex().record(org.bukkit.Material.DIAMOND, 12.0, System.currentTimeMillis());
+            service.savePrices();
+            service.savePrices();
+
+            verify(priceOperator, times(1)).insert(any(MaterialPriceData.class));
+            verify(priceOperator, times(1)).update(any(MaterialPriceData.class));
+        }
+
+        @Test
+        @DisplayName("savePrices should retry rows that failed to save")
+        void saveRetry() {
+            doThrow(new RuntimeException("DB error")).doAnswer(inv -> null).when(priceOperator).insert(any());
+            service.getPriceIndex().record(org.bukkit.Material.DIAMOND, 10.0, System.currentTimeMillis());
+
+            service.savePrices();
+            service.savePrices();
+
+            verify(priceOperator, times(2)).insert(any(MaterialPriceData.class));
+            verify(priceOperator, never()).update(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Item Index")
+    class ItemIndex {
+
+        @SuppressWarnings("unchecked")
+        private final DataOperator<TradeLogItem> itemOperator = mock(DataOperator.class);
+        @SuppressWarnings("unchecked")
+        private final Query<TradeLogItem> itemQuery = mock(Query.class);
+
+        private final long now = System.currentTimeMillis();
+
+        @BeforeEach
+        void setUpIndex() throws Exception {
+            UltiTradeTestHelper.setField(service, "itemOperator", itemOperator);
+            when(itemOperator.query()).thenReturn(itemQuery);
+            when(itemQuery.where(anyString())).thenReturn(itemQuery);
+            when(itemQuery.eq(any())).thenReturn(itemQuery);
+            when(itemQuery.gte(any())).thenReturn(itemQuery);
+            when(itemQuery.lte(any())).thenReturn(itemQuery);
+            when(itemQuery.orderByDesc(anyString())).thenReturn(itemQuery);
+            when(itemQuery.limit(anyInt())).thenReturn(itemQuery);
+        }
+
+        private TradeLogItem row(String tradeId, int side, int amount, long time) {
+            TradeLogItem row = new TradeLogItem(tradeId, side, "NETHERITE_INGOT", time);
+            row.setAmount(amount);
+            return row;
+        }
+
+        @Test
+        @DisplayName("Logging a completed trade should write one index row per side and material")
+        void indexOnWrite() throws Exception {
+            UltiTradeTestHelper.setField(service, "bukkitPlugin", org.bukkit.Bukkit.getPluginManager().getPlugin("UltiTools"));
+            UUID otherUuid = UUID.randomUUID();
+            Player other = UltiTradeTestHelper.createMockPlayer("OtherPlayer", otherUuid);
+            com.ultikits.plugins.trade.entity.TradeSession session =
+                new com.ultikits.plugins.trade.entity.TradeSession(player, other);
+            session.setItem(playerUuid, 0, new org.bukkit.inventory.ItemStack(org.bukkit.Material.NETHERITE_INGOT, 8));
+            session.setItem(playerUuid, 1, new org.bukkit.inventory.ItemStack(org.bukkit.Material.NETHERITE_INGOT, 8));
+            session.setItem(otherUuid, 0, new org.bukkit.inventory.ItemStack(org.bukkit.Material.DIAMOND, 1));
+            when(settingsOperator.query()).thenReturn(queryBuilder);
+            when(queryBuilder.where(anyString())).thenReturn(queryBuilder);
+            when(queryBuilder.eq(any())).thenReturn(queryBuilder);
+            when(queryBuilder.list()).thenReturn(Collections.emptyList());
+
+            org.bukkit.scheduler.BukkitScheduler scheduler = org.bukkit.Bukkit.getServer().getScheduler();
+            org.mockito.ArgumentCaptor<Runnable> captor = org.mockito.ArgumentCaptor.forClass(Runnable.class);
+            service.logCompletedTrade(session, player, other, 0.0, 0);
+            verify(scheduler).runTaskAsynchronously(any(), captor.capture());
+            captor.getValue().run();
+
+            org.mockito.ArgumentCaptor<TradeLogItem> rows = org.mockito.ArgumentCaptor.forClass(TradeLogItem.class);
+            verify(itemOperator, times(2)).insert(rows.capture());
+            assertThat(rows.getAllValues()).extracting(TradeLogItem::getSide, TradeLogItem::getMaterial, TradeLogItem::getAmount)
+                .containsExactly(tuple(1, "NETHERITE_INGOT", 16), tuple(2, "DIAMOND", 1));
+        }
+
+        @Test
+        @DisplayName("searchItemTrades should filter by amount and time, newest first")
+        void search() {
+            when(itemQuery.list()).thenReturn(Arrays.asList(
+                row("t1", 1, 20, now - 1000),
+                row("t2", 2, 5, now - 500),
+                row("t3", 1, 50, now - 10 * 24 * 3600_000L),
+                row("t4", 2, 11, now - 100)));
+
+            List<TradeLogItem> result = service.searchItemTrades(
+                org.bukkit.Material.NETHERITE_INGOT, 10, now - 7 * 24 * 3600_000L, now, 10);
+
+            assertThat(result).extracting(TradeLogItem::getTradeId).containsExactly("t4", "t1");
+            verify(itemQuery).where("material");
+            verify(itemQuery).eq("NETHERITE_INGOT");
+            verify(itemQuery, times(2)).where("trade_time");
+            verify(itemQuery).gte(now - 7 * 24 * 3600_000L);
+            verify(itemQuery).lte(now);
+            verify(itemQuery).orderByDesc("trade_time");
+            verify(itemQuery).limit(TradeLogService.QUERY_SCAN_LIMIT);
+        }
+
+        @Test
+        @DisplayName("searchItemTrades should sum enchanted and plain rows of one side")
+        void mergeSides() {
+            TradeLogItem enchanted = row("t1", 1, 6, now);
+            enchanted.setEnchanted(true);
+            when(itemQuery.list()).thenReturn(Arrays.asList(row("t1", 1, 6, now), enchanted, row("t1", 2, 6, now)));
+
+            List<TradeLogItem> result = service.searchItemTrades(
+                org.bukkit.Material.NETHERITE_INGOT, 10, 0, now, 10);
+
+            assertThat(result).hasSize(1);
+            assertThat(result.get(0).getAmount()).isEqualTo(12);
+            assertThat(result.get(0).isEnchanted()).isTrue();
+        }
+
+        @Test
+        @DisplayName("searchItemTrades should respect the limit and survive errors")
+        void limitAndErrors() {
+            when(itemQuery.list()).thenReturn(Arrays.asList(row("t1", 1, 20, now - 2), row("t2", 1, 20, now - 1)));
+            assertThat(service.searchItemTrades(org.bukkit.Material.NETHERITE_INGOT, 1, 0, now, 1))
+                .extracting(TradeLogItem::getTradeId).containsExactly("t2");
+
+            when(itemQuery.list()).thenThrow(new RuntimeException("DB error"));
+            assertThat(service.searchItemTrades(org.bukkit.Material.NETHERITE_INGOT, 1, 0, now, 1)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Retention cleanup should drop the index rows of purged trades")
+        void cleanupDropsIndex() throws Exception {
+            TradeLogData old = new TradeLogData(UUID.randomUUID(), playerUuid, "TestPlayer", UUID.randomUUID(), "Other");
+            old.setTradeTime(0L);
+            old.setId("log-1");
+            logTable.add(old);
+            when(logOperator.query()).thenAnswer(inv -> fakeLogQuery());
+            UltiTradeTestHelper.setField(service, "archive", mock(TradeLogArchive.class));
+            TradeLogItem indexRow = row(old.getTradeId(), 1, 1, 0L);
+            indexRow.setId("item-1");
+            when(itemQuery.list()).thenReturn(Collections.singletonList(indexRow));
+
+            java.lang.reflect.Method cleanup = TradeLogService.class.getDeclaredMethod("cleanupOldLogs");
+            cleanup.setAccessible(true);
+            cleanup.invoke(service);
+
+            verify(itemQuery).eq(old.getTradeId());
+            verify(itemOperator).delById("item-1");
+        }
+    }
+
+    @Nested
+    @DisplayName("Log Queries")
+    class LogQueries {
+
+        private final UUID otherUuid = UUID.randomUUID();
+
+        @BeforeEach
+        void setUpTable() {
+            when(logOperator.query()).thenAnswer(inv -> fakeLogQuery());
+        }
+
+        private TradeLogData add(long time, boolean asPlayer1, String status) {
+            TradeLogData log = asPlayer1
+                ? new TradeLogData(UUID.randomUUID(), playerUuid, "TestPlayer", otherUuid, "Other")
+                : new TradeLogData(UUID.randomUUID(), otherUuid, "Other", playerUuid, "TestPlayer");
+            log.setId(String.format("log-%05d", logTable.size()));
+            log.setTradeTime(time);
+            log.setStatus(status);
+            logTable.add(log);
+            return log;
+        }
+
+        private List<String> drain(TradeLogFilter filter, int pageSize) {
+            List<String> ids = new ArrayList<>();
+            TradeLogPage.Cursor cursor = null;
+            do {
+                TradeLogPage page = service.queryLogs(filter, cursor, pageSize);
+                assertThat(page.getLogs().size()).isLessThanOrEqualTo(pageSize);
+                page.getLogs().forEach(log -> ids.add(log.getId()));
+                cursor = page.getNext();
+            } while (cursor != null);
+            return ids;
+        }
+
+        private List<String> expected(TradeLogFilter filter) {
+            List<TradeLogData> rows = new ArrayList<>();
+            for (TradeLogData log : logTable) {
+                if (filter.matches(log)) {
+                    rows.add(log);
+                }
+            }
+            rows.sort(TradeLogPage.NEWEST_FIRST);
+            List<String> ids = new ArrayList<>();
+            rows.forEach(log -> ids.add(log.getId()));
+            return ids;
+        }
+
+        @Test
+        @DisplayName("Keyset pages should cover every match once, newest first, across both player columns")
+        void pagesWithoutGapsOrDuplicates() {
+            for (int i = 0; i < 150; i++) {
+                // Groups of three trades share a trade_time
+                add(1000L + i / 3, i % 2 == 0, i % 5 == 0 ? "CANCELLED" : "COMPLETED");
+            }
+            TradeLogFilter filter = TradeLogFilter.builder().player(playerUuid.toString()).build();
+
+            assertThat(drain(filter, 10)).containsExactlyElementsOf(expected(filter)).hasSize(150);
+        }
+
+        @Test
+        @DisplayName("Should read through the player columns, never the whole logTable")
+        void playerDrivesTheRead() {
+            add(1000L, true, "COMPLETED");
+            add(2000L, false, "COMPLETED");
+
+            service.queryLogs(TradeLogFilter.builder().player(playerUuid.toString()).status("COMPLETED").build(), null, 10);
+
+            assertThat(logReads).hasSize(2).allSatisfy(read -> assertThat(read).containsKey("limit"));
+            assertThat(logReads.get(0)).containsEntry("player1_uuid", playerUuid.toString()).doesNotContainKey("status");
+            assertThat(logReads.get(1)).containsEntry("player2_uuid", playerUuid.toString());
+        }
+
+        @Test
+        @DisplayName("Should fall back to the status column, then to time alone")
+        void statusThenTime() {
+            add(1000L, true, "CANCELLED");
+
+            service.queryLogs(TradeLogFilter.builder().status("cancelled").from(500L).build(), null, 10);
+            assertThat(logReads.get(0)).containsEntry("status", "CANCELLED").containsEntry("min", 500L);
+
+            logReads.clear();
+            service.queryLogs(TradeLogFilter.builder().to(2000L).build(), null, 10);
+            assertThat(logReads.get(0)).containsOnlyKeys("max", "limit");
+        }
+
+        @Test
+        @DisplayName("Should apply the remaining criteria in memory")
+        void composite() {
+            for (int i = 0; i < 40; i++) {
+                TradeLogData log = add(1000L + i, i % 2 == 0, i % 4 == 0 ? "CANCELLED" : "COMPLETED");
+                log.setPlayer2Money(i * 10.0);
+                log.setCancelReason(i % 4 == 0 ? (i % 8 == 0 ? "Player quit" : "Timeout") : null);
+            }
+            TradeLogFilter rich = TradeLogFilter.builder().status("COMPLETED").minMoney(200.0).build();
+            TradeLogFilter quits = TradeLogFilter.builder().status("CANCELLED").cancelReason("QUIT").build();
+
+            assertThat(drain(rich, 7)).containsExactlyElementsOf(expected(rich)).isNotEmpty();
+            assertThat(drain(quits, 3)).containsExactlyElementsOf(expected(quits)).hasSize(5);
+        }
+
+        @Test
+        @DisplayName("More rows sharing one trade_time than a batch should all be returned")
+        void largeTieGroup() {
+            for (int i = 0; i < 200; i++) {
+                add(5000L, true, "COMPLETED");
+            }
+            add(4000L, true, "COMPLETED");
+            TradeLogFilter filter = TradeLogFilter.builder().status("COMPLETED").build();
+
+            assertThat(drain(filter, 10)).containsExactlyElementsOf(expected(filter)).hasSize(201);
+        }
+
+        @Test
+        @DisplayName("A rarely matching filter should return a short page after the scan limit")
+        void scanLimit() {
+            for (int i = 0; i < TradeLogService.QUERY_SCAN_LIMIT + 1000; i++) {
+                add(i, true, "COMPLETED");
+            }
+            TradeLogFilter filter = TradeLogFilter.builder().status("COMPLETED").minMoney(1.0).build();
+
+            TradeLogPage page = service.queryLogs(filter, null, 10);
+
+            assertThat(page.getLogs()).isEmpty();
+            assertThat(page.hasNext()).isTrue();
+            assertThat(page.getScanned()).isGreaterThanOrEqualTo(TradeLogService.QUERY_SCAN_LIMIT)
+                .isLessThan(TradeLogService.QUERY_SCAN_LIMIT + 1000);
+        }
+
+        @Test
+        @DisplayName("Should end the query on database errors")
+        void errors() {
+            when(logOperator.query()).thenThrow(new RuntimeException("DB error"));
+
+            TradeLogPage page = service.queryLogs(new TradeLogFilter(), null, 10);
+
+            assertThat(page.getLogs()).isEmpty();
+            assertThat(page.hasNext()).isFalse();
+            assertThatThrownBy(() -> service.readLogPage(new TradeLogFilter(), null, 10))
+                .hasMessage("DB error");
+        }
+
+        @Test
+        @DisplayName("findPlayerUuid should look up offline players by name")
+        void findPlayer() {
+            PlayerTradeSettings settings = new PlayerTradeSettings(otherUuid, "Other");
+            when(settingsOperator.query()).thenReturn(queryBuilder);
+            when(queryBuilder.where(anyString())).thenReturn(queryBuilder);
+            when(queryBuilder.eq(any())).thenReturn(queryBuilder);
+            when(queryBuilder.list()).thenReturn(Collections.singletonList(settings), Collections.emptyList());
+
+            assertThat(service.findPlayerUuid("Other")).isEqualTo(otherUuid.toString());
+            assertThat(service.findPlayerUuid("Nobody")).isNull();
+            verify(queryBuilder, times(2)).where("player_name");
+        }
+    }
+
+    @Nested
+    @DisplayName("Log Archive")
+    class LogArchive {
+
+        private final TradeLogArchive archive = mock(TradeLogArchive.class);
+        private final long old = System.currentTimeMillis() - 60L * 24L * 60L * 60L * 1000L;
+
+        @BeforeEach
+        void setUpArchive() throws Exception {
+            when(logOperator.query()).thenAnswer(inv -> fakeLogQuery());
+            UltiTradeTestHelper.setField(service, "archive", archive);
+        }
+
+        private TradeLogData add(long time) {
+            TradeLogData log = new TradeLogData(UUID.randomUUID(), playerUuid, "TestPlayer", UUID.randomUUID(), "Other");
+            log.setId(String.format("log-%05d", logTable.size()));
+            log.setTradeTime(time);
+            logTable.add(log);
+            return log;
+        }
+
+        private void cleanup() throws Exception {
+            java.lang.reflect.Method cleanup = TradeLogService.class.getDeclaredMethod("cleanupOldLogs");
+            cleanup.setAccessible(true);
+            cleanup.invoke(service);
+        }
+
+        @Test
+        @DisplayName("Expired logs should be archived before they are deleted")
+        void archiveThenDelete() throws Exception {
+            TradeLogData expired = add(old);
+            TradeLogData recent = add(System.currentTimeMillis());
+
+            cleanup();
+
+            InOrder order = inOrder(archive, logOperator);
+            order.verify(archive).append(Collections.singletonList(expired));
+            order.verify(logOperator).delById(expired.getId());
+            verify(logOperator, never()).delById(recent.getId());
+        }
+
+        @Test
+        @DisplayName("Large backlogs should be archived in bounded chunks")
+        void chunks() throws Exception {
+            for (int i = 0; i <= TradeLogService.CLEANUP_BATCH; i++) {
+                add(old - i);
+            }
+
+            cleanup();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<TradeLogData>> chunks = ArgumentCaptor.forClass(List.class);
+            verify(archive, times(2)).append(chunks.capture());
+            assertThat(chunks.getAllValues().get(0)).hasSize(TradeLogService.CLEANUP_BATCH);
+            assertThat(chunks.getAllValues().get(1)).hasSize(1);
+            verify(logOperator, times(TradeLogService.CLEANUP_BATCH + 1)).delById(anyString());
+        }
+
+        @Test
+        @DisplayName("Logs should stay in the table when archiving fails")
+        void keepOnFailure() throws Exception {
+            add(old);
+            doThrow(new java.io.IOException("disk full")).when(archive).append(any());
+
+            cleanup();
+
+            verify(logOperator, never()).delById(any());
+        }
+
+        @Test
+        @DisplayName("Disabling the archive should fall back to plain deletion")
+        void archiveDisabled() throws Exception {
+            TradeLogData expired = add(old);
+            when(config.isArchiveExpiredLogs()).thenReturn(false);
+
+            cleanup();
+
+            verifyNoInteractions(archive);
+            verify(logOperator).delById(expired.getId());
+        }
+
+        @Test
+        @DisplayName("searchArchive should search the whole month")
+        void search() throws Exception {
+            java.time.YearMonth month = java.time.YearMonth.of(2024, 1);
+            when(archive.search(month, "uuid", Long.MIN_VALUE, Long.MAX_VALUE, 10))
+                .thenReturn(Collections.singletonList(add(old)));
+
+            assertThat(service.searchArchive(month, "uuid", 10)).hasSize(1);
+
+            UltiTradeTestHelper.setField(service, "archive", null);
+            assertThat(service.searchArchive(month, "uuid", 10)).isEmpty();
+        }
+    }
 }
@@ -0,0 +1,315 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.UltiTradeTestHelper;
+import com.ultikits.plugins.trade.entity.TradeMailItem;
+import com.ultikits.ultitools.interfaces.DataOperator;
+import com.ultikits.ultitools.interfaces.Query;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TradeMailbox Tests")
+class TradeMailboxTest {
+
+    private UUID uuid;
+    private Player player;
+    private List<TradeMailItem> table;
+    private DataOperator<TradeMailItem> operator;
+    private List<ItemStack> received;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        uuid = UUID.randomUUID();
+        player = UltiTradeTestHelper.createMockPlayer("Player1", uuid);
+        received = new ArrayList<>();
+        when(player.getInventory().addItem(any(ItemStack.class))).thenAnswer(inv -> {
+            received.add(inv.getArgument(0));
+            return new HashMap<>();
+        });
+
+        // Table kept in a list; rows are keyed by their mail ID
+        table = new ArrayList<>();
+        operator = mock(DataOperator.class);
+        Query<TradeMailItem> query = mock(Query.class);
+        String[] mailId = new String[1];
+        lenient().when(operator.getAll()).thenAnswer(inv -> new ArrayList<>(table));
+        lenient().doAnswer(inv -> store(inv.getArgument(0))).when(operator).insert(any());
+        lenient().doAnswer(inv -> table.removeIf(row -> row.getId().equals(inv.getArgument(0))))
+            .when(operator).delById(any());
+        lenient().when(operator.query()).thenReturn(query);
+        lenient().when(query.where(anyString())).thenReturn(query);
+        lenient().when(query.eq(any())).thenAnswer(inv -> {
+            mailId[0] = inv.getArgument(0);
+            return query;
+        });
+        lenient().when(query.list()).thenAnswer(inv -> table.stream()
+            .filter(row -> row.getMailId().equals(mailId[0]))
+            .collect(Collectors.toList()));
+    }
+
+    private Object store(TradeMailItem row) {
+        row.setId(row.getMailId());
+        table.add(row);
+        return null;
+    }
+
+    /**
+     * Mailbox with a plain-text codec, so tests need no Bukkit serialization.
+     */
+    private TradeMailbox mailbox() {
+        TradeMailbox mailbox = new TradeMailbox(
+            item -> {
+                if (item.getType() == Material.BARRIER) {
+                    throw new IllegalStateException("not serializable");
+                }
+                return item.getType().name() + "*" + item.getAmount();
+            },
+            encoded -> {
+                String[] parts = encoded.split("\\*");
+                return new ItemStack(Material.valueOf(parts[0]), Integer.parseInt(parts[1]));
+            });
+        mailbox.open(operator);
+        return mailbox;
+    }
+
+    private static List<String> names(List<ItemStack> items) {
+        return items.stream()
+            .map(item -> item.getType().name() + "*" + item.getAmount())
+            .collect(Collectors.toList());
+    }
+
+    @Nested
+    @DisplayName("Deposit")
+    class Deposit {
+
+        @Test
+        @DisplayName("Should keep stacks per owner and skip empty ones")
+        void perOwner() {
+            TradeMailbox mailbox = mailbox();
+            UUID other = UUID.randomUUID();
+
+            int deposited = mailbox.deposit(uuid, Arrays.asList(
+                new ItemStack(Material.DIAMOND, 10), null, new ItemStack(Material.AIR)), TradeMailbox.Source.TRADE);
+            mailbox.deposit(other, Collections.singletonList(new ItemStack(Material.GOLD_INGOT, 5)),
+                TradeMailbox.Source.CANCEL);
+
+            assertThat(deposited).isEqualTo(1);
+            assertThat(mailbox.count(uuid)).isEqualTo(1);
+            assertThat(mailbox.count(other)).isEqualTo(1);
+            assertThat(mailbox.size()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should copy deposited stacks")
+        void copies() {
+            TradeMailbox mailbox = mailbox();
+            ItemStack diamond = new ItemStack(Material.DIAMOND, 10);
+
+            mailbox.deposit(uuid, Collections.singletonList(diamond), TradeMailbox.Source.TRADE);
+            diamond.setAmount(1);
+            mailbox.claim(player);
+
+            assertThat(names(received)).containsExactly("DIAMOND*10");
+        }
+    }
+
+    @Nested
+    @DisplayName("Claim")
+    class Claims {
+
+        @Test
+        @DisplayName("Should hand over every stack that fits, oldest first")
+        void all() {
+            TradeMailbox mailbox = mailbox();
+            mailbox.deposit(uuid, Arrays.asList(
+                new ItemStack(Material.DIAMOND, 10), new ItemStack(Material.EMERALD, 3)), TradeMailbox.Source.TRADE);
+
+            TradeMailbox.Claim claim = mailbox.claim(player);
+
+            assertThat(claim.getDelivered()).isEqualTo(2);
+            assertThat(claim.getRemaining()).isZero();
+            assertThat(names(received)).containsExactly("DIAMOND*10", "EMERALD*3");
+            assertThat(mailbox.count(uuid)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should keep the rest of a stack that only partly fits and stop there")
+        void partial() {
+            TradeMailbox mailbox = mailbox();
+            mailbox.deposit(uuid, Arrays.asList(
+                new ItemStack(Material.DIAMOND, 10), new ItemStack(Material.EMERALD, 3)), TradeMailbox.Source.TRADE);
+            when(player.getInventory().addItem(any(ItemStack.class))).thenAnswer(inv -> {
+                HashMap<Integer, ItemStack> overflow = new HashMap<>();
+                overflow.put(0, new ItemStack(Material.DIAMOND, 4));
+                return overflow;
+            });
+
+            TradeMailbox.Claim claim = mailbox.claim(player);
+
+            assertThat(claim.getDelivered()).isZero();
+            assertThat(claim.getRemaining()).isEqualTo(2);
+            verify(player.getInventory(), times(1)).addItem(any(ItemStack.class));
+
+            when(player.getInventory().addItem(any(ItemStack.class))).thenAnswer(inv -> {
+                received.add(inv.getArgument(0));
+                return new HashMap<>();
+            });
+            mailbox.claim(player);
+            assertThat(names(received)).containsExactly("DIAMOND*4", "EMERALD*3");
+        }
+
+        @Test
+        @DisplayName("Should leave everything in place when nothing fits")
+        void full() {
+            TradeMailbox mailbox = mailbox();
+            ItemStack diamond = new ItemStack(Material.DIAMOND, 10);
+            mailbox.deposit(uuid, Collections.singletonList(diamond), TradeMailbox.Source.TRADE);
+            HashMap<Integer, ItemStack> overflow = new HashMap<>();
+            overflow.put(0, diamond.clone());
+            when(player.getInventory().addItem(any(ItemStack.class))).thenReturn(overflow);
+
+            TradeMailbox.Claim claim = mailbox.claim(player);
+
+            assertThat(claim.getDelivered()).isZero();
+            assertThat(claim.getRemaining()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should report an empty mailbox")
+        void empty() {
+            TradeMailbox.Claim claim = mailbox().claim(player);
+
+            assertThat(claim.getDelivered()).isZero();
+            assertThat(claim.getRemaining()).isZero();
+            verifyNoInteractions(player.getInventory());
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistence")
+    class Persistence {
+
+        @Test
+        @DisplayName("Should keep unclaimed mail across restarts")
+        void survivesRestart() throws IOException {
+            TradeMailbox first = mailbox();
+            first.deposit(uuid, Collections.singletonList(new ItemStack(Material.DIAMOND, 10)),
+                TradeMailbox.Source.CANCEL);
+            assertThat(first.flush()).isEqualTo(1);
+
+            assertThat(table).singleElement().satisfies(row -> {
+                assertThat(row.getOwnerUuid()).isEqualTo(uuid.toString());
+                assertThat(row.getItemData()).isEqualTo("DIAMOND*10");
+                assertThat(row.getSource()).isEqualTo("CANCEL");
+            });
+            TradeMailbox second = mailbox();
+            assertThat(second.count(uuid)).isEqualTo(1);
+            second.claim(player);
+            second.flush();
+
+            assertThat(table).isEmpty();
+            assertThat(names(received)).containsExactly("DIAMOND*10");
+        }
+
+        @Test
+        @DisplayName("Should store only the rest of a partly claimed stack")
+        void partialRow() throws IOException {
+            TradeMailbox mailbox = mailbox();
+            mailbox.deposit(uuid, Collections.singletonList(new ItemStack(Material.DIAMOND, 10)),
+                TradeMailbox.Source.TRADE);
+            mailbox.flush();
+            when(player.getInventory().addItem(any(ItemStack.class))).thenAnswer(inv -> {
+                HashMap<Integer, ItemStack> overflow = new HashMap<>();
+                overflow.put(0, new ItemStack(Material.DIAMOND, 4));
+                return overflow;
+            });
+
+            mailbox.claim(player);
+            mailbox.flush();
+
+            assertThat(table).extracting(TradeMailItem::getItemData).containsExactly("DIAMOND*4");
+        }
+
+        @Test
+        @DisplayName("Should not write mail claimed before the flush")
+        void cancelsOut() throws IOException {
+            TradeMailbox mailbox = mailbox();
+            mailbox.deposit(uuid, Collections.singletonList(new ItemStack(Material.DIAMOND, 10)),
+                TradeMailbox.Source.TRADE);
+            mailbox.claim(player);
+
+            assertThat(mailbox.flush()).isZero();
+            verify(operator, never()).insert(any());
+            verify(operator, never()).query();
+        }
+
+        @Test
+        @DisplayName("Should retry writes after a database failure, in order")
+        void retries() throws IOException {
+            TradeMailbox mailbox = mailbox();
+            mailbox.deposit(uuid, Arrays.asList(
+                new ItemStack(Material.DIAMOND, 10), new ItemStack(Material.EMERALD, 3)), TradeMailbox.Source.TRADE);
+            doThrow(new IllegalStateException("database down"))
+                .doAnswer(inv -> store(inv.getArgument(0)))
+                .when(operator).insert(any());
+
+            assertThatThrownBy(mailbox::flush).isInstanceOf(IllegalStateException.class);
+            assertThat(table).isEmpty();
+
+            assertThat(mailbox.flush()).isEqualTo(2);
+            assertThat(table).extracting(TradeMailItem::getItemData).containsExactly("DIAMOND*10", "EMERALD*3");
+        }
+
+        @Test
+        @DisplayName("Should report stacks it cannot serialize and still write the rest")
+        void unencodable() {
+            TradeMailbox mailbox = mailbox();
+            mailbox.deposit(uuid, Arrays.asList(
+                new ItemStack(Material.BARRIER, 1), new ItemStack(Material.DIAMOND, 10)), TradeMailbox.Source.TRADE);
+
+            assertThatThrownBy(mailbox::flush).isInstanceOf(IOException.class);
+
+            assertThat(table).extracting(TradeMailItem::getItemData).containsExactly("DIAMOND*10");
+            assertThat(mailbox.count(uuid)).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should skip stored rows it cannot read")
+        void unreadable() {
+            table.add(new TradeMailItem("a", uuid.toString(), "NOT_A_MATERIAL*1", "TRADE", 1L));
+            table.add(new TradeMailItem("b", uuid.toString(), "DIAMOND*2", "TRADE", 2L));
+
+            TradeMailbox mailbox = new TradeMailbox(
+                item -> item.getType().name() + "*" + item.getAmount(),
+                encoded -> {
+                    String[] parts = encoded.split("\\*");
+                    return new ItemStack(Material.valueOf(parts[0]), Integer.parseInt(parts[1]));
+                });
+
+            assertThat(mailbox.open(operator)).isEqualTo(1);
+            assertThat(mailbox.count(uuid)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should only keep mail in memory without an operator")
+        void memoryOnly() throws IOException {
+            TradeMailbox mailbox = new TradeMailbox();
+            mailbox.deposit(uuid, Collections.singletonList(new ItemStack(Material.DIAMOND, 10)),
+                TradeMailbox.Source.TRADE);
+
+            assertThat(mailbox.flush()).isZero();
+            assertThat(mailbox.count(uuid)).isEqualTo(1);
+        }
+    }
+}
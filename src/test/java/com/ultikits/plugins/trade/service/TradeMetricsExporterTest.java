@@ -0,0 +1,144 @@
+package com.ultikits.plugins.trade.service;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradeMetricsExporter Tests")
+class TradeMetricsExporterTest {
+
+    @TempDir
+    Path dir;
+
+    private TradeMetrics metrics;
+    private ServerTradeStats serverStats;
+    private TradeMetricsExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new TradeMetrics();
+        serverStats = new ServerTradeStats();
+        exporter = new TradeMetricsExporter(metrics, serverStats);
+    }
+
+    @Nested
+    @DisplayName("Render")
+    class Render {
+
+        @Test
+        @DisplayName("Should export gauges with type and help lines")
+        void gauges() {
+            metrics.register(TradeMetrics.Gauge.ACTIVE_SESSIONS, () -> 3);
+
+            String text = exporter.render();
+
+            assertThat(text).contains("# TYPE ultitrade_active_sessions gauge\n");
+            assertThat(text).contains("ultitrade_active_sessions 3\n");
+            assertThat(text).contains("ultitrade_log_queue_depth 0\n");
+        }
+
+        @Test
+        @DisplayName("Should export counters with the _total suffix")
+        void counters() {
+            metrics.increment(TradeMetrics.Counter.TRADES_COMPLETED);
+            metrics.increment(TradeMetrics.Counter.TRADES_COMPLETED);
+            metrics.add(TradeMetrics.Counter.EXP_TAX_COLLECTED, 40);
+
+            String text = exporter.render();
+
+            assertThat(text).contains("# TYPE ultitrade_trades_completed_total counter\n");
+            assertThat(text).contains("ultitrade_trades_completed_total 2\n");
+            assertThat(text).contains("ultitrade_exp_tax_collected_total 40\n");
+        }
+
+        @Test
+        @DisplayName("Should split cancelled trades by reason")
+        void cancelReasons() {
+            metrics.cancelled(TradeMetrics.CancelReason.OFFLINE);
+            metrics.cancelled(TradeMetrics.CancelReason.OFFLINE);
+            metrics.cancelled(TradeMetrics.CancelReason.PLAYER);
+
+            String text = exporter.render();
+
+            assertThat(text).contains("ultitrade_trades_cancelled_total{reason=\"offline\"} 2\n");
+            assertThat(text).contains("ultitrade_trades_cancelled_total{reason=\"player\"} 1\n");
+            assertThat(text).contains("ultitrade_trades_cancelled_total{reason=\"shutdown\"} 0\n");
+            assertThat(text).doesNotContain("ultitrade_trades_cancelled_total 3");
+        }
+
+        @Test
+        @DisplayName("Should export the money tax from the server stats")
+        void moneyTax() {
+            serverStats.record(System.currentTimeMillis(), 1000.0, 25.5);
+
+            assertThat(exporter.render()).contains("ultitrade_money_tax_collected_total 25.5\n");
+        }
+
+        @Test
+        @DisplayName("Should export timers as cumulative histogram buckets in seconds")
+        void histogram() {
+            metrics.recordNanos(TradeMetrics.Timer.COMPLETE_TRADE, 50_000L);
+            metrics.recordNanos(TradeMetrics.Timer.COMPLETE_TRADE, 2_000_000L);
+
+            String text = exporter.render();
+            String prefix = "ultitrade_operation_duration_seconds";
+            String label = "operation=\"complete_trade\"";
+
+            assertThat(text).contains("# TYPE " + prefix + " histogram\n");
+            assertThat(text).contains(prefix + "_bucket{" + label + ",le=\"0.0001\"} 1\n");
+            assertThat(text).contains(prefix + "_bucket{" + label + ",le=\"0.001\"} 1\n");
+            assertThat(text).contains(prefix + "_bucket{" + label + ",le=\"0.0025\"} 2\n");
+            assertThat(text).contains(prefix + "_bucket{" + label + ",le=\"+Inf\"} 2\n");
+            assertThat(text).contains(prefix + "_sum{" + label + "} 0.00205\n");
+            assertThat(text).contains(prefix + "_count{" + label + "} 2\n");
+            assertThat(text).contains(prefix + "_count{operation=\"gui_render\"} 0\n");
+        }
+
+        @Test
+        @DisplayName("Should declare every family once")
+        void familiesOnce() {
+            String text = exporter.render();
+
+            assertThat(text.split("# TYPE ultitrade_operation_duration_seconds ", -1)).hasSize(2);
+            assertThat(text.split("# TYPE ultitrade_trades_cancelled_total ", -1)).hasSize(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Write")
+    class Write {
+
+        @Test
+        @DisplayName("Should create the file and its parent directories")
+        void createsFile() throws Exception {
+            File target = dir.resolve("textfile/ultitrade.prom").toFile();
+
+            exporter.write(target);
+
+            assertThat(target).exists();
+            assertThat(new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8))
+                .isEqualTo(exporter.render());
+        }
+
+        @Test
+        @DisplayName("Should replace the previous file and leave no temp file")
+        void replaces() throws Exception {
+            File target = dir.resolve("ultitrade.prom").toFile();
+            Files.write(target.toPath(), "stale".getBytes(StandardCharsets.UTF_8));
+            metrics.increment(TradeMetrics.Counter.REQUESTS_SENT);
+
+            exporter.write(target);
+
+            assertThat(new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8))
+                .doesNotContain("stale")
+                .contains("ultitrade_requests_sent_total 1\n");
+            assertThat(dir.toFile().list()).containsExactly("ultitrade.prom");
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.ultikits.plugins.trade.service;
+
+import com.ultikits.plugins.trade.service.TradeMetrics.CancelReason;
+import com.ultikits.plugins.trade.service.TradeMetrics.Counter;
+import com.ultikits.plugins.trade.service.TradeMetrics.Gauge;
+import com.ultikits.plugins.trade.service.TradeMetrics.Snapshot;
+import com.ultikits.plugins.trade.service.TradeMetrics.Timer;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TradeMetrics Tests")
+class TradeMetricsTest {
+
+    private TradeMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new TradeMetrics();
+    }
+
+    @Nested
+    @DisplayName("Buckets")
+    class Buckets {
+
+        @Test
+        @DisplayName("Small values should each get their own bucket")
+        void exactBelowSubBuckets() {
+            for (int value = 0; value < TradeMetrics.SUB_BUCKETS; value++) {
+                assertThat(TradeMetrics.bucketOf(value)).isEqualTo(value);
+                assertThat(TradeMetrics.upperBound(value)).isEqualTo(value);
+            }
+        }
+
+        @Test
+        @DisplayName("Buckets should be contiguous and contain their values")
+        void contiguous() {
+            long previousUpper = -1;
+            for (int bucket = 0; bucket < TradeMetrics.BUCKETS; bucket++) {
+                long upper = TradeMetrics.upperBound(bucket);
+                assertThat(TradeMetrics.bucketOf(previousUpper + 1)).isEqualTo(bucket);
+                assertThat(TradeMetrics.bucketOf(upper)).isEqualTo(bucket);
+                previousUpper = upper;
+            }
+        }
+
+        @Test
+        @DisplayName("Bucket width should stay within 12.5% of the value")
+        void relativeError() {
+            for (long value : new long[]{9, 1_000, 123_456, 50_000_000L, 9_999_999_999L}) {
+                long upper = TradeMetrics.upperBound(TradeMetrics.bucketOf(value));
+                assertThat(upper).isGreaterThanOrEqualTo(value);
+                assertThat((double) (upper - value) / value).isLessThanOrEqualTo(0.125);
+            }
+        }
+
+        @Test
+        @DisplayName("Values past the range should land in the last bucket")
+        void overflow() {
+            assertThat(TradeMetrics.bucketOf(Long.MAX_VALUE)).isEqualTo(TradeMetrics.BUCKETS - 1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Timers")
+    class Timers {
+
+        @Test
+        @DisplayName("Snapshots should report count, mean, percentiles and max")
+        void snapshot() {
+            for (int i = 1; i <= 100; i++) {
+                metrics.recordNanos(Timer.COMPLETE_TRADE, i * 1_000L);
+            }
+
+            Snapshot snapshot = metrics.getSnapshot(Timer.COMPLETE_TRADE);
+
+            assertThat(snapshot.getCount()).isEqualTo(100);
+            assertThat(snapshot.getMeanNanos()).isEqualTo(50_500L);
+            assertThat(snapshot.getMaxNanos()).isEqualTo(100_000L);
+            assertThat(snapshot.getP50Nanos()).isBetween(50_000L, 56_250L);
+            assertThat(snapshot.getP99Nanos()).isBetween(99_000L, 100_000L);
+            assertThat(snapshot.getP95Nanos()).isLessThanOrEqualTo(snapshot.getP99Nanos());
+        }
+
+        @Test
+        @DisplayName("Empty timers should report zeros")
+        void empty() {
+            Snapshot snapshot = metrics.getSnapshot(Timer.GUI_RENDER);
+
+            assertThat(snapshot.getCount()).isZero();
+            assertThat(snapshot.getP99Nanos()).isZero();
+        }
+
+        @Test
+        @DisplayName("record should measure from a nanoTime reading")
+        void recordFromStart() {
+            metrics.record(Timer.SEND_REQUEST, System.nanoTime() - 5_000_000L);
+
+            assertThat(metrics.getSnapshot(Timer.SEND_REQUEST).getMaxNanos()).isGreaterThanOrEqualTo(5_000_000L);
+        }
+
+        @Test
+        @DisplayName("getCountAtMost should count only buckets that end within the limit")
+        void countAtMost() {
+            metrics.recordNanos(Timer.COMPLETE_TRADE, 50_000L);
+            metrics.recordNanos(Timer.COMPLETE_TRADE, 2_000_000L);
+
+            Snapshot snapshot = metrics.getSnapshot(Timer.COMPLETE_TRADE);
+
+            assertThat(snapshot.getCountAtMost(100_000L)).isEqualTo(1);
+            assertThat(snapshot.getCountAtMost(2_500_000L)).isEqualTo(2);
+            assertThat(snapshot.getCountAtMost(10L)).isZero();
+            assertThat(snapshot.getSumNanos()).isEqualTo(2_050_000L);
+        }
+
+        @Test
+        @DisplayName("Negative durations should be clamped to zero")
+        void negative() {
+            metrics.recordNanos(Timer.SEND_REQUEST, -5);
+
+            assertThat(metrics.getSnapshot(Timer.SEND_REQUEST).getMaxNanos()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Counters and Gauges")
+    class CountersAndGauges {
+
+        @Test
+        @DisplayName("Counters should not lose increments across threads")
+        void concurrentIncrements() throws Exception {
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < 4; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10_000; i++) {
+                        metrics.increment(Counter.SETTINGS_CACHE_HIT);
+                        metrics.recordNanos(Timer.DB_SETTINGS_LOAD, i);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(metrics.getCount(Counter.SETTINGS_CACHE_HIT)).isEqualTo(40_000);
+            assertThat(metrics.getSnapshot(Timer.DB_SETTINGS_LOAD).getCount()).isEqualTo(40_000);
+        }
+
+        @Test
+        @DisplayName("Gauges should read their source on every call")
+        void gauges() {
+            int[] size = {3};
+            metrics.register(Gauge.ACTIVE_SESSIONS, () -> size[0]);
+
+            assertThat(metrics.getGauge(Gauge.ACTIVE_SESSIONS)).isEqualTo(3);
+            size[0] = 7;
+            assertThat(metrics.getGauge(Gauge.ACTIVE_SESSIONS)).isEqualTo(7);
+            assertThat(metrics.getGauge(Gauge.PENDING_REQUESTS)).isZero();
+        }
+
+        @Test
+        @DisplayName("reset should clear counters and timers but keep gauges")
+        void reset() {
+            metrics.increment(Counter.TRADES_COMPLETED);
+            metrics.recordNanos(Timer.COMPLETE_TRADE, 1_000);
+            metrics.register(Gauge.ACTIVE_SESSIONS, () -> 2);
+
+            metrics.reset();
+
+            assertThat(metrics.getCount(Counter.TRADES_COMPLETED)).isZero();
+            assertThat(metrics.getSnapshot(Timer.COMPLETE_TRADE).getCount()).isZero();
+            assertThat(metrics.getGauge(Gauge.ACTIVE_SESSIONS)).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("cancelled should count the total and the reason")
+        void cancelReasons() {
+            metrics.cancelled(CancelReason.OFFLINE);
+            metrics.cancelled(CancelReason.SHUTDOWN);
+            metrics.cancelled(CancelReason.OFFLINE);
+
+            assertThat(metrics.getCount(Counter.TRADES_CANCELLED)).isEqualTo(3);
+            assertThat(metrics.getCount(CancelReason.OFFLINE)).isEqualTo(2);
+            assertThat(metrics.getCount(CancelReason.PLAYER)).isZero();
+
+            metrics.reset();
+            assertThat(metrics.getCount(CancelReason.OFFLINE)).isZero();
+        }
+
+        @Test
+        @DisplayName("add should increase a counter by an amount")
+        void add() {
+            metrics.add(Counter.EXP_TAX_COLLECTED, 15);
+            metrics.add(Counter.EXP_TAX_COLLECTED, 5);
+
+            assertThat(metrics.getCount(Counter.EXP_TAX_COLLECTED)).isEqualTo(20);
+        }
+
+        @Test
+        @DisplayName("Keys should parse case-insensitively")
+        void parse() {
+            assertThat(Timer.parse("Complete_Trade")).isEqualTo(Timer.COMPLETE_TRADE);
+            assertThat(Counter.parse("db_errors")).isEqualTo(Counter.DB_ERRORS);
+            assertThat(Gauge.parse("LOG_QUEUE_DEPTH")).isEqualTo(Gauge.LOG_QUEUE);
+            assertThat(Timer.parse("nope")).isNull();
+        }
+    }
+}
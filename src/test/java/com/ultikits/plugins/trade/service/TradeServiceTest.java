@@ -2,8 +2,10 @@ package com.ultikits.plugins.trade.service;
 
 import com.ultikits.plugins.trade.UltiTradeTestHelper;
 import com.ultikits.plugins.trade.config.TradeConfig;
+import com.ultikits.plugins.trade.config.TradeConfigSnapshot;
 import com.ultikits.plugins.trade.entity.TradeRequest;
 import com.ultikits.plugins.trade.entity.TradeSession;
+import com.ultikits.plugins.trade.gui.TradeGUI;
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -12,8 +14,13 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -28,6 +35,7 @@ class TradeServiceTest {
     private TradeService service;
     private TradeConfig config;
     private TradeLogService logService;
+    private TradeMetrics metrics;
     private Economy economy;
 
     private Player player1;
@@ -57,6 +65,8 @@ class TradeServiceTest {
 
         when(logService.isTradeEnabled(any())).thenReturn(true);
         when(logService.isBlocked(any(), any())).thenReturn(false);
+        metrics = new TradeMetrics();
+        lenient().when(logService.getMetrics()).thenReturn(metrics);
     }
 
     @AfterEach
@@ -153,6 +163,18 @@ class TradeServiceTest {
 
             assertThat(service.getSession(uuid1)).isNull();
         }
+
+        @Test
+        @DisplayName("getActiveSessionCount should count sessions in progress")
+        void activeSessionCount() throws Exception {
+            assertThat(service.getActiveSessionCount()).isZero();
+
+            TradeSession session = new TradeSession(player1, player2);
+            Map<UUID, TradeSession> activeSessions = UltiTradeTestHelper.getField(service, "activeSessions");
+            activeSessions.put(session.getSessionId(), session);
+
+            assertThat(service.getActiveSessionCount()).isEqualTo(1);
+        }
     }
 
     @Nested
@@ -565,6 +587,57 @@ class TradeServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("GUI Refresh")
+    class GuiRefresh {
+
+        @Test
+        @DisplayName("refreshGUIs should update open trade windows only")
+        void refreshOpenWindows() {
+            TradeSession session = new TradeSession(player1, player2);
+            TradeGUI gui = mock(TradeGUI.class);
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(uuid1)).thenReturn(player1);
+            when(server.getPlayer(uuid2)).thenReturn(player2);
+            mockOpenHolder(player1, gui);
+            mockOpenHolder(player2, null);
+
+            service.refreshGUIs(session);
+
+            verify(gui).update();
+        }
+
+        @Test
+        @DisplayName("reopenTradeGUI should do nothing without an active trade")
+        void reopenWithoutTrade() {
+            service.reopenTradeGUI(player1);
+
+            verify(player1, never()).openInventory(any(org.bukkit.inventory.Inventory.class));
+        }
+
+        @Test
+        @DisplayName("reopenTradeGUI should open a new trade window")
+        void reopenActiveTrade() throws Exception {
+            TradeSession session = new TradeSession(player1, player2);
+            Map<UUID, TradeSession> activeSessions = UltiTradeTestHelper.getField(service, "activeSessions");
+            Map<UUID, UUID> playerSessionMap = UltiTradeTestHelper.getField(service, "playerSessionMap");
+            activeSessions.put(session.getSessionId(), session);
+            playerSessionMap.put(uuid1, session.getSessionId());
+
+            service.reopenTradeGUI(player1);
+
+            verify(player1).openInventory(any(org.bukkit.inventory.Inventory.class));
+        }
+
+        private void mockOpenHolder(Player player, org.bukkit.inventory.InventoryHolder holder) {
+            org.bukkit.inventory.InventoryView view = mock(org.bukkit.inventory.InventoryView.class);
+            org.bukkit.inventory.Inventory top = mock(org.bukkit.inventory.Inventory.class);
+            when(player.getOpenInventory()).thenReturn(view);
+            when(view.getTopInventory()).thenReturn(top);
+            when(top.getHolder()).thenReturn(holder);
+        }
+    }
+
     @Nested
     @DisplayName("Confirmation Logic")
     class ConfirmationLogic {
@@ -1271,7 +1344,7 @@ class TradeServiceTest {
         }
 
         @Test
-        @DisplayName("completeTrade should handle item overflow (drops)")
+        @DisplayName("completeTrade should mail item overflow instead of dropping it")
         void itemOverflow() throws Exception {
             when(config.isEnableExpTrade()).thenReturn(false);
 
@@ -1296,8 +1369,13 @@ class TradeServiceTest {
 
             service.completeTrade(session);
 
-            // Should drop the overflowed items
-            verify(player2.getWorld()).dropItemNaturally(eq(player2.getLocation()), eq(diamond));
+            // Should mail the overflowed items to the receiver
+            TradeMailbox mailbox = UltiTradeTestHelper.getField(service, "mailbox");
+            verify(player2.getWorld(), never()).dropItemNaturally(any(), any());
+            assertThat(mailbox.count(uuid2)).isEqualTo(1);
+            assertThat(mailbox.count(uuid1)).isZero();
+            assertThat(metrics.getCount(TradeMetrics.Counter.MAIL_DEPOSITED)).isEqualTo(1);
+            verify(player2).sendMessage(contains("/trade claim"));
             assertThat(session.getState()).isEqualTo(TradeSession.TradeState.COMPLETED);
         }
 
@@ -1431,8 +1509,8 @@ class TradeServiceTest {
         }
 
         @Test
-        @DisplayName("cancelTrade should drop overflowed items on cancel")
-        void cancelOverflowDrops() throws Exception {
+        @DisplayName("cancelTrade should mail overflowed items on cancel")
+        void cancelOverflowMails() throws Exception {
             TradeSession session = new TradeSession(player1, player2);
             ItemStack diamond = new ItemStack(Material.DIAMOND, 64);
             session.setItem(uuid1, 0, diamond);
@@ -1453,7 +1531,30 @@ class TradeServiceTest {
 
             service.cancelTrade(session, "test");
 
-            verify(player1.getWorld()).dropItemNaturally(eq(player1.getLocation()), eq(diamond));
+            TradeMailbox mailbox = UltiTradeTestHelper.getField(service, "mailbox");
+            verify(player1.getWorld(), never()).dropItemNaturally(any(), any());
+            assertThat(mailbox.count(uuid1)).isEqualTo(1);
+            verify(player1).sendMessage(contains("/trade claim"));
+        }
+
+        @Test
+        @DisplayName("cancelTrade should mail the items of an offline player")
+        void cancelOfflineMails() throws Exception {
+            TradeSession session = new TradeSession(player1, player2);
+            session.setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 64));
+            session.setItem(uuid2, 0, new ItemStack(Material.GOLD_INGOT, 5));
+
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(uuid1)).thenReturn(null);
+            when(server.getPlayer(uuid2)).thenReturn(player2);
+            when(player2.getInventory().addItem(any(ItemStack.class))).thenReturn(new HashMap<>());
+
+            service.cancelTrade(session, "test");
+
+            TradeMailbox mailbox = UltiTradeTestHelper.getField(service, "mailbox");
+            assertThat(mailbox.count(uuid1)).isEqualTo(1);
+            assertThat(mailbox.count(uuid2)).isZero();
+            assertThat(session.getState()).isEqualTo(TradeSession.TradeState.CANCELLED);
         }
 
         @Test
@@ -1607,4 +1708,682 @@ class TradeServiceTest {
             assertThat(tasks).isEmpty();
         }
     }
+
+    @Nested
+    @DisplayName("Metrics")
+    class Metrics {
+
+        private TradeSession openSession() throws Exception {
+            TradeSession session = new TradeSession(player1, player2);
+            Map<UUID, TradeSession> activeSessions = UltiTradeTestHelper.getField(service, "activeSessions");
+            activeSessions.put(session.getSessionId(), session);
+            return session;
+        }
+
+        @Test
+        @DisplayName("sendRequest should be timed and count only requests that were sent")
+        void sendRequest() {
+            service.sendRequest(player1, player2);
+            service.sendRequest(player1, player2);
+
+            assertThat(metrics.getSnapshot(TradeMetrics.Timer.SEND_REQUEST).getCount()).isEqualTo(2);
+            assertThat(metrics.getCount(TradeMetrics.Counter.REQUESTS_SENT)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("completeTrade should be timed and counted")
+        void completeTrade() throws Exception {
+            TradeSession session = openSession();
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(uuid1)).thenReturn(player1);
+            when(server.getPlayer(uuid2)).thenReturn(player2);
+
+            service.completeTrade(session);
+
+            assertThat(metrics.getSnapshot(TradeMetrics.Timer.COMPLETE_TRADE).getCount()).isEqualTo(1);
+            assertThat(metrics.getCount(TradeMetrics.Counter.TRADES_COMPLETED)).isEqualTo(1);
+            assertThat(metrics.getCount(TradeMetrics.Counter.TRADES_CANCELLED)).isZero();
+        }
+
+        @Test
+        @DisplayName("A trade cancelled inside completeTrade should count as cancelled")
+        void cancelledOnComplete() throws Exception {
+            service.completeTrade(openSession());
+
+            assertThat(metrics.getSnapshot(TradeMetrics.Timer.CANCEL_TRADE).getCount()).isEqualTo(1);
+            assertThat(metrics.getCount(TradeMetrics.Counter.TRADES_CANCELLED)).isEqualTo(1);
+            assertThat(metrics.getCount(TradeMetrics.Counter.TRADES_COMPLETED)).isZero();
+        }
+
+        @Test
+        @DisplayName("Cancelled trades should be counted by reason")
+        void cancelReasons() throws Exception {
+            service.completeTrade(openSession());
+            TradeSession session = openSession();
+            Map<UUID, UUID> playerSessionMap = UltiTradeTestHelper.getField(service, "playerSessionMap");
+            playerSessionMap.put(uuid1, session.getSessionId());
+            service.cancelTrade(player1);
+            service.cancelTrade(openSession(), "test");
+
+            assertThat(metrics.getCount(TradeMetrics.CancelReason.OFFLINE)).isEqualTo(1);
+            assertThat(metrics.getCount(TradeMetrics.CancelReason.PLAYER)).isEqualTo(1);
+            assertThat(metrics.getCount(TradeMetrics.CancelReason.OTHER)).isEqualTo(1);
+            assertThat(metrics.getCount(TradeMetrics.Counter.TRADES_CANCELLED)).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("completeTrade should count the experience tax")
+        void expTax() throws Exception {
+            when(config.isEnableExpTrade()).thenReturn(true);
+            when(config.getExpTaxRate()).thenReturn(0.1);
+            when(config.isEnableMoneyTrade()).thenReturn(false);
+            UltiTradeTestHelper.setField(service, "economy", null);
+            TradeSession session = openSession();
+            session.setExp(uuid1, 100);
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(uuid1)).thenReturn(player1);
+            when(server.getPlayer(uuid2)).thenReturn(player2);
+            when(player1.getLevel()).thenReturn(30);
+            when(player1.getExpToLevel()).thenReturn(50);
+
+            service.completeTrade(session);
+
+            assertThat(metrics.getCount(TradeMetrics.Counter.EXP_TAX_COLLECTED)).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("refreshGUIs should record a render")
+        void render() throws Exception {
+            service.refreshGUIs(openSession());
+
+            assertThat(metrics.getSnapshot(TradeMetrics.Timer.GUI_RENDER).getCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("init should publish session and request gauges")
+        void gauges() throws Exception {
+            when(config.isEnableMoneyTrade()).thenReturn(false);
+            service.init();
+            openSession();
+            Map<UUID, TradeRequest> pendingRequests = UltiTradeTestHelper.getField(service, "pendingRequests");
+            pendingRequests.put(uuid2, new TradeRequest(uuid1, uuid2));
+
+            assertThat(metrics.getGauge(TradeMetrics.Gauge.ACTIVE_SESSIONS)).isEqualTo(1);
+            assertThat(metrics.getGauge(TradeMetrics.Gauge.PENDING_REQUESTS)).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Deferred Work")
+    class DeferredWork {
+
+        @BeforeEach
+        void setUp() {
+            service.getTickScheduler().setBudgetMicros(2000);
+        }
+
+        private TradeSession openSession() throws Exception {
+            TradeSession session = new TradeSession(player1, player2);
+            Map<UUID, TradeSession> activeSessions = UltiTradeTestHelper.getField(service, "activeSessions");
+            Map<UUID, UUID> playerSessionMap = UltiTradeTestHelper.getField(service, "playerSessionMap");
+            activeSessions.put(session.getSessionId(), session);
+            playerSessionMap.put(uuid1, session.getSessionId());
+            playerSessionMap.put(uuid2, session.getSessionId());
+            return session;
+        }
+
+        @Test
+        @DisplayName("completeTrade should move items at once and send messages on the next drain")
+        void completeTrade() throws Exception {
+            TradeSession session = openSession();
+            ItemStack diamond = new ItemStack(Material.DIAMOND, 10);
+            session.setItem(uuid1, 0, diamond);
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(uuid1)).thenReturn(player1);
+            when(server.getPlayer(uuid2)).thenReturn(player2);
+            PlayerInventory inv2 = player2.getInventory();
+            when(inv2.addItem(any(ItemStack.class))).thenReturn(new HashMap<>());
+
+            service.completeTrade(session);
+
+            verify(inv2).addItem(diamond);
+            assertThat(session.getState()).isEqualTo(TradeSession.TradeState.COMPLETED);
+            verify(player1, never()).sendMessage(anyString());
+            assertThat(service.getTickScheduler().isEmpty()).isFalse();
+
+            service.runDeferredTasks();
+
+            verify(player1).sendMessage(anyString());
+            verify(player2).sendMessage(anyString());
+            assertThat(service.getTickScheduler().isEmpty()).isTrue();
+            assertThat(metrics.getSnapshot(TradeMetrics.Timer.DEFERRED_TASKS).getCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Repeated refreshGUIs calls should render once")
+        void coalesceRefresh() throws Exception {
+            TradeSession session = openSession();
+
+            service.refreshGUIs(session);
+            service.refreshGUIs(session);
+            service.refreshGUIs(session);
+
+            assertThat(metrics.getSnapshot(TradeMetrics.Timer.GUI_RENDER).getCount()).isZero();
+            service.runDeferredTasks();
+            assertThat(metrics.getSnapshot(TradeMetrics.Timer.GUI_RENDER).getCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("runDeferredTasks should do nothing when the queue is empty")
+        void emptyQueue() {
+            service.runDeferredTasks();
+
+            assertThat(metrics.getSnapshot(TradeMetrics.Timer.DEFERRED_TASKS).getCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("shutdown should flush queued side effects")
+        void shutdownFlushes() throws Exception {
+            TradeSession session = openSession();
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(uuid1)).thenReturn(player1);
+            service.cancelTrade(session, "test");
+            verify(player1, never()).sendMessage(anyString());
+
+            service.shutdown();
+
+            verify(player1).sendMessage(contains("test"));
+            assertThat(service.getTickScheduler().isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("init should apply the budget and publish the queue depth")
+        void init() throws Exception {
+            when(config.isEnableMoneyTrade()).thenReturn(false);
+            when(config.getTickBudgetMicros()).thenReturn(2000);
+            service.init();
+
+            service.refreshGUIs(openSession());
+
+            assertThat(metrics.getGauge(TradeMetrics.Gauge.DEFERRED_QUEUE)).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Effect Throttling")
+    class EffectThrottling {
+
+        @BeforeEach
+        void setUp() {
+            when(config.isEnableSounds()).thenReturn(true);
+            when(config.isEnableParticles()).thenReturn(true);
+            service.getEffects().setMaxParticlesPerChunk(60);
+        }
+
+        private TradeSession openSession() throws Exception {
+            TradeSession session = new TradeSession(player1, player2);
+            Map<UUID, TradeSession> activeSessions = UltiTradeTestHelper.getField(service, "activeSessions");
+            activeSessions.put(session.getSessionId(), session);
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(uuid1)).thenReturn(player1);
+            when(server.getPlayer(uuid2)).thenReturn(player2);
+            return session;
+        }
+
+        @Test
+        @DisplayName("Effects should wait for the next tick and respect the chunk cap")
+        void capped() throws Exception {
+            World world = player1.getWorld();
+            when(player2.getWorld()).thenReturn(world);
+            when(player2.getLocation()).thenAnswer(inv -> new Location(world, 101.5, 64.0, -201.5));
+
+            service.completeTrade(openSession());
+
+            verify(world, never()).spawnParticle(any(org.bukkit.Particle.class), any(Location.class),
+                anyInt(), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+
+            service.runDeferredTasks();
+
+            // Both players' bursts merge into one spawn; END_ROD no longer fits
+            verify(world).spawnParticle(eq(org.bukkit.Particle.VILLAGER_HAPPY), any(Location.class),
+                eq(60), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+            verify(world, never()).spawnParticle(eq(org.bukkit.Particle.END_ROD), any(Location.class),
+                anyInt(), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+            verify(player1).playSound(any(Location.class), eq(org.bukkit.Sound.ENTITY_PLAYER_LEVELUP), eq(1.0f), eq(1.0f));
+            assertThat(metrics.getCount(TradeMetrics.Counter.PARTICLES_DROPPED)).isEqualTo(30);
+        }
+
+        @Test
+        @DisplayName("Players with reduced effects should get no sounds or particles")
+        void reducedEffects() throws Exception {
+            when(logService.hasReducedEffects(uuid1)).thenReturn(true);
+
+            service.cancelTrade(openSession(), "test");
+            service.runDeferredTasks();
+
+            verify(player1, never()).playSound(any(Location.class), any(org.bukkit.Sound.class), anyFloat(), anyFloat());
+            verify(player1.getWorld(), never()).spawnParticle(any(org.bukkit.Particle.class), any(Location.class),
+                anyInt(), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+            verify(player2).playSound(any(Location.class), eq(org.bukkit.Sound.ENTITY_VILLAGER_NO), eq(1.0f), eq(1.0f));
+            assertThat(metrics.getCount(TradeMetrics.Counter.EFFECTS_DROPPED)).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("init should apply the configured cap")
+        void init() throws Exception {
+            service.getEffects().setMaxParticlesPerChunk(0);
+            when(config.isEnableMoneyTrade()).thenReturn(false);
+            when(config.getMaxParticlesPerChunk()).thenReturn(60);
+            service.init();
+
+            service.playSound(player1, org.bukkit.Sound.BLOCK_NOTE_BLOCK_PLING);
+
+            verify(player1, never()).playSound(any(Location.class), any(org.bukkit.Sound.class), anyFloat(), anyFloat());
+            assertThat(service.getEffects().isEmpty()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Reload")
+    class Reload {
+
+        @BeforeEach
+        void setUp() throws Exception {
+            UltiTradeTestHelper.setField(service, "plugin", UltiTradeTestHelper.getMockPlugin());
+        }
+
+        private TradeSession openSession(TradeConfigSnapshot settings) throws Exception {
+            TradeSession session = new TradeSession(player1, player2, settings);
+            Map<UUID, TradeSession> activeSessions = UltiTradeTestHelper.getField(service, "activeSessions");
+            Map<UUID, UUID> playerSessionMap = UltiTradeTestHelper.getField(service, "playerSessionMap");
+            activeSessions.put(session.getSessionId(), session);
+            playerSessionMap.put(uuid1, session.getSessionId());
+            playerSessionMap.put(uuid2, session.getSessionId());
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(uuid1)).thenReturn(player1);
+            when(server.getPlayer(uuid2)).thenReturn(player2);
+            return session;
+        }
+
+        @Test
+        @DisplayName("reload should swap in the new values as a whole")
+        void swapsSettings() {
+            when(config.getTradeTax()).thenReturn(0.1);
+            when(config.getGuiTitle()).thenReturn("&a新标题");
+
+            assertThat(service.reload()).isEmpty();
+
+            // Later edits to the live config are not seen until the next reload
+            when(config.getTradeTax()).thenReturn(0.3);
+            TradeConfigSnapshot settings = service.getSettings();
+            assertThat(settings.getTradeTax()).isEqualTo(0.1);
+            assertThat(settings.getGuiTitle()).isEqualTo("&a新标题");
+            assertThat(service.getLayout()).isSameAs(settings.getTradeLayout());
+        }
+
+        @Test
+        @DisplayName("A running trade should keep the settings it started with")
+        void sessionKeepsSnapshot() throws Exception {
+            when(config.isEnableExpTrade()).thenReturn(false);
+            service.reload();
+            TradeSession session = openSession(service.getSettings());
+            session.setMoney(uuid1, 100.0);
+
+            when(config.getTradeTax()).thenReturn(0.5);
+            service.reload();
+            service.completeTrade(session);
+
+            verify(economy).withdrawPlayer(player1, 100.0);
+            verify(economy).depositPlayer(player2, 100.0);
+            assertThat(service.getSettings().getTradeTax()).isEqualTo(0.5);
+        }
+
+        @Test
+        @DisplayName("Turning money trading off mid-trade should keep it for the running trade")
+        void moneyTurnedOff() throws Exception {
+            service.reload();
+            TradeSession session = openSession(service.getSettings());
+            session.setMoney(uuid1, 100.0);
+
+            when(config.isEnableMoneyTrade()).thenReturn(false);
+            service.reload();
+
+            assertThat(service.hasEconomy()).isFalse();
+            assertThat(service.hasEconomy(session)).isTrue();
+            service.completeTrade(session);
+            verify(economy).withdrawPlayer(player1, 100.0);
+        }
+
+        @Test
+        @DisplayName("Turning money trading on mid-trade should not offer money in the running trade")
+        void moneyTurnedOn() throws Exception {
+            when(config.isEnableMoneyTrade()).thenReturn(false);
+            service.reload();
+            TradeSession session = openSession(service.getSettings());
+
+            when(config.isEnableMoneyTrade()).thenReturn(true);
+            service.reload();
+
+            assertThat(service.hasEconomy()).isTrue();
+            assertThat(service.hasEconomy(session)).isFalse();
+        }
+
+        @Test
+        @DisplayName("startTrade should capture the current settings")
+        void startTradeCaptures() {
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(uuid1)).thenReturn(player1);
+            when(server.getPlayer(uuid2)).thenReturn(player2);
+            service.reload();
+
+            service.startTrade(player1, player2);
+
+            assertThat(service.getSession(uuid1).getSettings()).isSameAs(service.getSettings());
+        }
+
+        @Test
+        @DisplayName("An invalid config should be rejected and the old settings kept")
+        void rejectsInvalid() {
+            service.reload();
+            TradeConfigSnapshot before = service.getSettings();
+            when(config.getTradeTax()).thenReturn(1.5);
+            when(config.getTradeCompleteMessage()).thenReturn("");
+
+            List<String> problems = service.reload();
+
+            assertThat(problems).hasSize(2);
+            assertThat(service.getSettings()).isSameAs(before);
+            verify(UltiTradeTestHelper.getMockLogger(), times(2)).warn(startsWith("Reload rejected"));
+        }
+
+        @Test
+        @DisplayName("reload should warn and use one page when the layout has no page controls")
+        void legacyLayout() throws Exception {
+            com.ultikits.plugins.trade.config.TradeLayoutConfig layoutConfig =
+                mock(com.ultikits.plugins.trade.config.TradeLayoutConfig.class);
+            when(layoutConfig.getTradeWindowRows()).thenReturn(java.util.Arrays.asList(
+                "YYYY|TTTT", "YYYY|TTTT", "YYYY|TTTT", "YYYY|TTTT", "MSE_|_esm", "X###C####"));
+            when(layoutConfig.getConfirmPageRows()).thenReturn(com.ultikits.plugins.trade.gui.TradeLayout.DEFAULT_CONFIRM_ROWS);
+            UltiTradeTestHelper.setField(service, "layoutConfig", layoutConfig);
+            when(config.getOfferPages()).thenReturn(3);
+
+            assertThat(service.reload()).isEmpty();
+
+            assertThat(service.getSettings().getOfferPages()).isEqualTo(1);
+            verify(UltiTradeTestHelper.getMockLogger()).warn(contains("no '<' and '>' page controls"));
+        }
+
+        @Test
+        @DisplayName("reload should apply the tick budget and particle cap")
+        void appliesScheduling() {
+            when(config.getTickBudgetMicros()).thenReturn(2000);
+            when(config.getMaxParticlesPerChunk()).thenReturn(60);
+
+            service.reload();
+            service.playSound(player1, org.bukkit.Sound.BLOCK_NOTE_BLOCK_PLING);
+
+            verify(player1, never()).playSound(any(Location.class), any(org.bukkit.Sound.class), anyFloat(), anyFloat());
+            assertThat(service.getEffects().isEmpty()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Effects of a running trade should follow the settings it started with")
+        void effectsUseSessionSettings() throws Exception {
+            when(config.getTickBudgetMicros()).thenReturn(2000);
+            when(config.getMaxParticlesPerChunk()).thenReturn(60);
+            when(config.isEnableSounds()).thenReturn(false);
+            when(config.isEnableParticles()).thenReturn(false);
+            service.reload();
+            TradeSession session = openSession(service.getSettings());
+
+            when(config.isEnableSounds()).thenReturn(true);
+            when(config.isEnableParticles()).thenReturn(true);
+            service.reload();
+            service.playSound(session, player1, org.bukkit.Sound.BLOCK_NOTE_BLOCK_PLING);
+            service.cancelTrade(session, null);
+
+            assertThat(service.getEffects().isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("reload should hook the economy once money trading is enabled")
+        void hooksEconomy() throws Exception {
+            UltiTradeTestHelper.setField(service, "economy", null);
+
+            service.reload();
+
+            // No Vault on the test server, so the hook is attempted and reported
+            verify(UltiTradeTestHelper.getMockLogger()).warn("Vault not found! Money trading disabled.");
+            assertThat(service.hasEconomy()).isFalse();
+        }
+
+        @Test
+        @DisplayName("reload should pick up a replaced economy provider")
+        @SuppressWarnings("unchecked")
+        void replacesEconomy() {
+            Economy replaced = UltiTradeTestHelper.createMockEconomy();
+            org.bukkit.plugin.RegisteredServiceProvider<Economy> rsp =
+                mock(org.bukkit.plugin.RegisteredServiceProvider.class);
+            when(rsp.getProvider()).thenReturn(replaced);
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPluginManager().getPlugin("Vault")).thenReturn(mock(org.bukkit.plugin.Plugin.class));
+            when(server.getServicesManager().getRegistration(Economy.class)).thenReturn(rsp);
+
+            service.reload();
+
+            assertThat(service.getEconomy()).isSameAs(replaced);
+        }
+    }
+
+    @Nested
+    @DisplayName("Crash Recovery")
+    class CrashRecovery {
+
+        @TempDir
+        File dir;
+
+        private File file;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            file = new File(dir, "sessions.journal");
+            UltiTradeTestHelper.setField(service, "plugin", UltiTradeTestHelper.getMockPlugin());
+            org.bukkit.Server server = org.bukkit.Bukkit.getServer();
+            when(server.getPlayer(uuid1)).thenReturn(player1);
+            when(server.getPlayer(uuid2)).thenReturn(player2);
+            when(player1.getInventory().addItem(any(ItemStack.class))).thenReturn(new HashMap<>());
+            when(player2.getInventory().addItem(any(ItemStack.class))).thenReturn(new HashMap<>());
+        }
+
+        private TradeJournal journal() {
+            return new TradeJournal(file,
+                item -> item.getType().name() + "*" + item.getAmount(),
+                encoded -> {
+                    String[] parts = encoded.split("\\*");
+                    return new ItemStack(Material.valueOf(parts[0]), Integer.parseInt(parts[1]));
+                });
+        }
+
+        @Test
+        @DisplayName("startTrade should journal the session's offers")
+        void journalsSessions() throws Exception {
+            TradeJournal journal = journal();
+            UltiTradeTestHelper.setField(service, "journal", journal);
+
+            service.startTrade(player1, player2);
+            service.getSession(uuid1).setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+            service.syncJournal();
+
+            assertThat(journal().recover().getStacks()).isEqualTo(1);
+            assertThat(metrics.getSnapshot(TradeMetrics.Timer.JOURNAL_SYNC).getCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("shutdown should leave nothing to recover")
+        void shutdownEmpties() throws Exception {
+            UltiTradeTestHelper.setField(service, "journal", journal());
+            service.startTrade(player1, player2);
+            service.getSession(uuid1).setItem(uuid1, 0, new ItemStack(Material.DIAMOND, 10));
+
+            service.shutdown();
+
+            assertThat(file.length()).isZero();
+            assertThat(journal().recover().getSessions()).isZero();
+        }
+
+        @Test
+        @DisplayName("deliverRecovered should give the owner the items once")
+        void deliver() throws Exception {
+            UUID session = UUID.randomUUID();
+            Files.write(file.toPath(), ("O " + session + " " + uuid1 + " " + uuid2 + "\n"
+                + "I " + session + " " + uuid1 + " 0 DIAMOND*10\n").getBytes(StandardCharsets.UTF_8));
+            TradeJournal journal = journal();
+            journal.recover();
+            UltiTradeTestHelper.setField(service, "journal", journal);
+
+            service.deliverRecovered(player1);
+            service.deliverRecovered(player1);
+            service.deliverRecovered(player2);
+
+            verify(player1.getInventory(), times(1)).addItem(any(ItemStack.class));
+            verify(player1).sendMessage(contains("1 组物品已退还"));
+            verify(player2, never()).sendMessage(anyString());
+        }
+
+        @Test
+        @DisplayName("playerDataSavedAt should read the player data file of the main world")
+        void playerDataSavedAt() throws Exception {
+            assertThat(TradeService.playerDataSavedAt(uuid1)).isEqualTo(Long.MAX_VALUE);
+
+            World world = mock(World.class);
+            when(world.getWorldFolder()).thenReturn(dir);
+            when(org.bukkit.Bukkit.getServer().getWorlds()).thenReturn(java.util.Collections.singletonList(world));
+            File data = new File(dir, "playerdata/" + uuid1 + ".dat");
+            Files.createDirectories(data.getParentFile().toPath());
+            Files.write(data.toPath(), new byte[]{1});
+            assertThat(data.setLastModified(1_600_000_000_000L)).isTrue();
+
+            assertThat(TradeService.playerDataSavedAt(uuid1)).isEqualTo(1_600_000_000_000L);
+            assertThat(TradeService.playerDataSavedAt(uuid2)).isEqualTo(Long.MAX_VALUE);
+        }
+
+        @Test
+        @DisplayName("deliverRecovered should do nothing without a journal")
+        void noJournal() {
+            service.deliverRecovered(player1);
+
+            verify(player1, never()).sendMessage(anyString());
+        }
+
+        @Test
+        @DisplayName("An unreadable journal should be left alone and journaling disabled")
+        void unreadable() throws Exception {
+            service.openJournal(dir);
+
+            verify(UltiTradeTestHelper.getMockLogger()).warn(any(Throwable.class), contains("crash recovery disabled"));
+            assertThat((Object) UltiTradeTestHelper.getField(service, "journal")).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Mailbox")
+    class Mailbox {
+
+        private TradeMailbox mailbox;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            UltiTradeTestHelper.setField(service, "plugin", UltiTradeTestHelper.getMockPlugin());
+            mailbox = UltiTradeTestHelper.getField(service, "mailbox");
+            mailbox.deposit(uuid1, java.util.Collections.singletonList(new ItemStack(Material.DIAMOND, 10)),
+                TradeMailbox.Source.TRADE);
+        }
+
+        @Test
+        @DisplayName("claimMail should hand over the mail and say how much")
+        void claim() {
+            when(player1.getInventory().addItem(any(ItemStack.class))).thenReturn(new HashMap<>());
+
+            TradeMailbox.Claim claim = service.claimMail(player1);
+
+            assertThat(claim.getDelivered()).isEqualTo(1);
+            assertThat(mailbox.count(uuid1)).isZero();
+            verify(player1).sendMessage(contains("已从交易邮箱领取 1 组物品"));
+        }
+
+        @Test
+        @DisplayName("claimMail should say what is left when the inventory is full")
+        void full() {
+            HashMap<Integer, ItemStack> overflow = new HashMap<>();
+            overflow.put(0, new ItemStack(Material.DIAMOND, 10));
+            when(player1.getInventory().addItem(any(ItemStack.class))).thenReturn(overflow);
+
+            service.claimMail(player1);
+
+            assertThat(mailbox.count(uuid1)).isEqualTo(1);
+            verify(player1).sendMessage(contains("交易邮箱中还有 1 组物品"));
+        }
+
+        @Test
+        @DisplayName("claimMail should stay quiet for an empty mailbox")
+        void empty() {
+            service.claimMail(player2);
+
+            verify(player2, never()).sendMessage(anyString());
+        }
+
+        @Test
+        @DisplayName("flushMailbox should log only the first of a run of failures")
+        @SuppressWarnings("unchecked")
+        void flushFailures() {
+            com.ultikits.ultitools.interfaces.DataOperator<com.ultikits.plugins.trade.entity.TradeMailItem> operator =
+                mock(com.ultikits.ultitools.interfaces.DataOperator.class);
+            doThrow(new IllegalStateException("database down")).when(operator).insert(any());
+            mailbox.open(operator);
+
+            service.flushMailbox();
+            service.flushMailbox();
+
+            verify(UltiTradeTestHelper.getMockLogger(), times(1))
+                .warn(any(Throwable.class), contains("Failed to save trade mailbox"));
+            verify(operator, times(2)).insert(any());
+        }
+
+        @Test
+        @DisplayName("syncJournal should journal a closed trade only once its mail is saved")
+        @SuppressWarnings("unchecked")
+        void syncJournalSavesMailFirst(@TempDir File dir) throws Exception {
+            com.ultikits.ultitools.interfaces.DataOperator<com.ultikits.plugins.trade.entity.TradeMailItem> operator =
+                mock(com.ultikits.ultitools.interfaces.DataOperator.class);
+            doThrow(new IllegalStateException("database down")).doNothing().when(operator).insert(any());
+            mailbox.open(operator);
+            File file = new File(dir, "sessions.journal");
+            TradeJournal journal = new TradeJournal(file,
+                item -> item.getType().name() + "*" + item.getAmount(),
+                encoded -> {
+                    String[] parts = encoded.split("\\*");
+                    return new ItemStack(Material.valueOf(parts[0]), Integer.parseInt(parts[1]));
+                });
+            UltiTradeTestHelper.setField(service, "journal", journal);
+            journal.open(new TradeSession(player1, player2));
+
+            service.syncJournal();
+
+            assertThat(file).doesNotExist();
+
+            service.syncJournal();
+
+            verify(operator, times(2)).insert(any());
+            assertThat(file.length()).isPositive();
+        }
+
+        @Test
+        @DisplayName("init should publish the mailbox gauge")
+        void gauge() {
+            when(config.isEnableMoneyTrade()).thenReturn(false);
+            service.init();
+
+            assertThat(metrics.getGauge(TradeMetrics.Gauge.MAILBOX_ITEMS)).isEqualTo(1);
+        }
+    }
 }